@@ -36,6 +36,42 @@
 #include <curl/curl.h>
 #undef CURL_DISABLE_TYPECHECK
 
+#ifdef HAVE_LIBZSTD
+#include <zstd.h>
+#endif
+#ifdef HAVE_LIBLZ4
+#include <lz4frame.h>
+#endif
+
+/*
+ * PXF compresses the data it sends with one of the codecs listed by the
+ * client in the accept encoding header, and names the codec it used in the
+ * content encoding header of the response
+ */
+#define ACCEPT_ENCODING_HEADER "X-GP-ACCEPT-ENCODING"
+#define CONTENT_ENCODING_HEADER "X-GP-CONTENT-ENCODING"
+
+#if defined(HAVE_LIBZSTD) && defined(HAVE_LIBLZ4)
+#define CHURL_ACCEPT_ENCODING "zstd, lz4"
+#elif defined(HAVE_LIBZSTD)
+#define CHURL_ACCEPT_ENCODING "zstd"
+#elif defined(HAVE_LIBLZ4)
+#define CHURL_ACCEPT_ENCODING "lz4"
+#endif
+
+/* space reserved in the download buffer for each decompression step */
+#define DECOMPRESSION_CHUNK_SIZE (128 * 1024)
+
+/*
+ * compression of the downloaded data
+ */
+typedef enum churl_compression
+{
+	CHURL_COMPRESSION_NONE = 0,
+	CHURL_COMPRESSION_ZSTD,
+	CHURL_COMPRESSION_LZ4
+} churl_compression;
+
 /*
  * internal buffer for libchurl internal context
  */
@@ -85,6 +121,30 @@ typedef struct churl_handle
 
 	/* true on upload, false on download */
 	bool		upload;
+
+	/* compression of the downloaded data, as announced by the response */
+	churl_compression compression;
+
+	/*
+	 * true when the compressed data received so far ends in the middle of a
+	 * frame
+	 */
+	bool		compressed_frame_incomplete;
+
+#ifdef HAVE_LIBZSTD
+	ZSTD_DStream *zstd_stream;
+#endif
+#ifdef HAVE_LIBLZ4
+	LZ4F_dctx  *lz4_context;
+#endif
+
+	/*
+	 * error raised by a libcurl callback, which cannot be reported with
+	 * elog(ERROR) from the callback itself without leaving libcurl in an
+	 * inconsistent state. The callback makes libcurl abort the transfer and
+	 * the error is reported once libcurl returns.
+	 */
+	char	   *callback_error;
 } churl_context;
 
 /*
@@ -125,6 +185,11 @@ void		realloc_internal_buffer(churl_buffer *buffer, size_t required);
 bool		handle_special_error(long response, StringInfo err);
 char	   *get_http_error_msg(long http_ret_code, char *msg, char *curl_error_buffer);
 char	   *build_header_str(const char *format, const char *key, const char *value);
+static bool		set_response_compression(churl_context *context, const char *value, int length);
+static bool		decompress_into_internal_buffer(churl_context *context, const char *data, size_t size);
+static void		reserve_internal_buffer(churl_buffer *buffer, size_t required);
+static bool		decompression_finished(churl_context *context);
+static void		cleanup_decompression(churl_context *context);
 
 
 /*
@@ -396,6 +461,10 @@ churl_init_download(const char *url, CHURL_HEADERS headers)
 
 	context->upload = false;
 
+#ifdef CHURL_ACCEPT_ENCODING
+	churl_headers_override(headers, ACCEPT_ENCODING_HEADER, CHURL_ACCEPT_ENCODING);
+#endif
+
 	print_http_headers(headers);
 	setup_multi_handle(context);
 	return (CHURL_HANDLE) context;
@@ -418,6 +487,9 @@ churl_download_restart(CHURL_HANDLE handle, const char *url, CHURL_HEADERS heade
 	if (headers)
 		churl_headers_set(context, headers);
 
+	/* the new response announces its own compression */
+	cleanup_decompression(context);
+
 	/* restart */
 	setup_multi_handle(context);
 }
@@ -496,6 +568,8 @@ void
 churl_cleanup(CHURL_HANDLE handle, bool after_error)
 {
 	churl_context *context = (churl_context *) handle;
+	bool		truncated = false;
+	char	   *truncated_from = NULL;
 
 	if (!context)
 		return;
@@ -506,13 +580,24 @@ churl_cleanup(CHURL_HANDLE handle, bool after_error)
 		if (context->upload)
 			finish_upload(context);
 		else
+		{
 			churl_read_check_connectivity(handle);
+			truncated = !decompression_finished(context);
+			if (truncated)
+				truncated_from = get_dest_address(context->curl_handle);
+		}
 	}
 
+	cleanup_decompression(context);
 	cleanup_curl_handle(context);
 	cleanup_internal_buffer(context->download_buffer);
 	cleanup_internal_buffer(context->upload_buffer);
 	churl_cleanup_context(context);
+
+	/* reported once the handles and the decompression state are released */
+	if (truncated)
+		elog(ERROR, "compressed data from remote component %s ended unexpectedly",
+			 truncated_from ? truncated_from : "");
 }
 
 churl_context *
@@ -607,6 +692,14 @@ multi_perform(churl_context *context)
 	while (CURLM_CALL_MULTI_PERFORM ==
 		   (curl_error = curl_multi_perform(context->multi_handle, &context->curl_still_running)));
 
+	if (context->callback_error)
+	{
+		char	   *error = context->callback_error;
+
+		context->callback_error = NULL;
+		elog(ERROR, "%s", error);
+	}
+
 	if (curl_error != CURLM_OK)
 		elog(ERROR, "internal error: curl_multi_perform failed (%d - %s)",
 			 curl_error, curl_easy_strerror(curl_error));
@@ -755,6 +848,8 @@ churl_cleanup_context(churl_context *context)
  * Called by libcurl perform during a download.
  * Stores data from libcurl's buffer into the internal buffer.
  * If internal buffer is not large enough, increases it.
+ * Returns 0 to abort the transfer when the data cannot be decompressed,
+ * the error is reported by multi_perform.
  */
 size_t
 write_callback(char *buffer, size_t size, size_t nitems, void *userp)
@@ -763,6 +858,9 @@ write_callback(char *buffer, size_t size, size_t nitems, void *userp)
 	churl_buffer *context_buffer = context->download_buffer;
 	const int	nbytes = size * nitems;
 
+	if (context->compression != CHURL_COMPRESSION_NONE)
+		return decompress_into_internal_buffer(context, buffer, nbytes) ? nbytes : 0;
+
 	if (!internal_buffer_large_enough(context_buffer, nbytes))
 	{
 		compact_internal_buffer(context_buffer);
@@ -1142,13 +1240,22 @@ free_http_response(churl_context *context)
 
 /*
  * Called during a perform by libcurl on either download or an upload.
- * Stores the first line of the header for error reporting
+ * Stores the first line of the header for error reporting.
+ * Returns 0 to abort the transfer when the data is compressed with an
+ * unsupported codec, the error is reported by multi_perform.
  */
 size_t
 header_callback(char *buffer, size_t size, size_t nitems, void *userp)
 {
 	const int	nbytes = size * nitems;
 	churl_context *context = (churl_context *) userp;
+	const int	prefix_len = strlen(CONTENT_ENCODING_HEADER ":");
+
+	/* the compression of the data is announced before any of it is received */
+	if (nbytes > prefix_len &&
+		pg_strncasecmp(buffer, CONTENT_ENCODING_HEADER ":", prefix_len) == 0 &&
+		!set_response_compression(context, buffer + prefix_len, nbytes - prefix_len))
+		return 0;
 
 	if (context->last_http_reponse)
 		return nbytes;
@@ -1205,3 +1312,201 @@ handle_special_error(long response, StringInfo err)
 	}
 	return true;
 }
+
+/*
+ * Sets the compression of the downloaded data from the value of the content
+ * encoding header. Called from a libcurl callback, returns false with the
+ * error in callback_error when the codec is not supported.
+ */
+static bool
+set_response_compression(churl_context *context, const char *value, int length)
+{
+	char	   *codec;
+
+	/* trim the spaces around the value and the line break */
+	while (length > 0 && (*value == ' ' || *value == '\t'))
+	{
+		value++;
+		length--;
+	}
+	while (length > 0 && strchr(" \t\r\n", value[length - 1]) != NULL)
+		length--;
+
+	codec = pnstrdup(value, length);
+	elog(DEBUG2, "remote component sends data compressed with %s", codec);
+
+#ifdef HAVE_LIBZSTD
+	if (pg_strcasecmp(codec, "zstd") == 0)
+		context->compression = CHURL_COMPRESSION_ZSTD;
+	else
+#endif
+#ifdef HAVE_LIBLZ4
+	if (pg_strcasecmp(codec, "lz4") == 0)
+		context->compression = CHURL_COMPRESSION_LZ4;
+	else
+#endif
+	{
+		context->callback_error = psprintf("remote component sent data compressed with unsupported codec '%s'", codec);
+		pfree(codec);
+		return false;
+	}
+
+	pfree(codec);
+	return true;
+}
+
+/*
+ * Decompresses data received from libcurl into the internal download buffer.
+ * Decompression continues until all the data is consumed and the decompressor
+ * has no more output buffered. Called from a libcurl callback, returns false
+ * with the error in callback_error when the data cannot be decompressed.
+ */
+static bool
+decompress_into_internal_buffer(churl_context *context, const char *data, size_t size)
+{
+	churl_buffer *context_buffer = context->download_buffer;
+	size_t		offset = 0;
+	bool		output_full = true;
+
+	while (offset < size || output_full)
+	{
+		size_t		capacity;
+		size_t		produced = 0;
+		size_t		ret = 0;
+
+		/* leave room for the terminator added when reporting errors */
+		reserve_internal_buffer(context_buffer, DECOMPRESSION_CHUNK_SIZE + 1);
+		capacity = context_buffer->max - context_buffer->top - 1;
+
+		switch (context->compression)
+		{
+#ifdef HAVE_LIBZSTD
+			case CHURL_COMPRESSION_ZSTD:
+				{
+					ZSTD_inBuffer input = {data, size, offset};
+					ZSTD_outBuffer output = {context_buffer->ptr + context_buffer->top, capacity, 0};
+
+					if (!context->zstd_stream)
+					{
+						context->zstd_stream = ZSTD_createDStream();
+						if (!context->zstd_stream)
+						{
+							context->callback_error = pstrdup("internal error: ZSTD_createDStream failed");
+							return false;
+						}
+						ret = ZSTD_initDStream(context->zstd_stream);
+						if (ZSTD_isError(ret))
+						{
+							context->callback_error = psprintf("internal error: ZSTD_initDStream failed (%s)",
+															   ZSTD_getErrorName(ret));
+							return false;
+						}
+					}
+
+					ret = ZSTD_decompressStream(context->zstd_stream, &output, &input);
+					if (ZSTD_isError(ret))
+					{
+						context->callback_error = psprintf("failed to decompress data from remote component %s: %s",
+														   get_dest_address(context->curl_handle), ZSTD_getErrorName(ret));
+						return false;
+					}
+
+					offset = input.pos;
+					produced = output.pos;
+					break;
+				}
+#endif
+#ifdef HAVE_LIBLZ4
+			case CHURL_COMPRESSION_LZ4:
+				{
+					size_t		consumed = size - offset;
+
+					produced = capacity;
+					if (!context->lz4_context)
+					{
+						ret = LZ4F_createDecompressionContext(&context->lz4_context, LZ4F_VERSION);
+						if (LZ4F_isError(ret))
+						{
+							context->callback_error = psprintf("internal error: LZ4F_createDecompressionContext failed (%s)",
+															   LZ4F_getErrorName(ret));
+							return false;
+						}
+					}
+
+					ret = LZ4F_decompress(context->lz4_context,
+										  context_buffer->ptr + context_buffer->top, &produced,
+										  data + offset, &consumed, NULL);
+					if (LZ4F_isError(ret))
+					{
+						context->callback_error = psprintf("failed to decompress data from remote component %s: %s",
+														   get_dest_address(context->curl_handle), LZ4F_getErrorName(ret));
+						return false;
+					}
+
+					offset += consumed;
+					break;
+				}
+#endif
+			default:
+				context->callback_error = psprintf("internal error: unexpected compression %d", context->compression);
+				return false;
+		}
+
+		context_buffer->top += produced;
+		output_full = (produced == capacity);
+
+		/* a zero hint means the decompressor is at the end of a frame */
+		context->compressed_frame_incomplete = (ret != 0);
+	}
+	return true;
+}
+
+/*
+ * Makes room for required bytes at the top of the buffer, compacting or
+ * enlarging it when needed.
+ */
+static void
+reserve_internal_buffer(churl_buffer *buffer, size_t required)
+{
+	if (!internal_buffer_large_enough(buffer, required))
+	{
+		compact_internal_buffer(buffer);
+		if (!internal_buffer_large_enough(buffer, required))
+			realloc_internal_buffer(buffer, required);
+	}
+}
+
+/*
+ * Checks that the compressed data did not end in the middle of a frame, which
+ * would mean that the transfer was cut short.
+ */
+static bool
+decompression_finished(churl_context *context)
+{
+	return context->compression == CHURL_COMPRESSION_NONE || !context->compressed_frame_incomplete;
+}
+
+/*
+ * Releases the decompression state, which is allocated outside of the memory
+ * contexts by the compression libraries.
+ */
+static void
+cleanup_decompression(churl_context *context)
+{
+#ifdef HAVE_LIBZSTD
+	if (context->zstd_stream)
+	{
+		ZSTD_freeDStream(context->zstd_stream);
+		context->zstd_stream = NULL;
+	}
+#endif
+#ifdef HAVE_LIBLZ4
+	if (context->lz4_context)
+	{
+		LZ4F_freeDecompressionContext(context->lz4_context);
+		context->lz4_context = NULL;
+	}
+#endif
+	context->compression = CHURL_COMPRESSION_NONE;
+	context->compressed_frame_incomplete = false;
+}
@@ -74,6 +74,10 @@ PxfBridgeImportStart(PxfFdwScanState *pxfsstate)
 					 pxfsstate->filter_str,
 					 pxfsstate->retrieved_attrs);
 
+	/* hosts of the segments, used by PXF for locality-aware distribution of the fragments */
+	if (pxfsstate->segment_hosts != NULL && pxfsstate->segment_hosts[0] != '\0')
+		churl_headers_append(pxfsstate->churl_headers, "X-GP-SEGMENT-HOSTS", pxfsstate->segment_hosts);
+
 	pxfsstate->churl_handle = churl_init_download(pxfsstate->uri.data, pxfsstate->churl_headers);
 
 	/* read some bytes to make sure the connection is established */
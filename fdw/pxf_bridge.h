@@ -50,6 +50,7 @@ typedef struct PxfFdwScanState
 	List	   *quals;
 #endif
 	List	   *retrieved_attrs;
+	char	   *segment_hosts;
 	PxfOptions *options;
 	CopyState	cstate;
 } PxfFdwScanState;
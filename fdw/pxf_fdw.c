@@ -17,6 +17,7 @@
 #include "access/table.h"
 #endif
 #include "cdb/cdbsreh.h"
+#include "cdb/cdbutil.h"
 #include "cdb/cdbvars.h"
 #include "commands/copy.h"
 #include "commands/defrem.h"
@@ -87,6 +88,7 @@ static int	pxfIsForeignRelUpdatable(Relation rel);
  * Helper functions
  */
 static void InitCopyState(PxfFdwScanState *pxfsstate);
+static char *GetSegmentHosts(void);
 static void InitCopyStateForModify(PxfFdwModifyState *pxfmstate);
 static CopyState BeginCopyTo(Relation forrel, List *options);
 
@@ -167,6 +169,7 @@ typedef struct PxfFdwRelationInfo
  *
  * 1) WHERE clause text to be sent to the remote server
  * 2) Integer list of attribute numbers retrieved by the SELECT
+ * 3) Comma-separated hosts of the primary segments, ordered by segment id
  *
  * These items are indexed with the enum FdwScanPrivateIndex, so an item
  * can be fetched with list_nth().  For example, to get the WHERE clauses:
@@ -177,7 +180,9 @@ enum FdwScanPrivateIndex
 	/* WHERE clauses to be sent to PXF (as a String node) */
 	FdwScanPrivateWhereClauses,
 	/* Integer list of attribute numbers retrieved by the SELECT */
-	FdwScanPrivateRetrievedAttrs
+	FdwScanPrivateRetrievedAttrs,
+	/* Hosts of the segments (as a String node) */
+	FdwScanPrivateSegmentHosts
 };
 
 /*
@@ -333,7 +338,9 @@ pxfGetForeignPlan(PlannerInfo *root,
 	 * Build the fdw_private list that will be available to the executor.
 	 * Items in the list must match enum FdwScanPrivateIndex, above.
 	 */
-	fdw_private = list_make2(makeString(where_clauses_str), fpinfo->retrieved_attrs);
+	fdw_private = list_make3(makeString(where_clauses_str),
+							 fpinfo->retrieved_attrs,
+							 makeString(GetSegmentHosts()));
 
 	elog(DEBUG5, "pxf_fdw: pxfGetForeignPlan ends on segment: %d", PXF_SEGMENT_ID);
 
@@ -396,6 +403,7 @@ pxfBeginForeignScan(ForeignScanState *node, int eflags)
 	/* retrieve fdw-private information from pxfGetForeignPlan() */
 	char *filter_str              = strVal(list_nth(foreignScan->fdw_private, FdwScanPrivateWhereClauses));
 	List *retrieved_attrs = (List *) list_nth(foreignScan->fdw_private, FdwScanPrivateRetrievedAttrs);
+	char *segment_hosts           = strVal(list_nth(foreignScan->fdw_private, FdwScanPrivateSegmentHosts));
 
 	if (Gp_role == GP_ROLE_DISPATCH)
 	{
@@ -414,6 +422,7 @@ pxfBeginForeignScan(ForeignScanState *node, int eflags)
 	pxfsstate->quals = quals;
 	pxfsstate->relation = relation;
 	pxfsstate->retrieved_attrs = retrieved_attrs;
+	pxfsstate->segment_hosts = segment_hosts;
 
 	InitCopyState(pxfsstate);
 	node->fdw_state = (void *) pxfsstate;
@@ -683,6 +692,59 @@ pxfIsForeignRelUpdatable(Relation rel)
 	return 1u << (unsigned int) CMD_INSERT | 0u << (unsigned int) CMD_UPDATE | 0u << (unsigned int) CMD_DELETE;
 }
 
+/*
+ * Returns the hosts of the primary segments as a comma-separated list ordered
+ * by segment id, or an empty string if the hosts of some segments are unknown.
+ * The list is built by the coordinator when planning the scan and sent to PXF
+ * by the segments, so that PXF can assign fragments to the segments running
+ * on the hosts that store their data.
+ */
+static char *
+GetSegmentHosts(void)
+{
+	CdbComponentDatabases *cdbs;
+	int			total_segments;
+	char	  **hosts;
+	StringInfoData buf;
+	int			i;
+
+	/* the layout of the cluster is only known to the coordinator */
+	if (Gp_role != GP_ROLE_DISPATCH)
+		return pstrdup("");
+
+	cdbs = cdbcomponent_getCdbComponents();
+	total_segments = cdbs->total_segments;
+	if (total_segments <= 0)
+		return pstrdup("");
+
+	hosts = (char **) palloc0(total_segments * sizeof(char *));
+	for (i = 0; i < cdbs->total_segment_dbs; i++)
+	{
+		CdbComponentDatabaseInfo *cdi = &cdbs->segment_db_info[i];
+		int			segindex = cdi->config->segindex;
+
+		if (SEGMENT_IS_ACTIVE_PRIMARY(cdi) && segindex >= 0 && segindex < total_segments)
+			hosts[segindex] = cdi->config->hostname;
+	}
+
+	initStringInfo(&buf);
+	for (i = 0; i < total_segments; i++)
+	{
+		if (hosts[i] == NULL || strchr(hosts[i], ',') != NULL)
+		{
+			pfree(hosts);
+			resetStringInfo(&buf);
+			return buf.data;
+		}
+		if (i > 0)
+			appendStringInfoChar(&buf, ',');
+		appendStringInfoString(&buf, hosts[i]);
+	}
+	pfree(hosts);
+
+	return buf.data;
+}
+
 /*
  * Initiates a copy state for pxfBeginForeignScan() and pxfReScanForeignScan()
  */
@@ -0,0 +1,102 @@
+package org.greenplum.pxf.api.io;
+
+/**
+ * A batch of rows stored column by column. There is one {@link ColumnVector}
+ * for every column of the Greenplum table, in the order of the table definition.
+ * Columns that are not projected or missing in the data source are expected to
+ * be all nulls.
+ * <p>
+ * The rows of the batch can be a selection of the rows of the vectors, for
+ * data sources that filter rows without compacting their vectors. The size of
+ * the batch is then the number of selected rows, see {@link #getRow(int)}.
+ */
+public class ColumnBatch {
+
+    private final ColumnVector[] columns;
+    private final int capacity;
+    private int size;
+    private int[] selected;
+    private boolean selectedInUse;
+
+    /**
+     * Creates a new batch for the given Greenplum column types.
+     *
+     * @param dataTypes the Greenplum types of the columns
+     * @param capacity  the maximum number of rows in the batch
+     */
+    public ColumnBatch(DataType[] dataTypes, int capacity) {
+        this.capacity = capacity;
+        this.columns = new ColumnVector[dataTypes.length];
+        for (int i = 0; i < dataTypes.length; i++) {
+            columns[i] = new ColumnVector(dataTypes[i], capacity);
+        }
+    }
+
+    /**
+     * Resets all the columns and sets the number of rows to zero, so that
+     * the batch can be refilled.
+     */
+    public void reset() {
+        for (ColumnVector column : columns) {
+            column.reset();
+        }
+        size = 0;
+        selected = null;
+        selectedInUse = false;
+    }
+
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of rows in the batch.
+     *
+     * @param size the number of rows, can not exceed the capacity
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException(String.format(
+                    "Batch size %d is out of range, capacity is %d", size, capacity));
+        }
+        this.size = size;
+    }
+
+    /**
+     * Restricts the rows of the batch to the given rows of the vectors, the
+     * array is used without copying it.
+     *
+     * @param selected      the indexes of the selected rows in the vectors, in ascending order
+     * @param selectedInUse true if only the selected rows are part of the batch
+     */
+    public void setSelected(int[] selected, boolean selectedInUse) {
+        this.selected = selected;
+        this.selectedInUse = selectedInUse;
+    }
+
+    public boolean isSelectedInUse() {
+        return selectedInUse;
+    }
+
+    /**
+     * Returns the index in the vectors of the given row of the batch.
+     *
+     * @param index the row of the batch, less than the size of the batch
+     * @return the row of the vectors
+     */
+    public int getRow(int index) {
+        return selectedInUse ? selected[index] : index;
+    }
+}
@@ -0,0 +1,275 @@
+package org.greenplum.pxf.api.io;
+
+import java.util.Arrays;
+
+/**
+ * Holds the values of a single column for all rows of a {@link ColumnBatch}
+ * in primitive arrays, along with a null bitmap. The storage used depends on
+ * the Greenplum type of the column:
+ * <ul>
+ *     <li>BIGINT, INTEGER, SMALLINT and BOOLEAN (0 or 1) values are stored in a {@code long[]}</li>
+ *     <li>FLOAT8 and REAL values are stored in a {@code double[]}</li>
+ *     <li>BYTEA and all text-form values are stored as references to byte ranges,
+ *     text values are UTF-8 encoded</li>
+ * </ul>
+ * The arrays can either be owned by the vector and filled using the per-row setters,
+ * or be borrowed from the data source, so that the values are never copied.
+ */
+public class ColumnVector {
+
+    /**
+     * The kind of storage used for the column values.
+     */
+    public enum Storage {
+        LONG,
+        DOUBLE,
+        BYTES
+    }
+
+    private final DataType dataType;
+    private final Storage storage;
+    private final int capacity;
+    private final long[] nullBits;
+
+    private long[] longValues;
+    private double[] doubleValues;
+    private byte[][] bytesValues;
+    private int[] bytesStart;
+    private int[] bytesLength;
+
+    private boolean ownsBytes = false;
+    private boolean noNulls = true;
+    private boolean repeating = false;
+
+    /**
+     * Creates a new vector for the given Greenplum type.
+     *
+     * @param dataType the Greenplum type of the values
+     * @param capacity the maximum number of rows
+     */
+    public ColumnVector(DataType dataType, int capacity) {
+        this.dataType = dataType;
+        this.storage = getStorage(dataType);
+        this.capacity = capacity;
+        this.nullBits = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * Returns the kind of storage used for the values of the given Greenplum type.
+     *
+     * @param dataType the Greenplum type
+     * @return the storage for the type
+     */
+    public static Storage getStorage(DataType dataType) {
+        switch (dataType) {
+            case BIGINT:
+            case INTEGER:
+            case SMALLINT:
+            case BOOLEAN:
+                return Storage.LONG;
+            case FLOAT8:
+            case REAL:
+                return Storage.DOUBLE;
+            default:
+                return Storage.BYTES;
+        }
+    }
+
+    public DataType getDataType() {
+        return dataType;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Clears the nulls and the repeating flag, so that the vector can be refilled.
+     * References to the buffers of the previous batch are released.
+     */
+    public void reset() {
+        if (!noNulls) {
+            Arrays.fill(nullBits, 0L);
+            noNulls = true;
+        }
+        repeating = false;
+        if (ownsBytes) {
+            Arrays.fill(bytesValues, null);
+        } else {
+            bytesValues = null;
+            bytesStart = null;
+            bytesLength = null;
+        }
+    }
+
+    /**
+     * Marks whether all rows of the vector have the value (or null) of the first row.
+     *
+     * @param repeating true if the value of the first row applies to all rows
+     */
+    public void setRepeating(boolean repeating) {
+        this.repeating = repeating;
+    }
+
+    public boolean isRepeating() {
+        return repeating;
+    }
+
+    /**
+     * Returns true if none of the rows is null.
+     *
+     * @return true if there are no nulls in the vector
+     */
+    public boolean hasNoNulls() {
+        return noNulls;
+    }
+
+    /**
+     * Marks the given row as null.
+     *
+     * @param row the row index
+     */
+    public void setNull(int row) {
+        nullBits[row >>> 6] |= 1L << row;
+        noNulls = false;
+    }
+
+    /**
+     * Marks the rows flagged in the given array as null.
+     *
+     * @param isNull array of null flags
+     * @param size   the number of rows to consider
+     */
+    public void setNulls(boolean[] isNull, int size) {
+        for (int row = 0; row < size; row++) {
+            if (isNull[row]) {
+                setNull(row);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the value at the given row is null.
+     *
+     * @param row the row index
+     * @return true if the value is null
+     */
+    public boolean isNull(int row) {
+        if (noNulls) {
+            return false;
+        }
+        int r = repeating ? 0 : row;
+        return (nullBits[r >>> 6] & (1L << r)) != 0;
+    }
+
+    /**
+     * Uses the given array as the storage of the values, without copying it.
+     *
+     * @param values the values
+     */
+    public void setLongValues(long[] values) {
+        ensureStorage(Storage.LONG);
+        this.longValues = values;
+    }
+
+    /**
+     * Uses the given array as the storage of the values, without copying it.
+     *
+     * @param values the values
+     */
+    public void setDoubleValues(double[] values) {
+        ensureStorage(Storage.DOUBLE);
+        this.doubleValues = values;
+    }
+
+    /**
+     * Uses the given arrays as the storage of the values, without copying them.
+     *
+     * @param values the buffers holding the values
+     * @param start  the offsets of the values in the buffers
+     * @param length the lengths of the values
+     */
+    public void setBytesValues(byte[][] values, int[] start, int[] length) {
+        ensureStorage(Storage.BYTES);
+        this.ownsBytes = false;
+        this.bytesValues = values;
+        this.bytesStart = start;
+        this.bytesLength = length;
+    }
+
+    /**
+     * Sets the value at the given row.
+     *
+     * @param row   the row index
+     * @param value the value
+     */
+    public void setLong(int row, long value) {
+        if (longValues == null) {
+            setLongValues(new long[capacity]);
+        }
+        longValues[row] = value;
+    }
+
+    /**
+     * Sets the value at the given row.
+     *
+     * @param row   the row index
+     * @param value the value
+     */
+    public void setDouble(int row, double value) {
+        if (doubleValues == null) {
+            setDoubleValues(new double[capacity]);
+        }
+        doubleValues[row] = value;
+    }
+
+    /**
+     * Sets the value at the given row to a reference to the given byte range.
+     * The bytes are not copied and must not be modified until the batch is consumed.
+     *
+     * @param row    the row index
+     * @param buffer the buffer holding the value
+     * @param start  the offset of the value in the buffer
+     * @param length the length of the value
+     */
+    public void setBytes(int row, byte[] buffer, int start, int length) {
+        if (bytesValues == null) {
+            setBytesValues(new byte[capacity][], new int[capacity], new int[capacity]);
+            ownsBytes = true;
+        }
+        bytesValues[row] = buffer;
+        bytesStart[row] = start;
+        bytesLength[row] = length;
+    }
+
+    public long getLong(int row) {
+        return longValues[repeating ? 0 : row];
+    }
+
+    public double getDouble(int row) {
+        return doubleValues[repeating ? 0 : row];
+    }
+
+    public byte[] getBytes(int row) {
+        return bytesValues[repeating ? 0 : row];
+    }
+
+    public int getBytesStart(int row) {
+        return bytesStart[repeating ? 0 : row];
+    }
+
+    public int getBytesLength(int row) {
+        return bytesLength[repeating ? 0 : row];
+    }
+
+    private void ensureStorage(Storage expected) {
+        if (storage != expected) {
+            throw new IllegalStateException(String.format(
+                    "Column vector of type %s uses %s storage, not %s", dataType, storage, expected));
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package org.greenplum.pxf.api.io;
+
+import org.greenplum.pxf.api.GreenplumDateTime;
+import org.greenplum.pxf.api.model.GreenplumCSV;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Encodes rows in the CSV/TEXT wire format straight into a reusable byte buffer, without
+ * building intermediate strings for the rows. Fields are added in column order between
+ * {@link #beginRecord()} and {@link #endRecord()}; the delimiters, the quoting and escaping
+ * of text values, the NULL markers and the newline follow the {@link GreenplumCSV} settings
+ * of the request, and produce the same bytes as {@link GreenplumCSV#toCsvField} does. Values
+ * are UTF-8 encoded, the same as {@link Text} does.
+ * <p>
+ * Several rows can be accumulated in the buffer and written out together, callers are
+ * expected to call {@link #writeTo(OutputStream)} once {@link #isFull()} returns true and
+ * after the last row. The bytes of the buffered rows can also be referenced directly with
+ * {@link #getBuffer()} until the buffer is written out or cleared.
+ */
+public class CsvRowEncoder {
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE_BYTES = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE_BYTES = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private final char quote;
+    private final Character escape;
+    private final Character delimiter;
+    private final String newline;
+    private final int newlineLength;
+    private final byte[] newlineBytes;
+    private final byte[] delimiterBytes;
+    private final byte[] valueOfNullBytes;
+    private final byte[] byteaPrefixBytes;
+    private final boolean asciiSpecialChars;
+    private final int flushThreshold;
+    private final StringBuilder scratch = new StringBuilder(32);
+
+    private byte[] buffer;
+    private int count;
+    private int recordStart = -1;
+    private boolean firstField;
+    private int recordCount;
+
+    /**
+     * Creates an encoder for the given CSV settings.
+     *
+     * @param greenplumCSV   the CSV settings of the request
+     * @param csvFormat      true if the table uses the CSV format, false for TEXT or custom formats,
+     *                       which require the prefix of bytea values to be escaped
+     * @param flushThreshold number of buffered bytes after which the buffer is considered full
+     */
+    public CsvRowEncoder(GreenplumCSV greenplumCSV, boolean csvFormat, int flushThreshold) {
+        this.quote = greenplumCSV.getQuote();
+        this.escape = greenplumCSV.getEscape();
+        this.delimiter = greenplumCSV.getDelimiter();
+        this.newline = greenplumCSV.getNewline();
+        this.newlineLength = Math.min(greenplumCSV.getNewlineLength(), newline.length());
+        this.newlineBytes = newline.getBytes(StandardCharsets.UTF_8);
+        this.delimiterBytes = String.valueOf(delimiter).getBytes(StandardCharsets.UTF_8);
+        this.valueOfNullBytes = greenplumCSV.getValueOfNull().getBytes(StandardCharsets.UTF_8);
+        this.byteaPrefixBytes = (csvFormat ? "\\x" : "\\\\x").getBytes(StandardCharsets.UTF_8);
+        // UTF-8 encoded text can be scanned byte by byte when none of the special characters is multi-byte
+        boolean ascii = quote < 0x80 && (escape == null || escape < 0x80) && (delimiter == null || delimiter < 0x80);
+        for (int i = 0; i < newline.length(); i++) {
+            ascii &= newline.charAt(i) < 0x80;
+        }
+        this.asciiSpecialChars = ascii;
+        this.flushThreshold = flushThreshold;
+        this.buffer = new byte[Math.max(flushThreshold, 1024)];
+    }
+
+    /**
+     * Starts a new row.
+     */
+    public void beginRecord() {
+        if (recordStart != -1) {
+            throw new IllegalStateException("The previous record has not been ended");
+        }
+        recordStart = count;
+        firstField = true;
+    }
+
+    /**
+     * Ends the current row with the newline.
+     */
+    public void endRecord() {
+        checkRecordStarted();
+        put(newlineBytes, 0, newlineBytes.length);
+        recordStart = -1;
+        recordCount++;
+    }
+
+    public void addNull() {
+        startField();
+        put(valueOfNullBytes, 0, valueOfNullBytes.length);
+    }
+
+    public void addBoolean(boolean value) {
+        startField();
+        byte[] bytes = value ? TRUE_BYTES : FALSE_BYTES;
+        put(bytes, 0, bytes.length);
+    }
+
+    public void addLong(long value) {
+        startField();
+        if (value == Long.MIN_VALUE) {
+            putAscii(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        count += digits;
+    }
+
+    public void addFloat(float value) {
+        startField();
+        putAscii(Float.toString(value));
+    }
+
+    public void addDouble(double value) {
+        startField();
+        putAscii(Double.toString(value));
+    }
+
+    /**
+     * Adds a timestamp in the Greenplum format.
+     *
+     * @param value the timestamp
+     */
+    public void addTimestamp(LocalDateTime value) {
+        startField();
+        scratch.setLength(0);
+        GreenplumDateTime.DATETIME_FORMATTER.formatTo(value, scratch);
+        putChars(scratch);
+    }
+
+    /**
+     * Adds a bytea value in the hex format.
+     *
+     * @param bytes  the buffer holding the value
+     * @param offset the offset of the value in the buffer
+     * @param length the length of the value
+     */
+    public void addBytea(byte[] bytes, int offset, int length) {
+        startField();
+        put(byteaPrefixBytes, 0, byteaPrefixBytes.length);
+        ensureCapacity(length * 2);
+        for (int i = offset; i < offset + length; i++) {
+            int b = bytes[i] & 0xFF;
+            buffer[count++] = HEX_DIGITS[b >>> 4];
+            buffer[count++] = HEX_DIGITS[b & 0x0F];
+        }
+    }
+
+    /**
+     * Adds a value that is already in the Greenplum text representation and never
+     * requires quoting, such as numbers and dates.
+     *
+     * @param value the value
+     */
+    public void addValue(CharSequence value) {
+        startField();
+        putChars(value);
+    }
+
+    /**
+     * Adds a UTF-8 encoded value that is already in the Greenplum text representation
+     * and never requires quoting.
+     *
+     * @param bytes  the buffer holding the value
+     * @param offset the offset of the value in the buffer
+     * @param length the length of the value
+     */
+    public void addValue(byte[] bytes, int offset, int length) {
+        startField();
+        put(bytes, offset, length);
+    }
+
+    /**
+     * Adds a text value, quoting and escaping it when it contains quotes, delimiters or newlines.
+     *
+     * @param value the value
+     */
+    public void addText(String value) {
+        startField();
+        int quotes = countQuotesOrSpecialChars(value);
+        if (quotes < 0) {
+            putChars(value);
+            return;
+        }
+        putChar(quote);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quotes > 0 && c == quote) {
+                putChar(escape);
+            }
+            putChar(c, i + 1 < value.length() ? value.charAt(i + 1) : 0);
+            if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                i++;
+            }
+        }
+        putChar(quote);
+    }
+
+    /**
+     * Adds a UTF-8 encoded text value, quoting and escaping it when it contains quotes,
+     * delimiters or newlines.
+     *
+     * @param bytes  the buffer holding the value
+     * @param offset the offset of the value in the buffer
+     * @param length the length of the value
+     */
+    public void addText(byte[] bytes, int offset, int length) {
+        if (!asciiSpecialChars) {
+            addText(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            return;
+        }
+        startField();
+        int quotes = countQuotesOrSpecialChars(bytes, offset, length);
+        if (quotes < 0) {
+            put(bytes, offset, length);
+            return;
+        }
+        byte quoteByte = (byte) quote;
+        ensureCapacity(length + quotes + 2);
+        buffer[count++] = quoteByte;
+        for (int i = offset; i < offset + length; i++) {
+            if (quotes > 0 && bytes[i] == quoteByte) {
+                buffer[count++] = (byte) escape.charValue();
+            }
+            buffer[count++] = bytes[i];
+        }
+        buffer[count++] = quoteByte;
+    }
+
+    /**
+     * Returns the buffer holding the encoded rows. The buffer is replaced when it needs
+     * to grow, and is overwritten after it has been written out or cleared.
+     *
+     * @return the buffer holding the encoded rows
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of complete rows in the buffer.
+     *
+     * @return the number of buffered rows
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the number of bytes in the buffer.
+     *
+     * @return the number of buffered bytes
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns true when enough bytes have been buffered to be written out.
+     *
+     * @return true if the buffer should be written out
+     */
+    public boolean isFull() {
+        return count >= flushThreshold;
+    }
+
+    /**
+     * Writes the buffered rows to the output stream in a single write and clears the buffer.
+     *
+     * @param out the output stream
+     * @throws IOException if writing failed
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        checkNoRecordStarted();
+        out.write(buffer, 0, count);
+        clear();
+    }
+
+    /**
+     * Writes the buffered rows to the output in a single write and clears the buffer.
+     *
+     * @param out the output
+     * @throws IOException if writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        checkNoRecordStarted();
+        out.write(buffer, 0, count);
+        clear();
+    }
+
+    /**
+     * Discards the buffered rows, keeping the buffer for reuse.
+     */
+    public void clear() {
+        count = 0;
+        recordStart = -1;
+        recordCount = 0;
+    }
+
+    /**
+     * Counts the quotes to escape in the value, following the same rules as
+     * {@link GreenplumCSV#toCsvField(String, boolean, boolean, boolean)}.
+     *
+     * @return -1 if the value does not need to be quoted, otherwise the number of quotes to escape
+     */
+    private int countQuotesOrSpecialChars(String s) {
+        int length = s.length();
+        int quotes = 0, specialChars = 0;
+        for (int i = 0; i < length; i++) {
+            char curr = s.charAt(i);
+            if (escape != null && curr == quote) quotes++;
+            if (delimiter != null && curr == delimiter) specialChars++;
+            if (newlineLength > 0) {
+                int j = 0;
+                while (i < length && j < newlineLength && newline.charAt(j) == s.charAt(i)) {
+                    j++;
+                    if (j < newlineLength) i++;
+                }
+                if (j == newlineLength) specialChars++;
+            }
+        }
+        return (quotes == 0 && specialChars == 0) ? -1 : quotes;
+    }
+
+    /**
+     * Same as {@link #countQuotesOrSpecialChars(String)} for UTF-8 encoded values,
+     * when all the special characters are single bytes.
+     */
+    private int countQuotesOrSpecialChars(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int quotes = 0, specialChars = 0;
+        for (int i = offset; i < end; i++) {
+            byte curr = bytes[i];
+            if (escape != null && curr == quote) quotes++;
+            if (delimiter != null && curr == delimiter) specialChars++;
+            if (newlineLength > 0) {
+                int j = 0;
+                while (i < end && j < newlineLength && newline.charAt(j) == bytes[i]) {
+                    j++;
+                    if (j < newlineLength) i++;
+                }
+                if (j == newlineLength) specialChars++;
+            }
+        }
+        return (quotes == 0 && specialChars == 0) ? -1 : quotes;
+    }
+
+    private void startField() {
+        checkRecordStarted();
+        if (firstField) {
+            firstField = false;
+        } else {
+            put(delimiterBytes, 0, delimiterBytes.length);
+        }
+    }
+
+    private void putAscii(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void putChars(CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            putChar(c, i + 1 < length ? value.charAt(i + 1) : 0);
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                i++;
+            }
+        }
+    }
+
+    private void putChar(char c) {
+        putChar(c, (char) 0);
+    }
+
+    /**
+     * Encodes the character in UTF-8, combining it with the next character if they form a
+     * surrogate pair. Unpaired surrogates are replaced with '?', the same as String.getBytes does.
+     */
+    private void putChar(char c, char next) {
+        ensureCapacity(4);
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+                int codePoint = Character.toCodePoint(c, next);
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[count++] = '?';
+            }
+        } else {
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void put(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.length - count >= length) {
+            return;
+        }
+        byte[] newBuffer = new byte[Math.max(buffer.length * 2, count + length)];
+        System.arraycopy(buffer, 0, newBuffer, 0, count);
+        buffer = newBuffer;
+    }
+
+    private void checkRecordStarted() {
+        if (recordStart == -1) {
+            throw new IllegalStateException("No record has been started");
+        }
+    }
+
+    private void checkNoRecordStarted() {
+        if (recordStart != -1) {
+            throw new IllegalStateException("The current record has not been ended");
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package org.greenplum.pxf.api.io;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes records in the {@link GPDBWritable} wire format straight into a reusable buffer,
+ * without boxing the values or allocating per record. Values are set with typed setters in
+ * ascending column order between {@link #beginRecord()} and {@link #endRecord()}; columns
+ * that are skipped are sent as nulls. The alignment padding and the null bitmap are laid
+ * out as the values are set, and the record length is filled in when the record ends.
+ * <p>
+ * Several records can be accumulated in the buffer and written out together, callers are
+ * expected to call {@link #writeTo(OutputStream)} once {@link #isFull()} returns true and
+ * after the last record.
+ */
+public class GPDBWritableEncoder {
+
+    private static final int HEADER_LENGTH = 4 + 2 + 1 + 2;
+    private static final short VERSION = 2;
+
+    /*
+     * Ordinals of the GPDBWritable database types
+     */
+    private static final byte BIGINT = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte FLOAT8 = 2;
+    private static final byte INTEGER = 3;
+    private static final byte REAL = 4;
+    private static final byte SMALLINT = 5;
+    private static final byte BYTEA = 6;
+    private static final byte TEXT = 7;
+
+    private final byte[] wireTypes;
+    private final int nullBytesLength;
+    private final int alignmentOfEightBytes;
+    private final int flushThreshold;
+    private final boolean utf8;
+    private final CharsetEncoder encoder;
+
+    private ByteBuffer buffer;
+    private int recordStart = -1;
+    private int nextColumn;
+    private int recordCount;
+
+    /**
+     * Creates an encoder for records with the given column types.
+     *
+     * @param columnTypes      Greenplum type OIDs of the columns
+     * @param databaseEncoding encoding of the text values expected by the database
+     * @param flushThreshold   number of buffered bytes after which the buffer is considered full
+     */
+    public GPDBWritableEncoder(int[] columnTypes, Charset databaseEncoding, int flushThreshold) {
+        this.wireTypes = new byte[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            wireTypes[i] = getWireType(columnTypes[i]);
+        }
+        this.nullBytesLength = (columnTypes.length + 7) >>> 3;
+        this.flushThreshold = flushThreshold;
+        Charset encoding = (databaseEncoding == null) ? StandardCharsets.UTF_8 : databaseEncoding;
+        this.utf8 = StandardCharsets.UTF_8.equals(encoding);
+        // replace unmappable characters the same way String.getBytes does
+        this.encoder = encoding.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocate(Math.max(flushThreshold, 1024));
+
+        String alignment = System.getProperty("greenplum.alignment");
+        this.alignmentOfEightBytes = (alignment == null) ? 8 : Integer.parseInt(alignment);
+    }
+
+    /**
+     * Starts a new record. All columns are null until a value is set.
+     */
+    public void beginRecord() {
+        if (recordStart != -1) {
+            throw new IllegalStateException("The previous record has not been ended");
+        }
+        ensureCapacity(HEADER_LENGTH + wireTypes.length + nullBytesLength);
+        recordStart = buffer.position();
+        nextColumn = 0;
+
+        buffer.putInt(0); // the length is filled in by endRecord
+        buffer.putShort(VERSION);
+        buffer.put((byte) 0);
+        buffer.putShort((short) wireTypes.length);
+        buffer.put(wireTypes);
+        for (int i = 0; i < nullBytesLength; i++) {
+            // the value of a column clears its null bit
+            buffer.put((byte) 0xFF);
+        }
+    }
+
+    /**
+     * Ends the current record, adding the padding for the next record and filling in the length.
+     */
+    public void endRecord() {
+        checkRecordStarted();
+        int length = buffer.position() - recordStart;
+        int padding = roundUpAlignment(length, 8) - length;
+        ensureCapacity(padding);
+        putPadding(padding);
+
+        int nullBytesStart = recordStart + HEADER_LENGTH + wireTypes.length;
+        int unusedBits = nullBytesLength * 8 - wireTypes.length;
+        if (unusedBits > 0) {
+            // bits past the last column are always zero
+            int last = nullBytesStart + nullBytesLength - 1;
+            buffer.put(last, (byte) (buffer.get(last) & (0xFF << unusedBits)));
+        }
+        buffer.putInt(recordStart, buffer.position() - recordStart);
+        recordStart = -1;
+        recordCount++;
+    }
+
+    public void setLong(int column, long value) throws IOException {
+        startValue(column, BIGINT, 8);
+        buffer.putLong(value);
+    }
+
+    public void setBoolean(int column, boolean value) throws IOException {
+        startValue(column, BOOLEAN, 1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    public void setDouble(int column, double value) throws IOException {
+        startValue(column, FLOAT8, 8);
+        buffer.putDouble(value);
+    }
+
+    public void setInt(int column, int value) throws IOException {
+        startValue(column, INTEGER, 4);
+        buffer.putInt(value);
+    }
+
+    public void setFloat(int column, float value) throws IOException {
+        startValue(column, REAL, 4);
+        buffer.putFloat(value);
+    }
+
+    public void setShort(int column, short value) throws IOException {
+        startValue(column, SMALLINT, 2);
+        buffer.putShort(value);
+    }
+
+    /**
+     * Sets the value of a BYTEA column to the given byte range.
+     *
+     * @param column the column index
+     * @param bytes  the buffer holding the value
+     * @param offset the offset of the value in the buffer
+     * @param length the length of the value
+     * @throws IOException if the column is not a BYTEA column
+     */
+    public void setBytes(int column, byte[] bytes, int offset, int length) throws IOException {
+        startValue(column, BYTEA, 4 + length);
+        buffer.putInt(length);
+        buffer.put(bytes, offset, length);
+    }
+
+    /**
+     * Sets the value of a text column to the given UTF-8 encoded byte range, transcoding
+     * it if the database uses a different encoding.
+     *
+     * @param column the column index
+     * @param bytes  the buffer holding the UTF-8 encoded value
+     * @param offset the offset of the value in the buffer
+     * @param length the length of the value
+     * @throws IOException if the column is not a text column
+     */
+    public void setText(int column, byte[] bytes, int offset, int length) throws IOException {
+        if (!utf8) {
+            setString(column, new String(bytes, offset, length, StandardCharsets.UTF_8));
+            return;
+        }
+        // text is sent with a terminating '\0' that is included in the length
+        startValue(column, TEXT, 4 + length + 1);
+        buffer.putInt(length + 1);
+        buffer.put(bytes, offset, length);
+        buffer.put((byte) 0);
+    }
+
+    /**
+     * Sets the value of a text column, encoding it in the database encoding.
+     *
+     * @param column the column index
+     * @param value  the value
+     * @throws IOException if the column is not a text column
+     */
+    public void setString(int column, String value) throws IOException {
+        int length = value.length();
+        startValue(column, TEXT, 4 + length + 1);
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+
+        if (utf8 && isAscii(value)) {
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        } else {
+            encode(value);
+        }
+        ensureCapacity(1);
+        buffer.put((byte) 0);
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    /**
+     * Returns the number of complete records in the buffer.
+     *
+     * @return the number of buffered records
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the number of bytes in the buffer.
+     *
+     * @return the number of buffered bytes
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Returns true when enough bytes have been buffered to be written out.
+     *
+     * @return true if the buffer should be written out
+     */
+    public boolean isFull() {
+        return buffer.position() >= flushThreshold;
+    }
+
+    /**
+     * Writes the buffered records to the output stream in a single write and clears the buffer.
+     *
+     * @param out the output stream
+     * @throws IOException if writing failed
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        checkNoRecordStarted();
+        out.write(buffer.array(), 0, buffer.position());
+        clear();
+    }
+
+    /**
+     * Writes the buffered records to the output in a single write and clears the buffer.
+     *
+     * @param out the output
+     * @throws IOException if writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        checkNoRecordStarted();
+        out.write(buffer.array(), 0, buffer.position());
+        clear();
+    }
+
+    /**
+     * Discards the buffered records, keeping the buffer for reuse.
+     */
+    public void clear() {
+        buffer.clear();
+        recordStart = -1;
+        recordCount = 0;
+    }
+
+    /**
+     * Checks the column and its type, clears its null bit, and pads the buffer
+     * to the alignment of the type, making room for the value.
+     */
+    private void startValue(int column, byte wireType, int length) throws IOException {
+        checkRecordStarted();
+        if (column < nextColumn || column >= wireTypes.length) {
+            throw new GPDBWritable.TypeMismatchException(String.format(
+                    "Column index %d is out of order or out of range", column));
+        }
+        if (wireTypes[column] != wireType) {
+            throw new GPDBWritable.TypeMismatchException(String.format(
+                    "Cannot set %s to a column of type %s", getWireTypeName(wireType), getWireTypeName(wireTypes[column])));
+        }
+        nextColumn = column + 1;
+
+        int nullByte = recordStart + HEADER_LENGTH + wireTypes.length + (column >>> 3);
+        buffer.put(nullByte, (byte) (buffer.get(nullByte) & ~(1 << (7 - (column & 7)))));
+
+        int offset = buffer.position() - recordStart;
+        int padding = roundUpAlignment(offset, getAlignment(wireType)) - offset;
+        ensureCapacity(padding + length);
+        putPadding(padding);
+    }
+
+    /**
+     * Encodes the value into the buffer in the database encoding, growing the buffer as needed.
+     */
+    private void encode(String value) {
+        CharBuffer in = CharBuffer.wrap(value);
+        encoder.reset();
+        while (true) {
+            CoderResult result = in.hasRemaining() ? encoder.encode(in, buffer, true) : CoderResult.UNDERFLOW;
+            if (result.isUnderflow()) {
+                result = encoder.flush(buffer);
+            }
+            if (result.isUnderflow()) {
+                return;
+            }
+            // the only other possible result is an overflow, since errors are replaced
+            ensureCapacity(Math.max(16, (int) (in.remaining() * encoder.maxBytesPerChar())));
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.remaining() >= length) {
+            return;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + length);
+        ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+    }
+
+    private void putPadding(int padding) {
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void checkRecordStarted() {
+        if (recordStart == -1) {
+            throw new IllegalStateException("No record has been started");
+        }
+    }
+
+    private void checkNoRecordStarted() {
+        if (recordStart != -1) {
+            throw new IllegalStateException("The current record has not been ended");
+        }
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getAlignment(byte wireType) {
+        switch (wireType) {
+            case BIGINT:
+            case FLOAT8:
+                return alignmentOfEightBytes;
+            case SMALLINT:
+                return 2;
+            case BOOLEAN:
+                return 1;
+            default:
+                return 4;
+        }
+    }
+
+    private int roundUpAlignment(int len, int align) {
+        int commonAlignment = (align == 8) ? alignmentOfEightBytes : align;
+        return (len + (commonAlignment - 1)) & ~(commonAlignment - 1);
+    }
+
+    private static String getWireTypeName(byte wireType) {
+        switch (wireType) {
+            case BIGINT:
+                return DataType.BIGINT.name();
+            case BOOLEAN:
+                return DataType.BOOLEAN.name();
+            case FLOAT8:
+                return DataType.FLOAT8.name();
+            case INTEGER:
+                return DataType.INTEGER.name();
+            case REAL:
+                return DataType.REAL.name();
+            case SMALLINT:
+                return DataType.SMALLINT.name();
+            case BYTEA:
+                return DataType.BYTEA.name();
+            default:
+                return DataType.TEXT.name();
+        }
+    }
+
+    /**
+     * Returns the GPDBWritable type used to send values of the given Greenplum type.
+     */
+    private static byte getWireType(int oid) {
+        switch (DataType.get(oid)) {
+            case BIGINT:
+                return BIGINT;
+            case BOOLEAN:
+                return BOOLEAN;
+            case FLOAT8:
+                return FLOAT8;
+            case INTEGER:
+                return INTEGER;
+            case REAL:
+                return REAL;
+            case SMALLINT:
+                return SMALLINT;
+            case BYTEA:
+                return BYTEA;
+            default:
+                return TEXT;
+        }
+    }
+}
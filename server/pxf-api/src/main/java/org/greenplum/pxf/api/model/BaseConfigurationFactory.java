@@ -11,21 +11,38 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_AUTH_TO_LOCAL;
 
+/**
+ * Builds the configuration of a request from the configuration files of its server. The site files of a server
+ * directory and the user files are parsed once and cached, the cached configuration is re-built when the files
+ * or the contents of the directory change. Every request gets its own copy of the cached configuration, so
+ * that the properties set for a request do not leak into the configuration of other requests.
+ */
 @Component
 public class BaseConfigurationFactory implements ConfigurationFactory {
 
     protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
+    /**
+     * Key of the base configuration used by servers without a configuration directory
+     */
+    private static final String NO_DIRECTORY_KEY = "";
+
     private final File serversConfigDirectory;
+    private final ConcurrentMap<String, ServerConfiguration> serverConfigurations = new ConcurrentHashMap<>();
 
     @Autowired
     public BaseConfigurationFactory(PxfServerProperties pxfServerProperties) {
@@ -41,25 +58,7 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
      */
     @Override
     public Configuration initConfiguration(String configDirectory, String serverName, String userName, Map<String, String> additionalProperties) {
-        // start with built-in Hadoop configuration that loads core-site.xml
         LOG.debug("Initializing configuration for server {}", serverName);
-        Configuration configuration = new Configuration();
-        // while implementing multiple kerberized support we noticed that non-kerberized hadoop
-        // access was trying to use SASL-client authentication. Setting the fallback to simple auth
-        // allows us to still access non-kerberized hadoop clusters when there exists at least one
-        // kerberized hadoop cluster. The root cause is that UGI has static fields and many hadoop
-        // libraries depend on the state of the UGI
-        // allow using SIMPLE auth for non-Kerberized HCFS access by SASL-enabled IPC client
-        // that is created due to the fact that it uses UGI.isSecurityEnabled
-        // and will try to use SASL if there is at least one Kerberized Hadoop cluster
-        configuration.set(CommonConfigurationKeys.IPC_CLIENT_FALLBACK_TO_SIMPLE_AUTH_ALLOWED_KEY, "true");
-
-        // set synthetic property pxf.session.user so that is can be used in config files for interpolation in other properties
-        // for example in JDBC when setting session authorization from a proxy user to the end-user
-        configuration.set(PXF_SESSION_USER_PROPERTY, userName);
-
-        // add the server name itself as a configuration property
-        configuration.set(PXF_SERVER_NAME_PROPERTY, serverName);
 
         File[] serverDirectories = null;
         Path p = Paths.get(configDirectory);
@@ -77,19 +76,30 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
                                     StringUtils.equalsIgnoreCase(configDirectory, f.getName()));
         }
 
+        ServerConfiguration serverConfiguration;
         if (ArrayUtils.isEmpty(serverDirectories)) {
             LOG.debug("Directory {}{}{} does not exist or cannot be read by PXF, no configuration resources are added for server {}",
                     serversConfigDirectory, File.separator, configDirectory, serverName);
+            serverConfiguration = getServerConfiguration(serverName, null);
         } else if (serverDirectories.length > 1) {
             throw new IllegalStateException(String.format(
                     "Multiple directories found for server %s. Server directories are expected to be case-insensitive.", serverName
             ));
         } else {
-            // add all site files as URL resources to the configuration, no resources will be added from the classpath
             LOG.debug("Using directory {} for server {} configuration", serverDirectories[0], serverName);
-            processServerResources(configuration, serverName, serverDirectories[0]);
+            serverConfiguration = getServerConfiguration(serverName, serverDirectories[0]);
         }
 
+        // start with a copy of the cached configuration, the copy does not parse the configuration files again
+        Configuration configuration = serverConfiguration.newConfiguration();
+
+        // set synthetic property pxf.session.user so that is can be used in config files for interpolation in other properties
+        // for example in JDBC when setting session authorization from a proxy user to the end-user
+        configuration.set(PXF_SESSION_USER_PROPERTY, userName);
+
+        // add the server name itself as a configuration property
+        configuration.set(PXF_SERVER_NAME_PROPERTY, serverName);
+
         // add additional properties, if provided
         if (additionalProperties != null) {
             LOG.debug("Adding {} additional properties to configuration for server {}", additionalProperties.size(), serverName);
@@ -97,8 +107,8 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
         }
 
         // add user configuration
-        if (!ArrayUtils.isEmpty(serverDirectories)) {
-            processUserResource(configuration, serverName, userName, serverDirectories[0]);
+        if (serverConfiguration.directory != null) {
+            processUserResource(configuration, serverName, userName, serverConfiguration);
         }
 
         try {
@@ -121,10 +131,64 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
         return configuration;
     }
 
-    private void processServerResources(Configuration configuration, String serverName, File directory) {
+    /**
+     * Returns the cached configuration for the server directory, parsing the site files of the directory
+     * if they have not been parsed yet or if they have changed since they were parsed.
+     *
+     * @param serverName the name of the server
+     * @param directory  the configuration directory of the server, or null if the server has none
+     * @return the cached configuration
+     */
+    private ServerConfiguration getServerConfiguration(String serverName, File directory) {
+        String key = directory == null ? NO_DIRECTORY_KEY : directory.getAbsolutePath();
+        ServerConfiguration serverConfiguration = serverConfigurations.get(key);
+        if (serverConfiguration != null && serverConfiguration.isCurrent()) {
+            return serverConfiguration;
+        }
+        return serverConfigurations.compute(key, (k, current) -> {
+            if (current != null && current.isCurrent()) {
+                // another request has already re-built the configuration
+                return current;
+            }
+            if (current != null) {
+                LOG.info("Configuration files in {} have changed, reloading configuration for server {}", directory, serverName);
+            }
+            return loadServerConfiguration(serverName, directory);
+        });
+    }
+
+    private ServerConfiguration loadServerConfiguration(String serverName, File directory) {
+        // start with built-in Hadoop configuration that loads core-site.xml
+        Configuration configuration = new Configuration();
+        // while implementing multiple kerberized support we noticed that non-kerberized hadoop
+        // access was trying to use SASL-client authentication. Setting the fallback to simple auth
+        // allows us to still access non-kerberized hadoop clusters when there exists at least one
+        // kerberized hadoop cluster. The root cause is that UGI has static fields and many hadoop
+        // libraries depend on the state of the UGI
+        // allow using SIMPLE auth for non-Kerberized HCFS access by SASL-enabled IPC client
+        // that is created due to the fact that it uses UGI.isSecurityEnabled
+        // and will try to use SASL if there is at least one Kerberized Hadoop cluster
+        configuration.set(CommonConfigurationKeys.IPC_CLIENT_FALLBACK_TO_SIMPLE_AUTH_ALLOWED_KEY, "true");
+
+        ServerConfiguration serverConfiguration = new ServerConfiguration(directory, configuration);
+        if (directory != null) {
+            // add all site files as URL resources to the configuration, no resources will be added from the classpath
+            processServerResources(serverConfiguration, serverName);
+        }
+        // parse the resources now, so that the copies handed to the requests do not need to
+        configuration.size();
+        return serverConfiguration;
+    }
+
+    private void processServerResources(ServerConfiguration serverConfiguration, String serverName) {
+        Configuration configuration = serverConfiguration.configuration;
+        File directory = serverConfiguration.directory;
         // add all *-site.xml files inside the server config directory as configuration resources
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), "*-site.xml")) {
             for (Path path : stream) {
+                // remember the state of the file before it is parsed, so that a change made while
+                // parsing it is detected by the next request
+                serverConfiguration.siteFiles.put(path.toFile(), new FileStamp(path.toFile()));
                 URL resourceURL = path.toUri().toURL();
                 LOG.debug("Adding configuration resource for server {} from {}", serverName, resourceURL);
                 configuration.addResource(resourceURL);
@@ -140,21 +204,116 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
         }
     }
 
-    private void processUserResource(Configuration configuration, String serverName, String userName, File directory) {
+    private void processUserResource(Configuration configuration, String serverName, String userName, ServerConfiguration serverConfiguration) {
+        File directory = serverConfiguration.directory;
         // add user config file as configuration resource
         try {
             Path path = Paths.get(String.format("%s/%s-user.xml", directory.toPath(), userName));
             if (Files.exists(path)) {
-                Configuration userConfiguration = new Configuration(false);
-                URL resourceURL = path.toUri().toURL();
-                userConfiguration.addResource(resourceURL);
-                LOG.debug("Adding user properties for server {} from {}", serverName, resourceURL);
-                userConfiguration.forEach(entry -> configuration.set(entry.getKey(), entry.getValue()));
-                configuration.set(String.format("%s.%s", PXF_CONFIG_RESOURCE_PATH_PROPERTY, path.getFileName().toString()), resourceURL.toString());
+                UserConfiguration userConfiguration = serverConfiguration.userConfigurations.get(userName);
+                if (userConfiguration == null || !userConfiguration.isCurrent()) {
+                    userConfiguration = new UserConfiguration(path);
+                    LOG.debug("Parsed user properties for server {} from {}", serverName, userConfiguration.resourceURL);
+                    serverConfiguration.userConfigurations.put(userName, userConfiguration);
+                }
+                LOG.debug("Adding user properties for server {} from {}", serverName, userConfiguration.resourceURL);
+                userConfiguration.properties.forEach(configuration::set);
+                configuration.set(String.format("%s.%s", PXF_CONFIG_RESOURCE_PATH_PROPERTY, path.getFileName().toString()), userConfiguration.resourceURL);
             }
         } catch (Exception e) {
             throw new RuntimeException(String.format("Unable to read user configuration for user %s using server %s from %s",
                     userName, serverName, directory.getAbsolutePath()), e);
         }
     }
+
+    /**
+     * The parsed site files of a server directory. The configuration is never handed to a request
+     * and never modified once it has been built, requests get copies of it instead.
+     */
+    private static class ServerConfiguration {
+
+        private final File directory;
+        private final FileStamp directoryStamp;
+        private final Configuration configuration;
+        private final Map<File, FileStamp> siteFiles = new HashMap<>();
+        private final ConcurrentMap<String, UserConfiguration> userConfigurations = new ConcurrentHashMap<>();
+
+        ServerConfiguration(File directory, Configuration configuration) {
+            this.directory = directory;
+            // adding, removing or renaming a file changes the modification time of the directory
+            this.directoryStamp = directory == null ? null : new FileStamp(directory);
+            this.configuration = configuration;
+        }
+
+        /**
+         * @return true if none of the site files has changed since they were parsed
+         */
+        boolean isCurrent() {
+            if (directory == null) {
+                return true;
+            }
+            if (!directoryStamp.isCurrent(directory)) {
+                return false;
+            }
+            for (Map.Entry<File, FileStamp> entry : siteFiles.entrySet()) {
+                if (!entry.getValue().isCurrent(entry.getKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return a copy of the configuration that can be modified by a request
+         */
+        Configuration newConfiguration() {
+            // the properties only need to be parsed again if Configuration.addDefaultResource
+            // has reset them since the configuration was built, otherwise this is a no-op
+            configuration.size();
+            return new Configuration(configuration);
+        }
+    }
+
+    /**
+     * The parsed properties of a user file.
+     */
+    private static class UserConfiguration {
+
+        private final File file;
+        private final FileStamp stamp;
+        private final String resourceURL;
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        UserConfiguration(Path path) throws IOException {
+            this.file = path.toFile();
+            this.stamp = new FileStamp(file);
+            URL url = path.toUri().toURL();
+            this.resourceURL = url.toString();
+            Configuration userConfiguration = new Configuration(false);
+            userConfiguration.addResource(url);
+            userConfiguration.forEach(entry -> properties.put(entry.getKey(), entry.getValue()));
+        }
+
+        boolean isCurrent() {
+            return stamp.isCurrent(file);
+        }
+    }
+
+    /**
+     * The modification time and the length of a file at the time it was read.
+     */
+    private static class FileStamp {
+
+        private final long lastModified;
+        private final long length;
+
+        FileStamp(File file) {
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package org.greenplum.pxf.api.model;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class BaseFragmenter extends BasePlugin implements Fragmenter {
 
@@ -12,10 +14,63 @@ public class BaseFragmenter extends BasePlugin implements Fragmenter {
         return fragments;
     }
 
+    /**
+     * Passes every fragment to the consumer as soon as {@link #getFragments()}
+     * adds it to {@link #fragments}. Fragmenters that build their own list of
+     * fragments instead have their fragments passed once the enumeration is
+     * complete.
+     *
+     * @param consumer the consumer of the fragments
+     * @throws Exception if fragment list could not be retrieved
+     */
+    @Override
+    public void streamFragments(Consumer<Fragment> consumer) throws Exception {
+        PublishingList publishingList = new PublishingList(consumer);
+        fragments = publishingList;
+        List<Fragment> result = getFragments();
+        if (result == publishingList) {
+            return;
+        }
+        if (!publishingList.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "fragmenter %s returned a list other than the fragments it streamed", getClass().getName()));
+        }
+        for (Fragment fragment : result) {
+            consumer.accept(fragment);
+        }
+    }
+
     @Override
     public FragmentStats getFragmentStats() throws Exception {
 
         String profile = context.getProfile();
         throw new UnsupportedOperationException(String.format("Profile '%s' does not support statistics for fragments", profile));
     }
+
+    /**
+     * A list of fragments passing the fragments added to it to a consumer.
+     */
+    private static class PublishingList extends LinkedList<Fragment> {
+
+        private final Consumer<Fragment> consumer;
+
+        PublishingList(Consumer<Fragment> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public boolean add(Fragment fragment) {
+            super.add(fragment);
+            consumer.accept(fragment);
+            return true;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Fragment> c) {
+            for (Fragment fragment : c) {
+                add(fragment);
+            }
+            return !c.isEmpty();
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package org.greenplum.pxf.api.model;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface Fragmenter extends Plugin {
     /**
@@ -13,6 +14,23 @@ public interface Fragmenter extends Plugin {
      */
     List<Fragment> getFragments() throws Exception;
 
+    /**
+     * Gets the fragments of a given path like {@link #getFragments()}, passing
+     * every fragment to the consumer as soon as it is discovered, so that
+     * fragments can be read before the enumeration of the path completes. The
+     * fragments must be passed in the order {@link #getFragments()} would
+     * return them. The default implementation passes the fragments once the
+     * enumeration is complete.
+     *
+     * @param consumer the consumer of the fragments
+     * @throws RuntimeException if fragment list could not be retrieved
+     */
+    default void streamFragments(Consumer<Fragment> consumer) throws Exception {
+        for (Fragment fragment : getFragments()) {
+            consumer.accept(fragment);
+        }
+    }
+
     /**
      * Default implementation of statistics for fragments. The default is:
      * <ul>
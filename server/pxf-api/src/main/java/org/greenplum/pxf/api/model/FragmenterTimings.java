@@ -0,0 +1,24 @@
+package org.greenplum.pxf.api.model;
+
+import java.time.Duration;
+
+/**
+ * Implemented by fragmenters that can tell how long the enumeration of their
+ * fragments took, split between listing the files of the data source and
+ * computing the splits of the listed files. The timings are those of the last
+ * call to {@link Fragmenter#getFragments()}.
+ */
+public interface FragmenterTimings {
+
+    /**
+     * @return the time spent listing the files of the data source, or null if
+     * the files were not listed
+     */
+    Duration getListingTime();
+
+    /**
+     * @return the time spent computing the splits of the listed files, or null
+     * if no splits were computed
+     */
+    Duration getSplitTime();
+}
@@ -55,6 +55,17 @@ public class GreenplumCSV {
         return delimiter;
     }
 
+    /**
+     * Returns the number of newline characters that are matched when looking
+     * for newlines that require a CSV field to be quoted, 0 if newlines are
+     * not looked for.
+     *
+     * @return the length of the newline to match
+     */
+    public int getNewlineLength() {
+        return newlineLength;
+    }
+
     /**
      * Set value of null string for parsing CSV. If the string input for customization is
      * null, it will be ignored.
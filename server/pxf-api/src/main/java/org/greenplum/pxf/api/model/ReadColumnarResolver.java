@@ -0,0 +1,24 @@
+package org.greenplum.pxf.api.model;
+
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+
+/**
+ * Interface for resolvers that can provide a batch of records as primitive
+ * column vectors, so that the records can be serialized without creating
+ * a {@link org.greenplum.pxf.api.OneField} for every value.
+ */
+public interface ReadColumnarResolver extends ReadVectorizedResolver {
+
+    /**
+     * Returns the batch of records in columnar form. The returned batch and its vectors
+     * may be reused by the resolver for the next batch, and the vectors may reference
+     * buffers of the data source, so the batch must be consumed before the next call.
+     *
+     * @param batch unresolved batch
+     * @return the columnar batch, or null if the batch can not be represented in
+     * columnar form, in which case {@link #getFieldsForBatch(OneRow)} is used instead
+     */
+    ColumnBatch getColumnBatch(OneRow batch);
+
+}
@@ -0,0 +1,24 @@
+package org.greenplum.pxf.api.model;
+
+import java.time.Duration;
+
+/**
+ * Implemented by accessors that can tell how the time spent reading a
+ * fragment was split between waiting for data from the storage and decoding
+ * it. The timings are those of the fragment last read, they are complete once
+ * {@link Accessor#closeForRead()} has been called.
+ */
+public interface ReadTimings {
+
+    /**
+     * @return the time spent waiting for data from the storage, or null if
+     * the accessor did not measure it
+     */
+    Duration getIoWaitTime();
+
+    /**
+     * @return the time spent decoding the data read from the storage, or null
+     * if the accessor did not measure it
+     */
+    Duration getDecodeTime();
+}
@@ -142,6 +142,13 @@ public class RequestContext {
      */
     private int gpSessionId;
 
+    /**
+     * The identifier of the scan within the Greenplum command, optional.
+     * Tells apart the requests of a command that scans the same table more
+     * than once, for example in a self-join.
+     */
+    private String scanId;
+
     /**
      * The server name providing the service.
      */
@@ -179,6 +186,18 @@ public class RequestContext {
      */
     private int numAttrsProjected;
 
+    /**
+     * The name of the codec used to compress the data sent to Greenplum, or
+     * null if the data is sent uncompressed. The codec is negotiated between
+     * the TRANSFER_COMPRESSION option and the codecs supported by the client.
+     */
+    private String transferCompression;
+
+    /**
+     * The compression level of the transfer compression codec.
+     */
+    private int transferCompressionLevel;
+
     /**
      * The plugin configuration
      */
@@ -298,6 +317,11 @@ public class RequestContext {
      */
     private Charset databaseEncoding;
 
+    /**
+     * The hosts of the segments ordered by segment id, null if the client did not send them
+     */
+    private List<String> segmentHosts;
+
     /**
      * The version of the PXF API the client implements
      */
@@ -421,6 +445,66 @@ public class RequestContext {
         return Collections.unmodifiableMap(options);
     }
 
+    /**
+     * Returns a copy of this request context that can be modified independently
+     * of the original, for example to process a fragment on a different thread.
+     * The configuration is cloned, the options and the tuple description are
+     * copied into new collections, while the rest of the values are shared.
+     *
+     * @return a copy of this request context
+     */
+    public RequestContext copy() {
+        RequestContext copy = new RequestContext();
+        copy.requestType = requestType;
+        copy.accessor = accessor;
+        copy.aggType = aggType;
+        copy.config = config;
+        copy.configuration = (configuration == null) ? null : new Configuration(configuration);
+        copy.dataSource = dataSource;
+        copy.fragmenter = fragmenter;
+        copy.fragmentIndex = fragmentIndex;
+        copy.fragmentMetadata = fragmentMetadata;
+        copy.filterString = filterString;
+        copy.metadata = metadata;
+        copy.outputFormat = outputFormat;
+        copy.gpCommandCount = gpCommandCount;
+        copy.gpSessionId = gpSessionId;
+        copy.scanId = scanId;
+        copy.host = host;
+        copy.token = token;
+        copy.statsMaxFragments = statsMaxFragments;
+        copy.statsSampleRatio = statsSampleRatio;
+        copy.numAttrsProjected = numAttrsProjected;
+        copy.transferCompression = transferCompression;
+        copy.transferCompressionLevel = transferCompressionLevel;
+        copy.pluginConf = pluginConf;
+        copy.port = port;
+        copy.profile = profile;
+        copy.profileScheme = profileScheme;
+        copy.protocol = protocol;
+        copy.resolver = resolver;
+        copy.format = format;
+        copy.greenplumCSV = greenplumCSV;
+        copy.recordkeyColumn = recordkeyColumn;
+        copy.remoteLogin = remoteLogin;
+        copy.remoteSecret = remoteSecret;
+        copy.segmentId = segmentId;
+        copy.schemaName = schemaName;
+        copy.tableName = tableName;
+        copy.transactionId = transactionId;
+        copy.serverName = serverName;
+        copy.totalSegments = totalSegments;
+        copy.segmentHosts = segmentHosts;
+        copy.tupleDescription = new ArrayList<>(tupleDescription);
+        copy.user = user;
+        copy.dataEncoding = dataEncoding;
+        copy.databaseEncoding = databaseEncoding;
+        copy.clientApiVersion = clientApiVersion;
+        copy.additionalConfigProps = additionalConfigProps;
+        copy.options.putAll(options);
+        return copy;
+    }
+
     /**
      * The data fragment.
      *
@@ -0,0 +1,26 @@
+package org.greenplum.pxf.api.model;
+
+/**
+ * Implemented by plugins whose state precomputed from the request context,
+ * for example the mapping of the columns of the table, can be reused for the
+ * other fragments of the same query. Once a fragment has been read, the plugin
+ * is kept by the plugin factory and bound to the context of the next fragment
+ * of the query read by the same segment with {@link #reset(RequestContext)},
+ * instead of creating and initializing a new plugin.
+ * <p>
+ * The contexts of the fragments a plugin is reset to share the transaction,
+ * segment, server, user, table and columns, including their projection. The
+ * data source, the fragment metadata and the metadata set by the accessor can
+ * differ.
+ */
+public interface ResettablePlugin extends Plugin {
+
+    /**
+     * Binds the plugin to the context of another fragment of the same query
+     * and clears the state kept for the previous fragment. Called instead of
+     * {@link #setRequestContext(RequestContext)} and {@link #afterPropertiesSet()}.
+     *
+     * @param context the context of the next fragment
+     */
+    void reset(RequestContext context);
+}
@@ -0,0 +1,28 @@
+package org.greenplum.pxf.api.model;
+
+/**
+ * Implemented by accessors that can skip data at the source when a sample of
+ * the records is requested, for example by ANALYZE. Instead of reading every
+ * record of the fragment, the accessor reads a random subset of its units of
+ * storage (row groups, stripes, ranges of lines, ...) so that every record has
+ * the same probability of being read, and tells the bridge which fraction of
+ * the records it reads so that the bridge samples the remaining fraction.
+ */
+public interface SamplingAccessor extends Accessor {
+
+    /**
+     * Sets the fraction of the records that are sampled by the bridge. Called
+     * before {@link #openForRead()}.
+     *
+     * @param sampleRatio the sampling ratio, between 0 and 1
+     */
+    void setSampleRatio(float sampleRatio);
+
+    /**
+     * Returns the probability of every record of the fragment to be read by
+     * the accessor. Called after {@link #openForRead()}.
+     *
+     * @return the fraction of the records that are read, 1 when all records are read
+     */
+    float getReadRatio();
+}
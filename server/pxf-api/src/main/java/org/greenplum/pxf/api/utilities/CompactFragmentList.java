@@ -0,0 +1,132 @@
+package org.greenplum.pxf.api.utilities;
+
+import org.greenplum.pxf.api.model.Fragment;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of fragments stored in primitive arrays, for caching the
+ * hundreds of thousands of fragments of large data sources. Directories of the
+ * source names, hosts and profiles are stored once, the ranges and indexes of
+ * the fragments are stored in arrays, and the metadata of fragments made of
+ * ranges of files is only kept for the first fragment of every run of
+ * fragments whose metadata {@link FileRangeFragmentMetadata#differsOnlyByRange
+ * differs only by range}. Other metadata is kept as is.
+ * <p>
+ * {@link #get(int)} creates a new {@link Fragment} every time it is called,
+ * fragments returned by the list must not be compared by identity.
+ */
+public class CompactFragmentList extends AbstractList<Fragment> implements RandomAccess {
+
+    private final int size;
+    private final String[] prefixes;
+    private final int[] prefixIds;
+    private final String[] names;
+    private final int[] indexes;
+    private final String[] profiles;
+    private final int[] profileIds;
+    private final FragmentMetadata[] prototypes;
+    private final int[] prototypeOwners;
+    private final int[] prototypeIds;
+    private final long[] starts;
+    private final long[] lengths;
+    private final String[][] hostSets;
+    private final int[] hostSetIds;
+
+    /**
+     * Creates a compact copy of the fragments.
+     *
+     * @param fragments the fragments
+     */
+    public CompactFragmentList(List<Fragment> fragments) {
+        size = fragments.size();
+        prefixIds = new int[size];
+        names = new String[size];
+        indexes = new int[size];
+        profileIds = new int[size];
+        prototypeIds = new int[size];
+        starts = new long[size];
+        lengths = new long[size];
+        hostSetIds = new int[size];
+
+        Map<String, Integer> prefixDictionary = new HashMap<>();
+        Map<String, String> nameDictionary = new HashMap<>();
+        Map<String, Integer> profileDictionary = new HashMap<>();
+        Map<List<String>, Integer> hostSetDictionary = new HashMap<>();
+        List<FragmentMetadata> prototypeList = new ArrayList<>();
+        List<Integer> prototypeOwnerList = new ArrayList<>();
+        FileRangeFragmentMetadata lastPrototype = null;
+
+        int i = 0;
+        // do not use fragments.get(i) to iterate over fragments as the incoming fragment list might be a LinkedList
+        for (Fragment fragment : fragments) {
+            String sourceName = fragment.getSourceName();
+            int separator = sourceName.lastIndexOf('/') + 1;
+            prefixIds[i] = prefixDictionary.computeIfAbsent(sourceName.substring(0, separator), k -> prefixDictionary.size());
+            names[i] = nameDictionary.computeIfAbsent(sourceName.substring(separator), k -> k);
+            indexes[i] = fragment.getIndex();
+            profileIds[i] = fragment.getProfile() == null ? -1
+                    : profileDictionary.computeIfAbsent(fragment.getProfile(), k -> profileDictionary.size());
+
+            FragmentMetadata metadata = fragment.getMetadata();
+            hostSetIds[i] = -1;
+            if (metadata instanceof FileRangeFragmentMetadata) {
+                FileRangeFragmentMetadata rangeMetadata = (FileRangeFragmentMetadata) metadata;
+                starts[i] = rangeMetadata.getStart();
+                lengths[i] = rangeMetadata.getLength();
+                String[] hosts = rangeMetadata.getHosts() == null ? new String[0] : rangeMetadata.getHosts();
+                hostSetIds[i] = hostSetDictionary.computeIfAbsent(Arrays.asList(hosts), k -> hostSetDictionary.size());
+                if (lastPrototype != null && lastPrototype.differsOnlyByRange(rangeMetadata)) {
+                    prototypeIds[i++] = prototypeList.size() - 1;
+                    continue;
+                }
+                lastPrototype = rangeMetadata;
+            } else {
+                lastPrototype = null;
+            }
+            prototypeIds[i] = prototypeList.size();
+            prototypeList.add(metadata);
+            prototypeOwnerList.add(i++);
+        }
+
+        prefixes = new String[prefixDictionary.size()];
+        prefixDictionary.forEach((prefix, id) -> prefixes[id] = prefix);
+        profiles = new String[profileDictionary.size()];
+        profileDictionary.forEach((profile, id) -> profiles[id] = profile);
+        hostSets = new String[hostSetDictionary.size()][];
+        hostSetDictionary.forEach((hosts, id) -> hostSets[id] = hosts.toArray(new String[0]));
+        prototypes = prototypeList.toArray(new FragmentMetadata[0]);
+        prototypeOwners = prototypeOwnerList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public Fragment get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        Fragment fragment = new Fragment(prefixes[prefixIds[i]] + names[i], getMetadata(i),
+                profileIds[i] == -1 ? null : profiles[profileIds[i]]);
+        fragment.setIndex(indexes[i]);
+        return fragment;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private FragmentMetadata getMetadata(int i) {
+        int prototypeId = prototypeIds[i];
+        FragmentMetadata prototype = prototypes[prototypeId];
+        if (prototypeOwners[prototypeId] == i) {
+            return prototype;
+        }
+        return ((FileRangeFragmentMetadata) prototype).withRange(starts[i], lengths[i], hostSets[hostSetIds[i]]);
+    }
+}
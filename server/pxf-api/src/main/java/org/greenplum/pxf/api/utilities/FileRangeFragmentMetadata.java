@@ -0,0 +1,39 @@
+package org.greenplum.pxf.api.utilities;
+
+/**
+ * Metadata of a fragment made of a range of bytes of a file. Fragments whose
+ * metadata only differ by their range and hosts can be kept in primitive
+ * arrays by a {@link CompactFragmentList}, which recreates their metadata
+ * from the metadata of the first of them.
+ */
+public interface FileRangeFragmentMetadata extends FragmentMetadata {
+
+    /**
+     * @return the offset of the first byte of the fragment in the file
+     */
+    long getStart();
+
+    /**
+     * @return the number of bytes of the fragment
+     */
+    long getLength();
+
+    /**
+     * Returns whether the other metadata is equal to this metadata except for
+     * its range and hosts.
+     *
+     * @param other the other metadata
+     * @return true if the other metadata can be recreated with {@link #withRange(long, long, String[])}
+     */
+    boolean differsOnlyByRange(FileRangeFragmentMetadata other);
+
+    /**
+     * Creates a copy of this metadata for another range of the file.
+     *
+     * @param start  the offset of the first byte of the range
+     * @param length the number of bytes of the range
+     * @param hosts  the hosts storing the range
+     * @return the metadata of the range
+     */
+    FileRangeFragmentMetadata withRange(long start, long length, String[] hosts);
+}
@@ -24,4 +24,25 @@ package org.greenplum.pxf.api.utilities;
  * own metadata object
  */
 public interface FragmentMetadata {
+
+    /**
+     * Returns the hosts that store the data of the fragment. Fragments can be assigned
+     * to segments running on these hosts, so that the data is read locally.
+     *
+     * @return the names of the hosts, or an empty array if the location of the data is unknown
+     */
+    default String[] getHosts() {
+        return new String[0];
+    }
+
+    /**
+     * Returns an estimate of the amount of data in the fragment, used to balance the work
+     * across the segments. Estimates only need to be comparable between the fragments of the
+     * same fragmenter, for example a number of bytes or a number of values.
+     *
+     * @return the estimated size of the fragment, or -1 if the size is unknown
+     */
+    default long getEstimatedSize() {
+        return -1;
+    }
 }
@@ -0,0 +1,96 @@
+package org.greenplum.pxf.api.utilities;
+
+import org.greenplum.pxf.api.model.Fragment;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fragments of a data source as they are discovered by a fragmenter. The
+ * fragmenter adds fragments to the stream while segments read them, so that
+ * segments can start processing the first fragments before the enumeration of
+ * the data source is complete. The fragments are kept in the order they were
+ * added, so that every segment sees the same sequence of fragments.
+ */
+public class FragmentStream {
+
+    private final List<Fragment> fragments = new ArrayList<>();
+    private boolean complete;
+    private Exception failure;
+
+    /**
+     * Adds a fragment at the end of the stream.
+     *
+     * @param fragment the fragment
+     */
+    public synchronized void add(Fragment fragment) {
+        if (complete) {
+            throw new IllegalStateException("the fragment stream is already complete");
+        }
+        fragments.add(fragment);
+        notifyAll();
+    }
+
+    /**
+     * Marks the stream as complete, no more fragments will be added.
+     */
+    public synchronized void complete() {
+        complete = true;
+        notifyAll();
+    }
+
+    /**
+     * Marks the stream as failed, readers of fragments that were not added
+     * yet get the failure.
+     *
+     * @param e the reason of the failure
+     */
+    public synchronized void fail(Exception e) {
+        failure = e;
+        complete = true;
+        notifyAll();
+    }
+
+    /**
+     * Returns the fragment at the given position in the stream, waiting until
+     * the fragmenter adds it.
+     *
+     * @param index the position of the fragment
+     * @return the fragment, or null if the stream completed with fewer fragments
+     * @throws IOException if the enumeration of the fragments failed, or the
+     *                     thread was interrupted while waiting
+     */
+    public synchronized Fragment get(int index) throws IOException {
+        while (index >= fragments.size()) {
+            if (failure != null) {
+                throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+            }
+            if (complete) {
+                return null;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for fragments");
+            }
+        }
+        return fragments.get(index);
+    }
+
+    /**
+     * @return the number of fragments added so far
+     */
+    public synchronized int size() {
+        return fragments.size();
+    }
+
+    /**
+     * @return true if no more fragments will be added
+     */
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+}
@@ -22,11 +22,15 @@ public class FragmenterCacheFactory {
     private final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     private final Cache<String, List<Fragment>> fragmenterCache;
+    private final Cache<String, FragmentStream> fragmentStreamCache;
+    private final int compactThreshold;
 
     /**
      * Constructs the FragmenterCacheFactory class
      */
-    public FragmenterCacheFactory(@Value("${pxf.fragmenter-cache.expiration:10s}") Duration expiration) {
+    public FragmenterCacheFactory(@Value("${pxf.fragmenter-cache.expiration:10s}") Duration expiration,
+                                  @Value("${pxf.fragmenter-cache.compact-threshold:10000}") int compactThreshold) {
+        this.compactThreshold = compactThreshold;
         long expirationMillis = expiration.toMillis();
         LOG.info("Creating Fragmenter Cache with entry expiration of {} ms", expirationMillis);
         fragmenterCache = CacheBuilder.newBuilder()
@@ -37,6 +41,14 @@ public class FragmenterCacheFactory {
                                 (notification.getValue() != null ? notification.getValue().size() : 0),
                                 notification.getCause().toString()))
                 .build();
+        fragmentStreamCache = CacheBuilder.newBuilder()
+                .expireAfterAccess(expirationMillis, TimeUnit.MILLISECONDS)
+                .removalListener((RemovalListener<String, FragmentStream>) notification ->
+                        LOG.debug("Removed fragmentStreamCache entry for transactionId {} with {} fragments with cause {}",
+                                notification.getKey(),
+                                (notification.getValue() != null ? notification.getValue().size() : 0),
+                                notification.getCause().toString()))
+                .build();
     }
 
     /**
@@ -45,4 +57,31 @@ public class FragmenterCacheFactory {
     public Cache<String, List<Fragment>> getCache() {
         return fragmenterCache;
     }
+
+    /**
+     * Returns the list of fragments to cache for the given fragments, a
+     * {@link CompactFragmentList} when there are at least as many fragments
+     * as the pxf.fragmenter-cache.compact-threshold property, or the given
+     * list otherwise. A threshold of 0 disables compaction.
+     *
+     * @param fragments the fragments to cache
+     * @return the list of fragments to cache
+     */
+    public List<Fragment> compact(List<Fragment> fragments) {
+        if (compactThreshold <= 0 || fragments.size() < compactThreshold) {
+            return fragments;
+        }
+        long start = System.nanoTime();
+        List<Fragment> compactFragments = new CompactFragmentList(fragments);
+        LOG.debug("Compacted {} fragments in {} ms", fragments.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return compactFragments;
+    }
+
+    /**
+     * @return the cache for the fragments streamed by the fragmenter while they are discovered
+     */
+    public Cache<String, FragmentStream> getStreamCache() {
+        return fragmentStreamCache;
+    }
 }
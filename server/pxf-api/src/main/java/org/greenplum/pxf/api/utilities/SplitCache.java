@@ -0,0 +1,162 @@
+package org.greenplum.pxf.api.utilities;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.greenplum.pxf.api.model.ConfigurationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the file listings and splits computed by the fragmenters, shared by
+ * the queries of all transactions. The {@link FragmenterCacheFactory} caches
+ * the fragments of a single query, this cache lets later queries over the same
+ * path skip listing and splitting files that did not change.
+ * <p>
+ * Entries are keyed by server, user, kind of listing and path. An entry is
+ * used while the paths matching the path of the request have the same
+ * modification times and sizes as when the entry was created, and for at most
+ * the time set with the pxf.fs.split-cache.ttl property of the server. Files
+ * added to nested directories do not change the modification time of the top
+ * directory, and object stores do not keep modification times of directories,
+ * so the time to live bounds how long such changes go unnoticed. The cache is
+ * enabled per server with the pxf.fs.split-cache.enabled property.
+ */
+@Component
+public class SplitCache {
+
+    public static final String SPLIT_CACHE_ENABLED_PROPERTY = "pxf.fs.split-cache.enabled";
+    public static final String SPLIT_CACHE_TTL_PROPERTY = "pxf.fs.split-cache.ttl";
+    public static final long DEFAULT_SPLIT_CACHE_TTL_SECONDS = 300;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SplitCache.class);
+
+    private final Cache<String, Entry> cache;
+    private final Ticker ticker;
+
+    /**
+     * Loads the splits of a path when they are not cached.
+     *
+     * @param <T> the type of the splits
+     */
+    @FunctionalInterface
+    public interface SplitLoader<T> {
+        List<T> load() throws IOException;
+    }
+
+    /**
+     * Constructs the SplitCache class
+     *
+     * @param maxWeight the maximum number of splits held by the cache across all entries
+     */
+    @Autowired
+    public SplitCache(@Value("${pxf.split-cache.max-weight:1000000}") long maxWeight) {
+        this(maxWeight, Ticker.systemTicker());
+    }
+
+    SplitCache(long maxWeight, Ticker ticker) {
+        LOG.info("Creating Split Cache with a maximum weight of {} splits", maxWeight);
+        this.ticker = ticker;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Weigher<String, Entry>) (key, entry) -> entry.splits.size() + 1)
+                .build();
+    }
+
+    /**
+     * Returns whether the splits of the server with the given configuration
+     * are cached across queries.
+     *
+     * @param configuration the configuration of the server
+     * @return true if the cache is enabled for the server, false otherwise
+     */
+    public static boolean isEnabled(Configuration configuration) {
+        return configuration != null && configuration.getBoolean(SPLIT_CACHE_ENABLED_PROPERTY, false);
+    }
+
+    /**
+     * Returns the cached splits of the path if they are still valid, otherwise
+     * loads and caches them. Splits of paths that do not exist are not cached.
+     *
+     * @param configuration the configuration of the server
+     * @param user          the user the splits are listed for
+     * @param kind          the kind of splits, distinguishes listings of the same path that produce different splits
+     * @param path          the path, possibly a wildcard
+     * @param loader        loads the splits when they are not cached
+     * @param <T>           the type of the splits
+     * @return the splits of the path
+     * @throws IOException when the splits cannot be loaded
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Configuration configuration, String user, String kind, Path path, SplitLoader<T> loader)
+            throws IOException {
+        String key = String.format("%s:%s:%s:%s",
+                StringUtils.defaultIfBlank(configuration.get(ConfigurationFactory.PXF_SERVER_NAME_PROPERTY), "default"),
+                user, kind, path);
+        String fingerprint = getFingerprint(configuration, path);
+        if (fingerprint == null) {
+            return loader.load();
+        }
+
+        long now = ticker.read();
+        long ttlNanos = TimeUnit.SECONDS.toNanos(
+                configuration.getTimeDuration(SPLIT_CACHE_TTL_PROPERTY, DEFAULT_SPLIT_CACHE_TTL_SECONDS, TimeUnit.SECONDS));
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.fingerprint.equals(fingerprint) && now - entry.createdNanos < ttlNanos) {
+            LOG.debug("Using {} cached splits for key={}", entry.splits.size(), key);
+            return (List<T>) entry.splits;
+        }
+
+        LOG.debug("{} splits for key={}", entry == null ? "Loading" : "Reloading stale", key);
+        List<T> splits = Collections.unmodifiableList(loader.load());
+        cache.put(key, new Entry(splits, fingerprint, now));
+        return splits;
+    }
+
+    /**
+     * Describes the paths matching the path by their modification times and
+     * sizes, or returns null if no path matches.
+     */
+    private String getFingerprint(Configuration configuration, Path path) throws IOException {
+        FileSystem fs = path.getFileSystem(configuration);
+        FileStatus[] matches = fs.globStatus(path);
+        if (matches == null || matches.length == 0) {
+            return null;
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        for (FileStatus match : matches) {
+            fingerprint.append(match.getPath())
+                    .append('@').append(match.getModificationTime())
+                    .append(':').append(match.getLen())
+                    .append(';');
+        }
+        return fingerprint.toString();
+    }
+
+    private static class Entry {
+
+        private final List<?> splits;
+        private final String fingerprint;
+        private final long createdNanos;
+
+        Entry(List<?> splits, String fingerprint, long createdNanos) {
+            this.splits = splits;
+            this.fingerprint = fingerprint;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.greenplum.pxf.api.utilities;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects a random subset of the units of storage of a fragment (row groups,
+ * stripes, ranges of lines, ...) for a {@link org.greenplum.pxf.api.model.SamplingAccessor}.
+ * <p>
+ * Records of the same unit are usually correlated, so the units are sampled
+ * with a higher ratio than the records, and the records of the selected units
+ * are sampled again by the bridge. Fragments with too few units to get a
+ * meaningful sample of them are read completely. Units are selected
+ * systematically from a random offset, every unit has a probability of
+ * {@link #getRatio()} to be selected and the selected units are spread evenly
+ * over the fragment.
+ */
+public class UnitSampler {
+
+    /**
+     * How many times more units than records are sampled
+     */
+    static final int OVERSAMPLING = 4;
+
+    /**
+     * The minimum number of units expected to be selected, fragments with
+     * fewer units are read completely
+     */
+    static final int MIN_SAMPLED_UNITS = 4;
+
+    private final float ratio;
+    private final double offset;
+    private long index;
+
+    /**
+     * Creates a sampler of the units of a fragment.
+     *
+     * @param sampleRatio the ratio of the records sampled by the bridge
+     * @param unitCount   the number of units of the fragment
+     */
+    public UnitSampler(float sampleRatio, int unitCount) {
+        this(sampleRatio, unitCount, ThreadLocalRandom.current().nextDouble());
+    }
+
+    UnitSampler(float sampleRatio, int unitCount, double offset) {
+        float unitRatio = Math.min(1, sampleRatio * OVERSAMPLING);
+        if (unitRatio <= 0 || unitCount * unitRatio < MIN_SAMPLED_UNITS) {
+            unitRatio = 1;
+        }
+        this.ratio = unitRatio;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns whether the next unit of the fragment is selected.
+     *
+     * @return true if the unit should be read, false if it should be skipped
+     */
+    public boolean select() {
+        long current = index++;
+        return ratio >= 1 || Math.floor((current + 1) * ratio + offset) > Math.floor(current * ratio + offset);
+    }
+
+    /**
+     * @return the probability of a unit to be selected
+     */
+    public float getRatio() {
+        return ratio;
+    }
+}
@@ -0,0 +1,152 @@
+package org.greenplum.pxf.api.io;
+
+import org.greenplum.pxf.api.GreenplumDateTime;
+import org.greenplum.pxf.api.model.GreenplumCSV;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvRowEncoderTest {
+
+    private static final String[] TEXT_VALUES = {
+            "", "value", "va\"lue", "\"", "a,b", "line\nbreak", "line\r\nbreak", "cr\ronly", "café",
+            "日本,語", "emoji 😀", "lone \uD800 surrogate", "\"quoted\",\n", "tab\tseparated", "a|b"
+    };
+
+    @Test
+    public void testTextMatchesToCsvFieldWithDefaults() throws Exception {
+        assertTextMatchesToCsvField(new GreenplumCSV());
+    }
+
+    @Test
+    public void testTextMatchesToCsvFieldWithNewline() throws Exception {
+        assertTextMatchesToCsvField(new GreenplumCSV().withNewline("\n"));
+        assertTextMatchesToCsvField(new GreenplumCSV().withNewline("\r\n"));
+        assertTextMatchesToCsvField(new GreenplumCSV().withNewline("\r"));
+        // newlines are not looked for when the newline is not given
+        assertTextMatchesToCsvField(new GreenplumCSV().withNewline(null));
+    }
+
+    @Test
+    public void testTextMatchesToCsvFieldWithCustomCharacters() throws Exception {
+        assertTextMatchesToCsvField(new GreenplumCSV()
+                .withDelimiter('|')
+                .withQuoteChar('\'')
+                .withEscapeChar('\\')
+                .withNewline("\n"));
+        assertTextMatchesToCsvField(new GreenplumCSV().withEscapeChar("OFF"));
+        assertTextMatchesToCsvField(new GreenplumCSV().withDelimiter('\t'));
+    }
+
+    @Test
+    public void testTextMatchesToCsvFieldWithMultiByteDelimiter() throws Exception {
+        // the byte level scan is not possible, values are decoded instead
+        assertTextMatchesToCsvField(new GreenplumCSV().withDelimiter('語'));
+    }
+
+    @Test
+    public void testRowOfAllTypes() throws Exception {
+        GreenplumCSV greenplumCSV = new GreenplumCSV().withValueOfNull("NULL");
+        CsvRowEncoder encoder = new CsvRowEncoder(greenplumCSV, true, 1024);
+        LocalDateTime timestamp = LocalDateTime.of(2022, 6, 10, 11, 44, 33, 123456000);
+        byte[] numeric = "9876.54321".getBytes(StandardCharsets.UTF_8);
+
+        encoder.beginRecord();
+        encoder.addLong(0);
+        encoder.addLong(-1234567890123L);
+        encoder.addLong(Long.MIN_VALUE);
+        encoder.addFloat(7.7f);
+        encoder.addDouble(6.7d);
+        encoder.addBoolean(true);
+        encoder.addBoolean(false);
+        encoder.addBytea(new byte[]{9, 0, 1, (byte) 0xff, 9}, 1, 3);
+        encoder.addTimestamp(timestamp);
+        encoder.addValue("1994-08-03");
+        encoder.addValue(numeric, 0, numeric.length);
+        encoder.addNull();
+        encoder.addText("va\"lue");
+        encoder.endRecord();
+
+        String expected = "0,-1234567890123," + Long.MIN_VALUE + ",7.7,6.7,true,false,\\x0001ff,"
+                + timestamp.format(GreenplumDateTime.DATETIME_FORMATTER) + ",1994-08-03,9876.54321,NULL,\"va\"\"lue\"\n";
+        assertEquals(expected, drain(encoder));
+    }
+
+    @Test
+    public void testByteaPrefixForTextFormat() throws Exception {
+        CsvRowEncoder encoder = new CsvRowEncoder(new GreenplumCSV(), false, 1024);
+        encoder.beginRecord();
+        encoder.addBytea(new byte[]{0x0a}, 0, 1);
+        encoder.endRecord();
+
+        assertEquals("\\\\x0a\n", drain(encoder));
+    }
+
+    @Test
+    public void testMultipleRowsAndBufferGrowth() throws Exception {
+        CsvRowEncoder encoder = new CsvRowEncoder(new GreenplumCSV(), true, 16);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            encoder.beginRecord();
+            encoder.addLong(i);
+            encoder.addText("row, " + i);
+            encoder.endRecord();
+            expected.append(i).append(",\"row, ").append(i).append("\"\n");
+        }
+
+        assertTrue(encoder.isFull());
+        assertEquals(500, encoder.getRecordCount());
+        assertEquals(expected.toString(), drain(encoder));
+        assertEquals(0, encoder.size());
+        assertFalse(encoder.isFull());
+    }
+
+    @Test
+    public void testIncompleteRecord() {
+        CsvRowEncoder encoder = new CsvRowEncoder(new GreenplumCSV(), true, 1024);
+        assertThrows(IllegalStateException.class, encoder::addNull);
+        assertThrows(IllegalStateException.class, encoder::endRecord);
+
+        encoder.beginRecord();
+        assertThrows(IllegalStateException.class, encoder::beginRecord);
+        assertThrows(IllegalStateException.class, () -> encoder.writeTo(new ByteArrayOutputStream()));
+    }
+
+    private void assertTextMatchesToCsvField(GreenplumCSV greenplumCSV) throws IOException {
+        CsvRowEncoder encoder = new CsvRowEncoder(greenplumCSV, true, 1024);
+        for (String value : TEXT_VALUES) {
+            byte[] expected = (greenplumCSV.toCsvField(value, true, true, true) + greenplumCSV.getNewline())
+                    .getBytes(StandardCharsets.UTF_8);
+
+            encoder.beginRecord();
+            encoder.addText(value);
+            encoder.endRecord();
+            assertArrayEquals(expected, drainBytes(encoder), "text value: " + value);
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            encoder.beginRecord();
+            encoder.addText(bytes, 0, bytes.length);
+            encoder.endRecord();
+            assertArrayEquals(expected, drainBytes(encoder), "UTF-8 value: " + value);
+        }
+    }
+
+    private String drain(CsvRowEncoder encoder) throws IOException {
+        return new String(drainBytes(encoder), StandardCharsets.UTF_8);
+    }
+
+    private byte[] drainBytes(CsvRowEncoder encoder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeTo(out);
+        return out.toByteArray();
+    }
+}
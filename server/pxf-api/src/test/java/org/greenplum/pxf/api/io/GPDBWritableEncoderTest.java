@@ -0,0 +1,201 @@
+package org.greenplum.pxf.api.io;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GPDBWritableEncoderTest {
+
+    private static final int[] COLUMN_TYPES = {
+            DataType.BOOLEAN.getOID(),
+            DataType.BYTEA.getOID(),
+            DataType.BIGINT.getOID(),
+            DataType.SMALLINT.getOID(),
+            DataType.INTEGER.getOID(),
+            DataType.TEXT.getOID(),
+            DataType.REAL.getOID(),
+            DataType.FLOAT8.getOID(),
+            DataType.VARCHAR.getOID(),
+            DataType.NUMERIC.getOID()
+    };
+
+    @BeforeEach
+    public void setup() {
+        System.setProperty("greenplum.alignment", "8");
+    }
+
+    @Test
+    public void testAllTypesMatchGPDBWritable() throws Exception {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        encodeAllTypes(encoder, "text-value", "varchar-value");
+
+        assertEquals(1, encoder.getRecordCount());
+        assertArrayEquals(writeAllTypes(StandardCharsets.UTF_8, "text-value", "varchar-value"), drain(encoder));
+        assertEquals(0, encoder.size());
+    }
+
+    @Test
+    public void testNonAsciiTextInOtherEncoding() throws Exception {
+        Charset latin1 = StandardCharsets.ISO_8859_1;
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, latin1, 1024);
+        encodeAllTypes(encoder, "café", "naïve €");
+
+        assertArrayEquals(writeAllTypes(latin1, "café", "naïve €"), drain(encoder));
+    }
+
+    @Test
+    public void testNonAsciiTextInUtf8() throws Exception {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        encodeAllTypes(encoder, "café", "日本");
+
+        assertArrayEquals(writeAllTypes(StandardCharsets.UTF_8, "café", "日本"), drain(encoder));
+    }
+
+    @Test
+    public void testSkippedColumnsAreNull() throws Exception {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        encoder.beginRecord();
+        encoder.setLong(2, 42L);
+        encoder.setDouble(7, 1.5d);
+        encoder.endRecord();
+
+        GPDBWritable expected = new GPDBWritable(COLUMN_TYPES, StandardCharsets.UTF_8);
+        expected.setLong(2, 42L);
+        expected.setDouble(7, 1.5d);
+
+        assertArrayEquals(write(expected), drain(encoder));
+    }
+
+    @Test
+    public void testAllNulls() throws Exception {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        encoder.beginRecord();
+        encoder.endRecord();
+
+        assertArrayEquals(write(new GPDBWritable(COLUMN_TYPES, StandardCharsets.UTF_8)), drain(encoder));
+    }
+
+    @Test
+    public void testMultipleRecordsAndBufferGrowth() throws Exception {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 64);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longText.append("value-").append(i);
+            encodeAllTypes(encoder, longText.toString(), "v" + i);
+            expected.write(writeAllTypes(StandardCharsets.UTF_8, longText.toString(), "v" + i));
+        }
+
+        assertTrue(encoder.isFull());
+        assertEquals(100, encoder.getRecordCount());
+        assertArrayEquals(expected.toByteArray(), drain(encoder));
+        assertFalse(encoder.isFull());
+        assertEquals(0, encoder.getRecordCount());
+    }
+
+    @Test
+    public void testRecordIsReadableByGPDBWritable() throws Exception {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        encodeAllTypes(encoder, "text-value", "varchar-value");
+
+        GPDBWritable record = new GPDBWritable(drain(encoder), StandardCharsets.UTF_8);
+        assertTrue(record.getBoolean(0));
+        assertArrayEquals(new byte[]{0, 1, 2}, record.getBytes(1));
+        assertEquals(1L, record.getLong(2));
+        assertEquals((short) 2, record.getShort(3));
+        assertEquals(3, record.getInt(4));
+        assertEquals("text-value\0", record.getString(5));
+        assertEquals(4.5f, record.getFloat(6));
+        assertEquals(6.7d, record.getDouble(7));
+        assertEquals("varchar-value\0", record.getString(8));
+        assertEquals("9876.54321\0", record.getString(9));
+    }
+
+    @Test
+    public void testTypeMismatch() {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        encoder.beginRecord();
+
+        Exception e = assertThrows(GPDBWritable.TypeMismatchException.class, () -> encoder.setInt(2, 1));
+        assertEquals("Cannot set INTEGER to a column of type BIGINT", e.getMessage());
+    }
+
+    @Test
+    public void testColumnsOutOfOrder() throws Exception {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        encoder.beginRecord();
+        encoder.setInt(4, 1);
+
+        Exception e = assertThrows(GPDBWritable.TypeMismatchException.class, () -> encoder.setLong(2, 1L));
+        assertEquals("Column index 2 is out of order or out of range", e.getMessage());
+
+        e = assertThrows(GPDBWritable.TypeMismatchException.class, () -> encoder.setLong(10, 1L));
+        assertEquals("Column index 10 is out of order or out of range", e.getMessage());
+    }
+
+    @Test
+    public void testIncompleteRecord() {
+        GPDBWritableEncoder encoder = new GPDBWritableEncoder(COLUMN_TYPES, StandardCharsets.UTF_8, 1024);
+        assertThrows(IllegalStateException.class, encoder::endRecord);
+
+        encoder.beginRecord();
+        assertThrows(IllegalStateException.class, encoder::beginRecord);
+        assertThrows(IllegalStateException.class, () -> encoder.writeTo(new ByteArrayOutputStream()));
+    }
+
+    private void encodeAllTypes(GPDBWritableEncoder encoder, String text, String varchar) throws IOException {
+        byte[] bytea = {9, 0, 1, 2, 9};
+        byte[] numeric = "9876.54321".getBytes(StandardCharsets.UTF_8);
+        encoder.beginRecord();
+        encoder.setBoolean(0, true);
+        encoder.setBytes(1, bytea, 1, 3);
+        encoder.setLong(2, 1L);
+        encoder.setShort(3, (short) 2);
+        encoder.setInt(4, 3);
+        encoder.setString(5, text);
+        encoder.setFloat(6, 4.5f);
+        encoder.setDouble(7, 6.7d);
+        byte[] varcharBytes = varchar.getBytes(StandardCharsets.UTF_8);
+        encoder.setText(8, varcharBytes, 0, varcharBytes.length);
+        encoder.setText(9, numeric, 0, numeric.length);
+        encoder.endRecord();
+    }
+
+    private byte[] writeAllTypes(Charset encoding, String text, String varchar) throws IOException {
+        GPDBWritable writable = new GPDBWritable(COLUMN_TYPES, encoding);
+        writable.setBoolean(0, true);
+        writable.setBytes(1, new byte[]{0, 1, 2});
+        writable.setLong(2, 1L);
+        writable.setShort(3, (short) 2);
+        writable.setInt(4, 3);
+        writable.setString(5, text + "\0");
+        writable.setFloat(6, 4.5f);
+        writable.setDouble(7, 6.7d);
+        writable.setString(8, varchar + "\0");
+        writable.setString(9, "9876.54321\0");
+        return write(writable);
+    }
+
+    private byte[] write(GPDBWritable writable) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writable.write(new DataOutputStream(out));
+        return out.toByteArray();
+    }
+
+    private byte[] drain(GPDBWritableEncoder encoder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeTo(out);
+        return out.toByteArray();
+    }
+}
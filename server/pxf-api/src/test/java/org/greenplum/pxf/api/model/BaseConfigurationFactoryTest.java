@@ -3,12 +3,15 @@ package org.greenplum.pxf.api.model;
 import org.apache.hadoop.conf.Configuration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,6 +21,7 @@ import static org.greenplum.pxf.api.model.ConfigurationFactory.PXF_SESSION_USER_
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -198,4 +202,64 @@ public class BaseConfigurationFactoryTest {
         assertEquals("dummy", configuration.get(PXF_SESSION_USER_PROPERTY));
     }
 
+    @Test
+    public void testRequestsGetCopiesOfCachedConfiguration() {
+        Configuration first = factory.initConfiguration("default", "default", "dummy", null);
+        first.set("test.blue", "changed");
+        first.set("test.request.key", "value");
+
+        Configuration second = factory.initConfiguration("default", "default", "other", null);
+        assertEquals("blue", second.get("test.blue"));
+        assertNull(second.get("test.request.key"));
+        assertEquals("other", second.get(PXF_SESSION_USER_PROPERTY));
+        // the other user has no user file
+        assertNull(second.get("test.user.key"));
+        assertEquals("changed", first.get("test.blue"));
+    }
+
+    @Test
+    public void testConfigurationReloadedWhenSiteFilesChange(@TempDir File tempDir) throws IOException {
+        File serverDirectory = new File(tempDir, "s1");
+        assertTrue(serverDirectory.mkdir());
+        File siteFile = new File(serverDirectory, "test-site.xml");
+        writeProperty(siteFile, "test.key", "first");
+        factory = new BaseConfigurationFactory(tempDir);
+
+        assertEquals("first", factory.initConfiguration("s1", "s1", "dummy", null).get("test.key"));
+
+        // changing a site file
+        writeProperty(siteFile, "test.key", "second");
+        assertTrue(siteFile.setLastModified(siteFile.lastModified() + 10000));
+        assertEquals("second", factory.initConfiguration("s1", "s1", "dummy", null).get("test.key"));
+
+        // adding a site file
+        writeProperty(new File(serverDirectory, "other-site.xml"), "test.other.key", "other");
+        assertTrue(serverDirectory.setLastModified(serverDirectory.lastModified() + 10000));
+        Configuration configuration = factory.initConfiguration("s1", "s1", "dummy", null);
+        assertEquals("second", configuration.get("test.key"));
+        assertEquals("other", configuration.get("test.other.key"));
+    }
+
+    @Test
+    public void testUserConfigurationReloadedWhenUserFileChanges(@TempDir File tempDir) throws IOException {
+        File serverDirectory = new File(tempDir, "s1");
+        assertTrue(serverDirectory.mkdir());
+        File userFile = new File(serverDirectory, "dummy-user.xml");
+        writeProperty(userFile, "test.user.key", "first");
+        factory = new BaseConfigurationFactory(tempDir);
+
+        assertEquals("first", factory.initConfiguration("s1", "s1", "dummy", null).get("test.user.key"));
+
+        writeProperty(userFile, "test.user.key", "second-value");
+        assertTrue(userFile.setLastModified(userFile.lastModified() + 10000));
+        assertEquals("second-value", factory.initConfiguration("s1", "s1", "dummy", null).get("test.user.key"));
+
+        assertTrue(userFile.delete());
+        assertNull(factory.initConfiguration("s1", "s1", "dummy", null).get("test.user.key"));
+    }
+
+    private void writeProperty(File file, String name, String value) throws IOException {
+        String xml = String.format("<configuration><property><name>%s</name><value>%s</value></property></configuration>", name, value);
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+    }
 }
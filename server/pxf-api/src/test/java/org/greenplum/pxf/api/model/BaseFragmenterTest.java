@@ -3,6 +3,9 @@ package org.greenplum.pxf.api.model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -37,4 +40,36 @@ public class BaseFragmenterTest {
         assertNotNull(fragments);
         assertEquals(0, fragments.size());
     }
+
+    @Test
+    public void testStreamFragmentsPassesFragmentsAsTheyAreAdded() throws Exception {
+        List<String> streamed = new ArrayList<>();
+        BaseFragmenter fragmenter = new BaseFragmenter() {
+            @Override
+            public List<Fragment> getFragments() {
+                fragments.add(new Fragment("a"));
+                // the first fragment is passed before the second one is discovered
+                assertEquals(Collections.singletonList("a"), streamed);
+                fragments.addAll(Arrays.asList(new Fragment("b"), new Fragment("c")));
+                return fragments;
+            }
+        };
+
+        fragmenter.streamFragments(fragment -> streamed.add(fragment.getSourceName()));
+        assertEquals(Arrays.asList("a", "b", "c"), streamed);
+    }
+
+    @Test
+    public void testStreamFragmentsOfFragmenterBuildingItsOwnList() throws Exception {
+        List<String> streamed = new ArrayList<>();
+        BaseFragmenter fragmenter = new BaseFragmenter() {
+            @Override
+            public List<Fragment> getFragments() {
+                return Arrays.asList(new Fragment("a"), new Fragment("b"));
+            }
+        };
+
+        fragmenter.streamFragments(fragment -> streamed.add(fragment.getSourceName()));
+        assertEquals(Arrays.asList("a", "b"), streamed);
+    }
 }
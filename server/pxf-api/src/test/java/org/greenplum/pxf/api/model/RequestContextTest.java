@@ -1,5 +1,6 @@
 package org.greenplum.pxf.api.model;
 
+import org.apache.hadoop.conf.Configuration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -232,4 +233,29 @@ public class RequestContextTest {
         context.setConfig("foo/bar");
         assertEquals("foo/bar", context.getConfig());
     }
+
+    @Test
+    public void testCopyIsIndependentOfOriginal() {
+        Configuration configuration = new Configuration(false);
+        configuration.set("foo", "bar");
+        context.setConfiguration(configuration);
+        context.setServerName("s3");
+        context.setDataSource("/tmp/a");
+        context.setStatsMaxFragments(5);
+        context.addOption("opt", "value");
+
+        RequestContext copy = context.copy();
+        copy.setDataSource("/tmp/b");
+        copy.getConfiguration().set("foo", "baz");
+        copy.addOption("opt", "other");
+
+        assertEquals("s3", copy.getServerName());
+        assertEquals(5, copy.getStatsMaxFragments());
+        assertEquals("/tmp/a", context.getDataSource());
+        assertEquals("/tmp/b", copy.getDataSource());
+        assertEquals("bar", context.getConfiguration().get("foo"));
+        assertEquals("baz", copy.getConfiguration().get("foo"));
+        assertEquals("value", context.getOption("opt"));
+        assertEquals("other", copy.getOption("opt"));
+    }
 }
@@ -0,0 +1,128 @@
+package org.greenplum.pxf.api.utilities;
+
+import org.greenplum.pxf.api.examples.DemoFragmentMetadata;
+import org.greenplum.pxf.api.model.Fragment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactFragmentListTest {
+
+    @Test
+    public void testEmptyList() {
+        List<Fragment> fragments = new CompactFragmentList(Collections.emptyList());
+        assertEquals(0, fragments.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> fragments.get(0));
+    }
+
+    @Test
+    public void testFragmentsAreRecreated() {
+        List<Fragment> original = new LinkedList<>();
+        original.add(newFragment("hdfs://nn/data/a.csv", 0, new RangeMetadata(0, 100, "group-1", "host1", "host2")));
+        original.add(newFragment("hdfs://nn/data/a.csv", 1, new RangeMetadata(100, 50, "group-1", "host2", "host3")));
+        original.add(newFragment("hdfs://nn/data/b.csv", 0, new RangeMetadata(0, 10, "group-2")));
+        Fragment demo = new Fragment("table", new DemoFragmentMetadata("fragment"), "profile");
+        original.add(demo);
+        original.add(newFragment("hdfs://nn/other/c.csv", 0, new RangeMetadata(0, 20, "group-2", "host1", "host2")));
+
+        List<Fragment> compact = new CompactFragmentList(original);
+
+        assertEquals(original.size(), compact.size());
+        for (int i = 0; i < original.size(); i++) {
+            Fragment expected = original.get(i);
+            Fragment actual = compact.get(i);
+            assertEquals(expected.getSourceName(), actual.getSourceName());
+            assertEquals(expected.getIndex(), actual.getIndex());
+            assertEquals(expected.getProfile(), actual.getProfile());
+            if (expected.getMetadata() instanceof RangeMetadata) {
+                RangeMetadata expectedMetadata = (RangeMetadata) expected.getMetadata();
+                RangeMetadata actualMetadata = (RangeMetadata) actual.getMetadata();
+                assertEquals(expectedMetadata.getStart(), actualMetadata.getStart());
+                assertEquals(expectedMetadata.getLength(), actualMetadata.getLength());
+                assertEquals(expectedMetadata.group, actualMetadata.group);
+                assertArrayEquals(expectedMetadata.getHosts(), actualMetadata.getHosts());
+            }
+        }
+        assertSame(demo.getMetadata(), compact.get(3).getMetadata());
+        assertNull(compact.get(0).getProfile());
+    }
+
+    @Test
+    public void testMetadataIsSharedWithinRuns() {
+        RangeMetadata first = new RangeMetadata(0, 100, "group-1");
+        List<Fragment> compact = new CompactFragmentList(Arrays.asList(
+                newFragment("/data/a", 0, first),
+                newFragment("/data/a", 1, new RangeMetadata(100, 100, "group-1"))));
+
+        // the first fragment of a run keeps its metadata, the others are recreated from it
+        assertSame(first, compact.get(0).getMetadata());
+        assertTrue(compact.get(1).getMetadata() instanceof RangeMetadata);
+        assertEquals(1, ((RangeMetadata) compact.get(1).getMetadata()).copies);
+    }
+
+    @Test
+    public void testListIsImmutable() {
+        List<Fragment> compact = new CompactFragmentList(Collections.singletonList(new Fragment("/data/a")));
+        assertThrows(UnsupportedOperationException.class, () -> compact.set(0, null));
+        assertThrows(UnsupportedOperationException.class, () -> compact.add(new Fragment("/data/b")));
+    }
+
+    private static Fragment newFragment(String sourceName, int index, FragmentMetadata metadata) {
+        Fragment fragment = new Fragment(sourceName, metadata);
+        fragment.setIndex(index);
+        return fragment;
+    }
+
+    private static class RangeMetadata implements FileRangeFragmentMetadata {
+
+        private final long start;
+        private final long length;
+        private final String group;
+        private final String[] hosts;
+        private int copies;
+
+        RangeMetadata(long start, long length, String group, String... hosts) {
+            this.start = start;
+            this.length = length;
+            this.group = group;
+            this.hosts = hosts;
+        }
+
+        @Override
+        public long getStart() {
+            return start;
+        }
+
+        @Override
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public String[] getHosts() {
+            return hosts;
+        }
+
+        @Override
+        public boolean differsOnlyByRange(FileRangeFragmentMetadata other) {
+            return other instanceof RangeMetadata && group.equals(((RangeMetadata) other).group);
+        }
+
+        @Override
+        public FileRangeFragmentMetadata withRange(long start, long length, String[] hosts) {
+            RangeMetadata metadata = new RangeMetadata(start, length, group, hosts);
+            metadata.copies = copies + 1;
+            return metadata;
+        }
+    }
+}
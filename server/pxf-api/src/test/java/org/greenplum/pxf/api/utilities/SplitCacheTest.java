@@ -0,0 +1,105 @@
+package org.greenplum.pxf.api.utilities;
+
+import com.google.common.base.Ticker;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SplitCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SplitCache splitCache;
+    private Configuration configuration;
+    private Path path;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Files.write(new File(tempDir, "a.txt").toPath(), "a".getBytes());
+        path = new Path(tempDir.getAbsolutePath());
+        configuration = new Configuration();
+        configuration.set("pxf.config.server.name", "test-server");
+        configuration.setBoolean(SplitCache.SPLIT_CACHE_ENABLED_PROPERTY, true);
+        splitCache = new SplitCache(100, new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+    }
+
+    @Test
+    public void testIsEnabled() {
+        assertTrue(SplitCache.isEnabled(configuration));
+        assertFalse(SplitCache.isEnabled(new Configuration()));
+        assertFalse(SplitCache.isEnabled(null));
+    }
+
+    @Test
+    public void testSplitsAreCachedAcrossRequests() throws IOException {
+        assertEquals(Arrays.asList("split-1"), get("user", "splits", path));
+        assertEquals(Arrays.asList("split-1"), get("user", "splits", path));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testSplitsAreCachedPerUserAndKind() throws IOException {
+        assertEquals(Arrays.asList("split-1"), get("user", "splits", path));
+        assertEquals(Arrays.asList("split-2"), get("other-user", "splits", path));
+        assertEquals(Arrays.asList("split-3"), get("user", "files", path));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testSplitsAreReloadedWhenPathChanges() throws IOException {
+        assertEquals(Arrays.asList("split-1"), get("user", "splits", path));
+        new File(tempDir.getAbsolutePath()).setLastModified(System.currentTimeMillis() + 60_000);
+        assertEquals(Arrays.asList("split-2"), get("user", "splits", path));
+        assertEquals(Arrays.asList("split-2"), get("user", "splits", path));
+    }
+
+    @Test
+    public void testSplitsAreReloadedAfterTimeToLive() throws IOException {
+        configuration.set(SplitCache.SPLIT_CACHE_TTL_PROPERTY, "10s");
+        assertEquals(Arrays.asList("split-1"), get("user", "splits", path));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals(Arrays.asList("split-1"), get("user", "splits", path));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(Arrays.asList("split-2"), get("user", "splits", path));
+    }
+
+    @Test
+    public void testSplitsOfMissingPathAreNotCached() throws IOException {
+        Path missing = new Path(tempDir.getAbsolutePath(), "non-existent");
+        assertThrows(IOException.class, () -> splitCache.get(configuration, "user", "splits", missing, () -> {
+            throw new IOException("Input path does not exist: " + missing);
+        }));
+        assertEquals(Arrays.asList("split-1"), get("user", "splits", missing));
+        assertEquals(Arrays.asList("split-2"), get("user", "splits", missing));
+    }
+
+    private List<String> get(String user, String kind, Path path) throws IOException {
+        return splitCache.get(configuration, user, kind, path,
+                () -> Collections.singletonList("split-" + loads.incrementAndGet()));
+    }
+}
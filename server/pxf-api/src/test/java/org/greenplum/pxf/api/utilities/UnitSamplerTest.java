@@ -0,0 +1,62 @@
+package org.greenplum.pxf.api.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UnitSamplerTest {
+
+    @Test
+    public void testUnitsAreOversampled() {
+        UnitSampler sampler = new UnitSampler(0.01F, 1000, 0.5);
+        assertEquals(0.04F, sampler.getRatio());
+        assertEquals(40, countSelected(sampler, 1000));
+    }
+
+    @Test
+    public void testAllUnitsOfSmallFragmentsAreSelected() {
+        // 0.04 * 50 units = 2 units expected, fewer than the minimum
+        UnitSampler sampler = new UnitSampler(0.01F, 50, 0.5);
+        assertEquals(1F, sampler.getRatio());
+        assertEquals(50, countSelected(sampler, 50));
+    }
+
+    @Test
+    public void testAllUnitsAreSelectedForHighRatios() {
+        UnitSampler sampler = new UnitSampler(0.5F, 1000, 0.5);
+        assertEquals(1F, sampler.getRatio());
+        assertEquals(1000, countSelected(sampler, 1000));
+    }
+
+    @Test
+    public void testSelectedUnitsAreSpreadEvenly() {
+        UnitSampler sampler = new UnitSampler(0.05F, 100, 0.3);
+        int previous = -1;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.select()) {
+                assertTrue(previous == -1 || i - previous == 5);
+                previous = i;
+            }
+        }
+    }
+
+    @Test
+    public void testEveryOffsetSelectsTheExpectedNumberOfUnits() {
+        for (double offset = 0; offset < 1; offset += 0.05) {
+            UnitSampler sampler = new UnitSampler(0.03F, 1000, offset);
+            int selected = countSelected(sampler, 1000);
+            assertTrue(selected == 119 || selected == 120, "selected " + selected + " units for offset " + offset);
+        }
+    }
+
+    private static int countSelected(UnitSampler sampler, int unitCount) {
+        int selected = 0;
+        for (int i = 0; i < unitCount; i++) {
+            if (sampler.select()) {
+                selected++;
+            }
+        }
+        return selected;
+    }
+}
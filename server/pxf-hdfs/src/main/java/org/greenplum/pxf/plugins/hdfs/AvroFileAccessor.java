@@ -56,21 +56,24 @@ public class AvroFileAccessor extends HdfsSplittableDataAccessor {
     private static final String BZIP2_CODEC = "bzip2";
     private static final String XZ_CODEC = "xz";
     private AvroWrapper<GenericRecord> avroWrapper;
-    private DataFileWriter<GenericRecord> writer;
+    private CodecFactory codecFactory;
+    private HcfsFileWriterPool<GenericRecord> fileWriters;
     private long rowsWritten, rowsRead;
     private Schema schema;
     private final AvroUtilities avroUtilities;
+    private final HcfsFileWriterExecutor writerExecutor;
 
     /**
      * Constructs a new instance of the AvroFileAccessor
      */
     public AvroFileAccessor() {
-        this(SpringContext.getBean(AvroUtilities.class));
+        this(SpringContext.getBean(AvroUtilities.class), SpringContext.getBean(HcfsFileWriterExecutor.class));
     }
 
-    AvroFileAccessor(AvroUtilities avroUtilities) {
+    AvroFileAccessor(AvroUtilities avroUtilities, HcfsFileWriterExecutor writerExecutor) {
         super(new AvroInputFormat<GenericRecord>());
         this.avroUtilities = avroUtilities;
+        this.writerExecutor = writerExecutor;
     }
 
     /*
@@ -123,15 +126,17 @@ public class AvroFileAccessor extends HdfsSplittableDataAccessor {
     public OneRow readNextObject() throws IOException {
         /* Resetting datum to null, to avoid stale bytes to be padded from the previous row's datum */
         avroWrapper.datum(null);
-        if (reader.next(avroWrapper, NullWritable.get())) { // There is one more record in the current split.
-            rowsRead++;
-            return new OneRow(null, avroWrapper.datum());
+        while (!reader.next(avroWrapper, NullWritable.get())) {
+            // if neither condition was met, it means we already read all the records in all the splits, and
+            // in this call record variable was not set, so we return null and thus we are signaling end of
+            // records sequence - in this case avroWrapper.datum() will be null
+            if (!nextSplit()) {
+                return null;
+            }
         }
-
-        // if neither condition was met, it means we already read all the records in all the splits, and
-        // in this call record variable was not set, so we return null and thus we are signaling end of
-        // records sequence - in this case avroWrapper.datum() will be null
-        return null;
+        // There is one more record in the current split.
+        rowsRead++;
+        return new OneRow(null, avroWrapper.datum());
     }
 
     /**
@@ -142,45 +147,30 @@ public class AvroFileAccessor extends HdfsSplittableDataAccessor {
      */
     @Override
     public boolean openForWrite() throws Exception {
-        // make writer
-        writer = new DataFileWriter<>(new GenericDatumWriter<>(schema));
         String codec = context.getOption(COMPRESSION_CODEC_OPTION, DEFLATE_CODEC).toLowerCase();
         int codecCompressionLevel = context.getOption(CODEC_COMPRESSION_LEVEL_OPTION, DEFAULT_CODEC_COMPRESSION_LEVEL);
         switch (codec) {
             case DEFLATE_CODEC:
-                writer.setCodec(CodecFactory.deflateCodec(codecCompressionLevel));
+                codecFactory = CodecFactory.deflateCodec(codecCompressionLevel);
                 break;
             case SNAPPY_CODEC:
-                writer.setCodec(CodecFactory.snappyCodec());
+                codecFactory = CodecFactory.snappyCodec();
                 break;
             case BZIP2_CODEC:
-                writer.setCodec(CodecFactory.bzip2Codec());
+                codecFactory = CodecFactory.bzip2Codec();
                 break;
             case XZ_CODEC:
-                writer.setCodec(CodecFactory.xzCodec(codecCompressionLevel));
+                codecFactory = CodecFactory.xzCodec(codecCompressionLevel);
                 break;
             case NO_CODEC:
-                writer.setCodec(CodecFactory.nullCodec());
+                codecFactory = CodecFactory.nullCodec();
                 break;
             default:
                 throw new RuntimeException(String.format("Avro Compression codec %s not supported", codec));
         }
 
-        Path file = new Path(hcfsType.getUriForWrite(context) + ".avro");
-        FileSystem fs = file.getFileSystem(jobConf);
-        FSDataOutputStream avroOut = null;
-        try {
-            avroOut = fs.create(file, false);
-            writer.create(schema, avroOut);
-        } catch (IOException e) {
-            if (avroOut != null) {
-                avroOut.close();
-            }
-            if (writer != null) {
-                writer.close();
-            }
-            throw e;
-        }
+        // make writers
+        fileWriters = new HcfsFileWriterPool<>(context, writerExecutor, this::createFileWriter);
         return true;
     }
 
@@ -194,7 +184,7 @@ public class AvroFileAccessor extends HdfsSplittableDataAccessor {
      */
     @Override
     public boolean writeNextObject(OneRow onerow) throws Exception {
-        writer.append((GenericRecord) onerow.getData());
+        fileWriters.write((GenericRecord) onerow.getData(), 1);
         rowsWritten++;
         return true;
     }
@@ -206,18 +196,59 @@ public class AvroFileAccessor extends HdfsSplittableDataAccessor {
      */
     @Override
     public void closeForWrite() throws Exception {
-        if (writer != null) {
-            writer.close();
+        if (fileWriters != null) {
+            fileWriters.close();
         }
-        LOG.debug("TXID [{}] Segment {}: writer closed for user {}, wrote a TOTAL of {} rows to {} on server {}",
+        LOG.debug("TXID [{}] Segment {}: writer closed for user {}, wrote a TOTAL of {} rows in {} files to {} on server {}",
                 context.getTransactionId(),
                 context.getSegmentId(),
                 context.getUser(),
                 rowsWritten,
+                fileWriters != null ? fileWriters.getFileCount() : 0,
                 context.getDataSource(),
                 context.getServerName());
     }
 
+    /**
+     * Creates the Avro file with the given number and returns its writer, the
+     * size of the file is the size of the blocks written so far.
+     */
+    private HcfsFileWriter<GenericRecord> createFileWriter(int fileNumber) throws IOException {
+        Path file = new Path(hcfsType.getUriForWrite(context, fileNumber) + ".avro");
+        FileSystem fs = file.getFileSystem(jobConf);
+        DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema));
+        writer.setCodec(codecFactory);
+        FSDataOutputStream avroOut = null;
+        try {
+            avroOut = fs.create(file, false);
+            writer.create(schema, avroOut);
+        } catch (IOException e) {
+            if (avroOut != null) {
+                avroOut.close();
+            }
+            writer.close();
+            throw e;
+        }
+
+        FSDataOutputStream out = avroOut;
+        return new HcfsFileWriter<GenericRecord>() {
+            @Override
+            public void write(GenericRecord record) throws IOException {
+                writer.append(record);
+            }
+
+            @Override
+            public long getSize() throws IOException {
+                return out.getPos();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
     /**
      * Closes the resource for write.
      *
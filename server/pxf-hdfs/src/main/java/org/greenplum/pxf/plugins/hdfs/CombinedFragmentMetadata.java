@@ -0,0 +1,64 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.apache.hadoop.mapred.FileSplit;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metadata of a fragment made of several small splits, possibly of different files, that are read one
+ * after another by the same accessor. The start and length of the fragment cover the bytes of all its
+ * splits, they do not describe a range of a single file.
+ */
+@NoArgsConstructor
+public class CombinedFragmentMetadata extends HcfsFragmentMetadata {
+
+    /**
+     * The maximum number of hosts reported for a combined fragment
+     */
+    private static final int MAX_HOSTS = 3;
+
+    /**
+     * The splits of the fragment, in the order they are read
+     */
+    @Getter
+    private List<FileSplit> splits;
+
+    public CombinedFragmentMetadata(List<FileSplit> splits) {
+        super(0, splits.stream().mapToLong(FileSplit::getLength).sum());
+        this.splits = Collections.unmodifiableList(splits);
+        this.hosts = getTopHosts(splits);
+    }
+
+    /**
+     * Returns the hosts storing the most bytes of the splits.
+     */
+    private static String[] getTopHosts(List<FileSplit> splits) {
+        Map<String, Long> bytesByHost = new HashMap<>();
+        for (FileSplit split : splits) {
+            try {
+                String[] locations = split.getLocations();
+                if (locations == null) {
+                    continue;
+                }
+                for (String location : locations) {
+                    bytesByHost.merge(location, split.getLength(), Long::sum);
+                }
+            } catch (IOException e) {
+                // the locations are only a hint for assigning the fragment to a segment, the data can be read from anywhere
+                LoggerFactory.getLogger(CombinedFragmentMetadata.class).debug("Unable to get locations of split {}", split, e);
+            }
+        }
+        return bytesByHost.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_HOSTS)
+                .map(Map.Entry::getKey)
+                .toArray(String[]::new);
+    }
+}
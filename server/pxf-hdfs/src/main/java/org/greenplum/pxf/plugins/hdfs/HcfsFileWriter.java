@@ -0,0 +1,30 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes the rows of a write request to one file, see {@link HcfsFileWriterPool}.
+ *
+ * @param <T> the type of the objects produced by the resolver, rows or batches of rows
+ */
+public interface HcfsFileWriter<T> extends Closeable {
+
+    /**
+     * Writes a row or a batch of rows to the file.
+     *
+     * @param data the row or batch of rows
+     * @throws IOException if writing to the file failed
+     */
+    void write(T data) throws IOException;
+
+    /**
+     * Returns the size of the file so far. The size is an estimate while the
+     * file is being written, it might not include the data buffered by the
+     * writer.
+     *
+     * @return the size of the file in bytes
+     * @throws IOException if the size of the file could not be determined
+     */
+    long getSize() throws IOException;
+}
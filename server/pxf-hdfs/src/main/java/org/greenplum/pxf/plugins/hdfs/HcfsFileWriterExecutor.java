@@ -0,0 +1,85 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the writers of the write requests that write their files in parallel,
+ * see {@link HcfsFileWriterPool}. The executor is shared by the requests of
+ * all queries, it bounds the number of writers of a request and the number of
+ * threads running the writers of all requests.
+ */
+@Component
+public class HcfsFileWriterExecutor implements DisposableBean {
+
+    public static final String MAX_PARALLEL_WRITERS_PROPERTY = "pxf.write.parallel-writers.max";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HcfsFileWriterExecutor.class);
+
+    private final int maxParallelWriters;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructs the HcfsFileWriterExecutor class
+     *
+     * @param maxParallelWriters the maximum number of writers of a request
+     * @param maxThreads         the maximum number of threads running the writers of all requests
+     */
+    @Autowired
+    public HcfsFileWriterExecutor(@Value("${" + MAX_PARALLEL_WRITERS_PROPERTY + ":16}") int maxParallelWriters,
+                                  @Value("${pxf.write.parallel-writers.max-threads:200}") int maxThreads) {
+        this.maxParallelWriters = maxParallelWriters;
+        // chunks waiting for a thread are queued, the writers of a request never wait for each other
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("pxf-file-writer-%d").setDaemon(true).build());
+        this.executor.allowCoreThreadTimeOut(true);
+        LOG.info("Creating File Writer Executor with at most {} writers per request and {} threads",
+                maxParallelWriters, maxThreads);
+    }
+
+    /**
+     * Returns the number of writers given by the PARALLEL_WRITERS option of
+     * the request, see {@link HcfsFileWriterPool#getParallelWriters(RequestContext)}.
+     *
+     * @param context the request context
+     * @return the number of writers
+     * @throws IllegalArgumentException if the number of writers exceeds the maximum
+     */
+    int getParallelWriters(RequestContext context) {
+        int parallelWriters = HcfsFileWriterPool.getParallelWriters(context);
+        if (parallelWriters > maxParallelWriters) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %d : must not be greater than %d, the value of %s",
+                    HcfsFileWriterPool.PARALLEL_WRITERS_OPTION, parallelWriters, maxParallelWriters, MAX_PARALLEL_WRITERS_PROPERTY));
+        }
+        return parallelWriters;
+    }
+
+    /**
+     * Runs a chunk of rows of a writer on one of the threads of the executor.
+     *
+     * @param command the chunk of rows to write
+     */
+    void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    /**
+     * Stops accepting chunks when the service shuts down, the chunks already
+     * handed over are still written.
+     */
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
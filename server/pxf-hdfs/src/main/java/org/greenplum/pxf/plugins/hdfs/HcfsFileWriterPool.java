@@ -0,0 +1,349 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the rows of a write request to files. A file is closed once it
+ * reaches the size given with the TARGET_FILE_SIZE option, and the next rows
+ * are written to a new file. With the PARALLEL_WRITERS option, the rows are
+ * written by a number of writers that encode and write their files
+ * concurrently.
+ * <p>
+ * With a single writer, the rows are written on the thread of the request.
+ * With more writers, the rows are handed over to the writers round robin, in
+ * chunks of at least {@link #CHUNK_ROWS} rows, and every writer writes its
+ * chunks in order on the threads of the {@link HcfsFileWriterExecutor}, which
+ * also bounds the number of writers. The objects produced by the resolver
+ * are written after they have been handed over, so resolvers must not reuse
+ * them when there is more than one writer, see {@link #isParallel(RequestContext)}.
+ * <p>
+ * Every file has a number that is unique within the request, the name of the
+ * file is derived from it with {@link HcfsType#getUriForWrite(RequestContext, int)}.
+ * The first file is created with the pool, so that a request without rows
+ * still writes a file.
+ *
+ * @param <T> the type of the objects produced by the resolver, rows or batches of rows
+ */
+public class HcfsFileWriterPool<T> implements Closeable {
+
+    public static final String TARGET_FILE_SIZE_OPTION = "TARGET_FILE_SIZE";
+    public static final String PARALLEL_WRITERS_OPTION = "PARALLEL_WRITERS";
+    static final int CHUNK_ROWS = 1024;
+    // the number of chunks handed over to a writer that it did not write yet
+    private static final int MAX_PENDING_CHUNKS = 2;
+
+    private static final Logger LOG = LoggerFactory.getLogger(HcfsFileWriterPool.class);
+
+    /**
+     * Creates the writers of the files of a request.
+     *
+     * @param <T> the type of the objects produced by the resolver
+     */
+    @FunctionalInterface
+    public interface Factory<T> {
+
+        /**
+         * Creates the file with the given number and returns its writer.
+         *
+         * @param fileNumber the number of the file, unique within the request
+         * @return the writer of the file
+         * @throws IOException if the file could not be created
+         */
+        HcfsFileWriter<T> create(int fileNumber) throws IOException;
+    }
+
+    private final Factory<T> factory;
+    private final long targetFileSize;
+    private final List<Writer> writers;
+    private final AtomicInteger fileCount = new AtomicInteger();
+    private final HcfsFileWriterExecutor executor;
+    private final UserGroupInformation ugi;
+    private final Map<String, String> mdcContext;
+    private volatile Throwable failure;
+    private List<T> chunk = new ArrayList<>();
+    private int chunkRows;
+    private int nextWriter;
+
+    /**
+     * Creates the pool for a write request, with the target file size and
+     * number of writers given by the options of the request.
+     *
+     * @param context  the request context
+     * @param executor runs the writers when there is more than one
+     * @param factory  creates the writers of the files
+     * @throws IOException if the first file could not be created
+     */
+    public HcfsFileWriterPool(RequestContext context, HcfsFileWriterExecutor executor, Factory<T> factory) throws IOException {
+        this(factory, getTargetFileSize(context), executor.getParallelWriters(context), executor);
+    }
+
+    /**
+     * Creates the pool.
+     *
+     * @param factory         creates the writers of the files
+     * @param targetFileSize  the size of the files, or 0 to write a single file per writer
+     * @param parallelWriters the number of writers
+     * @param executor        runs the writers when there is more than one
+     * @throws IOException if the first file could not be created
+     */
+    HcfsFileWriterPool(Factory<T> factory, long targetFileSize, int parallelWriters, HcfsFileWriterExecutor executor) throws IOException {
+        this.factory = factory;
+        this.targetFileSize = targetFileSize;
+        this.executor = executor;
+        this.writers = new ArrayList<>(parallelWriters);
+        for (int i = 0; i < parallelWriters; i++) {
+            writers.add(new Writer());
+        }
+        // the writers running on other threads write on behalf of the user of the request, with its logging context
+        this.ugi = parallelWriters > 1 ? UserGroupInformation.getCurrentUser() : null;
+        this.mdcContext = parallelWriters > 1 ? MDC.getCopyOfContextMap() : null;
+        writers.get(0).open();
+    }
+
+    /**
+     * Writes a row or a batch of rows.
+     *
+     * @param data the row or batch of rows
+     * @param rows the number of rows
+     * @throws IOException if writing failed, here or in a writer running on another thread
+     */
+    public void write(T data, int rows) throws IOException {
+        if (writers.size() == 1) {
+            Writer writer = writers.get(0);
+            writer.write(data);
+            writer.rowsWritten(rows);
+            return;
+        }
+
+        checkFailure();
+        chunk.add(data);
+        chunkRows += rows;
+        if (chunkRows >= CHUNK_ROWS) {
+            handOverChunk();
+        }
+    }
+
+    /**
+     * Writes the rows that have not been written yet and closes the files.
+     *
+     * @throws IOException if writing or closing a file failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (writers.size() > 1) {
+            if (!chunk.isEmpty() && failure == null) {
+                handOverChunk();
+            }
+            // the chunks never complete exceptionally, failures are kept in the pool
+            writers.forEach(writer -> writer.pendingChunks.join());
+        }
+
+        IOException closeError = null;
+        for (Writer writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (closeError == null) {
+                    closeError = e;
+                }
+            }
+        }
+        checkFailure();
+        if (closeError != null) {
+            throw closeError;
+        }
+        LOG.debug("Wrote {} files with {} writers", fileCount.get(), writers.size());
+    }
+
+    /**
+     * @return the number of files created so far
+     */
+    public int getFileCount() {
+        return fileCount.get();
+    }
+
+    /**
+     * Returns the size of the files given by the TARGET_FILE_SIZE option of
+     * the request, like 128MB, or 0 when the files are not rolled over.
+     *
+     * @param context the request context
+     * @return the size in bytes
+     */
+    public static long getTargetFileSize(RequestContext context) {
+        String value = context.getOption(TARGET_FILE_SIZE_OPTION);
+        if (StringUtils.isBlank(value)) {
+            return 0;
+        }
+        long size;
+        try {
+            size = DataSize.parse(value.trim()).toBytes();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %s : must be a non-negative size, like 128MB", TARGET_FILE_SIZE_OPTION, value), e);
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %s : must be a non-negative size, like 128MB", TARGET_FILE_SIZE_OPTION, value));
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of writers given by the PARALLEL_WRITERS option of
+     * the request, 1 by default. The maximum is checked by the
+     * {@link HcfsFileWriterExecutor} when the pool is created.
+     *
+     * @param context the request context
+     * @return the number of writers
+     */
+    public static int getParallelWriters(RequestContext context) {
+        int parallelWriters = context.getOption(PARALLEL_WRITERS_OPTION, 1, true);
+        if (parallelWriters < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %d : must be a positive integer", PARALLEL_WRITERS_OPTION, parallelWriters));
+        }
+        return parallelWriters;
+    }
+
+    /**
+     * Tells whether the objects produced by the resolver are written on other
+     * threads, after the resolver has produced the next ones, in which case
+     * the resolver must produce new objects instead of reusing them.
+     *
+     * @param context the request context
+     * @return true if the request has more than one writer
+     */
+    public static boolean isParallel(RequestContext context) {
+        return getParallelWriters(context) > 1;
+    }
+
+    /**
+     * Hands the chunk over to the next writer, waits while the writer has too
+     * many chunks to write.
+     */
+    private void handOverChunk() throws IOException {
+        Writer writer = writers.get(nextWriter);
+        nextWriter = (nextWriter + 1) % writers.size();
+        try {
+            writer.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a file writer");
+        }
+
+        List<T> rowsToWrite = chunk;
+        int rowCount = chunkRows;
+        chunk = new ArrayList<>();
+        chunkRows = 0;
+        writer.pendingChunks = writer.pendingChunks.thenRunAsync(() -> {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                if (failure == null) {
+                    ugi.doAs((PrivilegedExceptionAction<Void>) () -> {
+                        for (T data : rowsToWrite) {
+                            writer.write(data);
+                        }
+                        writer.rowsWritten(rowCount);
+                        return null;
+                    });
+                }
+            } catch (Throwable t) {
+                if (failure == null) {
+                    failure = t;
+                }
+            } finally {
+                writer.permits.release();
+                MDC.clear();
+            }
+        }, executor::execute);
+    }
+
+    /**
+     * Rethrows the failure of a writer running on another thread.
+     */
+    private void checkFailure() throws IOException {
+        Throwable t = failure;
+        if (t == null) {
+            return;
+        }
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IOException("Failed to write file", t);
+    }
+
+    /**
+     * Writes its rows to a file at a time, and rolls over to a new file when
+     * the file reaches the target size.
+     */
+    private class Writer {
+
+        private final Semaphore permits = new Semaphore(MAX_PENDING_CHUNKS);
+        private CompletableFuture<Void> pendingChunks = CompletableFuture.completedFuture(null);
+        private HcfsFileWriter<T> file;
+        private int fileNumber;
+        private long rowsSinceSizeCheck;
+
+        void open() throws IOException {
+            fileNumber = fileCount.getAndIncrement();
+            file = factory.create(fileNumber);
+        }
+
+        void write(T data) throws IOException {
+            if (file == null) {
+                open();
+            }
+            file.write(data);
+        }
+
+        /**
+         * Checks the size of the file every {@link #CHUNK_ROWS} rows, and
+         * closes it when it has reached the target size.
+         */
+        void rowsWritten(int rows) throws IOException {
+            rowsSinceSizeCheck += rows;
+            if (targetFileSize <= 0 || rowsSinceSizeCheck < CHUNK_ROWS) {
+                return;
+            }
+            rowsSinceSizeCheck = 0;
+            long size = file.getSize();
+            if (size >= targetFileSize) {
+                LOG.debug("File {} has reached {} bytes, rolling over to a new file", fileNumber, size);
+                close();
+            }
+        }
+
+        void close() throws IOException {
+            if (file != null) {
+                HcfsFileWriter<T> fileToClose = file;
+                file = null;
+                fileToClose.close();
+            }
+        }
+    }
+}
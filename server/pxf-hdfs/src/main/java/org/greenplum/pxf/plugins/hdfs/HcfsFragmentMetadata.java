@@ -3,10 +3,13 @@ package org.greenplum.pxf.plugins.hdfs;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.apache.hadoop.mapred.FileSplit;
-import org.greenplum.pxf.api.utilities.FragmentMetadata;
+import org.greenplum.pxf.api.utilities.FileRangeFragmentMetadata;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
 
 @NoArgsConstructor
-public class HcfsFragmentMetadata implements FragmentMetadata {
+public class HcfsFragmentMetadata implements FileRangeFragmentMetadata {
 
     @Getter
     protected long start;
@@ -14,12 +17,45 @@ public class HcfsFragmentMetadata implements FragmentMetadata {
     @Getter
     protected long length;
 
+    @Getter
+    protected String[] hosts = new String[0];
+
     public HcfsFragmentMetadata(FileSplit fsp) {
         this(fsp.getStart(), fsp.getLength());
+        try {
+            String[] locations = fsp.getLocations();
+            if (locations != null) {
+                hosts = locations;
+            }
+        } catch (IOException e) {
+            // the locations are only a hint for assigning the fragment to a segment, the data can be read from anywhere
+            LoggerFactory.getLogger(HcfsFragmentMetadata.class).debug("Unable to get locations of split {}", fsp, e);
+        }
     }
 
     public HcfsFragmentMetadata(long start, long length) {
         this.start = start;
         this.length = length;
     }
+
+    public HcfsFragmentMetadata(long start, long length, String[] hosts) {
+        this(start, length);
+        this.hosts = hosts;
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return length;
+    }
+
+    @Override
+    public boolean differsOnlyByRange(FileRangeFragmentMetadata other) {
+        // subclasses carry more than a range, they must opt in by overriding this method
+        return getClass() == HcfsFragmentMetadata.class && other.getClass() == HcfsFragmentMetadata.class;
+    }
+
+    @Override
+    public FileRangeFragmentMetadata withRange(long start, long length, String[] hosts) {
+        return new HcfsFragmentMetadata(start, length, hosts);
+    }
 }
@@ -142,10 +142,7 @@ public enum HcfsType {
      * @return an absolute data path for write
      */
     public String getUriForWrite(RequestContext context, CompressionCodec compressionCodec) {
-        String fileName = String.format("%s/%s_%d",
-                StringUtils.removeEnd(getDataUri(context), "/"),
-                context.getTransactionId(),
-                context.getSegmentId());
+        String fileName = getFileNameForWrite(context, 0);
 
         if (compressionCodec != null) {
             String extension = compressionCodec.getDefaultExtension();
@@ -157,6 +154,23 @@ public enum HcfsType {
         return fileName;
     }
 
+    /**
+     * Returns a unique fully resolved URI including the protocol for a file
+     * of a write request that writes more than one file. The first file is
+     * named as the only file of other requests, <TRANSACTION-ID>_<SEGMENT-ID>,
+     * the number of the other files is appended to the name, resulting in
+     * <TRANSACTION-ID>_<SEGMENT-ID>_<FILE-NUMBER>.
+     *
+     * @param context    the input data parameters
+     * @param fileNumber the number of the file in the request, starting at 0
+     * @return an absolute data path for write
+     */
+    public String getUriForWrite(RequestContext context, int fileNumber) {
+        String fileName = getFileNameForWrite(context, fileNumber);
+        LOG.debug("File name for write: {}", fileName);
+        return fileName;
+    }
+
     /**
      * Returns a fully resolved path include protocol
      *
@@ -261,4 +275,16 @@ public enum HcfsType {
             configuration.set(MRJobConfig.JOB_NAMENODES_TOKEN_RENEWAL_EXCLUDE, host);
         }
     }
+
+    private String getFileNameForWrite(RequestContext context, int fileNumber) {
+        String fileName = String.format("%s/%s_%d",
+                StringUtils.removeEnd(getDataUri(context), "/"),
+                context.getTransactionId(),
+                context.getSegmentId());
+
+        if (fileNumber > 0) {
+            fileName += "_" + fileNumber;
+        }
+        return fileName;
+    }
 }
@@ -31,6 +31,7 @@ import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 
 /**
  * Base class for enforcing the complete access of a file in one accessor.
@@ -49,10 +50,13 @@ import java.net.URI;
 public abstract class HdfsAtomicDataAccessor extends BasePlugin implements Accessor {
     InputStream inputStream;
     private FileSplit fileSplit;
+    private List<FileSplit> fileSplits;
+    private int fileIndex;
 
     @Override
     public void afterPropertiesSet() {
         fileSplit = HdfsUtilities.parseFileSplit(context.getDataSource(), context.getFragmentMetadata());
+        fileSplits = HdfsUtilities.parseFileSplits(context.getDataSource(), context.getFragmentMetadata());
     }
 
     /**
@@ -73,10 +77,31 @@ public abstract class HdfsAtomicDataAccessor extends BasePlugin implements Acces
         // returns an FSDataInputStream
         FileSystem fs = FileSystem.get(uri, configuration);
         inputStream = fs.open(new Path(context.getDataSource()));
+        fileIndex = 0;
 
         return (inputStream != null);
     }
 
+    /**
+     * Closes the current file and opens the next file of a fragment that
+     * combines several files.
+     *
+     * @return true if the next file was opened, false if there are no more
+     * files to read
+     * @throws IOException if the current file could not be closed or the next
+     * file could not be opened
+     */
+    protected boolean openNextFile() throws IOException {
+        if (fileIndex + 1 >= fileSplits.size()) {
+            return false;
+        }
+        inputStream.close();
+        inputStream = null;
+        Path path = fileSplits.get(++fileIndex).getPath();
+        inputStream = path.getFileSystem(configuration).open(path);
+        return true;
+    }
+
     /**
      * Fetches one record from the file.
      *
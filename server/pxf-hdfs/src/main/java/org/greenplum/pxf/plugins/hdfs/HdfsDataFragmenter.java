@@ -29,11 +29,17 @@ import org.apache.hadoop.mapred.JobConf;
 import org.greenplum.pxf.api.model.BaseFragmenter;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.FragmentStats;
+import org.greenplum.pxf.api.model.FragmenterTimings;
+import org.greenplum.pxf.api.utilities.SplitCache;
+import org.greenplum.pxf.api.utilities.SpringContext;
 import org.greenplum.pxf.plugins.hdfs.utilities.PxfInputFormat;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Fragmenter class for HDFS data resources.
@@ -41,13 +47,24 @@ import java.util.List;
  * Given an HDFS data source (a file, directory, or wild card pattern) divide
  * the data into fragments and return a list of them along with a list of
  * host:port locations for each.
+ * <p>
+ * The files of the data source are listed and split before the first fragment
+ * is created, so when the fragments are streamed with
+ * {@link org.greenplum.pxf.api.model.Fragmenter#streamFragments} they are only
+ * published once the enumeration is complete.
  */
-public class HdfsDataFragmenter extends BaseFragmenter {
+public class HdfsDataFragmenter extends BaseFragmenter implements FragmenterTimings {
 
     protected static final String IGNORE_MISSING_PATH_OPTION = "IGNORE_MISSING_PATH";
+    protected static final String COMBINE_OPTION = "COMBINE";
+    protected static final String COMBINE_TARGET_SIZE_OPTION = "COMBINE_TARGET_SIZE";
+    protected static final long DEFAULT_COMBINE_TARGET_SIZE = 128L * 1024 * 1024;
 
     private JobConf jobConf;
     protected HcfsType hcfsType;
+    protected Duration listingTime;
+    protected Duration splitTime;
+    private SplitCache splitCache;
 
     @Override
     public void afterPropertiesSet() {
@@ -74,6 +91,28 @@ public class HdfsDataFragmenter extends BaseFragmenter {
             throw e;
         }
 
+        return createFragments(splits);
+    }
+
+    /**
+     * Creates the fragments of the splits of the data source, combining small
+     * splits when requested with the COMBINE option.
+     *
+     * @param splits the non-empty splits of the files of the data source
+     * @return the fragments
+     * @throws IOException when the fragments cannot be created
+     */
+    protected List<Fragment> createFragments(List<InputSplit> splits) throws IOException {
+        if (isCombineEnabled()) {
+            List<FileSplit> fileSplits = new ArrayList<>(splits.size());
+            for (InputSplit split : splits) {
+                fileSplits.add((FileSplit) split);
+            }
+            fragments = combineSplits(fileSplits);
+            LOG.debug("Total number of fragments = {} combined from {} splits", fragments.size(), splits.size());
+            return fragments;
+        }
+
         LOG.debug("Total number of fragments = {}", splits.size());
         for (InputSplit split : splits) {
             FileSplit fsp = (FileSplit) split;
@@ -91,6 +130,99 @@ public class HdfsDataFragmenter extends BaseFragmenter {
         return fragments;
     }
 
+    /**
+     * Returns whether small splits should be combined into larger fragments, as requested with the COMBINE
+     * option. Splits are only combined for accessors that read all the splits of a
+     * {@link CombinedFragmentMetadata}, for other accessors the option is ignored.
+     *
+     * @return true if the splits should be combined, false otherwise
+     */
+    protected boolean isCombineEnabled() {
+        if (!context.getOption(COMBINE_OPTION, false)) {
+            return false;
+        }
+        String accessor = context.getAccessor();
+        try {
+            Class<?> accessorClass = Class.forName(accessor, false, getClass().getClassLoader());
+            if (HdfsSplittableDataAccessor.class.isAssignableFrom(accessorClass) ||
+                    QuotedLineBreakAccessor.class.isAssignableFrom(accessorClass)) {
+                return true;
+            }
+        } catch (ClassNotFoundException | RuntimeException e) {
+            LOG.debug("Unable to load accessor {}", accessor, e);
+        }
+        LOG.warn("Ignoring option {} as accessor {} does not support reading combined splits", COMBINE_OPTION, accessor);
+        return false;
+    }
+
+    /**
+     * Packs splits smaller than the target size given with the COMBINE_TARGET_SIZE option into fragments
+     * of up to the target size. Splits are grouped by the first host storing them so that the combined
+     * fragments can still be read locally, and are packed in the order they are listed. Splits that are
+     * not smaller than the target size are returned as fragments of their own.
+     *
+     * @param splits the splits to combine
+     * @return the fragments
+     */
+    protected List<Fragment> combineSplits(List<FileSplit> splits) throws IOException {
+        long targetSize = getCombineTargetSize();
+        List<Fragment> result = new ArrayList<>();
+        Map<String, List<FileSplit>> smallSplitsByHost = new LinkedHashMap<>();
+        for (FileSplit split : splits) {
+            if (split.getLength() >= targetSize) {
+                result.add(new Fragment(split.getPath().toString(), new HcfsFragmentMetadata(split)));
+                continue;
+            }
+            String[] locations = split.getLocations();
+            String host = (locations == null || locations.length == 0) ? "" : locations[0];
+            smallSplitsByHost.computeIfAbsent(host, k -> new ArrayList<>()).add(split);
+        }
+
+        for (List<FileSplit> hostSplits : smallSplitsByHost.values()) {
+            List<FileSplit> group = new ArrayList<>();
+            long groupSize = 0;
+            for (FileSplit split : hostSplits) {
+                if (!group.isEmpty() && groupSize + split.getLength() > targetSize) {
+                    result.add(newCombinedFragment(group));
+                    group = new ArrayList<>();
+                    groupSize = 0;
+                }
+                group.add(split);
+                groupSize += split.getLength();
+            }
+            if (!group.isEmpty()) {
+                result.add(newCombinedFragment(group));
+            }
+        }
+        return result;
+    }
+
+    private Fragment newCombinedFragment(List<FileSplit> group) {
+        FileSplit first = group.get(0);
+        if (group.size() == 1) {
+            return new Fragment(first.getPath().toString(), new HcfsFragmentMetadata(first));
+        }
+        return new Fragment(first.getPath().toString(), new CombinedFragmentMetadata(group));
+    }
+
+    private long getCombineTargetSize() {
+        String value = context.getOption(COMBINE_TARGET_SIZE_OPTION);
+        if (StringUtils.isBlank(value)) {
+            return DEFAULT_COMBINE_TARGET_SIZE;
+        }
+        long targetSize;
+        try {
+            targetSize = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            targetSize = -1;
+        }
+        if (targetSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "invalid %s value '%s'. The value must be a positive number of bytes", COMBINE_TARGET_SIZE_OPTION, value));
+        }
+        return targetSize;
+    }
+
     @Override
     public FragmentStats getFragmentStats() throws Exception {
         String absoluteDataPath = hcfsType.getDataUri(context);
@@ -107,11 +239,41 @@ public class HdfsDataFragmenter extends BaseFragmenter {
         return new FragmentStats(splits.size(), firstSplit.getLength(), totalSize);
     }
 
+    @Override
+    public Duration getListingTime() {
+        return listingTime;
+    }
+
+    @Override
+    public Duration getSplitTime() {
+        return splitTime;
+    }
+
+    /**
+     * Returns the non-empty splits of the files of the path, from the
+     * {@link SplitCache} when it is enabled for the server.
+     *
+     * @param path the path, possibly a directory or a wildcard
+     * @return the splits of the files of the path
+     * @throws IOException when the files cannot be listed or split
+     */
     protected List<InputSplit> getSplits(Path path) throws IOException {
+        if (SplitCache.isEnabled(configuration)) {
+            return getSplitCache().get(configuration, context.getUser(), "splits", path, () -> computeSplits(path));
+        }
+        return computeSplits(path);
+    }
+
+    private List<InputSplit> computeSplits(Path path) throws IOException {
         JobConf jobConf = getJobConf();
         PxfInputFormat pxfInputFormat = new PxfInputFormat();
         PxfInputFormat.setInputPaths(jobConf, path);
+        long start = System.nanoTime();
         InputSplit[] splits = pxfInputFormat.getSplits(jobConf, 1);
+        // getSplits lists the input paths first, the rest of its time is spent computing the splits
+        Duration totalTime = Duration.ofNanos(System.nanoTime() - start);
+        listingTime = pxfInputFormat.getListingTime();
+        splitTime = listingTime == null ? totalTime : totalTime.minus(listingTime);
         List<InputSplit> result = new ArrayList<>();
 
         /*
@@ -129,6 +291,17 @@ public class HdfsDataFragmenter extends BaseFragmenter {
         return result;
     }
 
+    /**
+     * @return the cache of splits shared by the queries, looked up when first
+     * needed as fragmenters are not Spring managed
+     */
+    protected SplitCache getSplitCache() {
+        if (splitCache == null) {
+            splitCache = SpringContext.getBean(SplitCache.class);
+        }
+        return splitCache;
+    }
+
     protected JobConf getJobConf() {
         if (jobConf == null) {
             jobConf = new JobConf(configuration, this.getClass());
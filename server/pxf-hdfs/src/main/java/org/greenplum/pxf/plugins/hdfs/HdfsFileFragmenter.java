@@ -3,9 +3,11 @@ package org.greenplum.pxf.plugins.hdfs;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InvalidInputException;
 import org.apache.hadoop.mapred.JobConf;
 import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.SplitCache;
 import org.greenplum.pxf.plugins.hdfs.utilities.PxfInputFormat;
 
 import java.util.Arrays;
@@ -37,17 +39,35 @@ public class HdfsFileFragmenter extends HdfsDataFragmenter {
         FileStatus[] fileStatusArray;
 
         try {
-            fileStatusArray = pxfInputFormat.listStatus(jobConf);
+            if (SplitCache.isEnabled(configuration)) {
+                fileStatusArray = getSplitCache().get(configuration, context.getUser(), "files", path,
+                        () -> Arrays.asList(pxfInputFormat.listStatus(jobConf))).toArray(new FileStatus[0]);
+            } else {
+                fileStatusArray = pxfInputFormat.listStatus(jobConf);
+            }
         } catch (InvalidInputException e) {
             if (StringUtils.equalsIgnoreCase("true", context.getOption(IGNORE_MISSING_PATH_OPTION))) {
                 LOG.debug("Ignoring InvalidInputException", e);
                 return fragments;
             }
             throw e;
+        } finally {
+            // files are not split, all the time is spent listing them
+            listingTime = pxfInputFormat.getListingTime();
+        }
+
+        if (isCombineEnabled()) {
+            List<FileSplit> fileSplits = Arrays.stream(fileStatusArray)
+                    .map(fileStatus -> new FileSplit(fileStatus.getPath(), 0, fileStatus.getLen(), (String[]) null))
+                    .collect(Collectors.toList());
+            fragments = combineSplits(fileSplits);
+            LOG.debug("Total number of fragments = {} combined from {} files", fragments.size(), fileStatusArray.length);
+            return fragments;
         }
 
         fragments = Arrays.stream(fileStatusArray)
-                .map(fileStatus -> new Fragment(fileStatus.getPath().toUri().toString()))
+                .map(fileStatus -> new Fragment(fileStatus.getPath().toUri().toString(),
+                        new HcfsFragmentMetadata(0, fileStatus.getLen())))
                 .collect(Collectors.toList());
         LOG.debug("Total number of fragments = {}", fragments.size());
 
@@ -34,6 +34,7 @@ import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Accessor for accessing a splittable HDFS data sources. HDFS will divide the
@@ -48,6 +49,8 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
     protected JobConf jobConf;
     protected Object key, data;
     protected FileSplit fileSplit;
+    protected List<FileSplit> fileSplits;
+    private int splitIndex;
     HcfsType hcfsType;
 
     /**
@@ -67,8 +70,9 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
         // Check if the underlying configuration is for HDFS
         hcfsType = HcfsType.getHcfsType(context);
 
-        // Parse fileSplit from context
-        fileSplit = HdfsUtilities.parseFileSplit(context.getDataSource(), context.getFragmentMetadata());
+        // Parse the splits of the fragment from context, a combined fragment has several splits
+        fileSplits = HdfsUtilities.parseFileSplits(context.getDataSource(), context.getFragmentMetadata());
+        fileSplit = fileSplits.get(0);
     }
 
     /**
@@ -78,11 +82,42 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
      * @return true if succeeded, false if no more splits to be read
      */
     @Override
-    @SuppressWarnings("unchecked")
     public boolean openForRead() throws Exception {
+        splitIndex = 0;
+        fileSplit = fileSplits.get(0);
+        openReader();
+        return true;
+    }
+
+    /**
+     * Creates the record reader for the current split, along with the key and
+     * value objects the records are read into.
+     *
+     * @throws IOException if the record reader could not be created
+     */
+    @SuppressWarnings("unchecked")
+    protected void openReader() throws IOException {
         reader = (RecordReader<Object, Object>) getReader(jobConf, fileSplit);
         key = reader.createKey();
         data = reader.createValue();
+    }
+
+    /**
+     * Closes the record reader of the current split and opens the next split
+     * of a combined fragment.
+     *
+     * @return true if the next split was opened, false if there are no more
+     * splits to be read
+     * @throws IOException if the record reader could not be closed or created
+     */
+    protected boolean nextSplit() throws IOException {
+        if (splitIndex + 1 >= fileSplits.size()) {
+            return false;
+        }
+        reader.close();
+        reader = null;
+        fileSplit = fileSplits.get(++splitIndex);
+        openReader();
         return true;
     }
 
@@ -106,9 +141,12 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
      */
     @Override
     public OneRow readNextObject() throws IOException {
-        // if there is one more record in the current split
-        if (!reader.next(key, data)) {
-            return null;
+        // if there is one more record in the current split, or in one of
+        // the remaining splits of a combined fragment
+        while (!reader.next(key, data)) {
+            if (!nextSplit()) {
+                return null;
+            }
         }
 
         /*
@@ -25,12 +25,15 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.LineRecordReader;
 import org.apache.hadoop.mapred.TextInputFormat;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.model.SamplingAccessor;
+import org.greenplum.pxf.api.utilities.UnitSampler;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.DataOutputStream;
@@ -38,21 +41,33 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A PXF Accessor for reading delimited plain text records.
+ * <p>
+ * When sampling, the splits of uncompressed files are cut into chunks of
+ * {@link #SAMPLING_CHUNK_SIZE} bytes and only a random subset of the chunks is
+ * read. Like for splits, a line belongs to the chunk its first byte is in, so
+ * every line has the same probability of being read.
  */
-public class LineBreakAccessor extends HdfsSplittableDataAccessor {
+public class LineBreakAccessor extends HdfsSplittableDataAccessor implements SamplingAccessor {
 
     private static final int DEFAULT_BUFFER_SIZE = 8192;
     public static final String PXF_CHUNK_RECORD_READER_ENABLED = "pxf.reader.chunk-record-reader.enabled";
     public static final boolean PXF_CHUNK_RECORD_READER_DEFAULT = false;
+    static final long SAMPLING_CHUNK_SIZE = 4 * 1024 * 1024;
 
     private int skipHeaderCount;
+    private int splitsOpened;
     private DataOutputStream dos;
     private FSDataOutputStream fsdos;
     private FileSystem fs;
     private Path file;
+    private float sampleRatio;
+    private float readRatio = 1;
+    private boolean sampled;
 
     /**
      * Constructs a LineBreakAccessor.
@@ -70,6 +85,34 @@ public class LineBreakAccessor extends HdfsSplittableDataAccessor {
                 : 0;
     }
 
+    @Override
+    public void setSampleRatio(float sampleRatio) {
+        this.sampleRatio = sampleRatio;
+    }
+
+    @Override
+    public float getReadRatio() {
+        return readRatio;
+    }
+
+    @Override
+    public boolean openForRead() throws Exception {
+        if (sampleRatio > 0 && sampleRatio < 1 && !sampled) {
+            sampleSplits();
+        }
+        return super.openForRead();
+    }
+
+    @Override
+    protected void openReader() throws IOException {
+        super.openReader();
+        // the header lines are only skipped at the beginning of the first split of the
+        // first fragment, not in the other splits of a combined or sampled fragment
+        if (splitsOpened++ > 0 || fileSplit.getStart() != 0) {
+            skipHeaderCount = 0;
+        }
+    }
+
     @Override
     protected Object getReader(JobConf jobConf, InputSplit split)
             throws IOException {
@@ -90,12 +133,46 @@ public class LineBreakAccessor extends HdfsSplittableDataAccessor {
 
     @Override
     public OneRow readNextObject() throws IOException {
-        while (skipHeaderCount > 0) {
-            if (super.readNextObject() == null)
-                return null;
+        OneRow row;
+        while ((row = super.readNextObject()) != null && skipHeaderCount > 0) {
             skipHeaderCount--;
         }
-        return super.readNextObject();
+        return row;
+    }
+
+    /**
+     * Replaces the splits of the fragment with a random subset of their
+     * chunks. Fragments with compressed files are read completely, as their
+     * chunks cannot be read independently.
+     */
+    private void sampleSplits() throws IOException {
+        CompressionCodecFactory codecFactory = new CompressionCodecFactory(jobConf);
+        List<FileSplit> chunks = new ArrayList<>();
+        for (FileSplit split : fileSplits) {
+            if (codecFactory.getCodec(split.getPath()) != null) {
+                LOG.debug("Reading all of {} for sampling, the file is compressed", split.getPath());
+                return;
+            }
+            long end = split.getStart() + split.getLength();
+            for (long start = split.getStart(); start < end; start += SAMPLING_CHUNK_SIZE) {
+                chunks.add(new FileSplit(split.getPath(), start, Math.min(SAMPLING_CHUNK_SIZE, end - start), split.getLocations()));
+            }
+        }
+
+        UnitSampler sampler = new UnitSampler(sampleRatio, chunks.size());
+        if (sampler.getRatio() >= 1) {
+            return;
+        }
+        List<FileSplit> selected = new ArrayList<>();
+        for (FileSplit chunk : chunks) {
+            if (sampler.select()) {
+                selected.add(chunk);
+            }
+        }
+        LOG.debug("Sampling {} of {} chunks of {}", selected.size(), chunks.size(), context.getDataSource());
+        fileSplits = selected;
+        readRatio = sampler.getRatio();
+        sampled = true;
     }
 
     /**
@@ -21,11 +21,11 @@ package org.greenplum.pxf.plugins.hdfs;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hadoop.mapred.FileSplit;
-import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.parquet.HadoopReadOptions;
 import org.apache.parquet.ParquetReadOptions;
 import org.apache.parquet.column.ParquetProperties.WriterVersion;
@@ -34,13 +34,18 @@ import org.apache.parquet.filter2.compat.FilterCompat;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetFileWriter;
-import org.apache.parquet.hadoop.ParquetOutputFormat;
 import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.example.GroupReadSupport;
 import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.api.WriteSupport;
 import org.apache.parquet.hadoop.metadata.FileMetaData;
-import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.MessageTypeParser;
 import org.apache.parquet.schema.PrimitiveType;
@@ -56,10 +61,13 @@ import org.greenplum.pxf.api.filter.Operator;
 import org.greenplum.pxf.api.filter.TreeTraverser;
 import org.greenplum.pxf.api.filter.TreeVisitor;
 import org.greenplum.pxf.api.io.DataType;
-import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.BasePlugin;
+import org.greenplum.pxf.api.model.SamplingAccessor;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.SpringContext;
+import org.greenplum.pxf.api.utilities.UnitSampler;
 import org.greenplum.pxf.plugins.hdfs.filter.BPCharOperatorTransformer;
+import org.greenplum.pxf.plugins.hdfs.parquet.ParquetFooterCache;
 import org.greenplum.pxf.plugins.hdfs.parquet.ParquetOperatorPruner;
 import org.greenplum.pxf.plugins.hdfs.parquet.ParquetRecordFilterBuilder;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
@@ -68,7 +76,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -94,8 +104,9 @@ import static org.apache.parquet.schema.LogicalTypeAnnotation.stringType;
 /**
  * Parquet file accessor.
  * Unit of operation is record.
+ * When sampling, only a random subset of the row groups of the split is read.
  */
-public class ParquetFileAccessor extends BasePlugin implements Accessor {
+public class ParquetFileAccessor extends BasePlugin implements SamplingAccessor {
 
     private static final int DEFAULT_ROWGROUP_SIZE = 8 * 1024 * 1024;
     private static final CompressionCodecName DEFAULT_COMPRESSION = CompressionCodecName.SNAPPY;
@@ -130,18 +141,44 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     private static final TreeTraverser TRAVERSER = new TreeTraverser();
     private static final TreeVisitor IN_OPERATOR_TRANSFORMER = new InOperatorTransformer();
 
+    private final ParquetFooterCache footerCache;
+    private final HcfsFileWriterExecutor writerExecutor;
     private ParquetReader<Group> fileReader;
+    private InputFile inputFile;
     private CompressionCodecName codecName;
-    private RecordWriter<Void, Group> recordWriter;
-    private GroupWriteSupport groupWriteSupport;
+    private HcfsFileWriterPool<Object> fileWriters;
+    private MessageType writeSchema;
     private FileSystem fs;
     private Path file;
-    private String filePrefix;
+    private HcfsType hcfsType;
     private boolean enableDictionary;
     private int pageSize, rowGroupSize, dictionarySize;
     private long rowsRead, totalRowsRead, totalRowsWritten;
     private WriterVersion parquetVersion;
     private long totalReadTimeInNanos;
+    private FilterCompat.Filter recordFilter;
+    private List<BlockMetaData> rowGroups;
+    private Deque<BlockMetaData> sampledRowGroups;
+    private float sampleRatio;
+    private float readRatio = 1;
+
+    /**
+     * Constructs a new instance of the ParquetFileAccessor
+     */
+    public ParquetFileAccessor() {
+        this(SpringContext.getBean(ParquetFooterCache.class), SpringContext.getBean(HcfsFileWriterExecutor.class));
+    }
+
+    /**
+     * Constructs a new instance of the ParquetFileAccessor
+     *
+     * @param footerCache    the cache of the footers of the parquet files
+     * @param writerExecutor runs the writers of the files written in parallel
+     */
+    public ParquetFileAccessor(ParquetFooterCache footerCache, HcfsFileWriterExecutor writerExecutor) {
+        this.footerCache = footerCache;
+        this.writerExecutor = writerExecutor;
+    }
 
     /**
      * Opens the resource for read.
@@ -161,19 +198,88 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
         // case of column projection) of the greenplum schema.
         MessageType readSchema = buildReadSchema(originalFieldsMap, originalSchema);
         // Get the record filter in case of predicate push-down
-        FilterCompat.Filter recordFilter = getRecordFilter(context.getFilterString(), originalFieldsMap);
+        recordFilter = getRecordFilter(context.getFilterString(), originalFieldsMap);
 
         // add column projection
         configuration.set(PARQUET_READ_SCHEMA, readSchema.toString());
 
-        fileReader = ParquetReader.builder(new GroupReadSupport(), file)
+        openReader(inputFile, fileSplit, readSchema, recordFilter);
+        context.setMetadata(readSchema);
+        return true;
+    }
+
+    /**
+     * Opens the reader of the records of the split, or of the sampled row
+     * groups of the split when sampling.
+     *
+     * @param inputFile    the parquet file
+     * @param fileSplit    the split of the file to read
+     * @param readSchema   the schema of the projected columns
+     * @param recordFilter the filter pushed down to the reader
+     * @throws IOException if opening the reader failed
+     */
+    protected void openReader(InputFile inputFile, FileSplit fileSplit, MessageType readSchema, FilterCompat.Filter recordFilter)
+            throws IOException {
+        if (sampleRatio > 0 && sampleRatio < 1) {
+            sampleRowGroups();
+        }
+        if (sampledRowGroups != null) {
+            fileReader = createReader(sampledRowGroups.poll());
+        } else {
+            // Create reader for a given split, read a range in file
+            fileReader = createReader(fileSplit.getStart(), fileSplit.getStart() + fileSplit.getLength());
+        }
+    }
+
+    @Override
+    public void setSampleRatio(float sampleRatio) {
+        this.sampleRatio = sampleRatio;
+    }
+
+    @Override
+    public float getReadRatio() {
+        return readRatio;
+    }
+
+    /**
+     * Selects the row groups of the split that are read when sampling. Splits
+     * with too few row groups are read completely.
+     */
+    private void sampleRowGroups() {
+        UnitSampler sampler = new UnitSampler(sampleRatio, rowGroups.size());
+        if (sampler.getRatio() >= 1) {
+            return;
+        }
+        sampledRowGroups = new ArrayDeque<>();
+        for (BlockMetaData rowGroup : rowGroups) {
+            if (sampler.select()) {
+                sampledRowGroups.add(rowGroup);
+            }
+        }
+        readRatio = sampler.getRatio();
+        LOG.debug("{}-{}: Sampling {} of {} RowGroups of file {}", context.getTransactionId(),
+                context.getSegmentId(), sampledRowGroups.size(), rowGroups.size(), file.getName());
+    }
+
+    /**
+     * Creates a reader of the row group, the row group is the only one whose
+     * midpoint is in its byte range.
+     */
+    private ParquetReader<Group> createReader(BlockMetaData rowGroup) throws IOException {
+        return createReader(rowGroup.getStartingPos(), rowGroup.getStartingPos() + rowGroup.getCompressedSize());
+    }
+
+    private ParquetReader<Group> createReader(long start, long end) throws IOException {
+        return new ParquetReader.Builder<Group>(inputFile) {
+            @Override
+            protected ReadSupport<Group> getReadSupport() {
+                return new GroupReadSupport();
+            }
+        }
                 .withConf(configuration)
-                // Create reader for a given split, read a range in file
-                .withFileRange(fileSplit.getStart(), fileSplit.getStart() + fileSplit.getLength())
+                .withFileRange(start, end)
                 .withFilter(recordFilter)
                 .build();
-        context.setMetadata(readSchema);
-        return true;
     }
 
     /**
@@ -186,6 +292,12 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     public OneRow readNextObject() throws IOException {
         final long then = System.nanoTime();
         Group group = fileReader.read();
+        // when sampling, continue with the next sampled row group
+        while (group == null && sampledRowGroups != null && !sampledRowGroups.isEmpty()) {
+            fileReader.close();
+            fileReader = createReader(sampledRowGroups.poll());
+            group = fileReader.read();
+        }
         final long nanos = System.nanoTime() - then;
         totalReadTimeInNanos += nanos;
 
@@ -223,9 +335,7 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     @Override
     public boolean openForWrite() throws IOException, InterruptedException {
 
-        HcfsType hcfsType = HcfsType.getHcfsType(context);
-        // skip codec extension in filePrefix, because we add it in this accessor
-        filePrefix = hcfsType.getUriForWrite(context);
+        hcfsType = HcfsType.getHcfsType(context);
         String compressCodec = context.getOption("COMPRESSION_CODEC");
         codecName = getCodecName(compressCodec, DEFAULT_COMPRESSION);
 
@@ -245,13 +355,18 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
                 generateParquetSchema(context.getTupleDescription());
         LOG.debug("{}-{}: Schema fields = {}", context.getTransactionId(),
                 context.getSegmentId(), schema.getFields());
-        GroupWriteSupport.setSchema(schema, configuration);
-        groupWriteSupport = new GroupWriteSupport();
+        writeSchema = schema;
+
+        configuration.setInt(PAGE_SIZE, pageSize);
+        configuration.setInt(DICTIONARY_PAGE_SIZE, dictionarySize);
+        configuration.setBoolean(ENABLE_DICTIONARY, enableDictionary);
+        configuration.set(WRITER_VERSION, parquetVersion.toString());
+        configuration.setLong(BLOCK_SIZE, rowGroupSize);
 
         // We get the parquet schema and set it to the metadata in the request context
         // to avoid computing the schema again in the Resolver
         context.setMetadata(schema);
-        createParquetWriter();
+        fileWriters = new HcfsFileWriterPool<>(context, writerExecutor, this::createFileWriter);
         return true;
     }
 
@@ -264,11 +379,48 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
      */
     @Override
     public boolean writeNextObject(OneRow onerow) throws IOException, InterruptedException {
-        recordWriter.write(null, (Group) onerow.getData());
-        totalRowsWritten++;
+        write(onerow.getData(), 1);
         return true;
     }
 
+    /**
+     * Returns the support that writes the objects produced by the resolver
+     * to a file, the {@link Group}s of the {@link ParquetResolver}. Every
+     * file has a write support of its own.
+     *
+     * @param schema the schema of the file
+     * @return the write support
+     */
+    protected WriteSupport<?> createWriteSupport(MessageType schema) {
+        GroupWriteSupport.setSchema(schema, configuration);
+        return new GroupWriteSupport();
+    }
+
+    /**
+     * Hands an object produced by the resolver over to the writers of the
+     * files.
+     *
+     * @param data the object
+     * @param rows the number of rows of the object
+     * @throws IOException writing to the resource failed
+     */
+    protected void write(Object data, int rows) throws IOException {
+        fileWriters.write(data, rows);
+        totalRowsWritten += rows;
+    }
+
+    /**
+     * Writes an object produced by the resolver to a file with its write
+     * support.
+     *
+     * @param writer the writer of the file
+     * @param data   the object
+     * @throws IOException writing to the resource failed
+     */
+    protected void writeToFile(ParquetWriter<Object> writer, Object data) throws IOException {
+        writer.write(data);
+    }
+
     /**
      * Closes the resource for write.
      *
@@ -277,13 +429,14 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     @Override
     public void closeForWrite() throws IOException, InterruptedException {
 
-        if (recordWriter != null) {
-            recordWriter.close(null);
+        if (fileWriters != null) {
+            fileWriters.close();
         }
-        LOG.debug("{}-{}: writer closed, wrote a TOTAL of {} rows to {} on server {}",
+        LOG.debug("{}-{}: writer closed, wrote a TOTAL of {} rows in {} files to {} on server {}",
                 context.getTransactionId(),
                 context.getSegmentId(),
                 totalRowsWritten,
+                fileWriters != null ? fileWriters.getFileCount() : 0,
                 context.getDataSource(),
                 context.getServerName());
     }
@@ -300,22 +453,8 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
             return FilterCompat.NOOP;
         }
 
-        List<ColumnDescriptor> tupleDescription = context.getTupleDescription();
-        ParquetRecordFilterBuilder filterBuilder = new ParquetRecordFilterBuilder(
-                tupleDescription, originalFieldsMap);
-        TreeVisitor pruner = new ParquetOperatorPruner(
-                tupleDescription, originalFieldsMap, SUPPORTED_OPERATORS);
-        TreeVisitor bpCharTransformer = new BPCharOperatorTransformer(tupleDescription);
-
         try {
-            // Parse the filter string into a expression tree Node
-            Node root = new FilterParser().parse(filterString);
-            // Transform IN operators into a chain of ORs, then
-            // prune the parsed tree with valid supported operators and then
-            // traverse the pruned tree with the ParquetRecordFilterBuilder to
-            // produce a record filter for parquet
-            TRAVERSER.traverse(root, IN_OPERATOR_TRANSFORMER, pruner, bpCharTransformer, filterBuilder);
-            return filterBuilder.getRecordFilter();
+            return buildRecordFilter(filterString, context.getTupleDescription(), originalFieldsMap);
         } catch (Exception e) {
             LOG.error(String.format("%s-%d: %s--%s Unable to generate Parquet Record Filter for filter",
                     context.getTransactionId(),
@@ -326,6 +465,34 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
         }
     }
 
+    /**
+     * Builds the parquet record filter for the given filter string, the parts
+     * of the filter that parquet does not support are pruned.
+     *
+     * @param filterString      the filter string
+     * @param tupleDescription  the columns of the table
+     * @param originalFieldsMap a map of field names to types
+     * @return the parquet record filter for the given filter string
+     * @throws Exception when the filter string cannot be parsed or traversed
+     */
+    public static FilterCompat.Filter buildRecordFilter(String filterString, List<ColumnDescriptor> tupleDescription,
+                                                        Map<String, Type> originalFieldsMap) throws Exception {
+        ParquetRecordFilterBuilder filterBuilder = new ParquetRecordFilterBuilder(
+                tupleDescription, originalFieldsMap);
+        TreeVisitor pruner = new ParquetOperatorPruner(
+                tupleDescription, originalFieldsMap, SUPPORTED_OPERATORS);
+        TreeVisitor bpCharTransformer = new BPCharOperatorTransformer(tupleDescription);
+
+        // Parse the filter string into a expression tree Node
+        Node root = new FilterParser().parse(filterString);
+        // Transform IN operators into a chain of ORs, then
+        // prune the parsed tree with valid supported operators and then
+        // traverse the pruned tree with the ParquetRecordFilterBuilder to
+        // produce a record filter for parquet
+        TRAVERSER.traverse(root, IN_OPERATOR_TRANSFORMER, pruner, bpCharTransformer, filterBuilder);
+        return filterBuilder.getRecordFilter();
+    }
+
     /**
      * Reads the original schema from the parquet file.
      *
@@ -343,10 +510,12 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
                 .builder(configuration)
                 .withMetadataFilter(filter)
                 .build();
-        HadoopInputFile inputFile = HadoopInputFile.fromPath(parquetFile, configuration);
+        // the footer is read once for the schema and for the reader, or served from the cache
+        inputFile = footerCache.getInputFile(configuration, parquetFile);
         try (ParquetFileReader parquetFileReader =
                      ParquetFileReader.open(inputFile, parquetReadOptions)) {
             FileMetaData metadata = parquetFileReader.getFileMetaData();
+            rowGroups = new ArrayList<>(parquetFileReader.getRowGroups());
             if (LOG.isDebugEnabled()) {
                 LOG.debug("{}-{}: Reading file {} with {} records in {} RowGroups",
                         context.getTransactionId(), context.getSegmentId(),
@@ -369,7 +538,7 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
      * @param originalSchema the original schema of the parquet file
      * @return a map of field names to types
      */
-    private Map<String, Type> getOriginalFieldsMap(MessageType originalSchema) {
+    public static Map<String, Type> getOriginalFieldsMap(MessageType originalSchema) {
         Map<String, Type> originalFields = new HashMap<>(originalSchema.getFieldCount() * 2);
 
         // We need to add the original name and lower cased name to
@@ -407,23 +576,49 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
         return new MessageType(originalSchema.getName(), projectedFields);
     }
 
-    private void createParquetWriter() throws IOException, InterruptedException {
+    /**
+     * Creates the file with the given number and returns its writer, the
+     * size of the file is the size of the row groups written so far and of
+     * the rows buffered for the current row group.
+     */
+    @SuppressWarnings("unchecked")
+    private HcfsFileWriter<Object> createFileWriter(int fileNumber) throws IOException {
 
-        String fileName = filePrefix + codecName.getExtension() + ".parquet";
+        String fileName = hcfsType.getUriForWrite(context, fileNumber) + codecName.getExtension() + ".parquet";
         LOG.debug("{}-{}: Creating file {}", context.getTransactionId(),
                 context.getSegmentId(), fileName);
-        file = new Path(fileName);
-        fs = FileSystem.get(URI.create(fileName), configuration);
-        HdfsUtilities.validateFile(file, fs);
+        Path file = new Path(fileName);
+        HdfsUtilities.validateFile(file, FileSystem.get(URI.create(fileName), configuration));
 
-        configuration.setInt(PAGE_SIZE, pageSize);
-        configuration.setInt(DICTIONARY_PAGE_SIZE, dictionarySize);
-        configuration.setBoolean(ENABLE_DICTIONARY, enableDictionary);
-        configuration.set(WRITER_VERSION, parquetVersion.toString());
-        configuration.setLong(BLOCK_SIZE, rowGroupSize);
+        // the write support accepts the objects produced by the resolver
+        WriteSupport<Object> writeSupport = (WriteSupport<Object>) createWriteSupport(writeSchema);
+        ParquetWriter<Object> writer = new WriterBuilder(HadoopOutputFile.fromPath(file, configuration), writeSupport)
+                .withConf(configuration)
+                .withWriteMode(ParquetFileWriter.Mode.CREATE)
+                .withCompressionCodec(codecName)
+                .withPageSize(pageSize)
+                .withDictionaryPageSize(dictionarySize)
+                .withDictionaryEncoding(enableDictionary)
+                .withWriterVersion(parquetVersion)
+                .withRowGroupSize(rowGroupSize)
+                .build();
+
+        return new HcfsFileWriter<Object>() {
+            @Override
+            public void write(Object data) throws IOException {
+                writeToFile(writer, data);
+            }
 
-        recordWriter = new ParquetOutputFormat<>(groupWriteSupport)
-                .getRecordWriter(configuration, file, codecName, ParquetFileWriter.Mode.CREATE);
+            @Override
+            public long getSize() {
+                return writer.getDataSize();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
     }
 
     /**
@@ -537,4 +732,27 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
             }
         }
     }
+
+    /**
+     * Builds the writers of the files with the write support of the accessor.
+     */
+    private static class WriterBuilder extends ParquetWriter.Builder<Object, WriterBuilder> {
+
+        private final WriteSupport<Object> writeSupport;
+
+        WriterBuilder(OutputFile file, WriteSupport<Object> writeSupport) {
+            super(file);
+            this.writeSupport = writeSupport;
+        }
+
+        @Override
+        protected WriterBuilder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<Object> getWriteSupport(Configuration conf) {
+            return writeSupport;
+        }
+    }
 }
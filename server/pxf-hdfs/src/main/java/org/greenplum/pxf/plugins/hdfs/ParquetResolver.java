@@ -148,55 +148,13 @@ public class ParquetResolver extends BasePlugin implements Resolver {
                 group.add(index, (Float) field.val);
                 break;
             case FIXED_LEN_BYTE_ARRAY:
-                // From org.apache.hadoop.hive.ql.io.parquet.write.DataWritableWriter.DecimalDataWriter#decimalToBinary
-                String value = (String) field.val;
-                DecimalLogicalTypeAnnotation typeAnnotation = (DecimalLogicalTypeAnnotation) type.getLogicalTypeAnnotation();
-                int precision = Math.min(HiveDecimal.MAX_PRECISION, typeAnnotation.getPrecision());
-                int scale = Math.min(HiveDecimal.MAX_SCALE, typeAnnotation.getScale());
-                HiveDecimal hiveDecimal = HiveDecimal.enforcePrecisionScale(
-                        HiveDecimal.create(value),
-                        precision,
-                        scale);
-
-                if (hiveDecimal == null) {
-                    // When precision is higher than HiveDecimal.MAX_PRECISION
-                    // and enforcePrecisionScale returns null, it means we
-                    // cannot store the value in Parquet because we have
-                    // exceeded the precision. To make the behavior consistent
-                    // with Hive's behavior when storing on a Parquet-backed
-                    // table, we store the value as null.
-                    return;
-                }
-
-                byte[] decimalBytes = hiveDecimal.bigIntegerBytesScaled(scale);
-
-                // Estimated number of bytes needed.
-                int precToBytes = ParquetFileAccessor.PRECISION_TO_BYTE_COUNT[precision - 1];
-                if (precToBytes == decimalBytes.length) {
-                    // No padding needed.
-                    group.add(index, Binary.fromReusedByteArray(decimalBytes));
-                } else {
-                    byte[] tgt = new byte[precToBytes];
-                    if (hiveDecimal.signum() == -1) {
-                        // For negative number, initializing bits to 1
-                        for (int i = 0; i < precToBytes; i++) {
-                            tgt[i] |= 0xFF;
-                        }
-                    }
-                    System.arraycopy(decimalBytes, 0, tgt, precToBytes - decimalBytes.length, decimalBytes.length); // Padding leading zeroes/ones.
-                    group.add(index, Binary.fromReusedByteArray(tgt));
+                Binary decimal = decimalToBinary((String) field.val, type);
+                if (decimal != null) {
+                    group.add(index, decimal);
                 }
-                // end -- org.apache.hadoop.hive.ql.io.parquet.write.DataWritableWriter.DecimalDataWriter#decimalToBinary
                 break;
-            case INT96:  // SQL standard timestamp string value with or without time zone literals: https://www.postgresql.org/docs/9.4/datatype-datetime.html
-                String timestamp = (String) field.val;
-                if (TIMESTAMP_PATTERN.matcher(timestamp).find()) {
-                    // Note: this conversion convert type "timestamp with time zone" will lose timezone information
-                    // while preserving the correct value. (as Parquet doesn't support timestamp with time zone.
-                    group.add(index, ParquetTypeConverter.getBinaryFromTimestampWithTimeZone(timestamp));
-                } else {
-                    group.add(index, ParquetTypeConverter.getBinaryFromTimestamp(timestamp));
-                }
+            case INT96:
+                group.add(index, timestampToBinary((String) field.val));
                 break;
             case BOOLEAN:
                 group.add(index, (Boolean) field.val);
@@ -206,6 +164,81 @@ public class ParquetResolver extends BasePlugin implements Resolver {
         }
     }
 
+    /**
+     * Converts the text of a decimal value to the bytes of the fixed length
+     * byte array of the given decimal type.
+     *
+     * @param value the text of the decimal value
+     * @param type  the parquet type of the column
+     * @return the bytes of the value, or null if the value exceeds the maximum precision
+     */
+    protected static Binary decimalToBinary(String value, Type type) {
+        // From org.apache.hadoop.hive.ql.io.parquet.write.DataWritableWriter.DecimalDataWriter#decimalToBinary
+        DecimalLogicalTypeAnnotation typeAnnotation = (DecimalLogicalTypeAnnotation) type.getLogicalTypeAnnotation();
+        int precision = Math.min(HiveDecimal.MAX_PRECISION, typeAnnotation.getPrecision());
+        int scale = Math.min(HiveDecimal.MAX_SCALE, typeAnnotation.getScale());
+        HiveDecimal hiveDecimal = HiveDecimal.enforcePrecisionScale(
+                HiveDecimal.create(value),
+                precision,
+                scale);
+
+        if (hiveDecimal == null) {
+            // When precision is higher than HiveDecimal.MAX_PRECISION
+            // and enforcePrecisionScale returns null, it means we
+            // cannot store the value in Parquet because we have
+            // exceeded the precision. To make the behavior consistent
+            // with Hive's behavior when storing on a Parquet-backed
+            // table, we store the value as null.
+            return null;
+        }
+
+        byte[] decimalBytes = hiveDecimal.bigIntegerBytesScaled(scale);
+
+        // Estimated number of bytes needed.
+        int precToBytes = ParquetFileAccessor.PRECISION_TO_BYTE_COUNT[precision - 1];
+        if (precToBytes == decimalBytes.length) {
+            // No padding needed.
+            return Binary.fromReusedByteArray(decimalBytes);
+        }
+        byte[] tgt = new byte[precToBytes];
+        if (hiveDecimal.signum() == -1) {
+            // For negative number, initializing bits to 1
+            for (int i = 0; i < precToBytes; i++) {
+                tgt[i] |= 0xFF;
+            }
+        }
+        System.arraycopy(decimalBytes, 0, tgt, precToBytes - decimalBytes.length, decimalBytes.length); // Padding leading zeroes/ones.
+        return Binary.fromReusedByteArray(tgt);
+        // end -- org.apache.hadoop.hive.ql.io.parquet.write.DataWritableWriter.DecimalDataWriter#decimalToBinary
+    }
+
+    /**
+     * Converts the text of a timestamp value to the bytes of an INT96 value.
+     *
+     * @param timestamp SQL standard timestamp string value with or without time zone literals:
+     *                  https://www.postgresql.org/docs/9.4/datatype-datetime.html
+     * @return the bytes of the value
+     */
+    protected static Binary timestampToBinary(String timestamp) {
+        if (TIMESTAMP_PATTERN.matcher(timestamp).find()) {
+            // Note: this conversion convert type "timestamp with time zone" will lose timezone information
+            // while preserving the correct value. (as Parquet doesn't support timestamp with time zone.
+            return ParquetTypeConverter.getBinaryFromTimestampWithTimeZone(timestamp);
+        }
+        return ParquetTypeConverter.getBinaryFromTimestamp(timestamp);
+    }
+
+    /**
+     * Returns the schema of the file being written, set by the accessor in
+     * the request context.
+     *
+     * @return the schema
+     */
+    protected MessageType getSchema() {
+        validateSchema();
+        return schema;
+    }
+
     // Set schema from context if null
     // TODO: Fix the bridge interface so the schema is set before get/setFields is called
     //       Then validateSchema can be done during initialize phase
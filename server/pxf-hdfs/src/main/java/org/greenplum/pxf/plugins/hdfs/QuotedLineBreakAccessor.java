@@ -66,9 +66,26 @@ public class QuotedLineBreakAccessor extends HdfsAtomicDataAccessor {
         if (!super.openForRead()) {
             return false;
         }
+        openReader();
+        return true;
+    }
+
+    @Override
+    protected boolean openNextFile() throws IOException {
+        if (!super.openNextFile()) {
+            return false;
+        }
+        openReader();
+        // the header lines are only skipped at the beginning of the first file of the fragment
+        skipHeaderCount = 0;
+        return true;
+    }
+
+    private void openReader() {
         firstLine = true;
+        lastLine = false;
+        lineQueue = null;
         reader = new BufferedReader(new InputStreamReader(inputStream));
-        return true;
     }
 
     /**
@@ -81,32 +98,12 @@ public class QuotedLineBreakAccessor extends HdfsAtomicDataAccessor {
             return null;
         }
 
-        /**
-         * When SKIP_HEADER_COUNT is set, this will skip the physical lines in a file based on the
-         * count provided. For eg. For a file with the following data:
-         *
-         *   Address-Month-Year
-         *   "4627 Star Rd.
-         *   San Francisco, CA  94107":Sept:2017
-         *   "113 Moon St.
-         *   San Diego, CA  92093":Jan:2018
-         *
-         * In the above example, if the skipHeaderCount = 3, it will skip the first 3 lines
-         * and read the following remaining lines
-         *
-         *   "113 Moon St.
-         *   San Diego, CA  92093":Jan:2018
-         */
-        while (skipHeaderCount > 0) {
-            if (reader.readLine() == null) {
+        String nextLine;
+        while ((nextLine = readLineSkippingHeader()) == null) /* EOF */ {
+            // a combined fragment continues with its next file
+            if (!openNextFile()) {
                 return null;
             }
-            skipHeaderCount--;
-        }
-
-        String nextLine = readLine();
-        if (nextLine == null) /* EOF */ {
-            return null;
         }
 
         if (fileAsRow) {
@@ -118,6 +115,34 @@ public class QuotedLineBreakAccessor extends HdfsAtomicDataAccessor {
         return new OneRow(null, nextLine);
     }
 
+    /**
+     * When SKIP_HEADER_COUNT is set, this will skip the physical lines in a file based on the
+     * count provided. For eg. For a file with the following data:
+     *
+     *   Address-Month-Year
+     *   "4627 Star Rd.
+     *   San Francisco, CA  94107":Sept:2017
+     *   "113 Moon St.
+     *   San Diego, CA  92093":Jan:2018
+     *
+     * In the above example, if the skipHeaderCount = 3, it will skip the first 3 lines
+     * and read the following remaining lines
+     *
+     *   "113 Moon St.
+     *   San Diego, CA  92093":Jan:2018
+     *
+     * @return the next line after the header lines, or null at the end of the file
+     */
+    private String readLineSkippingHeader() throws IOException {
+        while (skipHeaderCount > 0) {
+            if (reader.readLine() == null) {
+                return null;
+            }
+            skipHeaderCount--;
+        }
+        return readLine();
+    }
+
     /**
      * Read one line ahead, to determine when the last line occurs
      *
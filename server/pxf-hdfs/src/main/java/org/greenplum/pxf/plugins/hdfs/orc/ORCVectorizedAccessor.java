@@ -3,11 +3,16 @@ package org.greenplum.pxf.plugins.hdfs.orc;
 import com.google.common.annotations.VisibleForTesting;
 import lombok.Data;
 import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.util.Progressable;
 import org.apache.orc.CompressionKind;
 import org.apache.orc.OrcConf;
 import org.apache.orc.OrcFile;
@@ -26,6 +31,10 @@ import org.greenplum.pxf.api.filter.TreeVisitor;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.SpringContext;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriter;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterPool;
 import org.greenplum.pxf.plugins.hdfs.HcfsType;
 import org.greenplum.pxf.plugins.hdfs.filter.BPCharOperatorTransformer;
 import org.greenplum.pxf.plugins.hdfs.filter.SearchArgumentBuilder;
@@ -84,14 +93,36 @@ public class ORCVectorizedAccessor extends BasePlugin implements Accessor {
 
     /**
      * A POJO capturing the state and the context of ORC file writing operation.
+     * The file name is the name of the first file, the writer options are the
+     * options every file is written with.
      */
     @Data
     static class WriterState {
         String fileName;
-        Writer fileWriter;
         OrcFile.WriterOptions writerOptions;
+        HcfsFileWriterPool<VectorizedRowBatch> fileWriters;
     }
     private final WriterState writerState = new WriterState();
+    private final OrcTailCache orcTailCache;
+    private final HcfsFileWriterExecutor writerExecutor;
+
+    /**
+     * Constructs a new instance of the ORCVectorizedAccessor
+     */
+    public ORCVectorizedAccessor() {
+        this(SpringContext.getBean(OrcTailCache.class), SpringContext.getBean(HcfsFileWriterExecutor.class));
+    }
+
+    /**
+     * Constructs a new instance of the ORCVectorizedAccessor
+     *
+     * @param orcTailCache   the cache of the tails of the ORC files
+     * @param writerExecutor runs the writers of the files written in parallel
+     */
+    public ORCVectorizedAccessor(OrcTailCache orcTailCache, HcfsFileWriterExecutor writerExecutor) {
+        this.orcTailCache = orcTailCache;
+        this.writerExecutor = writerExecutor;
+    }
 
     @Override
     public void afterPropertiesSet() {
@@ -105,9 +136,10 @@ public class ORCVectorizedAccessor extends BasePlugin implements Accessor {
         Path file = new Path(context.getDataSource());
         FileSplit fileSplit = HdfsUtilities.parseFileSplit(context.getDataSource(), context.getFragmentMetadata());
 
-        fileReader = OrcFile.createReader(file, OrcFile
+        OrcFile.ReaderOptions readerOptions = OrcFile
                 .readerOptions(configuration)
-                .filesystem(file.getFileSystem(configuration)));
+                .filesystem(file.getFileSystem(configuration));
+        fileReader = orcTailCache.createReader(file, readerOptions, path -> OrcFile.createReader(path, readerOptions));
 
         // The original schema from the file
         TypeDescription schema = fileReader.getSchema();
@@ -191,8 +223,9 @@ public class ORCVectorizedAccessor extends BasePlugin implements Accessor {
 
         writerState.setWriterOptions(orcWriterOptions);
 
-        // create ORC file writer with provided options, store it in the writer state
-        writerState.setFileWriter(OrcFile.createWriter(new Path(writerState.getFileName()), orcWriterOptions));
+        // create the writers of the ORC files with provided options, store them in the writer state
+        writerState.setFileWriters(new HcfsFileWriterPool<>(context, writerExecutor,
+                fileNumber -> createFileWriter(hcfsType.getUriForWrite(context, fileNumber) + ORC_FILE_SUFFIX)));
 
         // store writer options on the context for downstream resolver to use it
         context.setMetadata(orcWriterOptions);
@@ -205,18 +238,41 @@ public class ORCVectorizedAccessor extends BasePlugin implements Accessor {
         // get a row batch produced by the resolver, the batch object might be re-usable, but we should not reset it here
         VectorizedRowBatch rowBatch = (VectorizedRowBatch) onerow.getData();
         LOG.debug("Adding VectorizedRowBatch with {} rows", rowBatch.size);
-        writerState.getFileWriter().addRowBatch(rowBatch);
+        writerState.getFileWriters().write(rowBatch, rowBatch.size);
         return true;
     }
 
     @Override
     public void closeForWrite() throws IOException {
-        if (writerState.getFileWriter() != null) {
-            LOG.debug("Closing ORC file writer for file {}", writerState.fileName);
-            writerState.getFileWriter().close();
+        if (writerState.getFileWriters() != null) {
+            LOG.debug("Closing ORC file writers for files starting with {}", writerState.fileName);
+            writerState.getFileWriters().close();
         }
     }
 
+    /**
+     * Creates an ORC file with the writer options of the request. The size of
+     * the file is tracked through the stream the file is written to, so it
+     * is the size of the stripes written so far.
+     *
+     * @param fileName the name of the file
+     * @return the writer of the file
+     * @throws IOException if the file could not be created
+     */
+    private OrcFileWriter createFileWriter(String fileName) throws IOException {
+        LOG.debug("Creating ORC file {}", fileName);
+        Path file = new Path(fileName);
+        OrcFile.WriterOptions requestOptions = writerState.getWriterOptions();
+        // every file has options of its own, as they hold the file system of the file
+        SizeTrackingFileSystem fileSystem = new SizeTrackingFileSystem(file.getFileSystem(configuration));
+        OrcFile.WriterOptions fileOptions = OrcFile.writerOptions(configuration)
+                .setSchema(requestOptions.getSchema())
+                .compress(requestOptions.getCompress())
+                .useUTCTimestamp(requestOptions.getUseUTCTimestamp())
+                .fileSystem(fileSystem);
+        return new OrcFileWriter(OrcFile.createWriter(file, fileOptions), fileSystem);
+    }
+
     /**
      * Given a filter string, builds the SearchArgument object to perform
      * predicated pushdown for ORC
@@ -337,4 +393,58 @@ public class ORCVectorizedAccessor extends BasePlugin implements Accessor {
                     "Property %s has invalid value %s", ORC_WRITE_TIMEZONE_UTC_PROPERTY_NAME, writeTimestampsInUTCStr));
         }
     }
+
+    /**
+     * Writes the row batches of a request to an ORC file.
+     */
+    static class OrcFileWriter implements HcfsFileWriter<VectorizedRowBatch> {
+
+        private final Writer writer;
+        private final SizeTrackingFileSystem fileSystem;
+
+        OrcFileWriter(Writer writer, SizeTrackingFileSystem fileSystem) {
+            this.writer = writer;
+            this.fileSystem = fileSystem;
+        }
+
+        @Override
+        public void write(VectorizedRowBatch batch) throws IOException {
+            writer.addRowBatch(batch);
+        }
+
+        @Override
+        public long getSize() throws IOException {
+            return fileSystem == null ? 0 : fileSystem.getBytesWritten();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * A file system that keeps the stream of the file the ORC writer creates,
+     * to tell how many bytes have been written to the file.
+     */
+    static class SizeTrackingFileSystem extends FilterFileSystem {
+
+        private FSDataOutputStream out;
+
+        SizeTrackingFileSystem(FileSystem fs) {
+            super(fs);
+            setConf(fs.getConf());
+        }
+
+        @Override
+        public FSDataOutputStream create(Path f, FsPermission permission, boolean overwrite, int bufferSize,
+                                         short replication, long blockSize, Progressable progress) throws IOException {
+            out = super.create(f, permission, overwrite, bufferSize, replication, blockSize, progress);
+            return out;
+        }
+
+        long getBytesWritten() throws IOException {
+            return out == null ? 0 : out.getPos();
+        }
+    }
 }
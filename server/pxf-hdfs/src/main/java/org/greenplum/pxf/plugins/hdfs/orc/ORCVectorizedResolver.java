@@ -1,21 +1,28 @@
 package org.greenplum.pxf.plugins.hdfs.orc;
 
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.orc.OrcFile;
 import org.apache.orc.TypeDescription;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.function.TriConsumer;
-import org.greenplum.pxf.api.model.ReadVectorizedResolver;
 import org.greenplum.pxf.api.error.PxfRuntimeException;
 import org.greenplum.pxf.api.error.UnsupportedTypeException;
 import org.greenplum.pxf.api.function.TriFunction;
+import org.greenplum.pxf.api.io.ColumnBatch;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.BasePlugin;
+import org.greenplum.pxf.api.model.ReadColumnarResolver;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.ResettablePlugin;
 import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.api.model.WriteVectorizedResolver;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterPool;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
@@ -95,7 +102,7 @@ import static org.greenplum.pxf.plugins.hdfs.orc.ORCVectorizedAccessor.MAP_BY_PO
  * ------------------------------------------------------
  *
  */
-public class ORCVectorizedResolver extends BasePlugin implements ReadVectorizedResolver, WriteVectorizedResolver, Resolver {
+public class ORCVectorizedResolver extends BasePlugin implements ReadColumnarResolver, WriteVectorizedResolver, Resolver, ResettablePlugin {
 
     /**
      * The schema used to read or write the ORC file.
@@ -137,6 +144,16 @@ public class ORCVectorizedResolver extends BasePlugin implements ReadVectorizedR
 
     private List<List<OneField>> cachedBatch;
     private VectorizedRowBatch vectorizedRowBatch;
+    private boolean reuseRowBatch;
+
+    /**
+     * For every Greenplum column, the index of the ORC column it is read from,
+     * or -1 if the column is not projected or missing in the ORC file.
+     */
+    private int[] columnarIndexes;
+    private DataType[] columnarTypes;
+    private boolean columnarSupported = true;
+    private ColumnBatch columnBatch;
 
     private static final String UNSUPPORTED_ERR_MESSAGE = "Current operation is not supported";
 
@@ -150,6 +167,17 @@ public class ORCVectorizedResolver extends BasePlugin implements ReadVectorizedR
         positionalAccess = context.getOption(MAP_BY_POSITION_OPTION, false);
     }
 
+    /**
+     * Keeps the read functions and the columnar mapping of the previous
+     * fragment, they are only computed again if the ORC file of the next
+     * fragment has a different schema.
+     */
+    @Override
+    public void reset(RequestContext context) {
+        setRequestContext(context);
+        columnDescriptors = context.getTupleDescription();
+    }
+
     /**
      * Returns the resolved list of lists of OneFields given a
      * VectorizedRowBatch
@@ -209,6 +237,71 @@ public class ORCVectorizedResolver extends BasePlugin implements ReadVectorizedR
         return resolvedBatch;
     }
 
+    /**
+     * Returns the batch as column vectors that reference the arrays of the ORC
+     * column vectors, so that no values are copied or boxed. Only the scalar types
+     * that ORC stores as longs, doubles or bytes are supported, for other types
+     * null is returned and the batch is resolved by {@link #getFieldsForBatch(OneRow)}.
+     * Repeating vectors stay repeating, and when the ORC batch has a selection
+     * of rows in use, the column batch is restricted to the same rows.
+     *
+     * @param batch unresolved batch
+     * @return the columnar batch, or null if the read schema has unsupported types
+     */
+    @Override
+    public ColumnBatch getColumnBatch(OneRow batch) {
+        ensureReadFunctionsAreInitialized();
+        ensureColumnarMappingIsInitialized();
+        VectorizedRowBatch vectorizedBatch = (VectorizedRowBatch) batch.getData();
+        if (!columnarSupported) {
+            return null;
+        }
+
+        int batchSize = vectorizedBatch.size;
+        // the number of rows of the vectors, more than the size of the batch when rows are selected
+        int rowCount = batchSize;
+        if (vectorizedBatch.selectedInUse) {
+            rowCount = 0;
+            for (int i = 0; i < batchSize; i++) {
+                rowCount = Math.max(rowCount, vectorizedBatch.selected[i] + 1);
+            }
+        }
+        if (columnBatch == null || columnBatch.getCapacity() < rowCount) {
+            columnBatch = new ColumnBatch(columnarTypes, Math.max(rowCount, getBatchSize()));
+        } else {
+            columnBatch.reset();
+        }
+
+        for (int i = 0; i < columnarIndexes.length; i++) {
+            org.greenplum.pxf.api.io.ColumnVector column = columnBatch.getColumn(i);
+            ColumnVector orcVector = columnarIndexes[i] < 0 ? null : vectorizedBatch.cols[columnarIndexes[i]];
+            if (orcVector == null) {
+                column.setRepeating(true);
+                column.setNull(0);
+                continue;
+            }
+
+            switch (column.getStorage()) {
+                case LONG:
+                    column.setLongValues(((LongColumnVector) orcVector).vector);
+                    break;
+                case DOUBLE:
+                    column.setDoubleValues(((DoubleColumnVector) orcVector).vector);
+                    break;
+                default:
+                    BytesColumnVector bcv = (BytesColumnVector) orcVector;
+                    column.setBytesValues(bcv.vector, bcv.start, bcv.length);
+            }
+            column.setRepeating(orcVector.isRepeating);
+            if (!orcVector.noNulls) {
+                column.setNulls(orcVector.isNull, orcVector.isRepeating ? 1 : rowCount);
+            }
+        }
+        columnBatch.setSelected(vectorizedBatch.selected, vectorizedBatch.selectedInUse);
+        columnBatch.setSize(batchSize);
+        return columnBatch;
+    }
+
     @Override
     public int getBatchSize() {
         return VectorizedRowBatch.DEFAULT_SIZE;
@@ -228,8 +321,12 @@ public class ORCVectorizedResolver extends BasePlugin implements ReadVectorizedR
                     records.size(), getBatchSize()));
         }
         ensureWriteFunctionsAreInitialized();
-        // reuse the batch object between iterations, create a new the first time and reset on subsequent calls
+        // reuse the batch object between iterations, create a new the first time and reset on subsequent calls,
+        // unless the batches are written by parallel writers after the next batch is resolved
         if (vectorizedRowBatch == null) {
+            reuseRowBatch = !HcfsFileWriterPool.isParallel(context);
+        }
+        if (vectorizedRowBatch == null || !reuseRowBatch) {
             vectorizedRowBatch = orcSchema.createRowBatch(getBatchSize());
         } else {
             vectorizedRowBatch.reset();
@@ -282,7 +379,17 @@ public class ORCVectorizedResolver extends BasePlugin implements ReadVectorizedR
      */
     @SuppressWarnings("unchecked")
     private void ensureReadFunctionsAreInitialized() {
-        if (readFunctions != null) return;
+        if (readFunctions != null) {
+            if (context.getMetadata() == orcSchema) return;
+            // after a reset, the functions are kept if the file of the fragment has the same schema
+            if (orcSchema.equals(context.getMetadata())) {
+                orcSchema = (TypeDescription) context.getMetadata();
+                return;
+            }
+            columnarIndexes = null;
+            columnarSupported = true;
+            columnBatch = null;
+        }
         if (!(context.getMetadata() instanceof TypeDescription))
             throw new PxfRuntimeException("No ORC schema detected in request context");
 
@@ -372,6 +479,55 @@ public class ORCVectorizedResolver extends BasePlugin implements ReadVectorizedR
         }
     }
 
+    /**
+     * Maps the Greenplum columns to the columns of the read schema the same way
+     * {@link #getFieldsForBatch(OneRow)} does, and determines whether all the
+     * columns that are read can be represented as column vectors.
+     */
+    private void ensureColumnarMappingIsInitialized() {
+        if (columnarIndexes != null) return;
+
+        int[] indexes = new int[columnDescriptors.size()];
+        DataType[] types = new DataType[columnDescriptors.size()];
+        int columnIndex = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            ColumnDescriptor columnDescriptor = columnDescriptors.get(i);
+            indexes[i] = -1;
+            types[i] = columnDescriptor.getDataType();
+            if (!columnDescriptor.isProjected()) {
+                continue;
+            }
+            TypeDescription orcColumn = positionalAccess
+                    ? columnIndex < orcSchema.getChildren().size() ? orcSchema.getChildren().get(columnIndex) : null
+                    : readFields.get(columnDescriptor.columnName());
+            if (orcColumn == null) {
+                continue;
+            }
+            switch (orcColumn.getCategory()) {
+                case BOOLEAN:
+                case BYTE:
+                case SHORT:
+                case INT:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                case STRING:
+                case VARCHAR:
+                case CHAR:
+                case BINARY:
+                    indexes[i] = columnIndex;
+                    types[i] = DataType.get(typeOidMappings[columnIndex]);
+                    break;
+                default:
+                    // lists, decimals, dates and timestamps need to be converted by the read functions
+                    columnarSupported = false;
+            }
+            columnIndex++;
+        }
+        columnarTypes = types;
+        columnarIndexes = indexes;
+    }
+
     /**
      * Ensures that functions used in write use case are initialized. If not initialized, this method will
      * initialize the functions by iterating over the ORC schema and getting a corresponding function for each column.
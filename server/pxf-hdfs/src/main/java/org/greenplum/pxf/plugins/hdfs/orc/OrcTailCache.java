@@ -0,0 +1,116 @@
+package org.greenplum.pxf.plugins.hdfs.orc;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
+import org.apache.orc.impl.OrcTail;
+import org.greenplum.pxf.api.model.ConfigurationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+
+/**
+ * Cache of the tails of ORC files, shared by the requests of all queries.
+ * Opening a reader reads the postscript, the footer and the stripe statistics
+ * at the end of the file, for every fragment of the file and every query that
+ * reads it. The cache lets the tail be fetched from the file system once per
+ * file instead, and hands it to the readers with {@link OrcFile.ReaderOptions#orcTail(OrcTail)}.
+ * <p>
+ * Entries are keyed by server, path, modification time and length, so that a
+ * file that is overwritten is read again, and the cache is bounded by the
+ * total size of the serialized tails it holds.
+ */
+@Component
+public class OrcTailCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrcTailCache.class);
+
+    private final Cache<String, OrcTail> cache;
+
+    /**
+     * Creates the reader of an ORC file with the given options.
+     *
+     * @param <R> the type of the reader
+     */
+    @FunctionalInterface
+    public interface ReaderFactory<R extends Reader> {
+
+        /**
+         * Creates the reader of the file, with the options passed to the cache.
+         *
+         * @param path the path of the file
+         * @return the reader
+         * @throws IOException if the file could not be read
+         */
+        R create(Path path) throws IOException;
+    }
+
+    /**
+     * Constructs the OrcTailCache class
+     *
+     * @param maxSize the maximum total size of the cached tails, 0 disables the cache
+     */
+    @Autowired
+    public OrcTailCache(@Value("${pxf.orc-tail-cache.max-size:100MB}") DataSize maxSize) {
+        if (maxSize.toBytes() <= 0) {
+            LOG.info("ORC Tail Cache is disabled");
+            this.cache = null;
+            return;
+        }
+        LOG.info("Creating ORC Tail Cache with a maximum size of {} bytes", maxSize.toBytes());
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Weigher<String, OrcTail>) (key, tail) -> tail.getSerializedTail().remaining())
+                .build();
+    }
+
+    /**
+     * Creates the reader of the ORC file at the given path. When the tail of
+     * the file is cached and the file did not change since, the tail is set
+     * on the options before the reader is created, otherwise the tail read by
+     * the reader is cached.
+     *
+     * @param path    the path of the ORC file
+     * @param options the options of the reader, the factory is expected to create the reader with them
+     * @param factory creates the reader
+     * @param <R>     the type of the reader
+     * @return the reader
+     * @throws IOException if the status of the file can not be retrieved or the file could not be read
+     */
+    public <R extends Reader> R createReader(Path path, OrcFile.ReaderOptions options, ReaderFactory<R> factory) throws IOException {
+        if (cache == null) {
+            return factory.create(path);
+        }
+
+        FileSystem fs = options.getFilesystem() != null
+                ? options.getFilesystem()
+                : path.getFileSystem(options.getConfiguration());
+        FileStatus status = fs.getFileStatus(path);
+        String key = String.format("%s:%s@%d:%d",
+                StringUtils.defaultIfBlank(options.getConfiguration().get(ConfigurationFactory.PXF_SERVER_NAME_PROPERTY), "default"),
+                status.getPath(), status.getModificationTime(), status.getLen());
+
+        OrcTail tail = cache.getIfPresent(key);
+        if (tail != null) {
+            options.orcTail(tail);
+            return factory.create(path);
+        }
+
+        R reader = factory.create(path);
+        tail = new OrcTail(reader.getFileTail(), reader.getSerializedFileFooter(), status.getModificationTime());
+        cache.put(key, tail);
+        LOG.debug("Cached tail of {} bytes for key={}", tail.getSerializedTail().remaining(), key);
+        return reader;
+    }
+}
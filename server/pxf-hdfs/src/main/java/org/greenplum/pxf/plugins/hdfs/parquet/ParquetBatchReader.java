@@ -0,0 +1,185 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.schema.MessageType;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the columns of the row groups of a Parquet file into column vectors.
+ * The pages of every column chunk are decoded by a {@link ColumnReader} that
+ * pushes the values straight into a {@link ParquetVectorConverter}, instead of
+ * assembling a record for every row.
+ * <p>
+ * The row groups are selected by the range and the record filter of the read
+ * options: row groups whose statistics or dictionaries do not match the filter
+ * are skipped, and so are the pages whose column indexes do not match it. The
+ * remaining rows are not filtered one by one.
+ * <p>
+ * Only schemas of top level primitive columns that are not repeated can be
+ * read, see {@link ParquetVectorConverter#isSupported(org.apache.parquet.schema.Type)}.
+ * <p>
+ * The column chunks of the row groups are read ahead when the reader is given
+ * a {@link ParquetReadAhead}. The time spent reading the row groups, or
+ * waiting for them to be read ahead, and the time spent decoding their pages
+ * are measured separately.
+ */
+class ParquetBatchReader implements Closeable {
+
+    private final ParquetFileReader fileReader;
+    private final ParquetReadAhead readAhead;
+    private final MessageType readSchema;
+    private final String createdBy;
+    private final List<ColumnDescriptor> columns;
+    private final ParquetVectorConverter[] converters;
+    private final ColumnReader[] columnReaders;
+    private final GroupConverter recordConverter = new GroupConverter() {
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return converters[fieldIndex];
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void end() {
+        }
+    };
+
+    private long rowsLeftInRowGroup;
+    private int rowGroupsRead;
+    private long ioWaitNanos, decodeNanos;
+
+    /**
+     * Opens the file for reading the columns of the read schema.
+     *
+     * @param file       the parquet file
+     * @param options    the read options with the range and the record filter
+     * @param readSchema the schema of the projected columns
+     * @param readAhead  the read ahead of the column chunks of the file, or null
+     * @throws IOException if the file can not be opened
+     */
+    ParquetBatchReader(InputFile file, ParquetReadOptions options, MessageType readSchema, ParquetReadAhead readAhead)
+            throws IOException {
+        this.readAhead = readAhead;
+        this.fileReader = ParquetFileReader.open(readAhead != null ? readAhead.getInputFile() : file, options);
+        this.readSchema = readSchema;
+        this.createdBy = fileReader.getFooter().getFileMetaData().getCreatedBy();
+        this.columns = readSchema.getColumns();
+        this.converters = new ParquetVectorConverter[columns.size()];
+        this.columnReaders = new ColumnReader[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = ParquetVectorConverter.create(readSchema.getType(i).asPrimitiveType());
+        }
+        fileReader.setRequestedSchema(readSchema);
+        if (readAhead != null) {
+            readAhead.setRowGroups(fileReader.getRowGroups(), readSchema, options.getMaxAllocationSize());
+        }
+    }
+
+    /**
+     * Returns the Greenplum types of the vectors the columns of the read schema
+     * are read into.
+     *
+     * @return the types, in the order of the read schema
+     */
+    DataType[] getDataTypes() {
+        DataType[] dataTypes = new DataType[converters.length];
+        for (int i = 0; i < converters.length; i++) {
+            dataTypes[i] = converters[i].getDataType();
+        }
+        return dataTypes;
+    }
+
+    /**
+     * Reads the next rows of the current row group into the given vectors. The
+     * rows of a batch all come from the same row group.
+     *
+     * @param vectors  the vectors of the columns of the read schema, in the same order
+     * @param capacity the maximum number of rows to read
+     * @return the number of rows read, 0 when there are no more rows
+     * @throws IOException if reading failed
+     */
+    int readBatch(ColumnVector[] vectors, int capacity) throws IOException {
+        while (rowsLeftInRowGroup == 0) {
+            if (readAhead != null) {
+                readAhead.advance(rowGroupsRead);
+            }
+            long then = System.nanoTime();
+            PageReadStore rowGroup = fileReader.readNextFilteredRowGroup();
+            ioWaitNanos += System.nanoTime() - then;
+            if (rowGroup == null) {
+                return 0;
+            }
+            rowGroupsRead++;
+            ColumnReadStoreImpl columnReadStore = new ColumnReadStoreImpl(rowGroup, recordConverter, readSchema, createdBy);
+            for (int i = 0; i < columnReaders.length; i++) {
+                columnReaders[i] = columnReadStore.getColumnReader(columns.get(i));
+            }
+            rowsLeftInRowGroup = rowGroup.getRowCount();
+        }
+
+        long then = System.nanoTime();
+        int size = (int) Math.min(capacity, rowsLeftInRowGroup);
+        for (int i = 0; i < columnReaders.length; i++) {
+            readColumn(columnReaders[i], columns.get(i).getMaxDefinitionLevel(), converters[i], vectors[i], size);
+        }
+        rowsLeftInRowGroup -= size;
+        decodeNanos += System.nanoTime() - then;
+        return size;
+    }
+
+    /**
+     * @return the time spent reading the column chunks of the row groups, or
+     * waiting for them to be read ahead, in nanoseconds
+     */
+    long getIoWaitNanos() {
+        return ioWaitNanos;
+    }
+
+    /**
+     * @return the time spent decoding the pages of the column chunks, in nanoseconds
+     */
+    long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            fileReader.close();
+        } finally {
+            if (readAhead != null) {
+                readAhead.close();
+            }
+        }
+    }
+
+    private void readColumn(ColumnReader columnReader, int maxDefinitionLevel,
+                            ParquetVectorConverter converter, ColumnVector vector, int size) {
+        converter.setVector(vector);
+        for (int row = 0; row < size; row++) {
+            if (columnReader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                converter.setRow(row);
+                columnReader.writeCurrentValueToConverter();
+            } else {
+                vector.setNull(row);
+            }
+            columnReader.consume();
+        }
+    }
+}
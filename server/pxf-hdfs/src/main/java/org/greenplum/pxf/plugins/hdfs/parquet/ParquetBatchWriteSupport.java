@@ -0,0 +1,83 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+
+import java.util.HashMap;
+
+/**
+ * Writes the rows of a {@link ParquetWriteBatch} to the column writers of a
+ * Parquet file. Every call to {@link #write(ParquetWriteBatch)} writes the row
+ * the batch is positioned on, so that the writer counts rows, and closes row
+ * groups, as it does for records written one at a time.
+ * <p>
+ * The values are written from the arrays of the batch straight to the record
+ * consumer, which hands them to the writer of their column, unlike the
+ * {@link org.apache.parquet.hadoop.example.GroupWriteSupport} that needs a
+ * group with boxed values for every row.
+ */
+class ParquetBatchWriteSupport extends WriteSupport<ParquetWriteBatch> {
+
+    private final MessageType schema;
+    private final String[] fieldNames;
+    private RecordConsumer recordConsumer;
+
+    /**
+     * Creates the write support for files of the given schema.
+     *
+     * @param schema the schema of the file, with a primitive column for every column of the batches
+     */
+    ParquetBatchWriteSupport(MessageType schema) {
+        this.schema = schema;
+        this.fieldNames = new String[schema.getFieldCount()];
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldNames[i] = schema.getFieldName(i);
+        }
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(schema, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+    }
+
+    @Override
+    public void write(ParquetWriteBatch batch) {
+        int row = batch.getRow();
+        recordConsumer.startMessage();
+        for (int i = 0; i < fieldNames.length; i++) {
+            // null values are fields that are not written
+            if (batch.isNull(i, row)) {
+                continue;
+            }
+            recordConsumer.startField(fieldNames[i], i);
+            switch (batch.getType(i)) {
+                case BOOLEAN:
+                    recordConsumer.addBoolean(batch.getBoolean(i, row));
+                    break;
+                case INT32:
+                    recordConsumer.addInteger(batch.getInt(i, row));
+                    break;
+                case INT64:
+                    recordConsumer.addLong(batch.getLong(i, row));
+                    break;
+                case FLOAT:
+                    recordConsumer.addFloat(batch.getFloat(i, row));
+                    break;
+                case DOUBLE:
+                    recordConsumer.addDouble(batch.getDouble(i, row));
+                    break;
+                default:
+                    recordConsumer.addBinary(batch.getBinary(i, row));
+            }
+            recordConsumer.endField(fieldNames[i], i);
+        }
+        recordConsumer.endMessage();
+    }
+}
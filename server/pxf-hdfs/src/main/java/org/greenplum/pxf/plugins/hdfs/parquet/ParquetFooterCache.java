@@ -0,0 +1,297 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+import org.greenplum.pxf.api.model.ConfigurationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.apache.parquet.hadoop.ParquetFileWriter.MAGIC;
+
+/**
+ * Cache of the footers of Parquet files, shared by the requests of all
+ * queries. Every fragment of a Parquet file reads the footer of the file, once
+ * to get the schema of the file and once more when the reader is opened, the
+ * cache lets the footer be fetched from the file system once per file instead.
+ * <p>
+ * The cache holds the tail of the files, that is the serialized footer
+ * followed by its length and the magic number, and the files are opened with
+ * an {@link InputFile} that serves the reads of the tail from the cache.
+ * Entries are keyed by server, path, modification time and length, so that a
+ * file that is overwritten is read again, and the cache is bounded by the
+ * total size of the tails it holds.
+ */
+@Component
+public class ParquetFooterCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParquetFooterCache.class);
+    private static final int FOOTER_LENGTH_SIZE = 4;
+
+    private final Cache<String, byte[]> cache;
+
+    /**
+     * Constructs the ParquetFooterCache class
+     *
+     * @param maxSize the maximum total size of the cached footers, 0 disables the cache
+     */
+    @Autowired
+    public ParquetFooterCache(@Value("${pxf.parquet-footer-cache.max-size:100MB}") DataSize maxSize) {
+        if (maxSize.toBytes() <= 0) {
+            LOG.info("Parquet Footer Cache is disabled");
+            this.cache = null;
+            return;
+        }
+        LOG.info("Creating Parquet Footer Cache with a maximum size of {} bytes", maxSize.toBytes());
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Weigher<String, byte[]>) (key, tail) -> tail.length)
+                .build();
+    }
+
+    /**
+     * Returns the file to read the Parquet file at the given path from. The
+     * footer of the file is served from the cache when the file did not
+     * change since it was cached.
+     *
+     * @param configuration the configuration of the server
+     * @param path          the path of the Parquet file
+     * @return the file to open the Parquet file with
+     * @throws IOException if the status of the file can not be retrieved
+     */
+    public InputFile getInputFile(Configuration configuration, Path path) throws IOException {
+        FileStatus status = path.getFileSystem(configuration).getFileStatus(path);
+        HadoopInputFile file = HadoopInputFile.fromStatus(status, configuration);
+        if (cache == null) {
+            return file;
+        }
+        String key = String.format("%s:%s@%d:%d",
+                StringUtils.defaultIfBlank(configuration.get(ConfigurationFactory.PXF_SERVER_NAME_PROPERTY), "default"),
+                status.getPath(), status.getModificationTime(), status.getLen());
+        return new CachedFooterInputFile(file, key);
+    }
+
+    /**
+     * Reads the tail of the file, or returns null if the file does not end
+     * with a Parquet footer, in which case the reader reports the error.
+     */
+    private static byte[] readTail(SeekableInputStream stream, long length) throws IOException {
+        int endLength = FOOTER_LENGTH_SIZE + MAGIC.length;
+        if (length < MAGIC.length + endLength) {
+            return null;
+        }
+        byte[] end = new byte[endLength];
+        stream.seek(length - endLength);
+        stream.readFully(end);
+        if (!Arrays.equals(MAGIC, Arrays.copyOfRange(end, FOOTER_LENGTH_SIZE, endLength))) {
+            return null;
+        }
+        long tailLength = ByteBuffer.wrap(end).order(ByteOrder.LITTLE_ENDIAN).getInt(0) + (long) endLength;
+        if (tailLength < endLength || tailLength > length - MAGIC.length) {
+            return null;
+        }
+        byte[] tail = new byte[(int) tailLength];
+        stream.seek(length - tailLength);
+        stream.readFully(tail);
+        stream.seek(0);
+        return tail;
+    }
+
+    /**
+     * A Parquet file whose tail is read once and cached.
+     */
+    private class CachedFooterInputFile implements InputFile {
+
+        private final InputFile file;
+        private final String key;
+
+        CachedFooterInputFile(InputFile file, String key) {
+            this.file = file;
+            this.key = key;
+        }
+
+        @Override
+        public long getLength() throws IOException {
+            return file.getLength();
+        }
+
+        @Override
+        public SeekableInputStream newStream() throws IOException {
+            // the file is always opened so that the permissions of the user are checked
+            SeekableInputStream stream = file.newStream();
+            byte[] tail = cache.getIfPresent(key);
+            if (tail == null) {
+                tail = readTail(stream, getLength());
+                if (tail == null) {
+                    return stream;
+                }
+                cache.put(key, tail);
+                LOG.debug("Cached footer of {} bytes for key={}", tail.length, key);
+            }
+            return new TailCachingInputStream(stream, getLength() - tail.length, tail);
+        }
+
+        @Override
+        public String toString() {
+            return file.toString();
+        }
+    }
+
+    /**
+     * Serves the reads that start in the tail of the file from the cached
+     * tail, and all other reads from the stream of the file.
+     */
+    private static class TailCachingInputStream extends SeekableInputStream {
+
+        private final SeekableInputStream stream;
+        private final long tailStart;
+        private final byte[] tail;
+        private long pos;
+
+        TailCachingInputStream(SeekableInputStream stream, long tailStart, byte[] tail) {
+            this.stream = stream;
+            this.tailStart = tailStart;
+            this.tail = tail;
+        }
+
+        @Override
+        public long getPos() {
+            return pos;
+        }
+
+        @Override
+        public void seek(long newPos) {
+            pos = newPos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos >= tailStart) {
+                int index = (int) (pos - tailStart);
+                if (index >= tail.length) {
+                    return -1;
+                }
+                pos++;
+                return tail[index] & 0xFF;
+            }
+            positionStream();
+            int b = stream.read();
+            if (b >= 0) {
+                pos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (pos >= tailStart) {
+                int index = (int) (pos - tailStart);
+                int n = Math.min(len, tail.length - index);
+                if (n <= 0) {
+                    return -1;
+                }
+                System.arraycopy(tail, index, bytes, off, n);
+                pos += n;
+                return n;
+            }
+            positionStream();
+            int n = stream.read(bytes, off, len);
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void readFully(byte[] bytes) throws IOException {
+            readFully(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void readFully(byte[] bytes, int start, int len) throws IOException {
+            if (pos >= tailStart) {
+                int index = checkTailRemaining(len);
+                System.arraycopy(tail, index, bytes, start, len);
+            } else {
+                positionStream();
+                stream.readFully(bytes, start, len);
+            }
+            pos += len;
+        }
+
+        @Override
+        public int read(ByteBuffer buf) throws IOException {
+            if (!buf.hasRemaining()) {
+                return 0;
+            }
+            if (pos >= tailStart) {
+                int index = (int) (pos - tailStart);
+                int n = Math.min(buf.remaining(), tail.length - index);
+                if (n <= 0) {
+                    return -1;
+                }
+                buf.put(tail, index, n);
+                pos += n;
+                return n;
+            }
+            positionStream();
+            int n = stream.read(buf);
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void readFully(ByteBuffer buf) throws IOException {
+            int len = buf.remaining();
+            if (pos >= tailStart) {
+                int index = checkTailRemaining(len);
+                buf.put(tail, index, len);
+            } else {
+                positionStream();
+                stream.readFully(buf);
+            }
+            pos += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+
+        private int checkTailRemaining(int len) throws EOFException {
+            int index = (int) (pos - tailStart);
+            if (len > tail.length - index) {
+                throw new EOFException("Reached the end of the file with " + (tail.length - index) + " bytes left to read");
+            }
+            return index;
+        }
+
+        private void positionStream() throws IOException {
+            if (stream.getPos() != pos) {
+                stream.seek(pos);
+            }
+        }
+    }
+}
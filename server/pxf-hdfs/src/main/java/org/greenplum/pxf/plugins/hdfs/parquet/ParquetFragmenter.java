@@ -0,0 +1,155 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.parquet.HadoopReadOptions;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.compat.RowGroupFilter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.schema.MessageType;
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.SpringContext;
+import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
+import org.greenplum.pxf.plugins.hdfs.HdfsDataFragmenter;
+import org.greenplum.pxf.plugins.hdfs.ParquetFileAccessor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragmenter for Parquet files. Every row group of the files is a fragment
+ * of its own, and the row groups that can not match the filter pushed down
+ * by Greenplum, according to the min/max and null count statistics of their
+ * columns, are pruned when the fragments are created, so that they are never
+ * dispatched to the segments.
+ * <p>
+ * The fragments cover the bytes of their row group, the accessor reads the
+ * row groups whose midpoint is in the range of the fragment, that is exactly
+ * one row group.
+ */
+public class ParquetFragmenter extends HdfsDataFragmenter {
+
+    private ParquetFooterCache footerCache;
+    private int totalRowGroups;
+    private int prunedRowGroups;
+
+    /**
+     * Constructs a new instance of the ParquetFragmenter
+     */
+    public ParquetFragmenter() {
+    }
+
+    /**
+     * Constructs a new instance of the ParquetFragmenter
+     *
+     * @param footerCache the cache of the footers of the parquet files
+     */
+    ParquetFragmenter(ParquetFooterCache footerCache) {
+        this.footerCache = footerCache;
+    }
+
+    /**
+     * Creates a fragment for every row group of the files of the splits that
+     * may match the filter.
+     *
+     * @param splits the non-empty splits of the files of the data source
+     * @return the fragments
+     * @throws IOException when the footer of a file cannot be read
+     */
+    @Override
+    protected List<Fragment> createFragments(List<InputSplit> splits) throws IOException {
+        if (context.getOption(COMBINE_OPTION, false)) {
+            LOG.warn("Ignoring option {} as Parquet files are fragmented by row group", COMBINE_OPTION);
+        }
+
+        Map<Path, List<FileSplit>> splitsByFile = new LinkedHashMap<>();
+        for (InputSplit split : splits) {
+            FileSplit fileSplit = (FileSplit) split;
+            splitsByFile.computeIfAbsent(fileSplit.getPath(), k -> new ArrayList<>()).add(fileSplit);
+        }
+
+        for (Map.Entry<Path, List<FileSplit>> entry : splitsByFile.entrySet()) {
+            Path file = entry.getKey();
+            List<BlockMetaData> rowGroups;
+            MessageType schema;
+            try (ParquetFileReader reader = ParquetFileReader.open(
+                    getFooterCache().getInputFile(configuration, file),
+                    HadoopReadOptions.builder(configuration).build())) {
+                rowGroups = reader.getRowGroups();
+                schema = reader.getFileMetaData().getSchema();
+            }
+
+            List<BlockMetaData> matchingRowGroups = filterRowGroups(file, rowGroups, schema);
+            totalRowGroups += rowGroups.size();
+            prunedRowGroups += rowGroups.size() - matchingRowGroups.size();
+            for (BlockMetaData rowGroup : matchingRowGroups) {
+                long start = rowGroup.getStartingPos();
+                long length = rowGroup.getCompressedSize();
+                String[] hosts = getHosts(entry.getValue(), start + length / 2);
+                fragments.add(new Fragment(file.toString(), new HcfsFragmentMetadata(start, length, hosts)));
+            }
+        }
+
+        LOG.debug("Total number of fragments = {}, pruned {} of {} row groups using statistics",
+                fragments.size(), prunedRowGroups, totalRowGroups);
+        return fragments;
+    }
+
+    /**
+     * Returns the row groups of the file that may match the filter, according
+     * to the statistics of their columns.
+     */
+    private List<BlockMetaData> filterRowGroups(Path file, List<BlockMetaData> rowGroups, MessageType schema) {
+        String filterString = context.getFilterString();
+        if (StringUtils.isBlank(filterString) || rowGroups.isEmpty()) {
+            return rowGroups;
+        }
+        try {
+            FilterCompat.Filter recordFilter = ParquetFileAccessor.buildRecordFilter(filterString,
+                    context.getTupleDescription(), ParquetFileAccessor.getOriginalFieldsMap(schema));
+            return RowGroupFilter.filterRowGroups(recordFilter, rowGroups, schema);
+        } catch (Exception e) {
+            // the filter is applied again when the row groups are read, all row groups are dispatched
+            LOG.warn("Unable to prune row groups of file {} for filter {}", file, filterString, e);
+            return rowGroups;
+        }
+    }
+
+    /**
+     * Returns the hosts of the split the given offset of the file is in.
+     */
+    private String[] getHosts(List<FileSplit> fileSplits, long offset) {
+        for (FileSplit split : fileSplits) {
+            if (offset >= split.getStart() && offset < split.getStart() + split.getLength()) {
+                try {
+                    String[] locations = split.getLocations();
+                    if (locations != null) {
+                        return locations;
+                    }
+                } catch (IOException e) {
+                    // the locations are only a hint for assigning the fragment to a segment, the data can be read from anywhere
+                    LOG.debug("Unable to get locations of split {}", split, e);
+                }
+                break;
+            }
+        }
+        return new String[0];
+    }
+
+    /**
+     * @return the cache of the footers shared by the queries, looked up when
+     * first needed as fragmenters are not Spring managed
+     */
+    private ParquetFooterCache getFooterCache() {
+        if (footerCache == null) {
+            footerCache = SpringContext.getBean(ParquetFooterCache.class);
+        }
+        return footerCache;
+    }
+}
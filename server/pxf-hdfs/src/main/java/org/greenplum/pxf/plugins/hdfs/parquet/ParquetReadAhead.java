@@ -0,0 +1,387 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.MessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the projected column chunks of the row groups of a Parquet file ahead
+ * of the time they are decoded, so that the reads of the next row groups are
+ * in flight while the current one is being decoded. This hides the latency of
+ * object stores, where every read of a column chunk is a remote request.
+ * <p>
+ * The column chunks of a row group are read in ranges of consecutive chunks,
+ * split into pieces of the maximum allocation size of the reader, which are
+ * the reads the {@link org.apache.parquet.hadoop.ParquetFileReader} issues for
+ * them. Every piece is read with a ranged read of its own on the threads of
+ * the {@link ParquetReadAheadScheduler}, within its memory budgets. The file
+ * given to the reader serves the reads of the pieces from memory, and falls
+ * back to reading the file when a piece was not read ahead.
+ * <p>
+ * Instances are used by the thread of the reader only.
+ */
+class ParquetReadAhead implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParquetReadAhead.class);
+
+    private final ParquetReadAheadScheduler scheduler;
+    private final InputFile file;
+    private final String queryId;
+    private final int rowGroupsAhead;
+    private final UserGroupInformation ugi;
+    private final List<Piece> pieces = new ArrayList<>();
+
+    private List<BlockMetaData> rowGroups = Collections.emptyList();
+    private Set<ColumnPath> columns = Collections.emptySet();
+    private int maxPieceSize;
+    private int nextRowGroup;
+    private long piecesRead, piecesMissed;
+
+    /**
+     * Creates the read ahead of the row groups of the file.
+     *
+     * @param scheduler      the scheduler running the reads
+     * @param file           the parquet file
+     * @param queryId        the identifier of the query, the reads count against its budget
+     * @param rowGroupsAhead the number of row groups to read ahead of the row group being decoded
+     * @throws IOException if the current user can not be determined
+     */
+    ParquetReadAhead(ParquetReadAheadScheduler scheduler, InputFile file, String queryId, int rowGroupsAhead)
+            throws IOException {
+        this.scheduler = scheduler;
+        this.file = file;
+        this.queryId = queryId;
+        this.rowGroupsAhead = rowGroupsAhead;
+        // the reads run on behalf of the user of the request
+        this.ugi = UserGroupInformation.getCurrentUser();
+    }
+
+    /**
+     * Returns the file to open the reader with, its streams serve the reads
+     * of the data read ahead from memory.
+     *
+     * @return the file
+     */
+    InputFile getInputFile() {
+        return new InputFile() {
+            @Override
+            public long getLength() throws IOException {
+                return file.getLength();
+            }
+
+            @Override
+            public SeekableInputStream newStream() throws IOException {
+                return new ReadAheadInputStream(file.newStream());
+            }
+
+            @Override
+            public String toString() {
+                return file.toString();
+            }
+        };
+    }
+
+    /**
+     * Sets the row groups the reader is going to read, and the columns that
+     * are read from them.
+     *
+     * @param rowGroups    the row groups, in the order they are read
+     * @param readSchema   the schema of the projected columns
+     * @param maxPieceSize the maximum allocation size of the reader
+     */
+    void setRowGroups(List<BlockMetaData> rowGroups, MessageType readSchema, int maxPieceSize) {
+        this.rowGroups = rowGroups;
+        this.columns = readSchema.getColumns().stream()
+                .map(column -> ColumnPath.get(column.getPath()))
+                .collect(Collectors.toSet());
+        this.maxPieceSize = maxPieceSize;
+    }
+
+    /**
+     * Called before the reader reads a row group: releases the data of the
+     * row groups that have been read already, and schedules the reads of the
+     * row group and of the row groups following it.
+     *
+     * @param rowGroupsRead the number of row groups read so far
+     */
+    void advance(int rowGroupsRead) {
+        Iterator<Piece> iterator = pieces.iterator();
+        while (iterator.hasNext()) {
+            Piece piece = iterator.next();
+            if (piece.rowGroup < rowGroupsRead) {
+                piece.release();
+                iterator.remove();
+            }
+        }
+        while (nextRowGroup <= rowGroupsRead + rowGroupsAhead && nextRowGroup < rowGroups.size()) {
+            schedule(nextRowGroup++);
+        }
+    }
+
+    @Override
+    public void close() {
+        pieces.forEach(Piece::release);
+        pieces.clear();
+        LOG.debug("Served {} reads of file {} from data read ahead, {} reads were not read ahead in time",
+                piecesRead, file, piecesMissed);
+    }
+
+    /**
+     * Schedules the reads of the ranges of consecutive projected column
+     * chunks of the row group.
+     */
+    private void schedule(int rowGroup) {
+        long start = -1, end = -1;
+        for (ColumnChunkMetaData chunk : rowGroups.get(rowGroup).getColumns()) {
+            if (!columns.contains(chunk.getPath())) {
+                continue;
+            }
+            long chunkStart = chunk.getStartingPos();
+            if (chunkStart != end) {
+                if (!schedule(rowGroup, start, end)) {
+                    return;
+                }
+                start = chunkStart;
+            }
+            end = chunkStart + chunk.getTotalSize();
+        }
+        schedule(rowGroup, start, end);
+    }
+
+    /**
+     * Schedules the reads of the pieces of the range, as long as they fit into
+     * the memory budgets.
+     *
+     * @return false if a piece did not fit into the budgets
+     */
+    private boolean schedule(int rowGroup, long start, long end) {
+        for (long pos = start; pos < end; ) {
+            int length = (int) Math.min(maxPieceSize, end - pos);
+            if (!scheduler.reserve(queryId, length)) {
+                LOG.debug("Not reading ahead {} bytes of file {}, the read ahead budget is exhausted", length, file);
+                return false;
+            }
+            Piece piece = new Piece(rowGroup, pos, length);
+            pieces.add(piece);
+            if (!scheduler.submit(piece::read)) {
+                LOG.debug("Not reading ahead {} bytes of file {}, the read ahead scheduler is shut down", length, file);
+                piece.release();
+                return false;
+            }
+            pos += length;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the piece holding the given bytes of the file, once it has been
+     * read, or null if the bytes were not read ahead.
+     */
+    private Piece take(long pos, int length) throws IOException {
+        for (Piece piece : pieces) {
+            if (piece.released || pos < piece.start || pos + length > piece.start + piece.length) {
+                continue;
+            }
+            if (piece.claimed.compareAndSet(false, true)) {
+                // the read did not start yet, the reader reads the bytes itself
+                piecesMissed++;
+                piece.release();
+                return null;
+            }
+            try {
+                piece.bytes = piece.data.get();
+                piecesRead++;
+                return piece;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data read ahead");
+            } catch (ExecutionException e) {
+                LOG.debug("Unable to read ahead {} bytes at {} of file {}", piece.length, piece.start, file, e.getCause());
+                piecesMissed++;
+                piece.release();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A range of bytes of the file that is read ahead.
+     */
+    private class Piece {
+
+        private final int rowGroup;
+        private final long start;
+        private final int length;
+        // set by the thread that gets to the piece first, the scheduler or the reader
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<byte[]> data = new CompletableFuture<>();
+        private byte[] bytes;
+        private boolean released;
+
+        Piece(int rowGroup, long start, int length) {
+            this.rowGroup = rowGroup;
+            this.start = start;
+            this.length = length;
+        }
+
+        /**
+         * Reads the piece, runs on a thread of the scheduler.
+         */
+        void read() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                data.complete(ugi.doAs((PrivilegedExceptionAction<byte[]>) () -> {
+                    byte[] buffer = new byte[length];
+                    try (SeekableInputStream stream = file.newStream()) {
+                        stream.seek(start);
+                        stream.readFully(buffer);
+                    }
+                    return buffer;
+                }));
+            } catch (Throwable t) {
+                data.completeExceptionally(t);
+            }
+        }
+
+        void release() {
+            if (!released) {
+                released = true;
+                // a piece that is released before it is read is not read at all
+                claimed.set(true);
+                bytes = null;
+                scheduler.release(queryId, length);
+            }
+        }
+    }
+
+    /**
+     * Serves the reads of the pieces read ahead from memory, and all other
+     * reads from the stream of the file.
+     */
+    private class ReadAheadInputStream extends SeekableInputStream {
+
+        private final SeekableInputStream stream;
+        private long pos;
+
+        ReadAheadInputStream(SeekableInputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public long getPos() {
+            return pos;
+        }
+
+        @Override
+        public void seek(long newPos) {
+            pos = newPos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            positionStream();
+            int b = stream.read();
+            if (b >= 0) {
+                pos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            positionStream();
+            int n = stream.read(bytes, off, len);
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+
+        @Override
+        public int read(ByteBuffer buf) throws IOException {
+            positionStream();
+            int n = stream.read(buf);
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void readFully(byte[] bytes) throws IOException {
+            readFully(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void readFully(byte[] bytes, int start, int len) throws IOException {
+            Piece piece = take(pos, len);
+            if (piece != null) {
+                System.arraycopy(piece.bytes, (int) (pos - piece.start), bytes, start, len);
+                consumed(piece, len);
+            } else {
+                positionStream();
+                stream.readFully(bytes, start, len);
+            }
+            pos += len;
+        }
+
+        @Override
+        public void readFully(ByteBuffer buf) throws IOException {
+            int len = buf.remaining();
+            Piece piece = take(pos, len);
+            if (piece != null) {
+                buf.put(piece.bytes, (int) (pos - piece.start), len);
+                consumed(piece, len);
+            } else {
+                positionStream();
+                stream.readFully(buf);
+            }
+            pos += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+
+        /**
+         * Releases the piece once its last bytes have been read, the reader
+         * holds a copy of the data by then.
+         */
+        private void consumed(Piece piece, int len) {
+            if (pos + len == piece.start + piece.length) {
+                piece.release();
+            }
+        }
+
+        private void positionStream() throws IOException {
+            if (stream.getPos() != pos) {
+                stream.seek(pos);
+            }
+        }
+    }
+}
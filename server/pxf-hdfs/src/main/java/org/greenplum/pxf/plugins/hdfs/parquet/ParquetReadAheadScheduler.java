@@ -0,0 +1,138 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.parquet.io.InputFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the reads of the column chunks of Parquet row groups ahead of the
+ * time they are decoded, see {@link ParquetReadAhead}. The scheduler is shared
+ * by the requests of all queries, it runs the reads on a bounded number of
+ * threads and bounds the memory held by the data read ahead, both for the
+ * whole server and for every query. Chunks that do not fit into the budgets
+ * are not read ahead, they are read by the reader when it needs them, as are
+ * the chunks whose reads are still waiting for a thread.
+ */
+@Component
+public class ParquetReadAheadScheduler implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParquetReadAheadScheduler.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long maxSize;
+    private final long maxQuerySize;
+    private final Map<String, Long> reservedByQuery = new HashMap<>();
+    private long reserved;
+
+    /**
+     * Constructs the ParquetReadAheadScheduler class
+     *
+     * @param maxSize      the maximum size of the data read ahead by all queries
+     * @param maxQuerySize the maximum size of the data read ahead by the requests of a query
+     * @param threads      the maximum number of threads running the reads of all queries
+     */
+    @Autowired
+    public ParquetReadAheadScheduler(@Value("${pxf.parquet-read-ahead.max-size:256MB}") DataSize maxSize,
+                                     @Value("${pxf.parquet-read-ahead.max-query-size:64MB}") DataSize maxQuerySize,
+                                     @Value("${pxf.parquet-read-ahead.threads:64}") int threads) {
+        this.maxSize = maxSize.toBytes();
+        this.maxQuerySize = maxQuerySize.toBytes();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("pxf-parquet-read-ahead-%d").setDaemon(true).build());
+        this.executor.allowCoreThreadTimeOut(true);
+        LOG.info("Creating Parquet Read Ahead Scheduler with a maximum size of {} bytes and {} bytes per query, and {} threads",
+                this.maxSize, this.maxQuerySize, threads);
+    }
+
+    /**
+     * Creates the read ahead of the row groups of a file for a request.
+     *
+     * @param file      the parquet file
+     * @param queryId   the identifier of the query the request is part of
+     * @param rowGroups the number of row groups to read ahead of the row group being decoded
+     * @return the read ahead
+     * @throws IOException if the user of the request can not be determined
+     */
+    ParquetReadAhead newReadAhead(InputFile file, String queryId, int rowGroups) throws IOException {
+        return new ParquetReadAhead(this, file, queryId, rowGroups);
+    }
+
+    /**
+     * Reserves memory for data read ahead by the given query.
+     *
+     * @param queryId the identifier of the query
+     * @param size    the size of the data
+     * @return true if the memory was reserved, false if the data would exceed a budget
+     */
+    synchronized boolean reserve(String queryId, long size) {
+        long reservedByThisQuery = reservedByQuery.getOrDefault(queryId, 0L);
+        if (reserved + size > maxSize || reservedByThisQuery + size > maxQuerySize) {
+            return false;
+        }
+        reserved += size;
+        reservedByQuery.put(queryId, reservedByThisQuery + size);
+        return true;
+    }
+
+    /**
+     * Releases memory reserved with {@link #reserve(String, long)}.
+     *
+     * @param queryId the identifier of the query
+     * @param size    the size of the data
+     */
+    synchronized void release(String queryId, long size) {
+        reserved -= size;
+        long reservedByThisQuery = reservedByQuery.getOrDefault(queryId, 0L) - size;
+        if (reservedByThisQuery > 0) {
+            reservedByQuery.put(queryId, reservedByThisQuery);
+        } else {
+            reservedByQuery.remove(queryId);
+        }
+    }
+
+    /**
+     * @return the size of the data currently reserved by all queries
+     */
+    synchronized long getReserved() {
+        return reserved;
+    }
+
+    /**
+     * Runs a read on one of the threads of the scheduler. Reads wait for a
+     * thread when all of them are busy.
+     *
+     * @param read the read
+     * @return false if the scheduler has been shut down and does not run the read
+     */
+    boolean submit(Runnable read) {
+        try {
+            executor.execute(read);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the threads reading ahead when the service shuts down, the readers
+     * read the data that was not read ahead themselves.
+     */
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,320 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.apache.parquet.schema.LogicalTypeAnnotation.DecimalLogicalTypeAnnotation;
+import static org.apache.parquet.schema.Type.Repetition.REPEATED;
+
+/**
+ * Converts the values of a Parquet column into a {@link ColumnVector}. The
+ * values are pushed into the converter by a
+ * {@link org.apache.parquet.column.ColumnReader}, and are written to the
+ * current row of the vector without being boxed. The Greenplum type of the
+ * vector is the type {@link ParquetTypeConverter} maps the column to, the
+ * values that Greenplum expects in text form (dates, decimals and INT96
+ * timestamps) are converted to the same text the row by row resolver produces.
+ * <p>
+ * Dictionary-encoded values are decoded once per dictionary, the rows then
+ * reference the decoded dictionary entries.
+ */
+abstract class ParquetVectorConverter extends PrimitiveConverter {
+
+    protected final DataType dataType;
+    protected final PrimitiveTypeName typeName;
+    protected ColumnVector vector;
+    protected int row;
+
+    private ParquetVectorConverter(DataType dataType, PrimitiveTypeName typeName) {
+        this.dataType = dataType;
+        this.typeName = typeName;
+    }
+
+    /**
+     * Returns whether the values of the given column can be converted into a
+     * vector, only top level primitive columns that are not repeated can be.
+     *
+     * @param type the type of the column
+     * @return true if the column can be read into a vector
+     */
+    static boolean isSupported(Type type) {
+        if (!type.isPrimitive() || type.getRepetition() == REPEATED) {
+            return false;
+        }
+        // fixed length byte arrays are only read as decimals
+        return type.asPrimitiveType().getPrimitiveTypeName() != PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY
+                || type.getLogicalTypeAnnotation() instanceof DecimalLogicalTypeAnnotation;
+    }
+
+    /**
+     * Creates the converter for the given column.
+     *
+     * @param type the type of the column, must be supported
+     * @return the converter for the column
+     */
+    static ParquetVectorConverter create(PrimitiveType type) {
+        DataType dataType = ParquetTypeConverter.from(type).getDataType(type);
+        PrimitiveTypeName typeName = type.getPrimitiveTypeName();
+        if (typeName == PrimitiveTypeName.BINARY) {
+            // strings, including dates and timestamps stored as strings, and byte arrays
+            return new BytesConverter(dataType, typeName);
+        }
+        switch (ColumnVector.getStorage(dataType)) {
+            case LONG:
+                return new LongConverter(dataType, typeName);
+            case DOUBLE:
+                return new DoubleConverter(dataType, typeName);
+            default:
+                return new TextFormConverter(dataType, typeName, type.getLogicalTypeAnnotation());
+        }
+    }
+
+    /**
+     * @return the Greenplum type of the values written to the vector
+     */
+    DataType getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Sets the vector the values are written to.
+     *
+     * @param vector the vector of the current batch
+     */
+    void setVector(ColumnVector vector) {
+        this.vector = vector;
+    }
+
+    /**
+     * Sets the row the next value is written to.
+     *
+     * @param row the row index in the vector
+     */
+    void setRow(int row) {
+        this.row = row;
+    }
+
+    @Override
+    public boolean hasDictionarySupport() {
+        return true;
+    }
+
+    /**
+     * BOOLEAN, SMALLINT, INTEGER and BIGINT values
+     */
+    private static class LongConverter extends ParquetVectorConverter {
+
+        private long[] dictionaryValues;
+
+        LongConverter(DataType dataType, PrimitiveTypeName typeName) {
+            super(dataType, typeName);
+        }
+
+        @Override
+        public boolean hasDictionarySupport() {
+            return typeName != PrimitiveTypeName.BOOLEAN;
+        }
+
+        @Override
+        public void setDictionary(Dictionary dictionary) {
+            dictionaryValues = new long[dictionary.getMaxId() + 1];
+            for (int id = 0; id < dictionaryValues.length; id++) {
+                dictionaryValues[id] = typeName == PrimitiveTypeName.INT32
+                        ? dictionary.decodeToInt(id)
+                        : dictionary.decodeToLong(id);
+            }
+        }
+
+        @Override
+        public void addValueFromDictionary(int dictionaryId) {
+            vector.setLong(row, dictionaryValues[dictionaryId]);
+        }
+
+        @Override
+        public void addBoolean(boolean value) {
+            vector.setLong(row, value ? 1 : 0);
+        }
+
+        @Override
+        public void addInt(int value) {
+            vector.setLong(row, value);
+        }
+
+        @Override
+        public void addLong(long value) {
+            vector.setLong(row, value);
+        }
+    }
+
+    /**
+     * REAL and FLOAT8 values
+     */
+    private static class DoubleConverter extends ParquetVectorConverter {
+
+        private double[] dictionaryValues;
+
+        DoubleConverter(DataType dataType, PrimitiveTypeName typeName) {
+            super(dataType, typeName);
+        }
+
+        @Override
+        public void setDictionary(Dictionary dictionary) {
+            dictionaryValues = new double[dictionary.getMaxId() + 1];
+            for (int id = 0; id < dictionaryValues.length; id++) {
+                dictionaryValues[id] = typeName == PrimitiveTypeName.FLOAT
+                        ? dictionary.decodeToFloat(id)
+                        : dictionary.decodeToDouble(id);
+            }
+        }
+
+        @Override
+        public void addValueFromDictionary(int dictionaryId) {
+            vector.setDouble(row, dictionaryValues[dictionaryId]);
+        }
+
+        @Override
+        public void addFloat(float value) {
+            vector.setDouble(row, value);
+        }
+
+        @Override
+        public void addDouble(double value) {
+            vector.setDouble(row, value);
+        }
+    }
+
+    /**
+     * BINARY values, referenced in the page buffers whenever possible
+     */
+    private static class BytesConverter extends ParquetVectorConverter {
+
+        private byte[][] dictionaryValues;
+
+        BytesConverter(DataType dataType, PrimitiveTypeName typeName) {
+            super(dataType, typeName);
+        }
+
+        @Override
+        public void setDictionary(Dictionary dictionary) {
+            dictionaryValues = new byte[dictionary.getMaxId() + 1][];
+            for (int id = 0; id < dictionaryValues.length; id++) {
+                dictionaryValues[id] = dictionary.decodeToBinary(id).getBytes();
+            }
+        }
+
+        @Override
+        public void addValueFromDictionary(int dictionaryId) {
+            byte[] value = dictionaryValues[dictionaryId];
+            vector.setBytes(row, value, 0, value.length);
+        }
+
+        @Override
+        public void addBinary(Binary value) {
+            if (!value.isBackingBytesReused()) {
+                ByteBuffer buffer = value.toByteBuffer();
+                if (buffer.hasArray()) {
+                    vector.setBytes(row, buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    return;
+                }
+            }
+            byte[] bytes = value.getBytes();
+            vector.setBytes(row, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * DATE, NUMERIC and TIMESTAMP values, converted to their text form
+     */
+    private static class TextFormConverter extends ParquetVectorConverter {
+
+        private final LogicalTypeAnnotation logicalType;
+        private byte[][] dictionaryValues;
+
+        TextFormConverter(DataType dataType, PrimitiveTypeName typeName, LogicalTypeAnnotation logicalType) {
+            super(dataType, typeName);
+            this.logicalType = logicalType;
+        }
+
+        @Override
+        public void setDictionary(Dictionary dictionary) {
+            dictionaryValues = new byte[dictionary.getMaxId() + 1][];
+            for (int id = 0; id < dictionaryValues.length; id++) {
+                switch (typeName) {
+                    case INT32:
+                        dictionaryValues[id] = toText(dictionary.decodeToInt(id));
+                        break;
+                    case INT64:
+                        dictionaryValues[id] = toText(dictionary.decodeToLong(id));
+                        break;
+                    default:
+                        dictionaryValues[id] = toText(dictionary.decodeToBinary(id));
+                }
+            }
+        }
+
+        @Override
+        public void addValueFromDictionary(int dictionaryId) {
+            byte[] value = dictionaryValues[dictionaryId];
+            vector.setBytes(row, value, 0, value.length);
+        }
+
+        @Override
+        public void addInt(int value) {
+            byte[] text = toText(value);
+            vector.setBytes(row, text, 0, text.length);
+        }
+
+        @Override
+        public void addLong(long value) {
+            byte[] text = toText(value);
+            vector.setBytes(row, text, 0, text.length);
+        }
+
+        @Override
+        public void addBinary(Binary value) {
+            byte[] text = toText(value);
+            vector.setBytes(row, text, 0, text.length);
+        }
+
+        /**
+         * Converts an INT32 date or an INT32 or INT64 decimal
+         */
+        @SuppressWarnings("deprecation")
+        private byte[] toText(long value) {
+            String text;
+            if (logicalType instanceof DecimalLogicalTypeAnnotation) {
+                int scale = ((DecimalLogicalTypeAnnotation) logicalType).getScale();
+                text = new BigDecimal(BigInteger.valueOf(value), scale).toString();
+            } else {
+                text = new org.apache.hadoop.hive.serde2.io.DateWritable((int) value).get(true).toString();
+            }
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Converts an INT96 timestamp or a FIXED_LEN_BYTE_ARRAY decimal
+         */
+        private byte[] toText(Binary value) {
+            String text;
+            if (typeName == PrimitiveTypeName.INT96) {
+                text = ParquetTypeConverter.bytesToTimestamp(value.getBytes());
+            } else {
+                int scale = ((DecimalLogicalTypeAnnotation) logicalType).getScale();
+                text = new BigDecimal(new BigInteger(value.getBytes()), scale).toString();
+            }
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
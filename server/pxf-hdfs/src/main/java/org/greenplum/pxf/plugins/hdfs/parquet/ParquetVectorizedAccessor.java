@@ -0,0 +1,248 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.parquet.HadoopReadOptions;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.schema.MessageType;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.ReadTimings;
+import org.greenplum.pxf.api.model.WriteVectorizedResolver;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.SpringContext;
+import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
+import org.greenplum.pxf.plugins.hdfs.HcfsType;
+import org.greenplum.pxf.plugins.hdfs.ParquetFileAccessor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Parquet accessor that reads the rows of a split in batches. Unit of
+ * operation is a {@link ColumnBatch} with a vector for every column of the
+ * Greenplum table, the columns that are not projected are all nulls.
+ * <p>
+ * Splits of files with columns that can not be read into vectors, like
+ * repeated or complex columns, are read one record at a time by the
+ * {@link ParquetFileAccessor}, and so are the splits read for sampling.
+ * <p>
+ * The column chunks of the row groups are read ahead of the row group being
+ * decoded, see {@link ParquetReadAhead}, by default one row group ahead on
+ * object stores and not at all on HDFS and local file systems. The number of
+ * row groups read ahead is set with the READ_AHEAD_ROWGROUPS option.
+ * <p>
+ * On write, the {@link ParquetWriteBatch}es of the {@link ParquetVectorizedResolver}
+ * are written with the {@link ParquetBatchWriteSupport}, and the groups of
+ * other resolvers with the write support of the {@link ParquetFileAccessor}.
+ */
+public class ParquetVectorizedAccessor extends ParquetFileAccessor implements ReadTimings {
+
+    static final int BATCH_SIZE = 1024;
+    static final String READ_AHEAD_ROWGROUPS_OPTION = "READ_AHEAD_ROWGROUPS";
+
+    private final ParquetReadAheadScheduler readAheadScheduler;
+    private boolean sampling;
+    private ParquetBatchReader batchReader;
+    private ColumnBatch columnBatch;
+    private ColumnVector[] readVectors;
+    private long rowsRead, batchesRead, totalReadTimeInNanos;
+
+    /**
+     * Constructs a new instance of the ParquetVectorizedAccessor
+     */
+    public ParquetVectorizedAccessor() {
+        this(SpringContext.getBean(ParquetFooterCache.class), SpringContext.getBean(ParquetReadAheadScheduler.class),
+                SpringContext.getBean(HcfsFileWriterExecutor.class));
+    }
+
+    /**
+     * Constructs a new instance of the ParquetVectorizedAccessor
+     *
+     * @param footerCache        the cache of the footers of the parquet files
+     * @param readAheadScheduler the scheduler of the reads of the column chunks read ahead
+     * @param writerExecutor     runs the writers of the files written in parallel
+     */
+    public ParquetVectorizedAccessor(ParquetFooterCache footerCache, ParquetReadAheadScheduler readAheadScheduler,
+                                     HcfsFileWriterExecutor writerExecutor) {
+        super(footerCache, writerExecutor);
+        this.readAheadScheduler = readAheadScheduler;
+    }
+
+    @Override
+    public void setSampleRatio(float sampleRatio) {
+        super.setSampleRatio(sampleRatio);
+        // records are sampled one by one by the bridge
+        sampling = true;
+    }
+
+    @Override
+    protected void openReader(InputFile inputFile, FileSplit fileSplit, MessageType readSchema, FilterCompat.Filter recordFilter)
+            throws IOException {
+        if (sampling || !readSchema.getFields().stream().allMatch(ParquetVectorConverter::isSupported)) {
+            super.openReader(inputFile, fileSplit, readSchema, recordFilter);
+            return;
+        }
+
+        ParquetReadOptions readOptions = HadoopReadOptions
+                .builder(configuration)
+                .withMetadataFilter(ParquetMetadataConverter.range(
+                        fileSplit.getStart(), fileSplit.getStart() + fileSplit.getLength()))
+                .withRecordFilter(recordFilter)
+                .build();
+        int readAheadRowGroups = getReadAheadRowGroups();
+        ParquetReadAhead readAhead = readAheadRowGroups > 0
+                ? readAheadScheduler.newReadAhead(inputFile, context.getTransactionId(), readAheadRowGroups)
+                : null;
+        batchReader = new ParquetBatchReader(inputFile, readOptions, readSchema, readAhead);
+        createColumnBatch(batchReader.getDataTypes());
+    }
+
+    /**
+     * Reads the next batch of rows.
+     *
+     * @return a batch of rows or null when split is already exhausted
+     * @throws IOException if unable to read
+     */
+    @Override
+    public OneRow readNextObject() throws IOException {
+        if (batchReader == null) {
+            return super.readNextObject();
+        }
+
+        final long then = System.nanoTime();
+        // the batch is reused, the previous batch has been consumed by now
+        columnBatch.reset();
+        int size = batchReader.readBatch(readVectors, columnBatch.getCapacity());
+        totalReadTimeInNanos += System.nanoTime() - then;
+        if (size == 0) {
+            return null;
+        }
+
+        for (int i = 0; i < columnBatch.getColumnCount(); i++) {
+            ColumnVector column = columnBatch.getColumn(i);
+            if (!context.getColumn(i).isProjected()) {
+                column.setRepeating(true);
+                column.setNull(0);
+            }
+        }
+        columnBatch.setSize(size);
+        rowsRead += size;
+        batchesRead++;
+        return new OneRow(null, columnBatch);
+    }
+
+    @Override
+    public void closeForRead() throws IOException {
+        if (batchReader == null) {
+            super.closeForRead();
+            return;
+        }
+
+        LOG.debug("{}-{}: Read {} rows in {} batches", context.getTransactionId(),
+                context.getSegmentId(), rowsRead, batchesRead);
+        logReadStats(rowsRead, totalReadTimeInNanos);
+        batchReader.close();
+    }
+
+    /**
+     * Writes the rows of the next batch, or the next record for resolvers
+     * that do not resolve records in batches.
+     *
+     * @param onerow the batch or record to be written
+     * @return true if the write succeeded
+     * @throws IOException writing to the resource failed
+     */
+    @Override
+    public boolean writeNextObject(OneRow onerow) throws IOException, InterruptedException {
+        if (!(onerow.getData() instanceof ParquetWriteBatch)) {
+            return super.writeNextObject(onerow);
+        }
+
+        ParquetWriteBatch batch = (ParquetWriteBatch) onerow.getData();
+        write(batch, batch.getSize());
+        return true;
+    }
+
+    @Override
+    protected void writeToFile(ParquetWriter<Object> writer, Object data) throws IOException {
+        if (!(data instanceof ParquetWriteBatch)) {
+            super.writeToFile(writer, data);
+            return;
+        }
+
+        // one row at a time, so that the writer counts the rows of the batch
+        ParquetWriteBatch batch = (ParquetWriteBatch) data;
+        for (int row = 0; row < batch.getSize(); row++) {
+            batch.setRow(row);
+            writer.write(batch);
+        }
+    }
+
+    @Override
+    protected WriteSupport<?> createWriteSupport(MessageType schema) {
+        if (context.getResolver() != null &&
+                Utilities.implementsInterface(context.getResolver(), WriteVectorizedResolver.class)) {
+            return new ParquetBatchWriteSupport(schema);
+        }
+        return super.createWriteSupport(schema);
+    }
+
+    @Override
+    public Duration getIoWaitTime() {
+        return batchReader == null ? null : Duration.ofNanos(batchReader.getIoWaitNanos());
+    }
+
+    @Override
+    public Duration getDecodeTime() {
+        return batchReader == null ? null : Duration.ofNanos(batchReader.getDecodeNanos());
+    }
+
+    /**
+     * Returns the number of row groups to read ahead of the row group being
+     * decoded. Reads are remote requests on object stores, where row groups
+     * are read ahead by default.
+     */
+    private int getReadAheadRowGroups() {
+        HcfsType hcfsType = HcfsType.getHcfsType(context);
+        int defaultRowGroups = (hcfsType == HcfsType.HDFS || hcfsType == HcfsType.FILE) ? 0 : 1;
+        return context.getOption(READ_AHEAD_ROWGROUPS_OPTION, defaultRowGroups, true);
+    }
+
+    /**
+     * Creates the batch the rows are read into, projected columns have the types
+     * of the columns of the read schema, which are in the order of the table.
+     */
+    private void createColumnBatch(DataType[] readTypes) {
+        List<ColumnDescriptor> columnDescriptors = context.getTupleDescription();
+        DataType[] types = new DataType[columnDescriptors.size()];
+        int[] readIndexes = new int[columnDescriptors.size()];
+        int readIndex = 0;
+        for (int i = 0; i < types.length; i++) {
+            ColumnDescriptor columnDescriptor = columnDescriptors.get(i);
+            if (columnDescriptor.isProjected()) {
+                readIndexes[i] = readIndex;
+                types[i] = readTypes[readIndex++];
+            } else {
+                readIndexes[i] = -1;
+                types[i] = columnDescriptor.getDataType();
+            }
+        }
+
+        columnBatch = new ColumnBatch(types, BATCH_SIZE);
+        readVectors = new ColumnVector[readTypes.length];
+        for (int i = 0; i < types.length; i++) {
+            if (readIndexes[i] >= 0) {
+                readVectors[readIndexes[i]] = columnBatch.getColumn(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.error.PxfRuntimeException;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.ReadColumnarResolver;
+import org.greenplum.pxf.api.model.WriteVectorizedResolver;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterPool;
+import org.greenplum.pxf.plugins.hdfs.ParquetResolver;
+import org.springframework.util.CollectionUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves the batches read by the {@link ParquetVectorizedAccessor}. The
+ * column vectors of the batches already hold the values in the form
+ * Greenplum expects, so batches are serialized straight from the vectors,
+ * and are only resolved into lists of OneFields when the types of the
+ * vectors do not match the types of the Greenplum columns.
+ * <p>
+ * Records of files read one at a time by the accessor are resolved by the
+ * {@link ParquetResolver}.
+ * <p>
+ * On write, the records of a batch are resolved into a {@link ParquetWriteBatch}
+ * with the values of every column in an array of the primitive type of the
+ * column, which the {@link ParquetVectorizedAccessor} writes to the column
+ * writers of the file without building a group for every row.
+ */
+public class ParquetVectorizedResolver extends ParquetResolver implements ReadColumnarResolver, WriteVectorizedResolver {
+
+    private ParquetWriteBatch writeBatch;
+    private boolean reuseWriteBatch;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ColumnBatch getColumnBatch(OneRow batch) {
+        Object data = batch.getData();
+        return data instanceof ColumnBatch ? (ColumnBatch) data : null;
+    }
+
+    /**
+     * Returns the resolved list of lists of OneFields given a batch of rows,
+     * or given a single record for the files that are not read in batches.
+     *
+     * @param batch unresolved batch
+     * @return the resolved batch mapped to the Greenplum type
+     */
+    @Override
+    public List<List<OneField>> getFieldsForBatch(OneRow batch) {
+        if (!(batch.getData() instanceof ColumnBatch)) {
+            return Collections.singletonList(getFields(batch));
+        }
+
+        ColumnBatch columnBatch = (ColumnBatch) batch.getData();
+        List<ColumnDescriptor> columnDescriptors = context.getTupleDescription();
+        int batchSize = columnBatch.getSize();
+        List<List<OneField>> resolvedBatch = new ArrayList<>(batchSize);
+        for (int row = 0; row < batchSize; row++) {
+            List<OneField> record = new ArrayList<>(columnDescriptors.size());
+            for (int i = 0; i < columnDescriptors.size(); i++) {
+                ColumnDescriptor columnDescriptor = columnDescriptors.get(i);
+                record.add(columnDescriptor.isProjected()
+                        ? resolveValue(columnBatch.getColumn(i), row)
+                        : new OneField(columnDescriptor.columnTypeCode(), null));
+            }
+            resolvedBatch.add(record);
+        }
+        return resolvedBatch;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getBatchSize() {
+        return ParquetVectorizedAccessor.BATCH_SIZE;
+    }
+
+    /**
+     * Resolves the records into the arrays of the columns of a batch, one
+     * column at a time.
+     *
+     * @param records list of records, each record is a list of {@link OneField} objects
+     * @return the batch, or null if there are no records
+     * @throws IOException if a column has a type that is not supported
+     */
+    @Override
+    public OneRow setFieldsForBatch(List<List<OneField>> records) throws IOException {
+        if (CollectionUtils.isEmpty(records)) {
+            return null; // this will end bridge iterations
+        }
+        // make sure provided record set can fit into a single batch, we do not want to produce multiple batches here
+        if (records.size() > getBatchSize()) {
+            throw new PxfRuntimeException(String.format("Provided set of %d records is greater than the batch size of %d",
+                    records.size(), getBatchSize()));
+        }
+        MessageType schema = getSchema();
+        // reuse the batch between iterations, the accessor has written the previous batch by now,
+        // unless the batches are written by parallel writers after the next batch is resolved
+        if (writeBatch == null) {
+            reuseWriteBatch = !HcfsFileWriterPool.isParallel(context);
+        }
+        if (writeBatch == null || !reuseWriteBatch) {
+            writeBatch = new ParquetWriteBatch(schema, getBatchSize());
+        } else {
+            writeBatch.reset();
+        }
+
+        List<ColumnDescriptor> columnDescriptors = context.getTupleDescription();
+        for (int i = 0; i < writeBatch.getColumnCount(); i++) {
+            Type type = schema.getType(i);
+            // the columns of a schema file that are not columns of the table are all nulls
+            boolean isColumn = i < columnDescriptors.size();
+            boolean rightTrim = isColumn && columnDescriptors.get(i).getDataType() == DataType.BPCHAR;
+            for (int row = 0; row < records.size(); row++) {
+                Object value = isColumn ? records.get(row).get(i).val : null;
+                if (value == null) {
+                    writeBatch.setNull(i, row);
+                } else {
+                    setValue(writeBatch, i, row, type, rightTrim, value);
+                }
+            }
+        }
+        writeBatch.setSize(records.size());
+        return new OneRow(null, writeBatch);
+    }
+
+    /**
+     * Sets the value of a column in the batch, converting it in the same way
+     * the {@link ParquetResolver} converts the values of the groups it builds.
+     */
+    private void setValue(ParquetWriteBatch batch, int column, int row, Type type, boolean rightTrim, Object value)
+            throws IOException {
+        switch (batch.getType(column)) {
+            case BINARY:
+                if (value instanceof String) {
+                    /*
+                     * We need to right trim the incoming value from Greenplum. This is
+                     * consistent with the behaviour in Hive, where char fields are right
+                     * trimmed during write.
+                     */
+                    String text = rightTrim ? Utilities.rightTrimWhiteSpace((String) value) : (String) value;
+                    batch.setBinary(column, row, Binary.fromString(text));
+                } else {
+                    batch.setBinary(column, row, Binary.fromReusedByteArray((byte[]) value));
+                }
+                break;
+            case INT32:
+                if (value instanceof String) {
+                    // dates
+                    batch.setInt(column, row, ParquetTypeConverter.getDaysFromEpochFromDateString((String) value));
+                } else {
+                    batch.setInt(column, row, ((Number) value).intValue());
+                }
+                break;
+            case INT64:
+                batch.setLong(column, row, (Long) value);
+                break;
+            case DOUBLE:
+                batch.setDouble(column, row, (Double) value);
+                break;
+            case FLOAT:
+                batch.setFloat(column, row, (Float) value);
+                break;
+            case FIXED_LEN_BYTE_ARRAY:
+                Binary decimal = decimalToBinary((String) value, type);
+                if (decimal == null) {
+                    batch.setNull(column, row);
+                } else {
+                    batch.setBinary(column, row, decimal);
+                }
+                break;
+            case INT96:
+                batch.setBinary(column, row, timestampToBinary((String) value));
+                break;
+            case BOOLEAN:
+                batch.setBoolean(column, row, (Boolean) value);
+                break;
+            default:
+                throw new IOException("Not supported type " + batch.getType(column));
+        }
+    }
+
+    private OneField resolveValue(ColumnVector column, int row) {
+        int typeCode = column.getDataType().getOID();
+        if (column.isNull(row)) {
+            return new OneField(typeCode, null);
+        }
+        switch (column.getDataType()) {
+            case BIGINT:
+                return new OneField(typeCode, column.getLong(row));
+            case INTEGER:
+                return new OneField(typeCode, (int) column.getLong(row));
+            case SMALLINT:
+                return new OneField(typeCode, (short) column.getLong(row));
+            case BOOLEAN:
+                return new OneField(typeCode, column.getLong(row) != 0);
+            case FLOAT8:
+                return new OneField(typeCode, column.getDouble(row));
+            case REAL:
+                return new OneField(typeCode, (float) column.getDouble(row));
+            case BYTEA:
+                int start = column.getBytesStart(row);
+                return new OneField(typeCode,
+                        Arrays.copyOfRange(column.getBytes(row), start, start + column.getBytesLength(row)));
+            default:
+                // values in text form
+                return new OneField(typeCode, new String(column.getBytes(row),
+                        column.getBytesStart(row), column.getBytesLength(row), StandardCharsets.UTF_8));
+        }
+    }
+}
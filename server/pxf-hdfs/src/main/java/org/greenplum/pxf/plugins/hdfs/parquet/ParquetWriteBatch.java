@@ -0,0 +1,180 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import java.util.Arrays;
+
+/**
+ * A batch of rows to be written to a Parquet file. The values of every column
+ * are held in an array of the primitive type of the column in the schema of
+ * the file, so that they are written to the column writers without building
+ * a group for every row, see {@link ParquetBatchWriteSupport}.
+ * <p>
+ * The batch is positioned on the row the write support writes next.
+ */
+class ParquetWriteBatch {
+
+    private final PrimitiveTypeName[] types;
+    private final boolean[][] isNull;
+    private final boolean[][] booleanValues;
+    private final int[][] intValues;
+    private final long[][] longValues;
+    private final float[][] floatValues;
+    private final double[][] doubleValues;
+    private final Binary[][] binaryValues;
+    private final int capacity;
+    private int size;
+    private int row;
+
+    /**
+     * Creates a batch for the primitive columns of the schema.
+     *
+     * @param schema   the schema of the file
+     * @param capacity the maximum number of rows of the batch
+     */
+    ParquetWriteBatch(MessageType schema, int capacity) {
+        int columnCount = schema.getFieldCount();
+        this.capacity = capacity;
+        types = new PrimitiveTypeName[columnCount];
+        isNull = new boolean[columnCount][capacity];
+        booleanValues = new boolean[columnCount][];
+        intValues = new int[columnCount][];
+        longValues = new long[columnCount][];
+        floatValues = new float[columnCount][];
+        doubleValues = new double[columnCount][];
+        binaryValues = new Binary[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            types[i] = schema.getType(i).asPrimitiveType().getPrimitiveTypeName();
+            switch (types[i]) {
+                case BOOLEAN:
+                    booleanValues[i] = new boolean[capacity];
+                    break;
+                case INT32:
+                    intValues[i] = new int[capacity];
+                    break;
+                case INT64:
+                    longValues[i] = new long[capacity];
+                    break;
+                case FLOAT:
+                    floatValues[i] = new float[capacity];
+                    break;
+                case DOUBLE:
+                    doubleValues[i] = new double[capacity];
+                    break;
+                default:
+                    // BINARY, FIXED_LEN_BYTE_ARRAY and INT96
+                    binaryValues[i] = new Binary[capacity];
+            }
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getColumnCount() {
+        return types.length;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    PrimitiveTypeName getType(int column) {
+        return types[column];
+    }
+
+    /**
+     * @return the row the write support writes next
+     */
+    int getRow() {
+        return row;
+    }
+
+    /**
+     * Positions the batch on the row the write support writes next.
+     *
+     * @param row the row
+     */
+    void setRow(int row) {
+        this.row = row;
+    }
+
+    /**
+     * Resets the batch before it is filled with the next rows, values are
+     * overwritten, only the null flags need clearing.
+     */
+    void reset() {
+        for (int i = 0; i < types.length; i++) {
+            Arrays.fill(isNull[i], 0, size, false);
+            if (binaryValues[i] != null) {
+                // do not hold on to the values of the previous rows
+                Arrays.fill(binaryValues[i], 0, size, null);
+            }
+        }
+        size = 0;
+        row = 0;
+    }
+
+    boolean isNull(int column, int row) {
+        return isNull[column][row];
+    }
+
+    void setNull(int column, int row) {
+        isNull[column][row] = true;
+    }
+
+    boolean getBoolean(int column, int row) {
+        return booleanValues[column][row];
+    }
+
+    void setBoolean(int column, int row, boolean value) {
+        booleanValues[column][row] = value;
+    }
+
+    int getInt(int column, int row) {
+        return intValues[column][row];
+    }
+
+    void setInt(int column, int row, int value) {
+        intValues[column][row] = value;
+    }
+
+    long getLong(int column, int row) {
+        return longValues[column][row];
+    }
+
+    void setLong(int column, int row, long value) {
+        longValues[column][row] = value;
+    }
+
+    float getFloat(int column, int row) {
+        return floatValues[column][row];
+    }
+
+    void setFloat(int column, int row, float value) {
+        floatValues[column][row] = value;
+    }
+
+    double getDouble(int column, int row) {
+        return doubleValues[column][row];
+    }
+
+    void setDouble(int column, int row, double value) {
+        doubleValues[column][row] = value;
+    }
+
+    Binary getBinary(int column, int row) {
+        return binaryValues[column][row];
+    }
+
+    void setBinary(int column, int row, Binary value) {
+        binaryValues[column][row] = value;
+    }
+}
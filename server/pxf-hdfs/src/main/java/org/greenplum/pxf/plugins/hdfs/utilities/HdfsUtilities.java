@@ -25,11 +25,13 @@ import org.apache.hadoop.mapred.FileSplit;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.plugins.hdfs.CombinedFragmentMetadata;
 import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -56,6 +58,25 @@ public class HdfsUtilities {
         return new FileSplit(new Path(file), start, length, (String[]) null);
     }
 
+    /**
+     * Parses fragment metadata and returns the {@link FileSplit}s to be read
+     * for the fragment. A fragment with {@link CombinedFragmentMetadata} is
+     * made of several splits, any other fragment of the single split returned
+     * by {@link #parseFileSplit(String, HcfsFragmentMetadata)}.
+     *
+     * @param file     the file name for the split
+     * @param metadata the fragment metadata
+     * @return the list of FileSplits of the fragment
+     */
+    public static List<FileSplit> parseFileSplits(String file, HcfsFragmentMetadata metadata) {
+        if (metadata instanceof CombinedFragmentMetadata) {
+            List<FileSplit> splits = ((CombinedFragmentMetadata) metadata).getSplits();
+            LOG.debug("Parsed combined fragment of {} splits starting with path={}", splits.size(), file);
+            return splits;
+        }
+        return Collections.singletonList(parseFileSplit(file, metadata));
+    }
+
     /**
      * Validates that the destination file does not exist and creates parent directory, if missing.
      *
@@ -0,0 +1,311 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.InvalidInputException;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapreduce.security.TokenCache;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.model.ConfigurationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lists the files of the input paths of a job like {@link FileInputFormat#listStatus(JobConf)}, listing
+ * several directories at the same time. On object stores every directory listing is a round trip to the
+ * store, listing directories one after another makes the planning of queries over paths with many
+ * subdirectories slow.
+ * <p>
+ * The number of directories listed at the same time for a query is set with the pxf.fs.listing.threads
+ * property of the server. The number of directories listed at the same time for all the queries using a
+ * server is limited by the pxf.fs.listing.max-concurrency property of the server, the limit is read when
+ * the server is first used. A listing is handed to a thread once it got a permit of the server, so the
+ * number of listing threads is bounded by the limits of the servers. The files are returned in the same
+ * order as with a serial listing.
+ */
+public class ParallelFileLister {
+
+    public static final String LISTING_THREADS_PROPERTY = "pxf.fs.listing.threads";
+    public static final String LISTING_MAX_CONCURRENCY_PROPERTY = "pxf.fs.listing.max-concurrency";
+    public static final int DEFAULT_LISTING_THREADS = 1;
+    public static final int DEFAULT_LISTING_MAX_CONCURRENCY = 64;
+
+    private static final String INPUT_DIR_RECURSIVE = "mapreduce.input.fileinputformat.input.dir.recursive";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelFileLister.class);
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-listing-%d").setDaemon(true).build());
+
+    private static final Map<String, Semaphore> serverPermits = new ConcurrentHashMap<>();
+
+    private static final PathFilter hiddenFileFilter = p -> {
+        String name = p.getName();
+        return !name.startsWith("_") && !name.startsWith(".");
+    };
+
+    private final JobConf job;
+    private final int threads;
+    private final Semaphore permits;
+
+    /**
+     * Creates a lister for the input paths of the job.
+     *
+     * @param job the job with the input paths and the configuration of the server
+     */
+    public ParallelFileLister(JobConf job) {
+        this.job = job;
+        this.threads = getListingThreads(job);
+        String serverName = StringUtils.defaultIfBlank(job.get(ConfigurationFactory.PXF_SERVER_NAME_PROPERTY), "default");
+        this.permits = serverPermits.computeIfAbsent(serverName, k -> new Semaphore(getMaxConcurrency(job)));
+    }
+
+    /**
+     * Returns the number of directories listed at the same time for a query, as configured for the server.
+     *
+     * @param job the job with the configuration of the server
+     * @return the number of directories listed at the same time, 1 for a serial listing
+     */
+    public static int getListingThreads(JobConf job) {
+        int threads = job.getInt(LISTING_THREADS_PROPERTY, DEFAULT_LISTING_THREADS);
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Property %s must be set to a positive value, was %d",
+                    LISTING_THREADS_PROPERTY, threads));
+        }
+        return threads;
+    }
+
+    private static int getMaxConcurrency(JobConf job) {
+        int maxConcurrency = job.getInt(LISTING_MAX_CONCURRENCY_PROPERTY, DEFAULT_LISTING_MAX_CONCURRENCY);
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException(String.format("Property %s must be set to a positive value, was %d",
+                    LISTING_MAX_CONCURRENCY_PROPERTY, maxConcurrency));
+        }
+        return maxConcurrency;
+    }
+
+    /**
+     * Lists the files of the input paths of the job. Input paths can be globs, directories are listed
+     * recursively when mapreduce.input.fileinputformat.input.dir.recursive is set, hidden files and
+     * directories are skipped.
+     *
+     * @return the files of the input paths
+     * @throws IOException if the input paths do not exist or cannot be listed
+     */
+    public FileStatus[] listStatus() throws IOException {
+        Path[] dirs = FileInputFormat.getInputPaths(job);
+        if (dirs.length == 0) {
+            throw new IOException("No input paths specified in job");
+        }
+        TokenCache.obtainTokensForNamenodes(job.getCredentials(), dirs, job);
+        boolean recursive = job.getBoolean(INPUT_DIR_RECURSIVE, false);
+        PathFilter jobFilter = FileInputFormat.getInputPathFilter(job);
+        PathFilter inputFilter = jobFilter == null
+                ? hiddenFileFilter
+                : p -> hiddenFileFilter.accept(p) && jobFilter.accept(p);
+
+        // the entries of the input paths, directories are listed by the worker threads
+        List<Object> roots = new ArrayList<>();
+        Deque<Directory> toList = new ArrayDeque<>();
+        List<IOException> errors = new ArrayList<>();
+        for (Path p : dirs) {
+            FileSystem fs = p.getFileSystem(job);
+            FileStatus[] matches = fs.globStatus(p, inputFilter);
+            if (matches == null) {
+                errors.add(new IOException("Input path does not exist: " + p));
+            } else if (matches.length == 0) {
+                errors.add(new IOException("Input Pattern " + p + " matches 0 files"));
+            } else {
+                for (FileStatus globStat : matches) {
+                    if (globStat.isDirectory()) {
+                        Directory directory = new Directory(fs, globStat.getPath(), true);
+                        roots.add(directory);
+                        toList.add(directory);
+                    } else {
+                        roots.add(globStat);
+                    }
+                }
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidInputException(errors);
+        }
+
+        list(toList, inputFilter, recursive);
+
+        List<FileStatus> result = new ArrayList<>();
+        flatten(roots, result);
+        LOG.debug("Listed {} files with up to {} threads", result.size(), threads);
+        return result.toArray(new FileStatus[0]);
+    }
+
+    /**
+     * Lists the directories and their subdirectories, keeping at most the configured number of listings
+     * in flight. The directories are listed as the user of the request and with its logging context.
+     */
+    private void list(Deque<Directory> toList, PathFilter inputFilter, boolean recursive) throws IOException {
+        UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        CompletionService<Directory> completionService = new ExecutorCompletionService<>(executor);
+        List<Listing> listings = new ArrayList<>();
+        int inFlight = 0;
+        try {
+            while (!toList.isEmpty() || inFlight > 0) {
+                while (!toList.isEmpty() && inFlight < threads) {
+                    // wait for a permit of the server before taking a thread, the listing releases it
+                    permits.acquire();
+                    Listing listing = new Listing(toList.poll(), inputFilter, ugi, mdcContext);
+                    listing.future = completionService.submit(listing);
+                    listings.add(listing);
+                    inFlight++;
+                }
+                Directory directory = completionService.take().get();
+                inFlight--;
+                for (LocatedFileStatus stat : directory.listing) {
+                    if (recursive && stat.isDirectory()) {
+                        Directory subdirectory = new Directory(directory.fs, stat.getPath(), false);
+                        directory.entries.add(subdirectory);
+                        toList.add(subdirectory);
+                    } else {
+                        directory.entries.add(stat);
+                    }
+                }
+                directory.listing = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while listing input paths");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            // stop listing directories whose files will not be used because of an error
+            listings.forEach(Listing::cancel);
+        }
+    }
+
+    /**
+     * Adds the files in the order a serial, depth-first listing would return them.
+     */
+    private static void flatten(List<Object> entries, List<FileStatus> result) {
+        for (Object entry : entries) {
+            if (entry instanceof Directory) {
+                flatten(((Directory) entry).entries, result);
+            } else {
+                result.add((FileStatus) entry);
+            }
+        }
+    }
+
+    /**
+     * A directory to be listed. Its entries are the files it contains and its subdirectories, in the order
+     * they are listed.
+     */
+    private class Directory {
+
+        private final FileSystem fs;
+        private final Path path;
+        private final boolean root;
+        private final List<Object> entries = new ArrayList<>();
+        private List<LocatedFileStatus> listing;
+
+        Directory(FileSystem fs, Path path, boolean root) {
+            this.fs = fs;
+            this.path = path;
+            this.root = root;
+        }
+
+        /**
+         * Lists the directory on a worker thread.
+         */
+        Directory list(PathFilter inputFilter) throws IOException {
+            List<LocatedFileStatus> result = new ArrayList<>();
+            RemoteIterator<LocatedFileStatus> iterator = fs.listLocatedStatus(path);
+            while (iterator.hasNext()) {
+                LocatedFileStatus stat = iterator.next();
+                if (inputFilter.accept(stat.getPath())) {
+                    result.add(stat);
+                }
+            }
+            LOG.trace("Listed {} entries of {}directory {}", result.size(), root ? "input " : "", path);
+            listing = result;
+            return this;
+        }
+    }
+
+    /**
+     * The listing of a directory submitted to a worker thread, holding a permit of the server. The permit
+     * is released by the listing once it ran, or by the lister when the listing is cancelled before it
+     * started.
+     */
+    private class Listing implements Callable<Directory> {
+
+        private final Directory directory;
+        private final PathFilter inputFilter;
+        private final UserGroupInformation ugi;
+        private final Map<String, String> mdcContext;
+        // set by the thread that gets to the listing first, the worker or the lister cancelling it
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<Directory> future;
+
+        Listing(Directory directory, PathFilter inputFilter, UserGroupInformation ugi, Map<String, String> mdcContext) {
+            this.directory = directory;
+            this.inputFilter = inputFilter;
+            this.ugi = ugi;
+            this.mdcContext = mdcContext;
+        }
+
+        @Override
+        public Directory call() throws Exception {
+            if (!claimed.compareAndSet(false, true)) {
+                return directory;
+            }
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                return ugi.doAs((PrivilegedExceptionAction<Directory>) () -> directory.list(inputFilter));
+            } finally {
+                permits.release();
+                MDC.clear();
+            }
+        }
+
+        void cancel() {
+            future.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.hadoop.mapred.RecordReader;
 import org.apache.hadoop.mapred.Reporter;
 
 import java.io.IOException;
+import java.time.Duration;
 
 /**
  * PxfInputFormat is not intended to read a specific format, hence it implements
@@ -42,6 +43,8 @@ import java.io.IOException;
  */
 public class PxfInputFormat extends FileInputFormat {
 
+    private Duration listingTime;
+
     @Override
     public RecordReader getRecordReader(InputSplit split,
                                         JobConf conf,
@@ -49,9 +52,34 @@ public class PxfInputFormat extends FileInputFormat {
         throw new UnsupportedOperationException("PxfInputFormat should not be used for reading data, but only for obtaining the splits of a file");
     }
 
+    /**
+     * Lists the files of the input paths of the job. Directories are listed in
+     * parallel by a {@link ParallelFileLister} when the server is configured
+     * with more than one listing thread.
+     *
+     * @param job the job with the input paths
+     * @return the files of the input paths
+     * @throws IOException if the input paths do not exist or cannot be listed
+     */
     @Override
     public FileStatus[] listStatus(JobConf job) throws IOException {
-        return super.listStatus(job);
+        long start = System.nanoTime();
+        try {
+            if (ParallelFileLister.getListingThreads(job) > 1) {
+                return new ParallelFileLister(job).listStatus();
+            }
+            return super.listStatus(job);
+        } finally {
+            listingTime = Duration.ofNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the time spent listing the input paths by the last call to
+     * {@link #listStatus(JobConf)}, or null if the input paths were not listed
+     */
+    public Duration getListingTime() {
+        return listingTime;
     }
 
     /**
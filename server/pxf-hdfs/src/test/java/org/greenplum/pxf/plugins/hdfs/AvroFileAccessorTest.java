@@ -20,7 +20,7 @@ public class AvroFileAccessorTest {
 
     @BeforeEach
     public void setup() {
-        accessor = new AvroFileAccessor(new AvroUtilities());
+        accessor = new AvroFileAccessor(new AvroUtilities(), new HcfsFileWriterExecutor(16, 4));
         context = new RequestContext();
         context.setConfig("fakeConfig");
         context.setServerName("fakeServerName");
@@ -0,0 +1,230 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HcfsFileWriterPoolTest {
+
+    private RequestContext context;
+    private HcfsFileWriterExecutor executor;
+    private Map<Integer, FakeFileWriter> files;
+
+    @BeforeEach
+    public void setup() {
+        context = new RequestContext();
+        context.setConfiguration(new Configuration());
+        // fewer threads than writers, the chunks of the writers wait for a thread
+        executor = new HcfsFileWriterExecutor(4, 2);
+        files = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.destroy();
+        MDC.clear();
+    }
+
+    @Test
+    public void testSingleFileByDefault() throws IOException {
+        HcfsFileWriterPool<Integer> pool = new HcfsFileWriterPool<>(context, executor, this::createFile);
+        for (int i = 0; i < 10000; i++) {
+            pool.write(i, 1);
+        }
+        pool.close();
+
+        assertEquals(1, pool.getFileCount());
+        assertEquals(10000, files.get(0).rows.size());
+        assertTrue(files.get(0).closed);
+    }
+
+    @Test
+    public void testFileIsCreatedWithoutRows() throws IOException {
+        HcfsFileWriterPool<Integer> pool = new HcfsFileWriterPool<>(context, executor, this::createFile);
+        pool.close();
+
+        assertEquals(1, pool.getFileCount());
+        assertTrue(files.get(0).rows.isEmpty());
+        assertTrue(files.get(0).closed);
+    }
+
+    @Test
+    public void testRollOverToNewFiles() throws IOException {
+        // every row is a byte, the size is checked every 1024 rows
+        HcfsFileWriterPool<Integer> pool = new HcfsFileWriterPool<>(this::createFile, 2000, 1, executor);
+        for (int i = 0; i < 10000; i++) {
+            pool.write(i, 1);
+        }
+        pool.close();
+
+        assertEquals(5, pool.getFileCount());
+        List<Integer> rows = new ArrayList<>();
+        for (int fileNumber = 0; fileNumber < 5; fileNumber++) {
+            FakeFileWriter file = files.get(fileNumber);
+            assertTrue(file.closed);
+            assertEquals(fileNumber < 4 ? 2048 : 10000 - 4 * 2048, file.rows.size());
+            rows.addAll(file.rows);
+        }
+        assertRows(10000, rows);
+    }
+
+    @Test
+    public void testParallelWriters() throws IOException {
+        context.addOption("PARALLEL_WRITERS", "3");
+        HcfsFileWriterPool<Integer> pool = new HcfsFileWriterPool<>(context, executor, this::createFile);
+        for (int i = 0; i < 10000; i++) {
+            pool.write(i, 1);
+        }
+        pool.close();
+
+        assertEquals(3, pool.getFileCount());
+        List<Integer> rows = new ArrayList<>();
+        for (FakeFileWriter file : files.values()) {
+            assertTrue(file.closed);
+            assertFalse(file.rows.isEmpty());
+            rows.addAll(file.rows);
+        }
+        assertRows(10000, rows);
+    }
+
+    @Test
+    public void testParallelWritersUseLoggingContextOfRequest() throws IOException {
+        context.addOption("PARALLEL_WRITERS", "2");
+        MDC.put("sessionId", "1:2");
+        HcfsFileWriterPool<Integer> pool = new HcfsFileWriterPool<>(context, executor, this::createFile);
+        for (int i = 0; i < 10000; i++) {
+            pool.write(i, 1);
+        }
+        pool.close();
+
+        for (FakeFileWriter file : files.values()) {
+            assertEquals("1:2", file.sessionId);
+        }
+    }
+
+    @Test
+    public void testParallelWritersRollOverToNewFiles() throws IOException {
+        HcfsFileWriterPool<Integer> pool = new HcfsFileWriterPool<>(this::createFile, 1, 2, executor);
+        for (int i = 0; i < 10000; i++) {
+            pool.write(i, 1);
+        }
+        pool.close();
+
+        // every chunk of rows is written to a file of its own
+        assertEquals(10, pool.getFileCount());
+        List<Integer> rows = new ArrayList<>();
+        for (FakeFileWriter file : files.values()) {
+            assertTrue(file.closed);
+            rows.addAll(file.rows);
+        }
+        assertRows(10000, rows);
+    }
+
+    @Test
+    public void testParallelWriterFailure() throws IOException {
+        HcfsFileWriterPool<Integer> pool = new HcfsFileWriterPool<>(fileNumber -> {
+            FakeFileWriter file = createFile(fileNumber);
+            file.failing = fileNumber == 1;
+            return file;
+        }, 0, 2, executor);
+
+        Exception e = assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 10000; i++) {
+                pool.write(i, 1);
+            }
+            pool.close();
+        });
+        assertEquals("failed to write to file 1", e.getMessage());
+    }
+
+    @Test
+    public void testTargetFileSizeOption() {
+        assertEquals(0, HcfsFileWriterPool.getTargetFileSize(context));
+        context.addOption("TARGET_FILE_SIZE", "128MB");
+        assertEquals(128 * 1024 * 1024, HcfsFileWriterPool.getTargetFileSize(context));
+    }
+
+    @Test
+    public void testInvalidTargetFileSizeOption() {
+        context.addOption("TARGET_FILE_SIZE", "large");
+        Exception e = assertThrows(IllegalArgumentException.class, () -> HcfsFileWriterPool.getTargetFileSize(context));
+        assertEquals("Property TARGET_FILE_SIZE has incorrect value large : must be a non-negative size, like 128MB", e.getMessage());
+    }
+
+    @Test
+    public void testInvalidParallelWritersOption() {
+        context.addOption("PARALLEL_WRITERS", "0");
+        Exception e = assertThrows(IllegalArgumentException.class, () -> HcfsFileWriterPool.getParallelWriters(context));
+        assertEquals("Property PARALLEL_WRITERS has incorrect value 0 : must be a positive integer", e.getMessage());
+    }
+
+    @Test
+    public void testParallelWritersOptionAboveMaximum() {
+        context.addOption("PARALLEL_WRITERS", "5000");
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new HcfsFileWriterPool<>(context, executor, this::createFile));
+        assertEquals("Property PARALLEL_WRITERS has incorrect value 5000 : must not be greater than 4, the value of pxf.write.parallel-writers.max", e.getMessage());
+        assertTrue(files.isEmpty());
+    }
+
+    private FakeFileWriter createFile(int fileNumber) {
+        FakeFileWriter file = new FakeFileWriter(fileNumber);
+        files.put(fileNumber, file);
+        return file;
+    }
+
+    private void assertRows(int rowCount, List<Integer> rows) {
+        Collections.sort(rows);
+        assertEquals(rowCount, rows.size());
+        for (int i = 0; i < rowCount; i++) {
+            assertEquals(i, rows.get(i));
+        }
+    }
+
+    private static class FakeFileWriter implements HcfsFileWriter<Integer> {
+
+        private final int fileNumber;
+        private final List<Integer> rows = new ArrayList<>();
+        private boolean failing;
+        private boolean closed;
+        private String sessionId;
+
+        FakeFileWriter(int fileNumber) {
+            this.fileNumber = fileNumber;
+        }
+
+        @Override
+        public void write(Integer data) throws IOException {
+            if (failing) {
+                throw new IOException("failed to write to file " + fileNumber);
+            }
+            rows.add(data);
+            sessionId = MDC.get("sessionId");
+        }
+
+        @Override
+        public long getSize() {
+            return rows.size();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
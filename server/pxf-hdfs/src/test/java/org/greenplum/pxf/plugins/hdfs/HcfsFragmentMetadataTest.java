@@ -4,6 +4,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.FileSplit;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class HcfsFragmentMetadataTest {
@@ -13,6 +14,13 @@ class HcfsFragmentMetadataTest {
         HcfsFragmentMetadata metadata = new HcfsFragmentMetadata(new FileSplit(new Path("foo"), 5, 25, (String[]) null));
         assertEquals(5, metadata.getStart());
         assertEquals(25, metadata.getLength());
+        assertArrayEquals(new String[0], metadata.getHosts());
+    }
+
+    @Test
+    public void testFileSplitConstructorWithHosts() {
+        HcfsFragmentMetadata metadata = new HcfsFragmentMetadata(new FileSplit(new Path("foo"), 5, 25, new String[]{"host1", "host2"}));
+        assertArrayEquals(new String[]{"host1", "host2"}, metadata.getHosts());
     }
 
     @Test
@@ -20,5 +28,6 @@ class HcfsFragmentMetadataTest {
         HcfsFragmentMetadata metadata = new HcfsFragmentMetadata(10, 200);
         assertEquals(10, metadata.getStart());
         assertEquals(200, metadata.getLength());
+        assertEquals(200, metadata.getEstimatedSize());
     }
 }
\ No newline at end of file
@@ -143,6 +143,19 @@ public class HcfsTypeTest {
         assertEquals("xyz://abc/foo/bar/XID-XYZ-123456_3", type.getUriForWrite(context));
     }
 
+    @Test
+    public void testUriForWriteWithFileNumber() {
+        configuration.set("fs.defaultFS", "xyz://abc");
+        context.setDataSource("foo/bar");
+        context.setTransactionId("XID-XYZ-123456");
+        context.setSegmentId(3);
+
+        HcfsType type = HcfsType.getHcfsType(context);
+        // the first file keeps the name of the single file of the segment
+        assertEquals("xyz://abc/foo/bar/XID-XYZ-123456_3", type.getUriForWrite(context, 0));
+        assertEquals("xyz://abc/foo/bar/XID-XYZ-123456_3_2", type.getUriForWrite(context, 2));
+    }
+
     @Test
     public void testUriForWriteWithUncompressedCodec() {
         configuration.set("fs.defaultFS", "xyz://abc");
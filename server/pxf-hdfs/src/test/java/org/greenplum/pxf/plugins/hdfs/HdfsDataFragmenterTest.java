@@ -11,8 +11,10 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HdfsDataFragmenterTest {
 
@@ -83,6 +85,85 @@ public class HdfsDataFragmenterTest {
         assertEquals(0, fragmentList.size());
     }
 
+    @Test
+    public void testCombineSmallFiles() throws Exception {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setDataSource(path);
+        context.setAccessor(LineBreakAccessor.class.getName());
+        context.addOption("COMBINE", "true");
+
+        List<Fragment> fragmentList = getFragmenter(context).getFragments();
+        assertEquals(1, fragmentList.size());
+        CombinedFragmentMetadata metadata = (CombinedFragmentMetadata) fragmentList.get(0).getMetadata();
+        // empty.csv gets ignored
+        assertEquals(8, metadata.getSplits().size());
+        assertEquals(327, metadata.getLength());
+        assertEquals(metadata.getSplits().get(0).getPath().toString(), fragmentList.get(0).getSourceName());
+    }
+
+    @Test
+    public void testCombineSmallFilesUpToTargetSize() throws Exception {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setDataSource(path);
+        context.setAccessor(LineBreakAccessor.class.getName());
+        context.addOption("COMBINE", "true");
+        context.addOption("COMBINE_TARGET_SIZE", "100");
+
+        List<Fragment> fragmentList = getFragmenter(context).getFragments();
+        assertTrue(fragmentList.size() > 1);
+        int splitCount = 0;
+        long totalLength = 0;
+        for (Fragment fragment : fragmentList) {
+            HcfsFragmentMetadata metadata = (HcfsFragmentMetadata) fragment.getMetadata();
+            assertTrue(metadata.getLength() <= 100);
+            splitCount += metadata instanceof CombinedFragmentMetadata
+                    ? ((CombinedFragmentMetadata) metadata).getSplits().size()
+                    : 1;
+            totalLength += metadata.getLength();
+        }
+        assertEquals(8, splitCount);
+        assertEquals(327, totalLength);
+    }
+
+    @Test
+    public void testCombineIgnoredForUnsupportedAccessor() throws Exception {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setDataSource(path);
+        context.setAccessor(ParquetFileAccessor.class.getName());
+        context.addOption("COMBINE", "true");
+
+        List<Fragment> fragmentList = getFragmenter(context).getFragments();
+        assertEquals(8, fragmentList.size());
+        for (Fragment fragment : fragmentList) {
+            assertFalse(fragment.getMetadata() instanceof CombinedFragmentMetadata);
+        }
+    }
+
+    @Test
+    public void testInvalidCombineTargetSize() {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setDataSource(path);
+        context.setAccessor(LineBreakAccessor.class.getName());
+        context.addOption("COMBINE", "true");
+        context.addOption("COMBINE_TARGET_SIZE", "0");
+
+        Fragmenter fragmenter = getFragmenter(context);
+        Exception e = assertThrows(IllegalArgumentException.class, fragmenter::getFragments);
+        assertEquals("invalid COMBINE_TARGET_SIZE value '0'. The value must be a positive number of bytes", e.getMessage());
+    }
+
     private Fragmenter getFragmenter(RequestContext context) {
         HdfsDataFragmenter fragmenter = new HdfsDataFragmenter();
         fragmenter.setRequestContext(context);
@@ -8,6 +8,8 @@ import org.greenplum.pxf.api.model.RequestContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.net.URI;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -56,6 +58,31 @@ public class HdfsFileFragmenterTest {
         List<Fragment> fragmentList = fragmenter.getFragments();
         assertNotNull(fragmentList);
         assertEquals(9, fragmentList.size());
+
+        for (Fragment fragment : fragmentList) {
+            HcfsFragmentMetadata metadata = (HcfsFragmentMetadata) fragment.getMetadata();
+            assertEquals(0, metadata.getStart());
+            assertEquals(new File(new URI(fragment.getSourceName())).length(), metadata.getLength());
+        }
+    }
+
+    @Test
+    public void testFragmenterCombinesFiles() throws Exception {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setDataSource(path);
+        context.setAccessor(QuotedLineBreakAccessor.class.getName());
+        context.addOption("COMBINE", "true");
+
+        Fragmenter fragmenter = getFragmenter(context);
+
+        List<Fragment> fragmentList = fragmenter.getFragments();
+        assertEquals(1, fragmentList.size());
+        CombinedFragmentMetadata metadata = (CombinedFragmentMetadata) fragmentList.get(0).getMetadata();
+        assertEquals(9, metadata.getSplits().size());
+        assertEquals(327, metadata.getLength());
     }
 
     @Test
@@ -2,6 +2,7 @@ package org.greenplum.pxf.plugins.hdfs;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.FileSplit;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.RequestContext;
@@ -10,6 +11,9 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -271,6 +275,47 @@ public class LineBreakAccessorTest {
         accessor.closeForRead();
     }
 
+    @Test
+    public void testCombinedFragmentSkipsHeaderOfFirstFileOnly() throws Exception {
+        FileSplit first = prepareSplit("csv/csv_with_header.csv");
+        context.setDataSource(first.getPath().toString());
+        context.setFragmentMetadata(new CombinedFragmentMetadata(Arrays.asList(
+                first, prepareSplit("csv/csv_with_line_feed.csv"), prepareSplit("csv/csv_with_header.csv"))));
+        context.getGreenplumCSV().withNewline("\n");
+        context.addOption("SKIP_HEADER_COUNT", "1");
+
+        accessor.setRequestContext(context);
+        accessor.afterPropertiesSet();
+        accessor.openForRead();
+
+        List<String> lines = new ArrayList<>();
+        OneRow oneRow;
+        while ((oneRow = accessor.readNextObject()) != null) {
+            lines.add(oneRow.getData().toString());
+        }
+        accessor.closeForRead();
+
+        // the header is skipped in the first split of the first fragment, no rows of the other files are lost
+        assertEquals(Arrays.asList(
+                "line2,header1,header2,header3",
+                "line3,value1,value2,value3",
+                "this,file",
+                "has,line feeds",
+                "as,new line delimiter",
+                "LF,0x0A",
+                "line1,header1,header2,header3",
+                "line2,header1,header2,header3",
+                "line3,value1,value2,value3"), lines);
+    }
+
+    private FileSplit prepareSplit(String resourceName) throws IOException, URISyntaxException {
+        String filepath = this.getClass().getClassLoader()
+                .getResource(resourceName).toURI().toString();
+        Path path = new Path(filepath);
+        long length = path.getFileSystem(new Configuration()).getContentSummary(path).getLength();
+        return new FileSplit(path, 0, length, (String[]) null);
+    }
+
     private void prepareTest(String resourceName) throws IOException, URISyntaxException {
         String filepath = this.getClass().getClassLoader()
                 .getResource(resourceName).toURI().toString();
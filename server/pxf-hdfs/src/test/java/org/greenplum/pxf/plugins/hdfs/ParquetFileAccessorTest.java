@@ -2,8 +2,10 @@ package org.greenplum.pxf.plugins.hdfs;
 
 import org.apache.parquet.schema.MessageType;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.plugins.hdfs.parquet.ParquetFooterCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -14,7 +16,7 @@ public class ParquetFileAccessorTest {
 
     @BeforeEach
     public void setup() {
-        accessor = new ParquetFileAccessor();
+        accessor = new ParquetFileAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
         context = new RequestContext();
         context.setConfig("default");
         context.setUser("test-user");
@@ -26,9 +26,11 @@ import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.parquet.ParquetFooterCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
 
 import java.io.File;
 import java.io.IOException;
@@ -76,7 +78,7 @@ public class ParquetWriteTest {
 
         columnDescriptors = new ArrayList<>();
 
-        accessor = new ParquetFileAccessor();
+        accessor = new ParquetFileAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
         resolver = new ParquetResolver();
         context = new RequestContext();
         configuration = new Configuration();
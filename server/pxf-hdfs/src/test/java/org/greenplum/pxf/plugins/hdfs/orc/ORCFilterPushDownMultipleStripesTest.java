@@ -6,9 +6,11 @@ import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
 import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 
 import java.util.ArrayList;
 import java.util.Objects;
@@ -359,7 +361,7 @@ public class ORCFilterPushDownMultipleStripesTest extends ORCVectorizedBaseTest
 
     private void runTestScenario(int expectedBatches) throws Exception {
         OneRow batchOfRows;
-        Accessor accessor = new ORCVectorizedAccessor();
+        Accessor accessor = new ORCVectorizedAccessor(new OrcTailCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
         accessor.setRequestContext(context);
         accessor.afterPropertiesSet();
         assertTrue(accessor.openForRead());
@@ -8,9 +8,11 @@ import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
 import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 
 import java.sql.Date;
 import java.util.List;
@@ -31,7 +33,7 @@ public class ORCFilterPushDownTest extends ORCVectorizedBaseTest {
     public void setup() {
         super.setup();
 
-        accessor = new ORCVectorizedAccessor();
+        accessor = new ORCVectorizedAccessor(new OrcTailCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
         resolver = new ORCVectorizedResolver();
         context = new RequestContext();
 
@@ -4,21 +4,30 @@ import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.fs.Path;
 import org.apache.orc.CompressionKind;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
 import org.apache.orc.TypeDescription;
 import org.apache.orc.Writer;
+import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.error.PxfRuntimeException;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterPool;
 import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.IntStream;
 
@@ -42,7 +51,7 @@ class ORCVectorizedAccessorTest extends ORCVectorizedBaseTest {
     public void setup() {
         super.setup();
 
-        accessor = new ORCVectorizedAccessor();
+        accessor = new ORCVectorizedAccessor(new OrcTailCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
         context = new RequestContext();
         context.setConfig("fakeConfig");
         context.setServerName("fakeServerName");
@@ -177,7 +186,7 @@ class ORCVectorizedAccessorTest extends ORCVectorizedBaseTest {
         VectorizedRowBatch mockBatch = mock(VectorizedRowBatch.class);
         when(mockRow.getData()).thenReturn(mockBatch);
         Writer mockWriter = mock(Writer.class);
-        accessor.getWriterState().setFileWriter(mockWriter);
+        accessor.getWriterState().setFileWriters(createFileWriters(mockWriter));
 
         boolean result = accessor.writeNextObject(mockRow);
 
@@ -189,17 +198,59 @@ class ORCVectorizedAccessorTest extends ORCVectorizedBaseTest {
 
     @Test
     public void testCloseForWrite() throws IOException {
-        accessor.getWriterState().setFileWriter(null);
+        accessor.getWriterState().setFileWriters(null);
         accessor.closeForWrite();
         // no specific assertions -- closeForWrite is a noop when writer is null
 
         Writer mockWriter = mock(Writer.class);
-        accessor.getWriterState().setFileWriter(mockWriter);
+        accessor.getWriterState().setFileWriters(createFileWriters(mockWriter));
         accessor.closeForWrite();
         verify(mockWriter).close();
     }
 
-    private void runTestScenario_OpenForWrite(CompressionKind expectedCompression, boolean utcTimezone) throws IOException {
+    @Test
+    public void testWriteRollsOverToNewFiles() throws IOException {
+        context.addOption("TARGET_FILE_SIZE", "1B");
+        // flush a stripe after every batch, the size of a file is the size of its stripes
+        context.getConfiguration().set("orc.stripe.size", "1024");
+        context.getConfiguration().set("orc.rows.between.memory.checks", "1024");
+        File writeDir = prepareWriteRequest();
+        // the writer options are set on the context by openForWrite
+        accessor.openForWrite();
+        ORCVectorizedResolver resolver = new ORCVectorizedResolver();
+        resolver.setRequestContext(context);
+        resolver.afterPropertiesSet();
+
+        int rowCount = 0;
+        for (int i = 0; i < 4; i++) {
+            List<List<OneField>> records = new ArrayList<>();
+            for (int j = 0; j < resolver.getBatchSize(); j++, rowCount++) {
+                records.add(Arrays.asList(
+                        new OneField(DataType.TEXT.getOID(), "row " + rowCount),
+                        new OneField(DataType.INTEGER.getOID(), rowCount)));
+            }
+            accessor.writeNextObject(resolver.setFieldsForBatch(records));
+        }
+        accessor.closeForWrite();
+
+        File[] files = writeDir.listFiles((dir, name) -> name.endsWith(".orc"));
+        assertNotNull(files);
+        assertTrue(files.length > 1);
+        long rowsInFiles = 0;
+        for (File file : files) {
+            try (Reader reader = OrcFile.createReader(new Path(file.getAbsolutePath()),
+                    OrcFile.readerOptions(context.getConfiguration()))) {
+                rowsInFiles += reader.getNumberOfRows();
+            }
+        }
+        assertEquals(rowCount, rowsInFiles);
+    }
+
+    private HcfsFileWriterPool<VectorizedRowBatch> createFileWriters(Writer writer) throws IOException {
+        return new HcfsFileWriterPool<>(context, new HcfsFileWriterExecutor(16, 4), fileNumber -> new ORCVectorizedAccessor.OrcFileWriter(writer, null));
+    }
+
+    private File prepareWriteRequest() throws IOException {
         File tempDirBase = FileUtils.getTempDirectory();
         File writeDir = new File(tempDirBase, "pxf_orc_write");
         if (writeDir.exists()) {
@@ -214,6 +265,12 @@ class ORCVectorizedAccessorTest extends ORCVectorizedBaseTest {
         context.setTupleDescription(twoColumnDescriptors);
         accessor.setRequestContext(context);
         accessor.afterPropertiesSet();
+        return writeDir;
+    }
+
+    private void runTestScenario_OpenForWrite(CompressionKind expectedCompression, boolean utcTimezone) throws IOException {
+        File tempDirBase = FileUtils.getTempDirectory();
+        prepareWriteRequest();
 
         assertTrue(accessor.openForWrite());
         ORCVectorizedAccessor.WriterState writerState = accessor.getWriterState();
@@ -225,8 +282,13 @@ class ORCVectorizedAccessorTest extends ORCVectorizedBaseTest {
         // check write schema is correct and is set on the writer and in the context
         TypeDescription writeSchema = writerState.getWriterOptions().getSchema();
         assertEquals("struct<col0:string,col1:int>", writeSchema.toString());
-        assertEquals(writeSchema, writerState.getFileWriter().getSchema());
         assertSame(writerState.getWriterOptions(), context.getMetadata());
+        accessor.closeForWrite();
+        try (Reader reader = OrcFile.createReader(new Path(writerState.getFileName()),
+                OrcFile.readerOptions(context.getConfiguration()))) {
+            assertEquals(writeSchema, reader.getSchema());
+            assertEquals(expectedCompression, reader.getCompressionKind());
+        }
     }
 
     private void runErrorScenario_OpenForWrite(String exceptionMessage) throws IOException {
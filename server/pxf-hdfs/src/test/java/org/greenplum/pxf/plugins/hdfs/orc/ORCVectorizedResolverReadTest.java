@@ -12,6 +12,8 @@ import org.apache.orc.impl.SchemaEvolution;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.error.UnsupportedTypeException;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
@@ -19,14 +21,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -324,6 +330,100 @@ class ORCVectorizedResolverReadTest extends ORCVectorizedBaseTest {
         assertDataReturned(ORC_TYPES_DATASET, fields);
     }
 
+    @Test
+    public void testGetColumnBatchWithUnsupportedTypes() throws IOException {
+        // decimals, dates and timestamps are only resolved by getFieldsForBatch
+        TypeDescription schema = TypeDescription.fromString(ORC_TYPES_SCHEMA);
+        context.setMetadata(schema);
+
+        resolver.setRequestContext(context);
+        resolver.afterPropertiesSet();
+
+        VectorizedRowBatch batch = readOrcFile("orc_types.orc", 25, schema);
+        assertNull(resolver.getColumnBatch(new OneRow(batch)));
+    }
+
+    @Test
+    public void testGetColumnBatchPrimitiveWithProjection() throws IOException {
+        // project all the columns except the decimal, timestamp and date ones
+        IntStream.range(0, columnDescriptors.size()).forEach(idx ->
+                columnDescriptors
+                        .get(idx)
+                        .setProjected(idx != 4 && idx != 5 && idx != 11));
+
+        TypeDescription schema = TypeDescription.fromString("struct<t1:string,t2:string,num1:int,dub1:double,r:float,bg:bigint,b:boolean,tn:tinyint,sml:smallint,vc1:varchar(5),c1:char(3),bin:binary>");
+        context.setMetadata(schema);
+
+        resolver.setRequestContext(context);
+        resolver.afterPropertiesSet();
+
+        VectorizedRowBatch batch = readOrcFile("orc_types.orc", 25, schema);
+        OneRow batchOfRows = new OneRow(batch);
+
+        ColumnBatch columnBatch = resolver.getColumnBatch(batchOfRows);
+        assertNotNull(columnBatch);
+        assertEquals(25, columnBatch.getSize());
+        assertEquals(15, columnBatch.getColumnCount());
+
+        assertColumnBatchMatchesFields(columnBatch, resolver.getFieldsForBatch(batchOfRows));
+    }
+
+    @Test
+    public void testGetColumnBatchRepeatedPrimitive() throws IOException {
+        IntStream.range(0, columnDescriptors.size()).forEach(idx ->
+                columnDescriptors
+                        .get(idx)
+                        .setProjected(idx != 4 && idx != 5 && idx != 11));
+
+        TypeDescription schema = TypeDescription.fromString("struct<t1:string,t2:string,num1:int,dub1:double,r:float,bg:bigint,b:boolean,tn:tinyint,sml:smallint,vc1:varchar(5),c1:char(3),bin:binary>");
+        context.setMetadata(schema);
+
+        resolver.setRequestContext(context);
+        resolver.afterPropertiesSet();
+
+        VectorizedRowBatch batch = readOrcFile("orc_types_repeated.orc", 3, schema);
+        OneRow batchOfRows = new OneRow(batch);
+
+        ColumnBatch columnBatch = resolver.getColumnBatch(batchOfRows);
+        assertNotNull(columnBatch);
+        assertEquals(3, columnBatch.getSize());
+
+        assertColumnBatchMatchesFields(columnBatch, resolver.getFieldsForBatch(batchOfRows));
+    }
+
+    @Test
+    public void testGetColumnBatchSelectedRows() throws IOException {
+        IntStream.range(0, columnDescriptors.size()).forEach(idx ->
+                columnDescriptors
+                        .get(idx)
+                        .setProjected(idx != 4 && idx != 5 && idx != 11));
+
+        TypeDescription schema = TypeDescription.fromString("struct<t1:string,t2:string,num1:int,dub1:double,r:float,bg:bigint,b:boolean,tn:tinyint,sml:smallint,vc1:varchar(5),c1:char(3),bin:binary>");
+        context.setMetadata(schema);
+
+        resolver.setRequestContext(context);
+        resolver.afterPropertiesSet();
+
+        VectorizedRowBatch batch = readOrcFile("orc_types.orc", 25, schema);
+        OneRow batchOfRows = new OneRow(batch);
+        List<List<OneField>> fieldsForBatch = new ArrayList<>(resolver.getFieldsForBatch(batchOfRows));
+
+        // select every third row, as a filter of the reader would
+        int selectedCount = 0;
+        for (int row = 0; row < batch.size; row += 3) {
+            batch.selected[selectedCount++] = row;
+        }
+        batch.selectedInUse = true;
+        batch.size = selectedCount;
+
+        ColumnBatch columnBatch = resolver.getColumnBatch(batchOfRows);
+        assertNotNull(columnBatch);
+        assertEquals(selectedCount, columnBatch.getSize());
+        assertEquals(24, columnBatch.getRow(selectedCount - 1));
+
+        assertColumnBatchMatchesFields(columnBatch, fieldsForBatch);
+    }
+
     @Test
     public void testUnsupportedFunctionality() {
         Exception e = assertThrows(UnsupportedOperationException.class, () -> resolver.getFields(new OneRow()));
@@ -333,6 +433,45 @@ class ORCVectorizedResolverReadTest extends ORCVectorizedBaseTest {
         assertEquals("Current operation is not supported", e.getMessage());
     }
 
+    private void assertColumnBatchMatchesFields(ColumnBatch columnBatch, List<List<OneField>> fieldsForBatch) {
+        for (int col = 0; col < columnBatch.getColumnCount(); col++) {
+            ColumnVector column = columnBatch.getColumn(col);
+            for (int position = 0; position < columnBatch.getSize(); position++) {
+                // the fields are resolved from all the rows of the vectors
+                int row = columnBatch.getRow(position);
+                Object expected = fieldsForBatch.get(row).get(col).val;
+                if (expected == null) {
+                    assertTrue(column.isNull(row), "column " + col + " row " + row);
+                    continue;
+                }
+                assertFalse(column.isNull(row), "column " + col + " row " + row);
+                switch (column.getDataType()) {
+                    case BOOLEAN:
+                        assertEquals(expected, column.getLong(row) == 1);
+                        break;
+                    case SMALLINT:
+                    case INTEGER:
+                    case BIGINT:
+                        assertEquals(((Number) expected).longValue(), column.getLong(row));
+                        break;
+                    case REAL:
+                        assertEquals(expected, (float) column.getDouble(row));
+                        break;
+                    case FLOAT8:
+                        assertEquals(expected, column.getDouble(row));
+                        break;
+                    case BYTEA:
+                        assertArrayEquals((byte[]) expected, Arrays.copyOfRange(column.getBytes(row),
+                                column.getBytesStart(row), column.getBytesStart(row) + column.getBytesLength(row)));
+                        break;
+                    default:
+                        assertEquals(expected, new String(column.getBytes(row), column.getBytesStart(row),
+                                column.getBytesLength(row), StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
     private void assertDataReturned(Object[][] expected, List<List<OneField>> fieldsForBatch) {
         for (int rowNum = 0; rowNum < fieldsForBatch.size(); rowNum++) {
             List<OneField> row = fieldsForBatch.get(rowNum);
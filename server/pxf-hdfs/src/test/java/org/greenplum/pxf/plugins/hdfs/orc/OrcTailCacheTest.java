@@ -0,0 +1,110 @@
+package org.greenplum.pxf.plugins.hdfs.orc;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.TypeDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrcTailCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    private Configuration configuration;
+    private File file;
+    private Path path;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        configuration = new Configuration();
+        file = new File(tempDir, "orc_types.orc");
+        File source = new File(Objects.requireNonNull(getClass().getClassLoader()
+                .getResource("orc/orc_types.orc")).getPath());
+        Files.copy(source.toPath(), file.toPath());
+        path = new Path(file.getAbsolutePath());
+    }
+
+    @Test
+    public void testTailIsServedFromCache() throws Exception {
+        OrcTailCache cache = new OrcTailCache(DataSize.ofMegabytes(1));
+        TypeDescription schema;
+        long rowCount;
+        try (Reader reader = createReader(cache)) {
+            schema = reader.getSchema();
+            rowCount = reader.getNumberOfRows();
+        }
+
+        corruptPostScriptLength();
+        try (Reader reader = createReader(cache)) {
+            assertEquals(schema, reader.getSchema());
+            assertEquals(rowCount, reader.getNumberOfRows());
+            // the rows are read with the cached tail
+            assertEquals(rowCount, countRows(reader));
+        }
+    }
+
+    @Test
+    public void testTailIsReadAgainWhenFileChanges() throws Exception {
+        OrcTailCache cache = new OrcTailCache(DataSize.ofMegabytes(1));
+        createReader(cache).close();
+
+        corruptPostScriptLength();
+        assertEquals(true, file.setLastModified(file.lastModified() + 10000));
+        assertThrows(Exception.class, () -> createReader(cache));
+    }
+
+    @Test
+    public void testDisabledCache() throws Exception {
+        OrcTailCache cache = new OrcTailCache(DataSize.ofBytes(0));
+        createReader(cache).close();
+
+        corruptPostScriptLength();
+        assertThrows(Exception.class, () -> createReader(cache));
+    }
+
+    private Reader createReader(OrcTailCache cache) throws IOException {
+        OrcFile.ReaderOptions options = OrcFile.readerOptions(configuration)
+                .filesystem(path.getFileSystem(configuration));
+        return cache.createReader(path, options, p -> OrcFile.createReader(p, options));
+    }
+
+    private long countRows(Reader reader) throws IOException {
+        long rows = 0;
+        VectorizedRowBatch batch = reader.getSchema().createRowBatch();
+        try (RecordReader recordReader = reader.rows()) {
+            while (recordReader.nextBatch(batch)) {
+                rows += batch.size;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Overwrites the length of the postscript in the last byte of the file,
+     * keeping its length and modification time
+     */
+    private void corruptPostScriptLength() throws IOException {
+        long lastModified = file.lastModified();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            randomAccessFile.write(0);
+        }
+        assertEquals(true, file.setLastModified(lastModified));
+    }
+}
@@ -8,11 +8,13 @@ import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
 import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
 import org.greenplum.pxf.plugins.hdfs.ParquetFileAccessor;
 import org.greenplum.pxf.plugins.hdfs.ParquetResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 
 import java.math.BigDecimal;
 import java.sql.Date;
@@ -58,7 +60,7 @@ public class ParquetFilterPushDownTest extends ParquetBaseTest {
     public void setup() throws Exception {
         super.setup();
 
-        accessor = new ParquetFileAccessor();
+        accessor = new ParquetFileAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
         resolver = new ParquetResolver();
         context = new RequestContext();
 
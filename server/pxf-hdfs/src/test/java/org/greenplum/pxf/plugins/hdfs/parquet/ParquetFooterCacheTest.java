@@ -0,0 +1,87 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.schema.MessageType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParquetFooterCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    private Configuration configuration;
+    private File file;
+    private Path path;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        configuration = new Configuration();
+        file = new File(tempDir, "parquet_types.parquet");
+        File source = new File(Objects.requireNonNull(getClass().getClassLoader()
+                .getResource("parquet/parquet_types.parquet")).getPath());
+        Files.copy(source.toPath(), file.toPath());
+        path = new Path(file.getAbsolutePath());
+    }
+
+    @Test
+    public void testFooterIsServedFromCache() throws Exception {
+        ParquetFooterCache cache = new ParquetFooterCache(DataSize.ofMegabytes(1));
+        MessageType schema = readSchema(cache.getInputFile(configuration, path));
+
+        corruptMagicNumber();
+        assertEquals(schema, readSchema(cache.getInputFile(configuration, path)));
+    }
+
+    @Test
+    public void testFooterIsReadAgainWhenFileChanges() throws Exception {
+        ParquetFooterCache cache = new ParquetFooterCache(DataSize.ofMegabytes(1));
+        readSchema(cache.getInputFile(configuration, path));
+
+        corruptMagicNumber();
+        assertEquals(true, file.setLastModified(file.lastModified() + 10000));
+        assertThrows(RuntimeException.class, () -> readSchema(cache.getInputFile(configuration, path)));
+    }
+
+    @Test
+    public void testDisabledCache() throws Exception {
+        ParquetFooterCache cache = new ParquetFooterCache(DataSize.ofBytes(0));
+        readSchema(cache.getInputFile(configuration, path));
+
+        corruptMagicNumber();
+        assertThrows(RuntimeException.class, () -> readSchema(cache.getInputFile(configuration, path)));
+    }
+
+    private MessageType readSchema(InputFile inputFile) throws IOException {
+        try (ParquetFileReader reader = ParquetFileReader.open(inputFile)) {
+            return reader.getFileMetaData().getSchema();
+        }
+    }
+
+    /**
+     * Overwrites the magic number at the end of the file, keeping its length
+     * and modification time
+     */
+    private void corruptMagicNumber() throws IOException {
+        long lastModified = file.lastModified();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 4);
+            randomAccessFile.write(new byte[]{'X', 'X', 'X', 'X'});
+        }
+        assertEquals(true, file.setLastModified(lastModified));
+    }
+}
@@ -0,0 +1,115 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParquetFragmenterTest {
+
+    private static final MessageType SCHEMA = MessageTypeParser.parseMessageType(
+            "message test { optional int32 id; optional binary name (UTF8); }");
+
+    @TempDir
+    File tempDir;
+
+    private RequestContext context;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        // three files with a row group each, with ids 0-9, 10-19 and 20-29
+        for (int i = 0; i < 3; i++) {
+            writeFile(new Path(tempDir.getAbsolutePath(), "part-" + i + ".parquet"), i * 10, 10);
+        }
+
+        Configuration configuration = new Configuration();
+        configuration.set("pxf.fs.basePath", "/");
+        context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setDataSource(tempDir.getAbsolutePath());
+        context.setConfiguration(configuration);
+        context.setTupleDescription(Arrays.asList(
+                new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null),
+                new ColumnDescriptor("name", DataType.TEXT.getOID(), 1, "text", null)));
+    }
+
+    @Test
+    public void testFragmentsAreRowGroups() throws Exception {
+        List<Fragment> fragments = getFragments();
+
+        assertEquals(3, fragments.size());
+        for (Fragment fragment : fragments) {
+            HcfsFragmentMetadata metadata = (HcfsFragmentMetadata) fragment.getMetadata();
+            // the first row group starts after the magic number
+            assertEquals(4, metadata.getStart());
+            assertTrue(metadata.getLength() > 0);
+        }
+    }
+
+    @Test
+    public void testRowGroupsArePrunedByStatistics() throws Exception {
+        // id > 15
+        context.setFilterString("a0c23s2d15o2");
+        List<Fragment> fragments = getFragments();
+
+        assertEquals(2, fragments.size());
+        assertTrue(fragments.get(0).getSourceName().endsWith("part-1.parquet"));
+        assertTrue(fragments.get(1).getSourceName().endsWith("part-2.parquet"));
+    }
+
+    @Test
+    public void testAllRowGroupsArePrunedByStatistics() throws Exception {
+        // id = 100
+        context.setFilterString("a0c23s3d100o5");
+        assertEquals(0, getFragments().size());
+    }
+
+    @Test
+    public void testRowGroupsAreNotPrunedByUnsupportedFilter() throws Exception {
+        // name LIKE 'a%'
+        context.setFilterString("a1c25s2da%o7");
+        assertEquals(3, getFragments().size());
+    }
+
+    private List<Fragment> getFragments() throws Exception {
+        ParquetFragmenter fragmenter = new ParquetFragmenter(new ParquetFooterCache(DataSize.ofMegabytes(1)));
+        fragmenter.setRequestContext(context);
+        fragmenter.afterPropertiesSet();
+        List<Fragment> fragments = fragmenter.getFragments();
+        fragments.sort((a, b) -> a.getSourceName().compareTo(b.getSourceName()));
+        return fragments;
+    }
+
+    private void writeFile(Path path, int firstId, int count) throws Exception {
+        SimpleGroupFactory groupFactory = new SimpleGroupFactory(SCHEMA);
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(path)
+                .withType(SCHEMA)
+                .withConf(new Configuration())
+                .build()) {
+            for (int id = firstId; id < firstId + count; id++) {
+                writer.write(groupFactory.newGroup().append("id", id).append("name", "row " + id));
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
+import org.greenplum.pxf.plugins.hdfs.ParquetFileAccessor;
+import org.greenplum.pxf.plugins.hdfs.ParquetResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParquetVectorizedAccessorTest extends ParquetBaseTest {
+
+    private ParquetVectorizedAccessor accessor;
+    private ParquetVectorizedResolver resolver;
+    private ParquetReadAheadScheduler readAheadScheduler;
+    private RequestContext context;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        super.setup();
+        context = newContext(columnDescriptors);
+        readAheadScheduler = new ParquetReadAheadScheduler(DataSize.ofMegabytes(16), DataSize.ofMegabytes(4), 2);
+        accessor = new ParquetVectorizedAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)), readAheadScheduler,
+                new HcfsFileWriterExecutor(16, 4));
+        resolver = new ParquetVectorizedResolver();
+        accessor.setRequestContext(context);
+        resolver.setRequestContext(context);
+        accessor.afterPropertiesSet();
+        resolver.afterPropertiesSet();
+    }
+
+    @Test
+    public void testRowsAreReadInBatches() throws Exception {
+        assertTrue(accessor.openForRead());
+        OneRow batch = accessor.readNextObject();
+        assertNotNull(batch);
+
+        ColumnBatch columnBatch = resolver.getColumnBatch(batch);
+        assertNotNull(columnBatch);
+        assertEquals(25, columnBatch.getSize());
+        assertEquals(DataType.INTEGER, columnBatch.getColumn(0).getDataType());
+        assertEquals(DataType.DATE, columnBatch.getColumn(2).getDataType());
+        assertEquals(DataType.TIMESTAMP, columnBatch.getColumn(6).getDataType());
+        assertEquals(DataType.SMALLINT, columnBatch.getColumn(9).getDataType());
+        assertEquals(DataType.NUMERIC, columnBatch.getColumn(13).getDataType());
+        assertEquals(1, columnBatch.getColumn(0).getLong(0));
+        assertTrue(columnBatch.getColumn(2).isNull(21));
+
+        assertNull(accessor.readNextObject());
+        accessor.closeForRead();
+    }
+
+    @Test
+    public void testBatchIsResolvedLikeRecords() throws Exception {
+        assertRecordsMatch();
+    }
+
+    @Test
+    public void testBatchIsResolvedLikeRecordsWithProjectedColumns() throws Exception {
+        for (int i = 0; i < columnDescriptors.size(); i += 2) {
+            columnDescriptors.get(i).setProjected(false);
+        }
+        assertRecordsMatch();
+
+        accessor.openForRead();
+        ColumnBatch columnBatch = resolver.getColumnBatch(accessor.readNextObject());
+        assertTrue(columnBatch.getColumn(0).isNull(0));
+        assertTrue(columnBatch.getColumn(0).isNull(24));
+        assertEquals(DataType.TEXT, columnBatch.getColumn(1).getDataType());
+        accessor.closeForRead();
+    }
+
+    @Test
+    public void testBatchIsResolvedLikeRecordsWithoutReadAhead() throws Exception {
+        context.addOption("READ_AHEAD_ROWGROUPS", "0");
+        assertRecordsMatch();
+    }
+
+    @Test
+    public void testBatchIsResolvedLikeRecordsWhenReadAheadBudgetIsExhausted() throws Exception {
+        accessor = new ParquetVectorizedAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)),
+                new ParquetReadAheadScheduler(DataSize.ofBytes(0), DataSize.ofBytes(0), 2), new HcfsFileWriterExecutor(16, 4));
+        accessor.setRequestContext(context);
+        accessor.afterPropertiesSet();
+        assertRecordsMatch();
+    }
+
+    @Test
+    public void testBatchIsResolvedLikeRecordsAfterReadAheadIsShutDown() throws Exception {
+        readAheadScheduler.destroy();
+        assertRecordsMatch();
+        assertEquals(0, readAheadScheduler.getReserved());
+    }
+
+    @Test
+    public void testReadAheadMemoryIsReleased() throws Exception {
+        accessor.openForRead();
+        assertNotNull(accessor.readNextObject());
+        assertNull(accessor.readNextObject());
+        accessor.closeForRead();
+
+        assertEquals(0, readAheadScheduler.getReserved());
+        assertNotNull(accessor.getIoWaitTime());
+        assertNotNull(accessor.getDecodeTime());
+    }
+
+    @Test
+    public void testInvalidReadAheadRowGroups() {
+        context.addOption("READ_AHEAD_ROWGROUPS", "-1");
+        assertThrows(IllegalArgumentException.class, accessor::openForRead);
+    }
+
+    @Test
+    public void testRowGroupsArePrunedByFilter() throws Exception {
+        // id = 100
+        context.setFilterString("a0c20s3d100o5");
+        accessor.openForRead();
+        assertNull(accessor.readNextObject());
+        accessor.closeForRead();
+    }
+
+    @Test
+    public void testRecordsAreReadOneByOneWhenSampling() throws Exception {
+        accessor.setSampleRatio(1F);
+        accessor.openForRead();
+        OneRow row = accessor.readNextObject();
+        assertTrue(row.getData() instanceof Group);
+        assertNull(resolver.getColumnBatch(row));
+
+        List<List<OneField>> fields = resolver.getFieldsForBatch(row);
+        assertEquals(1, fields.size());
+        assertEquals(1, fields.get(0).get(0).val);
+        accessor.closeForRead();
+    }
+
+    private void assertRecordsMatch() throws Exception {
+        List<List<OneField>> expected = readRecords();
+
+        List<List<OneField>> actual = new ArrayList<>();
+        accessor.openForRead();
+        OneRow batch;
+        while ((batch = accessor.readNextObject()) != null) {
+            actual.addAll(resolver.getFieldsForBatch(batch));
+        }
+        accessor.closeForRead();
+
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < expected.size(); row++) {
+            for (int column = 0; column < columnDescriptors.size(); column++) {
+                OneField expectedField = expected.get(row).get(column);
+                OneField actualField = actual.get(row).get(column);
+                String message = String.format("row %d, column %d", row, column);
+                assertEquals(expectedField.type, actualField.type, message);
+                if (expectedField.val instanceof byte[]) {
+                    assertArrayEquals((byte[]) expectedField.val, (byte[]) actualField.val, message);
+                } else {
+                    // dates and decimals are resolved in text form
+                    assertEquals(Objects.toString(expectedField.val, null), Objects.toString(actualField.val, null), message);
+                }
+            }
+        }
+    }
+
+    private List<List<OneField>> readRecords() throws Exception {
+        RequestContext recordContext = newContext(columnDescriptors);
+        ParquetFileAccessor recordAccessor = new ParquetFileAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
+        ParquetResolver recordResolver = new ParquetResolver();
+        recordAccessor.setRequestContext(recordContext);
+        recordResolver.setRequestContext(recordContext);
+        recordAccessor.afterPropertiesSet();
+        recordResolver.afterPropertiesSet();
+
+        List<List<OneField>> records = new ArrayList<>();
+        recordAccessor.openForRead();
+        OneRow row;
+        while ((row = recordAccessor.readNextObject()) != null) {
+            records.add(recordResolver.getFields(row));
+        }
+        recordAccessor.closeForRead();
+        return records;
+    }
+
+    private RequestContext newContext(List<ColumnDescriptor> columnDescriptors) {
+        String path = Objects.requireNonNull(getClass().getClassLoader().getResource("parquet/parquet_types.parquet")).getPath();
+
+        RequestContext context = new RequestContext();
+        context.setConfig("fakeConfig");
+        context.setServerName("fakeServerName");
+        context.setUser("test-user");
+        context.setProfileScheme("localfile");
+        context.setRequestType(RequestContext.RequestType.READ_BRIDGE);
+        context.setDataSource(path);
+        context.setFragmentMetadata(new HcfsFragmentMetadata(0, 4196));
+        context.setTupleDescription(columnDescriptors);
+        context.setConfiguration(new Configuration());
+        return context;
+    }
+}
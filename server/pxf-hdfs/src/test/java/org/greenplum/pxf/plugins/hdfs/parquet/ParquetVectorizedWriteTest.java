@@ -0,0 +1,189 @@
+package org.greenplum.pxf.plugins.hdfs.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.HadoopReadOptions;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.error.PxfRuntimeException;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.Accessor;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.HcfsFileWriterExecutor;
+import org.greenplum.pxf.plugins.hdfs.HcfsType;
+import org.greenplum.pxf.plugins.hdfs.ParquetFileAccessor;
+import org.greenplum.pxf.plugins.hdfs.ParquetResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParquetVectorizedWriteTest {
+
+    // more than a batch, the last batch is not full
+    private static final int ROW_COUNT = 2 * ParquetVectorizedAccessor.BATCH_SIZE + 100;
+
+    @TempDir
+    File temp; // must be non-private
+
+    private Configuration configuration;
+    private List<ColumnDescriptor> columnDescriptors;
+
+    @BeforeEach
+    public void setup() {
+        configuration = new Configuration();
+        configuration.set("pxf.fs.basePath", "/");
+        columnDescriptors = Arrays.asList(
+                new ColumnDescriptor("i", DataType.INTEGER.getOID(), 0, "int4", null),
+                new ColumnDescriptor("bi", DataType.BIGINT.getOID(), 1, "int8", null),
+                new ColumnDescriptor("si", DataType.SMALLINT.getOID(), 2, "int2", null),
+                new ColumnDescriptor("d", DataType.FLOAT8.getOID(), 3, "float8", null),
+                new ColumnDescriptor("r", DataType.REAL.getOID(), 4, "real", null),
+                new ColumnDescriptor("b", DataType.BOOLEAN.getOID(), 5, "bool", null),
+                new ColumnDescriptor("t", DataType.TEXT.getOID(), 6, "text", null),
+                new ColumnDescriptor("c", DataType.BPCHAR.getOID(), 7, "char", new Integer[]{5}),
+                new ColumnDescriptor("bin", DataType.BYTEA.getOID(), 8, "bytea", null),
+                new ColumnDescriptor("dec", DataType.NUMERIC.getOID(), 9, "numeric", new Integer[]{10, 2}),
+                new ColumnDescriptor("tm", DataType.TIMESTAMP.getOID(), 10, "timestamp", null),
+                new ColumnDescriptor("dt", DataType.DATE.getOID(), 11, "date", null));
+    }
+
+    @Test
+    public void testBatchesAreWrittenAsGroups() throws Exception {
+        // the same rows written one group at a time and in batches
+        RequestContext recordContext = createContext("records", ParquetResolver.class.getName());
+        ParquetFileAccessor recordAccessor = new ParquetFileAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)), new HcfsFileWriterExecutor(16, 4));
+        ParquetResolver recordResolver = new ParquetResolver();
+        openForWrite(recordAccessor, recordContext);
+        recordResolver.setRequestContext(recordContext);
+        recordResolver.afterPropertiesSet();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertTrue(recordAccessor.writeNextObject(recordResolver.setFields(createRecord(i))));
+        }
+        recordAccessor.closeForWrite();
+
+        RequestContext batchContext = createContext("batches", ParquetVectorizedResolver.class.getName());
+        ParquetVectorizedAccessor batchAccessor = createVectorizedAccessor();
+        ParquetVectorizedResolver batchResolver = new ParquetVectorizedResolver();
+        openForWrite(batchAccessor, batchContext);
+        batchResolver.setRequestContext(batchContext);
+        batchResolver.afterPropertiesSet();
+        List<List<OneField>> records = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            records.add(createRecord(i));
+            if (records.size() == batchResolver.getBatchSize() || i == ROW_COUNT - 1) {
+                OneRow batch = batchResolver.setFieldsForBatch(records);
+                assertTrue(batchAccessor.writeNextObject(batch));
+                records.clear();
+            }
+        }
+        batchAccessor.closeForWrite();
+
+        Path recordFile = new Path(HcfsType.FILE.getUriForWrite(recordContext) + ".snappy.parquet");
+        Path batchFile = new Path(HcfsType.FILE.getUriForWrite(batchContext) + ".snappy.parquet");
+        assertEquals(ROW_COUNT, getRowCount(batchFile));
+        try (ParquetReader<Group> recordReader = ParquetReader.builder(new GroupReadSupport(), recordFile)
+                .withConf(configuration).build();
+             ParquetReader<Group> batchReader = ParquetReader.builder(new GroupReadSupport(), batchFile)
+                     .withConf(configuration).build()) {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                assertEquals(recordReader.read().toString(), batchReader.read().toString(), "row " + i);
+            }
+            assertNull(batchReader.read());
+        }
+    }
+
+    @Test
+    public void testEmptyBatchEndsWrite() throws Exception {
+        ParquetVectorizedResolver resolver = new ParquetVectorizedResolver();
+        resolver.setRequestContext(createContext("empty", ParquetVectorizedResolver.class.getName()));
+        resolver.afterPropertiesSet();
+
+        assertNull(resolver.setFieldsForBatch(Collections.emptyList()));
+    }
+
+    @Test
+    public void testBatchLargerThanBatchSize() throws Exception {
+        RequestContext context = createContext("large", ParquetVectorizedResolver.class.getName());
+        ParquetVectorizedAccessor accessor = createVectorizedAccessor();
+        openForWrite(accessor, context);
+        ParquetVectorizedResolver resolver = new ParquetVectorizedResolver();
+        resolver.setRequestContext(context);
+        resolver.afterPropertiesSet();
+        List<List<OneField>> records = new ArrayList<>();
+        for (int i = 0; i <= resolver.getBatchSize(); i++) {
+            records.add(createRecord(i));
+        }
+
+        assertThrows(PxfRuntimeException.class, () -> resolver.setFieldsForBatch(records));
+        accessor.closeForWrite();
+    }
+
+    private List<OneField> createRecord(int i) {
+        // every column is null in some of the rows
+        boolean isNull = i % 7 == 0;
+        return Arrays.asList(
+                new OneField(DataType.INTEGER.getOID(), isNull ? null : i),
+                new OneField(DataType.BIGINT.getOID(), i % 11 == 0 ? null : (long) i * 1000000000L),
+                new OneField(DataType.SMALLINT.getOID(), isNull ? null : (short) (i % 1000)),
+                new OneField(DataType.FLOAT8.getOID(), isNull ? null : i / 3.0),
+                new OneField(DataType.REAL.getOID(), isNull ? null : i / 7.0f),
+                new OneField(DataType.BOOLEAN.getOID(), isNull ? null : i % 2 == 0),
+                new OneField(DataType.TEXT.getOID(), i % 5 == 0 ? null : "text " + i),
+                new OneField(DataType.BPCHAR.getOID(), isNull ? null : (i % 100) + "  "),
+                new OneField(DataType.BYTEA.getOID(), isNull ? null : new byte[]{(byte) i, (byte) (i >> 8)}),
+                new OneField(DataType.NUMERIC.getOID(), isNull ? null : String.format("%d.%02d", i, i % 100)),
+                new OneField(DataType.TIMESTAMP.getOID(), isNull ? null : String.format("2020-08-%02d 10:11:%02d", i % 28 + 1, i % 60)),
+                new OneField(DataType.DATE.getOID(), isNull ? null : String.format("2020-07-%02d", i % 31 + 1)));
+    }
+
+    private RequestContext createContext(String directory, String resolver) {
+        RequestContext context = new RequestContext();
+        context.setConfig("fakeConfig");
+        context.setServerName("fakeServerName");
+        context.setUser("fakeUser");
+        context.setSegmentId(4);
+        context.setTransactionId("XID-XYZ-123456");
+        context.setRequestType(RequestContext.RequestType.WRITE_BRIDGE);
+        context.setTupleDescription(columnDescriptors);
+        context.setConfiguration(configuration);
+        context.setDataSource(temp + "/out/" + directory + "/");
+        context.setResolver(resolver);
+        return context;
+    }
+
+    private ParquetVectorizedAccessor createVectorizedAccessor() {
+        return new ParquetVectorizedAccessor(new ParquetFooterCache(DataSize.ofMegabytes(1)),
+                new ParquetReadAheadScheduler(DataSize.ofMegabytes(16), DataSize.ofMegabytes(4), 2), new HcfsFileWriterExecutor(16, 4));
+    }
+
+    private void openForWrite(Accessor accessor, RequestContext context) throws Exception {
+        accessor.setRequestContext(context);
+        accessor.afterPropertiesSet();
+        assertTrue(accessor.openForWrite());
+    }
+
+    private long getRowCount(Path file) throws Exception {
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(file, configuration),
+                HadoopReadOptions.builder(configuration).build())) {
+            return reader.getRecordCount();
+        }
+    }
+}
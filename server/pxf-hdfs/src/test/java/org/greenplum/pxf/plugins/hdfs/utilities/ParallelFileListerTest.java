@@ -0,0 +1,197 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.mapred.InvalidInputException;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.PrivilegedExceptionAction;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelFileListerTest {
+
+    @TempDir
+    File tempDir;
+
+    private JobConf jobConf;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        createFile("top.txt");
+        createFile("a/1.txt");
+        createFile("a/b/2.txt");
+        createFile("a/b/c/3.txt");
+        createFile("a/b/c/4.txt");
+        createFile("a/_SUCCESS");
+        createFile("a/.hidden/5.txt");
+        createFile("d/6.txt");
+        createFile("d/e/7.txt");
+
+        jobConf = new JobConf(new Configuration());
+        jobConf.set("pxf.config.server.name", "parallel-lister-test");
+        jobConf.setBoolean("mapreduce.input.fileinputformat.input.dir.recursive", true);
+        jobConf.setInt(ParallelFileLister.LISTING_THREADS_PROPERTY, 4);
+    }
+
+    @Test
+    public void testListsFilesRecursively() throws IOException {
+        PxfInputFormat.setInputPaths(jobConf, new Path(tempDir.getAbsolutePath()));
+
+        List<String> files = getNames(new ParallelFileLister(jobConf).listStatus());
+
+        assertEquals(7, files.size());
+        assertTrue(files.containsAll(Arrays.asList("top.txt", "1.txt", "2.txt", "3.txt", "4.txt", "6.txt", "7.txt")));
+    }
+
+    @Test
+    public void testListsFilesInTheOrderOfASerialListing() throws IOException {
+        PxfInputFormat.setInputPaths(jobConf, new Path(tempDir.getAbsolutePath()));
+
+        JobConf serialJobConf = new JobConf(jobConf);
+        serialJobConf.setInt(ParallelFileLister.LISTING_THREADS_PROPERTY, 1);
+
+        assertEquals(getPaths(new PxfInputFormat().listStatus(serialJobConf)),
+                getPaths(new ParallelFileLister(jobConf).listStatus()));
+    }
+
+    @Test
+    public void testListsSubdirectoriesWhenNotRecursive() throws IOException {
+        jobConf.setBoolean("mapreduce.input.fileinputformat.input.dir.recursive", false);
+        PxfInputFormat.setInputPaths(jobConf, new Path(tempDir.getAbsolutePath(), "d"));
+
+        List<String> files = getNames(new ParallelFileLister(jobConf).listStatus());
+
+        assertEquals(2, files.size());
+        assertTrue(files.containsAll(Arrays.asList("6.txt", "e")));
+    }
+
+    @Test
+    public void testListsFilesMatchingWildcard() throws IOException {
+        PxfInputFormat.setInputPaths(jobConf, new Path(tempDir.getAbsolutePath(), "[ad]"));
+
+        List<String> files = getNames(new ParallelFileLister(jobConf).listStatus());
+
+        assertEquals(6, files.size());
+        assertTrue(files.containsAll(Arrays.asList("1.txt", "2.txt", "3.txt", "4.txt", "6.txt", "7.txt")));
+    }
+
+    @Test
+    public void testListsAsTheUserOfTheRequest() throws Exception {
+        PxfInputFormat.setInputPaths(jobConf, new Path(tempDir.getAbsolutePath()));
+        PxfInputFormat.setInputPathFilter(jobConf, RecordingPathFilter.class);
+        RecordingPathFilter.users.clear();
+        RecordingPathFilter.sessionIds.clear();
+
+        MDC.put("sessionId", "session:1");
+        try {
+            UserGroupInformation.createRemoteUser("alex").doAs((PrivilegedExceptionAction<FileStatus[]>) () ->
+                    new ParallelFileLister(jobConf).listStatus());
+        } finally {
+            MDC.clear();
+        }
+
+        assertEquals(1, RecordingPathFilter.users.size());
+        assertTrue(RecordingPathFilter.users.contains("alex"));
+        assertEquals(1, RecordingPathFilter.sessionIds.size());
+        assertTrue(RecordingPathFilter.sessionIds.contains("session:1"));
+    }
+
+    @Test
+    public void testFailsWhenPathDoesNotExist() {
+        PxfInputFormat.setInputPaths(jobConf, new Path(tempDir.getAbsolutePath(), "non-existent"));
+
+        Exception e = assertThrows(InvalidInputException.class, () -> new ParallelFileLister(jobConf).listStatus());
+        assertTrue(e.getMessage().contains("Input path does not exist:"));
+    }
+
+    @Test
+    public void testPermitsAreReturnedWhenListingFails() {
+        jobConf.set("pxf.config.server.name", "parallel-lister-failure-test");
+        jobConf.setInt(ParallelFileLister.LISTING_MAX_CONCURRENCY_PROPERTY, 2);
+        PxfInputFormat.setInputPaths(jobConf, new Path(tempDir.getAbsolutePath()));
+        PxfInputFormat.setInputPathFilter(jobConf, FailingPathFilter.class);
+
+        for (int i = 0; i < 5; i++) {
+            // a listing would wait for a permit forever if the failed listings kept theirs
+            Exception e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> assertThrows(IOException.class, () -> new ParallelFileLister(jobConf).listStatus()));
+            assertEquals("java.lang.IllegalStateException: failed to list 3.txt", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFailsWhenListingThreadsIsNotPositive() {
+        jobConf.setInt(ParallelFileLister.LISTING_THREADS_PROPERTY, 0);
+
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new ParallelFileLister(jobConf));
+        assertEquals("Property pxf.fs.listing.threads must be set to a positive value, was 0", e.getMessage());
+    }
+
+    private void createFile(String name) throws IOException {
+        File file = new File(tempDir, name);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), name.getBytes());
+    }
+
+    private static List<String> getNames(FileStatus[] statuses) {
+        return Arrays.stream(statuses).map(status -> status.getPath().getName()).collect(Collectors.toList());
+    }
+
+    private static List<String> getPaths(FileStatus[] statuses) {
+        return Arrays.stream(statuses).map(status -> status.getPath().toString()).collect(Collectors.toList());
+    }
+
+    /**
+     * Accepts every path but 3.txt, failing the listing of its directory.
+     */
+    public static class FailingPathFilter implements PathFilter {
+
+        @Override
+        public boolean accept(Path path) {
+            if (path.getName().equals("3.txt")) {
+                throw new IllegalStateException("failed to list 3.txt");
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Accepts every path, recording the user and the session of the threads it is called on.
+     */
+    public static class RecordingPathFilter implements PathFilter {
+
+        static final Set<String> users = ConcurrentHashMap.newKeySet();
+        static final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean accept(Path path) {
+            try {
+                users.add(UserGroupInformation.getCurrentUser().getShortUserName());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            sessionIds.add(String.valueOf(MDC.get("sessionId")));
+            return true;
+        }
+    }
+}
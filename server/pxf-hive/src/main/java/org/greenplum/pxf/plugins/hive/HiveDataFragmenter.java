@@ -43,6 +43,7 @@ import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.FragmentStats;
 import org.greenplum.pxf.api.model.Metadata;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.SplitCache;
 import org.greenplum.pxf.api.utilities.SpringContext;
 import org.greenplum.pxf.plugins.hdfs.HdfsDataFragmenter;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
@@ -50,6 +51,7 @@ import org.greenplum.pxf.plugins.hive.utilities.ProfileFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -309,11 +311,17 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             fragmenterForProfile = context.getFragmenter();
         }
 
-        FileInputFormat.setInputPaths(jobConf, new Path(tablePartition.storageDesc.getLocation()));
+        Path location = new Path(tablePartition.storageDesc.getLocation());
+        FileInputFormat.setInputPaths(jobConf, location);
 
-        InputSplit[] splits;
+        List<InputSplit> splits;
         try {
-            splits = fformat.getSplits(jobConf, 1);
+            if (SplitCache.isEnabled(configuration)) {
+                splits = getSplitCache().get(configuration, context.getUser(), fformat.getClass().getName(), location,
+                        () -> Arrays.asList(fformat.getSplits(jobConf, 1)));
+            } else {
+                splits = Arrays.asList(fformat.getSplits(jobConf, 1));
+            }
         } catch (org.apache.hadoop.mapred.InvalidInputException e) {
             LOG.debug("getSplits failed on " + e.getMessage());
             return;
@@ -3,6 +3,7 @@ package org.greenplum.pxf.plugins.hive;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.apache.hadoop.mapred.FileSplit;
+import org.greenplum.pxf.api.utilities.FileRangeFragmentMetadata;
 import org.greenplum.pxf.plugins.hdfs.HcfsFragmentMetadata;
 
 import java.util.Properties;
@@ -38,4 +39,21 @@ public class HiveFragmentMetadata extends HcfsFragmentMetadata {
         super(fileSplit);
         this.properties = properties;
     }
+
+    /**
+     * Fragments of the same partition share their properties, they only
+     * differ by the range of the file they read.
+     */
+    @Override
+    public boolean differsOnlyByRange(FileRangeFragmentMetadata other) {
+        return getClass() == HiveFragmentMetadata.class && other.getClass() == HiveFragmentMetadata.class
+                && ((HiveFragmentMetadata) other).properties == properties;
+    }
+
+    @Override
+    public FileRangeFragmentMetadata withRange(long start, long length, String[] hosts) {
+        HiveFragmentMetadata metadata = new HiveFragmentMetadata(start, length, properties);
+        metadata.hosts = hosts;
+        return metadata;
+    }
 }
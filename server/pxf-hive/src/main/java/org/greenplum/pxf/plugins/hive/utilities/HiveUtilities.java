@@ -36,8 +36,11 @@ import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.Metadata;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.EnumGpdbType;
+import org.greenplum.pxf.plugins.hdfs.orc.OrcTailCache;
 import org.greenplum.pxf.plugins.hive.orc.PxfReaderImpl;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -51,6 +54,25 @@ public class HiveUtilities {
 
     private static final int DEFAULT_DELIMITER_CODE = 44;
 
+    private final OrcTailCache orcTailCache;
+
+    /**
+     * Creates the utilities without caching the tails of ORC files.
+     */
+    public HiveUtilities() {
+        this(new OrcTailCache(DataSize.ofBytes(0)));
+    }
+
+    /**
+     * Creates the utilities.
+     *
+     * @param orcTailCache the cache of the tails of the ORC files
+     */
+    @Autowired
+    public HiveUtilities(OrcTailCache orcTailCache) {
+        this.orcTailCache = orcTailCache;
+    }
+
     /**
      * Checks if hive type is supported, and if so return its matching GPDB
      * type. Unsupported types will result in an exception. <br>
@@ -204,7 +226,8 @@ public class HiveUtilities {
     }
 
     /**
-     * Creates ORC file reader.
+     * Creates ORC file reader. The tail of the file is served from the
+     * {@link OrcTailCache} when the file has been read before.
      *
      * @param context input data with given data source
      * @return ORC file reader
@@ -216,7 +239,7 @@ public class HiveUtilities {
             // similar to OrcFile.createReader(path.getFileSystem(context.getConfiguration()), path);
             OrcFile.ReaderOptions opts = new OrcFile.ReaderOptions(configuration);
             opts.filesystem(path.getFileSystem(configuration));
-            return new PxfReaderImpl(path, opts);
+            return orcTailCache.createReader(path, opts, p -> new PxfReaderImpl(p, opts));
         } catch (Exception e) {
             throw new RuntimeException("Exception while getting orc reader", e);
         }
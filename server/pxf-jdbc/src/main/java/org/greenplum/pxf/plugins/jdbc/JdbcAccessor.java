@@ -22,8 +22,8 @@ package org.greenplum.pxf.plugins.jdbc;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.ConfigurationFactory;
+import org.greenplum.pxf.api.model.SamplingAccessor;
 import org.greenplum.pxf.api.security.SecureLogin;
 import org.greenplum.pxf.plugins.jdbc.utils.ConnectionManager;
 import org.greenplum.pxf.plugins.jdbc.writercallable.WriterCallable;
@@ -53,8 +53,11 @@ import java.util.concurrent.Future;
  * <p>
  * The INSERT queries are processed by {@link java.sql.PreparedStatement} and
  * built-in JDBC batches of arbitrary size
+ * <p>
+ * When sampling, the rows of the table are sampled by the database if it
+ * supports it, see {@link SQLQueryBuilder#sampleRows(float)}
  */
-public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
+public class JdbcAccessor extends JdbcBasePlugin implements SamplingAccessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(JdbcAccessor.class);
 
@@ -66,6 +69,8 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
     private WriterCallable writerCallable = null;
     private ExecutorService executorServiceWrite = null;
     private List<Future<SQLException>> poolTasks = null;
+    private float sampleRatio;
+    private float readRatio = 1;
 
     /**
      * Creates a new instance of the JdbcAccessor
@@ -107,6 +112,9 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
         } else if (quoteColumns) {
             sqlQueryBuilder.forceSetQuoteString();
         }
+        if (sampleRatio > 0 && sqlQueryBuilder.sampleRows(sampleRatio)) {
+            readRatio = sampleRatio;
+        }
         // Read variables
         String queryRead = sqlQueryBuilder.buildSelectQuery();
         LOG.trace("Select query: {}", queryRead);
@@ -124,6 +132,16 @@ public class JdbcAccessor extends JdbcBasePlugin implements Accessor {
         return true;
     }
 
+    @Override
+    public void setSampleRatio(float sampleRatio) {
+        this.sampleRatio = sampleRatio;
+    }
+
+    @Override
+    public float getReadRatio() {
+        return readRatio;
+    }
+
     /**
      * readNextObject() implementation
      * Retreive the next tuple from resultSet and return it
@@ -13,6 +13,7 @@ import org.greenplum.pxf.plugins.jdbc.utils.DbProduct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.EnumSet;
@@ -78,6 +79,7 @@ public class SQLQueryBuilder {
     private final String source;
     private String quoteString;
     private boolean subQueryUsed = false;
+    private String sampleClause;
 
     /**
      * Construct a new SQLQueryBuilder
@@ -133,6 +135,10 @@ public class SQLQueryBuilder {
                 .append(" FROM ")
                 .append(getSource());
 
+        if (sampleClause != null) {
+            sb.append(" ").append(sampleClause);
+        }
+
         // Insert regular WHERE constraints
         buildWhereSQL(sb);
 
@@ -142,6 +148,35 @@ public class SQLQueryBuilder {
         return sb.toString();
     }
 
+    /**
+     * Lets the database sample the rows of the source table of the SELECT
+     * query, when the database supports sampling every row with the same
+     * probability. Rows of named queries are not sampled.
+     *
+     * @param sampleRatio the ratio of the rows to sample
+     * @return true if the rows are sampled by the database, false otherwise
+     * @throws SQLException if some call of DatabaseMetaData method fails
+     */
+    public boolean sampleRows(float sampleRatio) throws SQLException {
+        if (subQueryUsed || sampleRatio <= 0 || sampleRatio >= 1) {
+            return false;
+        }
+        // TABLESAMPLE was added in PostgreSQL 9.5, databases identified as
+        // Postgres by default might not support it at all
+        if (dbProduct == DbProduct.POSTGRES) {
+            String productName = databaseMetaData.getDatabaseProductName().toUpperCase();
+            int majorVersion = databaseMetaData.getDatabaseMajorVersion();
+            if (!productName.contains("POSTGRES")
+                    || majorVersion < 9
+                    || (majorVersion == 9 && databaseMetaData.getDatabaseMinorVersion() < 5)) {
+                return false;
+            }
+        }
+        String percent = new BigDecimal(Float.toString(sampleRatio)).movePointRight(2).toPlainString();
+        sampleClause = dbProduct.buildSampleClause(percent);
+        return sampleClause != null;
+    }
+
     /**
      * Build INSERT query template (field values are replaced by placeholders '?')
      *
@@ -25,6 +25,7 @@ import org.greenplum.pxf.plugins.jdbc.utils.DbProduct;
 
 import java.sql.Date;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.stream.Stream;
 
 @NoArgsConstructor
@@ -60,6 +61,18 @@ class DatePartition extends BasePartition implements JdbcFragmentMetadata {
         this.boundaries = boundaries;
     }
 
+    /**
+     * @return the number of days in the range of the partition, or -1 for partitions without
+     * two boundaries, as the number of rows in them is unknown
+     */
+    @Override
+    public long getEstimatedSize() {
+        if (boundaries == null || boundaries.length != 2 || boundaries[0] == null || boundaries[1] == null) {
+            return -1;
+        }
+        return Math.max(ChronoUnit.DAYS.between(boundaries[0].toLocalDate(), boundaries[1].toLocalDate()), 0);
+    }
+
     @Override
     public String toSqlConstraint(String quoteString, DbProduct dbProduct) {
         if (quoteString == null) {
@@ -48,6 +48,20 @@ public class IntPartition extends BasePartition implements JdbcFragmentMetadata
         this.boundaries = boundaries;
     }
 
+    /**
+     * @return the number of values in the range of the partition, or -1 for partitions without
+     * two boundaries, as the number of rows in them is unknown
+     */
+    @Override
+    public long getEstimatedSize() {
+        if (boundaries == null || boundaries.length != 2 || boundaries[0] == null || boundaries[1] == null) {
+            return -1;
+        }
+        long size = boundaries[1] - boundaries[0];
+        // the difference overflows for ranges wider than Long.MAX_VALUE
+        return size < 0 ? Long.MAX_VALUE : size;
+    }
+
     @Override
     public String toSqlConstraint(String quoteString, DbProduct dbProduct) {
         if (quoteString == null) {
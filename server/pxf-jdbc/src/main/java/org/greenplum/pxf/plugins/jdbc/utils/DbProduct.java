@@ -60,6 +60,11 @@ public enum DbProduct {
         public String buildSessionQuery(String key, String value) {
             return String.format("ALTER SESSION SET %s = %s", key, value);
         }
+
+        @Override
+        public String buildSampleClause(String percent) {
+            return String.format("SAMPLE (%s)", percent);
+        }
     },
 
     POSTGRES {
@@ -67,6 +72,11 @@ public enum DbProduct {
         public String wrapDate(Object val) {
             return "date'" + val + "'";
         }
+
+        @Override
+        public String buildSampleClause(String percent) {
+            return String.format("TABLESAMPLE BERNOULLI (%s)", percent);
+        }
     },
 
     S3_SELECT {
@@ -110,6 +120,18 @@ public enum DbProduct {
         return String.format("SET %s = %s", key, value);
     }
 
+    /**
+     * Build a clause that samples the rows of a table, to be added after the
+     * table name in the FROM clause of a query. Every row of the table must
+     * have the same probability of being returned.
+     *
+     * @param percent the percentage of the rows to return
+     * @return a string with the sampling clause, or null if the database does not support row sampling
+     */
+    public String buildSampleClause(String percent) {
+        return null;
+    }
+
     /**
      * Get DbProduct for database by database name
      *
@@ -35,6 +35,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -532,6 +534,55 @@ public class SQLQueryBuilderTest {
         assertEquals("SELECT id, cdate, amt, grade, b FROM sales WHERE NOT (b)", builder.buildSelectQuery());
     }
 
+    @Test
+    public void testSampleRowsPostgres() throws Exception {
+        when(mockMetaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(mockMetaData.getDatabaseMajorVersion()).thenReturn(12);
+        context.setFilterString("a0c20s1d1o5");
+
+        SQLQueryBuilder builder = new SQLQueryBuilder(context, mockMetaData);
+        assertTrue(builder.sampleRows(0.015F));
+        assertEquals(SQL + " TABLESAMPLE BERNOULLI (1.5) WHERE id = 1", builder.buildSelectQuery());
+    }
+
+    @Test
+    public void testSampleRowsOracle() throws Exception {
+        when(mockMetaData.getDatabaseProductName()).thenReturn("Oracle");
+
+        SQLQueryBuilder builder = new SQLQueryBuilder(context, mockMetaData);
+        assertTrue(builder.sampleRows(0.1F));
+        assertEquals(SQL + " SAMPLE (10)", builder.buildSelectQuery());
+    }
+
+    @Test
+    public void testSampleRowsNotSupported() throws Exception {
+        when(mockMetaData.getDatabaseProductName()).thenReturn("mysql");
+
+        SQLQueryBuilder builder = new SQLQueryBuilder(context, mockMetaData);
+        assertFalse(builder.sampleRows(0.1F));
+        assertEquals(SQL, builder.buildSelectQuery());
+    }
+
+    @Test
+    public void testSampleRowsOldPostgres() throws Exception {
+        when(mockMetaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(mockMetaData.getDatabaseMajorVersion()).thenReturn(9);
+        when(mockMetaData.getDatabaseMinorVersion()).thenReturn(4);
+
+        SQLQueryBuilder builder = new SQLQueryBuilder(context, mockMetaData);
+        assertFalse(builder.sampleRows(0.1F));
+        assertEquals(SQL, builder.buildSelectQuery());
+    }
+
+    @Test
+    public void testSampleRowsNamedQuery() throws Exception {
+        when(mockMetaData.getDatabaseProductName()).thenReturn("Oracle");
+
+        SQLQueryBuilder builder = new SQLQueryBuilder(context, mockMetaData, NAMED_QUERY);
+        assertFalse(builder.sampleRows(0.1F));
+        assertEquals("SELECT id, cdate, amt, grade, b FROM (SELECT a, b FROM c) pxfsubquery", builder.buildSelectQuery());
+    }
+
     private Fragmenter getFragmenter(RequestContext context) {
         JdbcPartitionFragmenter fragmenter = new JdbcPartitionFragmenter();
         fragmenter.setRequestContext(context);
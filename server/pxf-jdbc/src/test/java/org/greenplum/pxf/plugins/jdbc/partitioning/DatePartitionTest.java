@@ -69,6 +69,13 @@ public class DatePartitionTest {
         );
     }
 
+    @Test
+    public void testEstimatedSize() {
+        assertEquals(31, new DatePartition(COL_RAW, LocalDate.parse("2000-01-01"), LocalDate.parse("2000-02-01")).getEstimatedSize());
+        assertEquals(-1, new DatePartition(COL_RAW, null, LocalDate.parse("2000-01-01")).getEstimatedSize());
+        assertEquals(-1, new DatePartition(COL_RAW, LocalDate.parse("2000-01-01"), null).getEstimatedSize());
+    }
+
     @Test
     public void testSpecialDateValue() {
         DatePartition partition = new DatePartition(COL_RAW, LocalDate.parse("0001-01-01"), LocalDate.parse("1970-01-02"));
@@ -81,6 +81,14 @@ public class IntPartitionTest {
         assertEquals(COL + " = 0", constraint);
     }
 
+    @Test
+    public void testEstimatedSize() {
+        assertEquals(10, new IntPartition(COL_RAW, -5L, 5L).getEstimatedSize());
+        assertEquals(-1, new IntPartition(COL_RAW, null, 0L).getEstimatedSize());
+        assertEquals(-1, new IntPartition(COL_RAW, 0L, null).getEstimatedSize());
+        assertEquals(Long.MAX_VALUE, new IntPartition(COL_RAW, Long.MIN_VALUE, Long.MAX_VALUE).getEstimatedSize());
+    }
+
     @Test
     public void testInvalidBothBoundariesNull() {
         assertThrows(RuntimeException.class,
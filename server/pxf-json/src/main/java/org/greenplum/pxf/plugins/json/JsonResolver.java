@@ -27,6 +27,8 @@ import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.error.BadRecordException;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.BasePlugin;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.ResettablePlugin;
 import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.SpringContext;
@@ -43,7 +45,7 @@ import java.util.StringJoiner;
  * decode this data into a JsonNode and walk the tree for each column. It supports normal value mapping via projections
  * and JSON array indexing.
  */
-public class JsonResolver extends BasePlugin implements Resolver {
+public class JsonResolver extends BasePlugin implements Resolver, ResettablePlugin {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
@@ -72,6 +74,16 @@ public class JsonResolver extends BasePlugin implements Resolver {
         }
     }
 
+    /**
+     * Keeps the precomputed column metadata, the columns of the fragments of
+     * a query are the same.
+     */
+    @Override
+    public void reset(RequestContext context) {
+        setRequestContext(context);
+        oneFieldList.clear();
+    }
+
     @Override
     public List<OneField> getFields(OneRow row) throws Exception {
         oneFieldList.clear();
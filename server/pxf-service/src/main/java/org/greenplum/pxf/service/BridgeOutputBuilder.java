@@ -19,7 +19,6 @@ package org.greenplum.pxf.service;
  * under the License.
  */
 
-import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
@@ -27,6 +26,7 @@ import org.greenplum.pxf.api.GreenplumDateTime;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.error.BadRecordException;
 import org.greenplum.pxf.api.io.BufferWritable;
+import org.greenplum.pxf.api.io.CsvRowEncoder;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.io.GPDBWritable;
 import org.greenplum.pxf.api.io.Text;
@@ -45,7 +45,6 @@ import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static org.greenplum.pxf.api.io.DataType.TEXT;
 
@@ -62,6 +61,7 @@ public class BridgeOutputBuilder {
     private static final Logger LOG = LoggerFactory.getLogger(BridgeOutputBuilder.class);
 
     private static final byte DELIM = 10; /* (byte)'\n'; */
+    private static final int CSV_ROW_BUFFER_SIZE = 64 * 1024;
     public static final List<DataType> DATA_TYPES_SERIALIZED_AS_STRINGS = Arrays.asList(
             DataType.VARCHAR,
             DataType.BPCHAR,
@@ -90,6 +90,7 @@ public class BridgeOutputBuilder {
     private final OutputFormat outputFormat;
     private final List<ColumnDescriptor> columnDescriptors;
     private final String gpdbTableformat;
+    private final CsvRowEncoder csvRowEncoder;
 
     /**
      * Constructs a BridgeOutputBuilder.
@@ -108,6 +109,9 @@ public class BridgeOutputBuilder {
         makeErrorRecord();
         samplingEnabled = (context.getStatsSampleRatio() > 0);
         gpdbTableformat = context.getFormat();
+        // for CSV format bytea is escaped using single \, for Text or Custom format it should be \\
+        csvRowEncoder = (outputFormat == OutputFormat.GPDBWritable) ? null
+                : new CsvRowEncoder(greenplumCSV, "csv".equalsIgnoreCase(gpdbTableformat), CSV_ROW_BUFFER_SIZE);
     }
 
     /**
@@ -168,6 +172,7 @@ public class BridgeOutputBuilder {
         }
 
         outputList.clear();
+        clearCSVRows();
 
         fillOutputRecord(recFields);
 
@@ -176,6 +181,7 @@ public class BridgeOutputBuilder {
 
     public LinkedList<Writable> makeVectorizedOutput(List<List<OneField>> recordsBatch) throws BadRecordException {
         outputList.clear();
+        clearCSVRows();
         if (recordsBatch != null) {
             for (List<OneField> record : recordsBatch) {
                 if (outputFormat == OutputFormat.GPDBWritable) {
@@ -343,7 +349,7 @@ public class BridgeOutputBuilder {
             } else if (recFields.size() == 1 && val instanceof String) {
                 output = new Text(val + newLine);
             } else {
-                output = new Text(fieldListToCSVString(recFields));
+                output = encodeCSVRow(recFields);
             }
         }
 
@@ -491,31 +497,55 @@ public class BridgeOutputBuilder {
     }
 
     /**
-     * Serialize a list of OneFields to a CSV line
+     * Serializes a list of OneFields to a CSV line. The line is encoded into the buffer shared by
+     * all the lines of the current output list, and the returned writable references its bytes.
      *
      * @param fields list of fields
-     * @return a serialized CSV line
+     * @return the writable for the serialized CSV line
      */
-    private String fieldListToCSVString(List<OneField> fields) {
-        return fields.stream()
-                .map(field -> {
-                    // Check first if the field.val is null then using .toString() is safe in else branches.
-                    if (field.val == null)
-                        return greenplumCSV.getValueOfNull();
-                    else if (field.type == DataType.BYTEA.getOID()) {
-                        // check for Format Type here. if the Format Type is CSV, we should escape using single \
-                        // for Text or Custom Format types, it should \\
-                        String hexPrepend = gpdbTableformat.equalsIgnoreCase("csv") ? "\\x" : "\\\\x";
-                        return hexPrepend + Hex.encodeHexString((byte[]) field.val);
-                    } else if (field.type == DataType.NUMERIC.getOID() || !DataType.isTextForm(field.type))
-                        return field.val.toString();
-                    else if (field.type == DataType.TIMESTAMP.getOID())
-                        return ((Timestamp) field.val).toLocalDateTime().format(GreenplumDateTime.DATETIME_FORMATTER);
-                    else if (field.type == DataType.DATE.getOID())
-                        return field.val.toString();
-                    else
-                        return greenplumCSV.toCsvField(field.val.toString(), true, true, true);
-                })
-                .collect(Collectors.joining(String.valueOf(greenplumCSV.getDelimiter()), "", newLine));
+    private Writable encodeCSVRow(List<OneField> fields) {
+        int start = csvRowEncoder.size();
+        csvRowEncoder.beginRecord();
+        for (OneField field : fields) {
+            // Check first if the field.val is null then using .toString() is safe in else branches.
+            if (field.val == null) {
+                csvRowEncoder.addNull();
+            } else if (field.type == DataType.BYTEA.getOID()) {
+                byte[] bytes = (byte[]) field.val;
+                csvRowEncoder.addBytea(bytes, 0, bytes.length);
+            } else if (field.type == DataType.NUMERIC.getOID() || !DataType.isTextForm(field.type)) {
+                addCSVValue(field.val);
+            } else if (field.type == DataType.TIMESTAMP.getOID()) {
+                csvRowEncoder.addTimestamp(((Timestamp) field.val).toLocalDateTime());
+            } else if (field.type == DataType.DATE.getOID()) {
+                csvRowEncoder.addValue(field.val.toString());
+            } else {
+                csvRowEncoder.addText(field.val.toString());
+            }
+        }
+        csvRowEncoder.endRecord();
+        return new BufferWritable(csvRowEncoder.getBuffer(), start, csvRowEncoder.size() - start);
+    }
+
+    /**
+     * Adds a value that does not require quoting, avoiding the string conversion for primitives.
+     */
+    private void addCSVValue(Object val) {
+        if (val instanceof Integer || val instanceof Long || val instanceof Short) {
+            csvRowEncoder.addLong(((Number) val).longValue());
+        } else if (val instanceof Boolean) {
+            csvRowEncoder.addBoolean((Boolean) val);
+        } else {
+            csvRowEncoder.addValue(val.toString());
+        }
+    }
+
+    /**
+     * Discards the CSV lines of the previous output list, which have been consumed by now.
+     */
+    private void clearCSVRows() {
+        if (csvRowEncoder != null) {
+            csvRowEncoder.clear();
+        }
     }
 }
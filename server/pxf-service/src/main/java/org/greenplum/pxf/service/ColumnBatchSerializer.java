@@ -0,0 +1,294 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.error.BadRecordException;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.CsvRowEncoder;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.GPDBWritableEncoder;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.greenplum.pxf.service.BridgeOutputBuilder.DATA_TYPES_SERIALIZED_AS_STRINGS;
+import static org.greenplum.pxf.service.BridgeOutputBuilder.DATA_TYPES_SERIALIZED_AS_STRING_ARRAYS;
+
+/**
+ * Serializes the rows of a {@link ColumnBatch} straight from the column vectors into
+ * the GPDBWritable or the CSV/TEXT wire format, without boxing the values into
+ * {@link org.greenplum.pxf.api.OneField} objects. The serializer itself is the
+ * {@link Writable} for the current row of the batch: {@link #nextRow()} moves it
+ * to the next row and {@link #write(DataOutput)} writes that row. Only the selected
+ * rows of the batch are written, see {@link ColumnBatch#getRow(int)}.
+ * <p>
+ * The rows are encoded into the buffer of the encoder, which is written to the output
+ * once it is full and after the last row of the batch, so that the rows of a batch
+ * are written out in a few large writes instead of one write per row.
+ */
+public class ColumnBatchSerializer implements Writable {
+
+    private static final int ENCODER_BUFFER_SIZE = 8 * 1024;
+
+    private final OutputFormat outputFormat;
+    private final byte[] newLineBytes;
+    private final int[] schema;
+    private final String[] colNames;
+    private final boolean samplingEnabled;
+    private final GPDBWritableEncoder encoder;
+    private final CsvRowEncoder csvRowEncoder;
+
+    private ColumnBatch batch;
+    // the position of the current row in the batch, and its index in the vectors
+    private int position;
+    private int row;
+
+    /**
+     * Creates a serializer for the output format and the columns of the request.
+     *
+     * @param context request context
+     */
+    public ColumnBatchSerializer(RequestContext context) {
+        outputFormat = context.getOutputFormat();
+        newLineBytes = context.getGreenplumCSV().getNewline().getBytes(StandardCharsets.UTF_8);
+
+        List<ColumnDescriptor> columnDescriptors = context.getTupleDescription();
+        int numColumns = columnDescriptors.size();
+        schema = new int[numColumns];
+        colNames = new String[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            schema[i] = columnDescriptors.get(i).columnTypeCode();
+            colNames[i] = columnDescriptors.get(i).columnName();
+        }
+        if (outputFormat == OutputFormat.GPDBWritable) {
+            encoder = new GPDBWritableEncoder(schema, context.getDatabaseEncoding(), ENCODER_BUFFER_SIZE);
+            csvRowEncoder = null;
+        } else {
+            encoder = null;
+            // for CSV format bytea is escaped using single \, for Text or Custom format it should be \\
+            csvRowEncoder = new CsvRowEncoder(context.getGreenplumCSV(),
+                    "csv".equalsIgnoreCase(context.getFormat()), ENCODER_BUFFER_SIZE);
+        }
+        samplingEnabled = (context.getStatsSampleRatio() > 0);
+    }
+
+    /**
+     * Tests whether the rows of the given batch can be serialized from the column vectors,
+     * that is whether every vector holds values in the form the Greenplum column expects.
+     * Batches that can not be serialized are expected to be resolved into fields instead,
+     * so that the values are converted or rejected the same way as for any other record.
+     *
+     * @param columnBatch the batch to test
+     * @return true if the batch can be serialized
+     */
+    public boolean supports(ColumnBatch columnBatch) {
+        if (columnBatch.getColumnCount() != schema.length) {
+            return false;
+        }
+        if (samplingEnabled && outputFormat != OutputFormat.GPDBWritable && schema.length == 1
+                && columnBatch.getColumn(0).getDataType() == DataType.BYTEA) {
+            // a single bytea value is broken into lines when sampling
+            return false;
+        }
+        for (int i = 0; i < schema.length; i++) {
+            if (!isTypeInSchema(columnBatch.getColumn(i).getDataType(), schema[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prepares the serializer to serialize the rows of the given batch. Validates that the
+     * types of the column vectors correspond to the types of the Greenplum columns.
+     *
+     * @param columnBatch the batch to serialize
+     * @throws BadRecordException if the batch does not match the Greenplum table definition
+     */
+    public void reset(ColumnBatch columnBatch) throws BadRecordException {
+        if (columnBatch.getColumnCount() != schema.length) {
+            throw new BadRecordException("Record has " + columnBatch.getColumnCount()
+                    + " fields but the schema size is " + schema.length);
+        }
+        for (int i = 0; i < schema.length; i++) {
+            DataType vectorType = columnBatch.getColumn(i).getDataType();
+            if (!isTypeInSchema(vectorType, schema[i])) {
+                throw new BadRecordException(
+                        String.format("For field %s schema requires type %s but input record has type %s",
+                                colNames[i], DataType.get(schema[i]), vectorType));
+            }
+        }
+        this.batch = columnBatch;
+        this.position = -1;
+        this.row = -1;
+        // discard what is left of a batch that was not served completely
+        if (encoder != null) {
+            encoder.clear();
+        } else {
+            csvRowEncoder.clear();
+        }
+    }
+
+    /**
+     * Moves to the next row of the batch.
+     *
+     * @return true if there is a next row, false if all rows of the batch have been served
+     */
+    public boolean nextRow() {
+        if (batch == null || position + 1 >= batch.getSize()) {
+            return false;
+        }
+        position++;
+        row = batch.getRow(position);
+        return true;
+    }
+
+    /**
+     * Writes the current row of the batch in the output format of the request. The row
+     * is buffered, it is written to the output with the rows before it once the buffer
+     * is full or the row is the last row of the batch.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing failed
+     */
+    @Override
+    public void write(DataOutput out) throws IOException {
+        if (outputFormat == OutputFormat.GPDBWritable) {
+            writeGPDBWritable(out);
+        } else {
+            writeText(out);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readFields(DataInput in) {
+        throw new UnsupportedOperationException("ColumnBatchSerializer does not support reading");
+    }
+
+    private void writeGPDBWritable(DataOutput out) throws IOException {
+        encoder.beginRecord();
+        for (int i = 0; i < schema.length; i++) {
+            ColumnVector column = batch.getColumn(i);
+            if (column.isNull(row)) {
+                continue;
+            }
+            switch (column.getDataType()) {
+                case BIGINT:
+                    encoder.setLong(i, column.getLong(row));
+                    break;
+                case BOOLEAN:
+                    encoder.setBoolean(i, column.getLong(row) != 0);
+                    break;
+                case FLOAT8:
+                    encoder.setDouble(i, column.getDouble(row));
+                    break;
+                case INTEGER:
+                    encoder.setInt(i, (int) column.getLong(row));
+                    break;
+                case REAL:
+                    encoder.setFloat(i, (float) column.getDouble(row));
+                    break;
+                case SMALLINT:
+                    encoder.setShort(i, (short) column.getLong(row));
+                    break;
+                case BYTEA:
+                    encoder.setBytes(i, column.getBytes(row), column.getBytesStart(row), column.getBytesLength(row));
+                    break;
+                default:
+                    encoder.setText(i, column.getBytes(row), column.getBytesStart(row), column.getBytesLength(row));
+            }
+        }
+        encoder.endRecord();
+        if (encoder.isFull() || isLastRow()) {
+            encoder.writeTo(out);
+        }
+    }
+
+    private void writeText(DataOutput out) throws IOException {
+        int numColumns = schema.length;
+
+        if (numColumns == 1) {
+            // a single value is sent the same way BridgeOutputBuilder sends single field records
+            ColumnVector column = batch.getColumn(0);
+            if (!column.isNull(row) && column.getStorage() == ColumnVector.Storage.BYTES) {
+                // the rows buffered so far are written first to keep the order of the rows
+                if (csvRowEncoder.getRecordCount() > 0) {
+                    csvRowEncoder.writeTo(out);
+                }
+                out.write(column.getBytes(row), column.getBytesStart(row), column.getBytesLength(row));
+                if (column.getDataType() != DataType.BYTEA) {
+                    out.write(newLineBytes);
+                }
+                return;
+            }
+        }
+
+        csvRowEncoder.beginRecord();
+        for (int i = 0; i < numColumns; i++) {
+            ColumnVector column = batch.getColumn(i);
+            if (column.isNull(row)) {
+                csvRowEncoder.addNull();
+                continue;
+            }
+            switch (column.getDataType()) {
+                case BOOLEAN:
+                    csvRowEncoder.addBoolean(column.getLong(row) != 0);
+                    break;
+                case BIGINT:
+                case INTEGER:
+                case SMALLINT:
+                    csvRowEncoder.addLong(column.getLong(row));
+                    break;
+                case REAL:
+                    csvRowEncoder.addFloat((float) column.getDouble(row));
+                    break;
+                case FLOAT8:
+                    csvRowEncoder.addDouble(column.getDouble(row));
+                    break;
+                case BYTEA:
+                    csvRowEncoder.addBytea(column.getBytes(row), column.getBytesStart(row), column.getBytesLength(row));
+                    break;
+                case NUMERIC:
+                case TIMESTAMP:
+                case DATE:
+                    // already in the Greenplum text representation, no quoting required
+                    csvRowEncoder.addValue(column.getBytes(row), column.getBytesStart(row), column.getBytesLength(row));
+                    break;
+                default:
+                    csvRowEncoder.addText(column.getBytes(row), column.getBytesStart(row), column.getBytesLength(row));
+            }
+        }
+        csvRowEncoder.endRecord();
+        if (csvRowEncoder.isFull() || isLastRow()) {
+            csvRowEncoder.writeTo(out);
+        }
+    }
+
+    private boolean isLastRow() {
+        return position + 1 >= batch.getSize();
+    }
+
+    /**
+     * Tests if the type of a column vector corresponds to the type of the Greenplum column,
+     * following the same rules as {@link BridgeOutputBuilder}. Additionally, a vector can
+     * only be sent as text if its values are text.
+     */
+    private static boolean isTypeInSchema(DataType vectorType, int schemaType) {
+        DataType dtSchema = DataType.get(schemaType);
+        if (DataType.isTextForm(vectorType.getOID()) != DataType.isTextForm(dtSchema.getOID())) {
+            return false;
+        }
+        return dtSchema == DataType.UNSUPPORTED_TYPE || vectorType == dtSchema
+                || (DATA_TYPES_SERIALIZED_AS_STRINGS.contains(vectorType) && DATA_TYPES_SERIALIZED_AS_STRINGS.contains(dtSchema))
+                || (DATA_TYPES_SERIALIZED_AS_STRING_ARRAYS.contains(vectorType) && DATA_TYPES_SERIALIZED_AS_STRING_ARRAYS.contains(dtSchema));
+    }
+}
@@ -0,0 +1,74 @@
+package org.greenplum.pxf.service;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.greenplum.pxf.api.model.RequestContext;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Policies for distributing the fragments of a query across the segments. The policy is chosen with the
+ * FRAGMENT_DISTRIBUTION option, or for all queries of a server with the pxf.fragment.distribution property.
+ * Every segment computes its share of the fragments independently of the other segments, so a policy must
+ * assign the fragments deterministically from the list of fragments and the values shared by all segments
+ * of the query.
+ */
+enum FragmentDistribution {
+
+    /**
+     * Every segment processes every N-th fragment
+     */
+    ROUND_ROBIN("round-robin"),
+
+    /**
+     * Fragments are assigned to segments running on the hosts that store their data, when the client
+     * sent the hosts of the segments and the fragments know the location of their data
+     */
+    LOCALITY("locality"),
+
+    /**
+     * Fragments are assigned so that every segment processes about the same amount of data, using
+     * the estimated sizes of the fragments
+     */
+    SIZE("size");
+
+    static final String FRAGMENT_DISTRIBUTION_OPTION = "FRAGMENT_DISTRIBUTION";
+    static final String FRAGMENT_DISTRIBUTION_PROPERTY = "pxf.fragment.distribution";
+
+    private final String policyName;
+
+    FragmentDistribution(String policyName) {
+        this.policyName = policyName;
+    }
+
+    public String getPolicyName() {
+        return policyName;
+    }
+
+    /**
+     * Returns the policy requested for the query, the round-robin policy is used by default.
+     *
+     * @param context the request context
+     * @return the policy
+     * @throws IllegalArgumentException if the requested policy does not exist
+     */
+    static FragmentDistribution forContext(RequestContext context) {
+        String policyName = context.getOption(FRAGMENT_DISTRIBUTION_OPTION);
+        if (StringUtils.isBlank(policyName)) {
+            Configuration configuration = context.getConfiguration();
+            policyName = configuration == null ? null : configuration.get(FRAGMENT_DISTRIBUTION_PROPERTY);
+        }
+        if (StringUtils.isBlank(policyName)) {
+            return ROUND_ROBIN;
+        }
+        for (FragmentDistribution distribution : values()) {
+            if (distribution.policyName.equalsIgnoreCase(policyName.trim())) {
+                return distribution;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "invalid %s value '%s'. Supported values are %s", FRAGMENT_DISTRIBUTION_OPTION, policyName,
+                Arrays.stream(values()).map(FragmentDistribution::getPolicyName).collect(Collectors.joining(", "))));
+    }
+}
@@ -19,24 +19,42 @@ package org.greenplum.pxf.service;
  * under the License.
  */
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.security.UserGroupInformation;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.Fragmenter;
+import org.greenplum.pxf.api.model.FragmenterTimings;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.FragmentStream;
 import org.greenplum.pxf.api.utilities.FragmenterCacheFactory;
 import org.greenplum.pxf.service.utilities.AnalyzeUtils;
 import org.greenplum.pxf.service.utilities.BasePluginFactory;
 import org.greenplum.pxf.service.utilities.GSSFailureHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.PrivilegedAction;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * The {@link FragmenterService} returns fragments for a given segment. It
@@ -45,20 +63,47 @@ import java.util.concurrent.ExecutionException;
  * segments will wait until the list of fragments is populated.
  */
 @Component
-public class FragmenterService {
+public class FragmenterService implements DisposableBean {
 
     private static final Logger LOG = LoggerFactory.getLogger(FragmenterService.class);
 
+    static final String WORK_STEALING_OPTION = "FRAGMENT_WORK_STEALING";
+    static final String WORK_STEALING_PROPERTY = "pxf.fragment.work-stealing";
+    static final String STREAMING_OPTION = "FRAGMENT_STREAMING";
+    static final String STREAMING_PROPERTY = "pxf.fragment.streaming";
+
     private final BasePluginFactory pluginFactory;
     private final FragmenterCacheFactory fragmenterCacheFactory;
     private final GSSFailureHandler failureHandler;
+    private final SharedFragmentQueueRegistry sharedFragmentQueueRegistry;
+    private final MetricsReporter metricsReporter;
+    private final ExecutorService streamingExecutor;
 
     public FragmenterService(FragmenterCacheFactory fragmenterCacheFactory,
                              BasePluginFactory pluginFactory,
-                             GSSFailureHandler failureHandler) {
+                             GSSFailureHandler failureHandler,
+                             SharedFragmentQueueRegistry sharedFragmentQueueRegistry,
+                             MetricsReporter metricsReporter,
+                             @Value("${pxf.fragment.streaming.max-threads:200}") int streamingMaxThreads) {
         this.fragmenterCacheFactory = fragmenterCacheFactory;
         this.pluginFactory = pluginFactory;
         this.failureHandler = failureHandler;
+        this.sharedFragmentQueueRegistry = sharedFragmentQueueRegistry;
+        this.metricsReporter = metricsReporter;
+        // enumerations waiting for a thread are queued, the segments read their streams once they start
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(streamingMaxThreads, streamingMaxThreads,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("pxf-fragmenter-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        this.streamingExecutor = executor;
+    }
+
+    /**
+     * Stops the threads enumerating the fragments that are streamed when the service shuts down.
+     */
+    @Override
+    public void destroy() {
+        streamingExecutor.shutdownNow();
     }
 
     public List<Fragment> getFragmentsForSegment(RequestContext context) throws IOException {
@@ -77,11 +122,7 @@ public class FragmenterService {
 
         List<Fragment> fragments = getFragmentsFromCache(context, startTime);
 
-        List<Fragment> filteredFragments = filterFragments(fragments,
-                context.getSegmentId(),
-                context.getTotalSegments(),
-                context.getGpSessionId(),
-                context.getGpCommandCount());
+        List<Fragment> filteredFragments = filterFragments(fragments, context);
 
         if (LOG.isDebugEnabled()) {
             int numberOfFragments = filteredFragments.size();
@@ -95,6 +136,173 @@ public class FragmenterService {
         return filteredFragments;
     }
 
+    /**
+     * Adds the fragments of the segment to the queue shared by the segments of the same scan that send their
+     * requests to this server, when work stealing is enabled with the FRAGMENT_WORK_STEALING option or the
+     * pxf.fragment.work-stealing property. The segment then processes the fragments it takes from the queue
+     * instead of its own fragments, and must close the returned participant when it is done.
+     * <p>
+     * The queue is specific to the scan when the client identifies it with the X-GP-SCAN-ID header. Otherwise
+     * a segment that already joined the queue of the same table in the command, because the command scans the
+     * table more than once, processes its own fragments.
+     *
+     * @param context   the request context
+     * @param fragments the fragments assigned to the segment by {@link #getFragmentsForSegment(RequestContext)}
+     * @return the participant of the segment in the shared queue, or null if work stealing is not enabled or
+     * the segment processes its own fragments
+     */
+    public SharedFragmentQueue.Participant joinSharedFragmentQueue(RequestContext context, List<Fragment> fragments) {
+        if (!isWorkStealingEnabled(context)) {
+            return null;
+        }
+        // segments of the same command of a session scan the same data, the key of the fragmenter cache
+        // alone might be shared by the commands of a transaction
+        String queueKey = String.format("%s:%d:%d", getFragmenterCacheKey(context),
+                context.getGpSessionId(), context.getGpCommandCount());
+        if (context.getScanId() != null) {
+            queueKey += ":" + context.getScanId();
+        }
+        return sharedFragmentQueueRegistry.join(queueKey, context.getSegmentId(), fragments);
+    }
+
+    /**
+     * Returns the fragments of the segment as the fragmenter discovers them, when streaming is enabled with the
+     * FRAGMENT_STREAMING option or the pxf.fragment.streaming property. The first segment to request the
+     * fragments starts the enumeration in the background, all segments then take their fragments from the
+     * same stream, so the segment can start reading before the enumeration completes.
+     * <p>
+     * Fragments are only streamed with the round-robin distribution, without sampling for ANALYZE and without
+     * work stealing, the other modes need all the fragments to assign them.
+     *
+     * @param context the request context
+     * @return the fragments of the segment, or null if the fragments are not streamed
+     * @throws IOException when an exception occurs
+     */
+    public StreamedFragments getStreamedFragmentsForSegment(RequestContext context) throws IOException {
+        if (!isStreamingEnabled(context)) {
+            return null;
+        }
+        Instant startTime = Instant.now();
+        LOG.debug("FRAGMENTER streaming started for path \"{}\"", context.getDataSource());
+
+        FragmentStream stream = getFragmentStreamFromCache(context, startTime);
+        int totalSegments = context.getTotalSegments();
+        return new StreamedFragments(stream, context.getSegmentId(), totalSegments,
+                context.getGpSessionId() % totalSegments + context.getGpCommandCount());
+    }
+
+    private boolean isStreamingEnabled(RequestContext context) {
+        Configuration configuration = context.getConfiguration();
+        boolean defaultStreaming = configuration != null && configuration.getBoolean(STREAMING_PROPERTY, false);
+        if (!context.getOption(STREAMING_OPTION, defaultStreaming)) {
+            return false;
+        }
+        if (context.getStatsMaxFragments() > 0) {
+            LOG.debug("Not streaming fragments as fragments are sampled for ANALYZE");
+            return false;
+        }
+        FragmentDistribution distribution = FragmentDistribution.forContext(context);
+        if (distribution != FragmentDistribution.ROUND_ROBIN) {
+            LOG.debug("Not streaming fragments as the {} distribution needs all fragments", distribution.getPolicyName());
+            return false;
+        }
+        if (isWorkStealingEnabled(context)) {
+            LOG.debug("Not streaming fragments as segments share their fragments");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isWorkStealingEnabled(RequestContext context) {
+        Configuration configuration = context.getConfiguration();
+        boolean defaultWorkStealing = configuration != null && configuration.getBoolean(WORK_STEALING_PROPERTY, false);
+        return context.getOption(WORK_STEALING_OPTION, defaultWorkStealing);
+    }
+
+    /**
+     * Returns the stream of fragments from the fragment stream cache. If the
+     * cache is empty, it starts the enumeration of the fragments on a worker
+     * thread and caches the stream the fragments are added to. Requests with
+     * the same key share the stream.
+     *
+     * @param context   the request context
+     * @param startTime the start time of the request
+     * @return the stream of fragments for the request
+     * @throws IOException when an exception occurs
+     */
+    private FragmentStream getFragmentStreamFromCache(RequestContext context, Instant startTime) throws IOException {
+        final String fragmenterCacheKey = getFragmenterCacheKey(context);
+        try {
+            return fragmenterCacheFactory.getStreamCache()
+                    .get(fragmenterCacheKey, () -> {
+                        LOG.debug("Streaming fragments from segmentId={} with key={}",
+                                context.getSegmentId(), fragmenterCacheKey);
+
+                        FragmentStream stream = new FragmentStream();
+                        // the request thread keeps updating its context while it reads the fragments
+                        RequestContext fragmenterContext = context.copy();
+                        UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+                        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+                        streamingExecutor.execute(() -> {
+                            if (mdcContext != null) {
+                                MDC.setContextMap(mdcContext);
+                            }
+                            try {
+                                ugi.doAs((PrivilegedAction<Void>) () -> {
+                                    streamFragments(fragmenterContext, stream, fragmenterCacheKey, startTime);
+                                    return null;
+                                });
+                            } finally {
+                                MDC.clear();
+                            }
+                        });
+                        return stream;
+                    });
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            // Unwrap the error
+            Exception exception = e.getCause() != null ? (Exception) e.getCause() : e;
+            if (exception instanceof IOException)
+                throw (IOException) exception;
+            throw new IOException(exception);
+        }
+    }
+
+    /**
+     * Enumerates the fragments with the fragmenter, adding them to the stream as they are discovered.
+     *
+     * @param context            the request context
+     * @param stream             the stream to add the fragments to
+     * @param fragmenterCacheKey the key of the stream in the cache
+     * @param startTime          the start time of the request
+     */
+    private void streamFragments(RequestContext context, FragmentStream stream, String fragmenterCacheKey, Instant startTime) {
+        try {
+            failureHandler.execute(context.getConfiguration(), "stream fragments", () -> {
+                FragmentIndexer indexer = new FragmentIndexer(stream);
+                Fragmenter fragmenter = getFragmenter(context);
+                try {
+                    fragmenter.streamFragments(indexer);
+                    reportTimings(fragmenter, context);
+                } catch (IOException e) {
+                    if (stream.size() > 0) {
+                        // segments might have read the fragments already, the enumeration can not start over
+                        throw new UncheckedIOException(e);
+                    }
+                    throw e;
+                }
+                return null;
+            });
+            stream.complete();
+            logFragments(context, stream.size(), startTime);
+        } catch (Exception e) {
+            Exception exception = e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : e;
+            LOG.debug("Failed to stream fragments with key={}", fragmenterCacheKey, exception);
+            // do not let later requests get the failed stream
+            fragmenterCacheFactory.getStreamCache().asMap().remove(fragmenterCacheKey, stream);
+            stream.fail(exception);
+        }
+    }
+
     /**
      * Returns the list of fragments from the fragmenter cache. If the cache is
      * empty, it populates the cache with the list of fragments. When
@@ -116,28 +324,20 @@ public class FragmenterService {
                                 context.getSegmentId(), fragmenterCacheKey);
 
                         List<Fragment> fragmentList = failureHandler.execute(context.getConfiguration(),
-                                "get fragments", () -> getFragmenter(context).getFragments());
+                                "get fragments", () -> {
+                                    Fragmenter fragmenter = getFragmenter(context);
+                                    List<Fragment> result = fragmenter.getFragments();
+                                    reportTimings(fragmenter, context);
+                                    return result;
+                                });
 
                         /* Create a fragmenter instance with API level parameters */
                         fragmentList = AnalyzeUtils.getSampleFragments(fragmentList, context);
                         updateFragmentIndex(fragmentList);
 
-                        int numberOfFragments = fragmentList.size();
-                        long elapsedMillis = Duration.between(startTime, Instant.now()).toMillis();
-                        String fragmenterClassName = context.getFragmenter();
-                        LOG.info("Returning {} fragment{} in {} ms [user={}, table={}.{}, resource={}, fragmenter={}, profile={}, predicate {}available]",
-                                numberOfFragments,
-                                numberOfFragments == 1 ? "" : "s",
-                                elapsedMillis,
-                                context.getUser(),
-                                context.getSchemaName(),
-                                context.getTableName(),
-                                context.getDataSource(),
-                                fragmenterClassName.substring(fragmenterClassName.lastIndexOf(".") + 1),
-                                context.getProfile(),
-                                context.hasFilter() ? "" : "un");
-
-                        return fragmentList;
+                        logFragments(context, fragmentList.size(), startTime);
+
+                        return fragmenterCacheFactory.compact(fragmentList);
                     });
         } catch (UncheckedExecutionException | ExecutionException e) {
             // Unwrap the error
@@ -148,6 +348,91 @@ public class FragmenterService {
         }
     }
 
+    /**
+     * Reports the time the fragmenter spent listing the files of the data
+     * source and computing their splits, for fragmenters that measure them.
+     *
+     * @param fragmenter the fragmenter that enumerated the fragments
+     * @param context    the request context
+     */
+    private void reportTimings(Fragmenter fragmenter, RequestContext context) {
+        if (!(fragmenter instanceof FragmenterTimings)) {
+            return;
+        }
+        FragmenterTimings timings = (FragmenterTimings) fragmenter;
+        Duration listingTime = timings.getListingTime();
+        Duration splitTime = timings.getSplitTime();
+        if (listingTime != null) {
+            metricsReporter.reportTimer(MetricsReporter.PxfMetric.FRAGMENTER_LISTING_TIME, listingTime, context);
+        }
+        if (splitTime != null) {
+            metricsReporter.reportTimer(MetricsReporter.PxfMetric.FRAGMENTER_SPLIT_TIME, splitTime, context);
+        }
+        LOG.debug("Fragmenter spent {} ms listing files and {} ms computing splits for path {}",
+                listingTime == null ? 0 : listingTime.toMillis(),
+                splitTime == null ? 0 : splitTime.toMillis(),
+                context.getDataSource());
+    }
+
+    private void logFragments(RequestContext context, int numberOfFragments, Instant startTime) {
+        long elapsedMillis = Duration.between(startTime, Instant.now()).toMillis();
+        String fragmenterClassName = context.getFragmenter();
+        LOG.info("Returning {} fragment{} in {} ms [user={}, table={}.{}, resource={}, fragmenter={}, profile={}, predicate {}available]",
+                numberOfFragments,
+                numberOfFragments == 1 ? "" : "s",
+                elapsedMillis,
+                context.getUser(),
+                context.getSchemaName(),
+                context.getTableName(),
+                context.getDataSource(),
+                fragmenterClassName.substring(fragmenterClassName.lastIndexOf(".") + 1),
+                context.getProfile(),
+                context.hasFilter() ? "" : "un");
+    }
+
+    /**
+     * Filters the {@code fragments} for the segment of the request with the
+     * {@link FragmentDistribution} policy requested for the query.
+     *
+     * @param fragments the list of fragments
+     * @param context   the request context
+     * @return the filtered list of fragments for the segment of the request
+     */
+    private List<Fragment> filterFragments(List<Fragment> fragments, RequestContext context) {
+        int segmentId = context.getSegmentId();
+        int totalSegments = context.getTotalSegments();
+        int gpSessionId = context.getGpSessionId();
+        int gpCommandCount = context.getGpCommandCount();
+
+        FragmentDistribution distribution = FragmentDistribution.forContext(context);
+        if (distribution == FragmentDistribution.LOCALITY) {
+            List<String> segmentHosts = context.getSegmentHosts();
+            if (segmentHosts != null && segmentHosts.size() == totalSegments) {
+                LocalityFragmentAssigner assigner = new LocalityFragmentAssigner(segmentHosts, gpSessionId % totalSegments + gpCommandCount);
+                List<Fragment> filteredFragments = assigner.assign(fragments, segmentId);
+                LOG.debug("Assigned {} of {} fragments to segments on the hosts of their data for path {}",
+                        assigner.getLocalFragmentCount(), fragments.size(), context.getDataSource());
+                return filteredFragments;
+            }
+            LOG.debug("Hosts of the segments are unknown, falling back to round-robin distribution of the fragments");
+        }
+        if (distribution == FragmentDistribution.SIZE) {
+            SizeBalancedFragmentAssigner assigner = new SizeBalancedFragmentAssigner(totalSegments, gpSessionId % totalSegments + gpCommandCount);
+            List<Fragment> filteredFragments = assigner.assign(fragments, segmentId);
+            // every segment computes the same assignment, only report it once per query
+            if (segmentId == 0) {
+                LOG.info("Predicted skew of the size-balanced distribution of {} fragments across {} segments for path {} is {}",
+                        fragments.size(), totalSegments, context.getDataSource(), String.format("%.2f", assigner.getSkew()));
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Estimated size of the fragments assigned to each segment for path {}: {}",
+                        context.getDataSource(), Arrays.toString(assigner.getSegmentSizes()));
+            }
+            return filteredFragments;
+        }
+        return filterFragments(fragments, segmentId, totalSegments, gpSessionId, gpCommandCount);
+    }
+
     /**
      * Filters the {@code fragments} for the given segment. To determine which
      * segment S should process an element at a given index i, use a randomized
@@ -179,6 +464,13 @@ public class FragmenterService {
         int shiftedIndex = gpSessionId % totalSegments + gpCommandCount; // index of fragment #0 to use for mod function
 
         List<Fragment> filteredFragments = new ArrayList<>((int) Math.ceil(fragments.size() / totalSegments));
+        if (fragments instanceof RandomAccess) {
+            // only materialize the fragments of the segment from a compact list
+            for (int i = Math.floorMod(segmentId - shiftedIndex, totalSegments); i < fragments.size(); i += totalSegments) {
+                filteredFragments.add(fragments.get(i));
+            }
+            return filteredFragments;
+        }
         // do not use fragments.get(i) to iterate over fragments as the incoming fragment list is a LinkedList
         for (Fragment fragment : fragments) {
             if (segmentId == (shiftedIndex % totalSegments)) {
@@ -239,4 +531,30 @@ public class FragmenterService {
             fragment.setIndex(index++);
         }
     }
+
+    /**
+     * Adds the streamed fragments to a {@link FragmentStream}, updating their indexes like
+     * {@link #updateFragmentIndex(List)}.
+     */
+    private static class FragmentIndexer implements Consumer<Fragment> {
+
+        private final FragmentStream stream;
+        private String sourceName;
+        private int index;
+
+        FragmentIndexer(FragmentStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void accept(Fragment fragment) {
+            String currentSourceName = fragment.getSourceName();
+            if (!currentSourceName.equals(sourceName)) {
+                index = 0;
+                sourceName = currentSourceName;
+            }
+            fragment.setIndex(index++);
+            stream.add(fragment);
+        }
+    }
 }
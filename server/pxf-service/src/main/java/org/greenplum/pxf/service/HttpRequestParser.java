@@ -16,6 +16,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.MultiValueMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
@@ -162,7 +163,10 @@ public class HttpRequestParser implements RequestParser<MultiValueMap<String, St
             context.setStatsSampleRatio(Float.parseFloat(sampleRatioStr));
         }
 
+        parseTransferCompression(params, context);
+
         context.setTotalSegments(params.removeIntProperty("SEGMENT-COUNT"));
+        parseSegmentHosts(params, context);
         context.setTransactionId(params.removeProperty("XID"));
 
         // parse tuple description
@@ -180,6 +184,7 @@ public class HttpRequestParser implements RequestParser<MultiValueMap<String, St
 
         context.setGpSessionId(params.removeIntProperty("SESSION-ID"));
         context.setGpCommandCount(params.removeIntProperty("COMMAND-COUNT"));
+        context.setScanId(params.removeOptionalProperty("SCAN-ID"));
         context.setUser(params.removeProperty("USER"));
 
         // Store alignment for global use as a system property
@@ -246,6 +251,69 @@ public class HttpRequestParser implements RequestParser<MultiValueMap<String, St
         return buildProperties.get(PXF_API_VERSION);
     }
 
+    /**
+     * Parses the hosts of the segments, which clients that know the layout of the cluster
+     * send as a comma-separated list ordered by segment id. The list is ignored when it
+     * does not have a host for every segment.
+     */
+    private void parseSegmentHosts(RequestMap params, RequestContext context) {
+        String segmentHosts = params.removeOptionalProperty("SEGMENT-HOSTS");
+        if (StringUtils.isBlank(segmentHosts)) {
+            return;
+        }
+
+        List<String> hosts = Arrays.stream(segmentHosts.split(","))
+                .map(String::trim)
+                .collect(Collectors.toList());
+        if (hosts.size() != context.getTotalSegments() || hosts.stream().anyMatch(String::isEmpty)) {
+            LOG.warn("Ignoring SEGMENT-HOSTS header with {} hosts for {} segments", hosts.size(), context.getTotalSegments());
+            return;
+        }
+        context.setSegmentHosts(hosts);
+    }
+
+    /**
+     * Negotiates the compression of the data sent to the client. The codec requested with the
+     * TRANSFER_COMPRESSION option is only used if the client is able to decompress it, clients
+     * list the codecs they support in the ACCEPT-ENCODING header. Otherwise the data is sent
+     * uncompressed.
+     */
+    private void parseTransferCompression(RequestMap params, RequestContext context) {
+        String acceptEncoding = params.removeOptionalProperty("ACCEPT-ENCODING");
+        String codecName = params.removeUserProperty("TRANSFER_COMPRESSION");
+        String levelStr = params.removeUserProperty("TRANSFER_COMPRESSION_LEVEL");
+        if (StringUtils.isBlank(codecName) || StringUtils.equalsIgnoreCase("none", codecName)) {
+            return;
+        }
+
+        TransferCompression compression = TransferCompression.forName(codecName.trim());
+        int level = compression.getDefaultLevel();
+        if (StringUtils.isNotBlank(levelStr)) {
+            try {
+                level = Integer.parseInt(levelStr.trim());
+            } catch (NumberFormatException e) {
+                level = Integer.MIN_VALUE;
+            }
+            if (!compression.isValidLevel(level)) {
+                throw new IllegalArgumentException(String.format(
+                        "invalid TRANSFER_COMPRESSION_LEVEL value '%s' for %s compression",
+                        levelStr, compression.getCodecName()));
+            }
+        }
+
+        boolean accepted = acceptEncoding != null && Arrays.stream(acceptEncoding.split(","))
+                .map(String::trim)
+                .anyMatch(compression.getCodecName()::equalsIgnoreCase);
+        if (!accepted) {
+            LOG.debug("Client does not support {} transfer compression, the data will be sent uncompressed",
+                    compression.getCodecName());
+            return;
+        }
+
+        context.setTransferCompression(compression.getCodecName());
+        context.setTransferCompressionLevel(level);
+    }
+
     private void parseGreenplumCSV(RequestMap params, RequestContext context) {
         context.getGreenplumCSV()
                 .withDelimiter(params.removeUserProperty("DELIMITER"))
@@ -0,0 +1,163 @@
+package org.greenplum.pxf.service;
+
+import com.google.common.net.InetAddresses;
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.FragmentMetadata;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Assigns fragments to the segments running on the hosts that store the data of the fragments.
+ * <p>
+ * No segment is assigned more than its fair share of fragments, the number of fragments divided by the
+ * number of segments rounded up. A fragment goes to the least loaded segment that is local to its data
+ * and still has room, ties are broken in favor of the segment that would process the fragment with the
+ * round-robin policy. Fragments without a local segment with room are then given to the least loaded
+ * segments. The assignment only depends on the list of fragments and on values shared by all segments
+ * of a query, so every segment computes the same assignment.
+ */
+class LocalityFragmentAssigner {
+
+    private final int totalSegments;
+    private final int shift;
+    private final Map<String, List<Integer>> segmentsByHost = new HashMap<>();
+
+    private int localFragmentCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param segmentHosts the hosts of the segments, ordered by segment id
+     * @param shift        the index of the segment that processes the first fragment with the round-robin policy
+     */
+    LocalityFragmentAssigner(List<String> segmentHosts, int shift) {
+        this.totalSegments = segmentHosts.size();
+        this.shift = shift;
+        for (int segmentId = 0; segmentId < totalSegments; segmentId++) {
+            String host = normalize(segmentHosts.get(segmentId));
+            segmentsByHost.computeIfAbsent(host, k -> new ArrayList<>()).add(segmentId);
+            // the hosts of the blocks and the hosts of the segments might not be both fully qualified
+            String shortName = getShortName(host);
+            if (!shortName.equals(host)) {
+                segmentsByHost.computeIfAbsent(shortName, k -> new ArrayList<>()).add(segmentId);
+            }
+        }
+    }
+
+    /**
+     * Returns the fragments assigned to the given segment, in the order of the list of fragments.
+     *
+     * @param fragments the list of fragments
+     * @param segmentId the identifier for the segment processing the request
+     * @return the fragments assigned to the segment
+     */
+    List<Fragment> assign(List<Fragment> fragments, int segmentId) {
+        int fragmentCount = fragments.size();
+        int maxFragmentsPerSegment = (fragmentCount + totalSegments - 1) / totalSegments;
+        int[] assignedCounts = new int[totalSegments];
+        int[] owners = new int[fragmentCount];
+        List<Integer> unassigned = new ArrayList<>();
+        localFragmentCount = 0;
+
+        int index = 0;
+        // do not use fragments.get(i) to iterate over fragments as the incoming fragment list is a LinkedList
+        for (Fragment fragment : fragments) {
+            int owner = getLocalSegment(fragment, index, assignedCounts, maxFragmentsPerSegment);
+            owners[index] = owner;
+            if (owner >= 0) {
+                assignedCounts[owner]++;
+                localFragmentCount++;
+            } else {
+                unassigned.add(index);
+            }
+            index++;
+        }
+
+        if (!unassigned.isEmpty()) {
+            PriorityQueue<Integer> segments = new PriorityQueue<>(totalSegments, (a, b) -> {
+                int result = Integer.compare(assignedCounts[a], assignedCounts[b]);
+                return result != 0 ? result : Integer.compare(rotate(a, 0), rotate(b, 0));
+            });
+            for (int segment = 0; segment < totalSegments; segment++) {
+                segments.add(segment);
+            }
+            for (int fragmentIndex : unassigned) {
+                int segment = segments.poll();
+                owners[fragmentIndex] = segment;
+                assignedCounts[segment]++;
+                segments.add(segment);
+            }
+        }
+
+        List<Fragment> result = new ArrayList<>(assignedCounts[segmentId]);
+        index = 0;
+        for (Fragment fragment : fragments) {
+            if (owners[index++] == segmentId) {
+                result.add(fragment);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of fragments assigned to a segment local to their data by the last assignment
+     */
+    int getLocalFragmentCount() {
+        return localFragmentCount;
+    }
+
+    private int getLocalSegment(Fragment fragment, int index, int[] assignedCounts, int maxFragmentsPerSegment) {
+        FragmentMetadata metadata = fragment.getMetadata();
+        String[] hosts = metadata == null ? null : metadata.getHosts();
+        if (hosts == null) {
+            return -1;
+        }
+
+        int best = -1;
+        for (String host : hosts) {
+            if (host == null) {
+                continue;
+            }
+            String normalizedHost = normalize(host);
+            List<Integer> segments = segmentsByHost.get(normalizedHost);
+            if (segments == null) {
+                segments = segmentsByHost.get(getShortName(normalizedHost));
+            }
+            if (segments == null) {
+                continue;
+            }
+            for (int segment : segments) {
+                if (assignedCounts[segment] >= maxFragmentsPerSegment) {
+                    continue;
+                }
+                if (best < 0 || assignedCounts[segment] < assignedCounts[best] ||
+                        (assignedCounts[segment] == assignedCounts[best] && rotate(segment, index) < rotate(best, index))) {
+                    best = segment;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the distance of the segment from the segment that processes the fragment at the given
+     * index with the round-robin policy.
+     */
+    private int rotate(int segment, int index) {
+        return Math.floorMod(segment - shift - index, totalSegments);
+    }
+
+    private static String normalize(String host) {
+        return host.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String getShortName(String host) {
+        int dot = host.indexOf('.');
+        return (dot <= 0 || InetAddresses.isInetAddress(host)) ? host : host.substring(0, dot);
+    }
+}
@@ -152,7 +152,16 @@ public class MetricsReporter {
         RECORDS_SENT("pxf.records.sent", "pxf.metrics.records.enabled"),
         RECORDS_RECEIVED("pxf.records.received", "pxf.metrics.records.enabled"),
         BYTES_SENT("pxf.bytes.sent", "pxf.metrics.bytes.enabled"),
-        BYTES_RECEIVED("pxf.bytes.received", "pxf.metrics.bytes.enabled");
+        BYTES_RECEIVED("pxf.bytes.received", "pxf.metrics.bytes.enabled"),
+        COMPRESSION_BYTES_IN("pxf.compression.bytes.in", "pxf.metrics.compression.enabled"),
+        COMPRESSION_BYTES_OUT("pxf.compression.bytes.out", "pxf.metrics.compression.enabled"),
+        COMPRESSION_CPU_TIME("pxf.compression.cpu.time", "pxf.metrics.compression.enabled"),
+        UGI_CACHE_HITS("pxf.ugi-cache.hits", "pxf.metrics.ugi-cache.enabled"),
+        UGI_CACHE_MISSES("pxf.ugi-cache.misses", "pxf.metrics.ugi-cache.enabled"),
+        FRAGMENTER_LISTING_TIME("pxf.fragmenter.listing.time", "pxf.metrics.fragmenter.enabled"),
+        FRAGMENTER_SPLIT_TIME("pxf.fragmenter.splits.time", "pxf.metrics.fragmenter.enabled"),
+        READ_IO_WAIT_TIME("pxf.read.io-wait.time", "pxf.metrics.read.enabled"),
+        READ_DECODE_TIME("pxf.read.decode.time", "pxf.metrics.read.enabled");
 
         private final String metricName;
         private final String enabledPropertyName;
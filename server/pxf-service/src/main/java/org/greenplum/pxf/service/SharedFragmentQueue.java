@@ -0,0 +1,195 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.Fragment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+
+/**
+ * Queue of the fragments of a query shared by the segments of the query that send their requests to this
+ * PXF server. Every segment adds the fragments assigned to it when it joins the queue, then all segments
+ * take fragments from the queue until it is empty, so that segments that are done with their own fragments
+ * process the fragments of slower segments.
+ * <p>
+ * A fragment is handed out to a single segment. The fragments a segment took but did not complete, because
+ * the request failed or was aborted by the client, are returned to the queue when the segment leaves it, so
+ * that other segments can process them.
+ */
+public class SharedFragmentQueue {
+
+    private final SharedFragmentQueueRegistry registry;
+    private final String key;
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private final Set<Integer> segmentIds = new HashSet<>();
+    private int participantCount;
+
+    SharedFragmentQueue(SharedFragmentQueueRegistry registry, String key) {
+        this.registry = registry;
+        this.key = key;
+    }
+
+    /**
+     * @return the key identifying the scan the queue belongs to
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * @param segmentId the identifier of a segment
+     * @return true if the segment has already joined the queue
+     */
+    synchronized boolean hasJoined(int segmentId) {
+        return segmentIds.contains(segmentId);
+    }
+
+    /**
+     * @return the number of segments currently taking fragments from the queue
+     */
+    synchronized int getParticipantCount() {
+        return participantCount;
+    }
+
+    /**
+     * @return the number of fragments waiting to be processed
+     */
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Adds the fragments assigned to the segment to the queue and registers the segment as a participant.
+     *
+     * @param segmentId the identifier of the segment
+     * @param fragments the fragments assigned to the segment
+     * @return the participant the segment takes fragments with
+     */
+    synchronized Participant join(int segmentId, List<Fragment> fragments) {
+        segmentIds.add(segmentId);
+        participantCount++;
+        for (Fragment fragment : fragments) {
+            pending.add(new Entry(fragment, segmentId));
+        }
+        return new Participant(segmentId);
+    }
+
+    private synchronized Entry poll() {
+        return pending.poll();
+    }
+
+    /**
+     * Returns fragments that were taken but not completed to the head of the queue, in their original order.
+     * Unregisters the participant and returns the number of remaining participants.
+     */
+    synchronized int leave(List<Entry> unfinished) {
+        ListIterator<Entry> iterator = unfinished.listIterator(unfinished.size());
+        while (iterator.hasPrevious()) {
+            pending.addFirst(iterator.previous());
+        }
+        return --participantCount;
+    }
+
+    /**
+     * A segment taking fragments from the queue. A participant is used by the thread serving the request of
+     * the segment and must be closed when the request is done.
+     */
+    public class Participant implements AutoCloseable {
+
+        private final int segmentId;
+        private final List<Entry> inProgress = new ArrayList<>();
+        private int fragmentCount;
+        private int foreignFragmentCount;
+        private boolean closed;
+
+        private Participant(int segmentId) {
+            this.segmentId = segmentId;
+        }
+
+        /**
+         * Takes the next fragment from the queue. The fragment is in progress until it is completed.
+         *
+         * @return the next fragment, or null if there are no more fragments to process
+         */
+        public Fragment next() {
+            Entry entry = closed ? null : poll();
+            if (entry == null) {
+                return null;
+            }
+            inProgress.add(entry);
+            return entry.fragment;
+        }
+
+        /**
+         * Marks a fragment returned by {@link #next()} as fully processed, it will not be handed out again.
+         *
+         * @param fragment the fragment
+         */
+        public void complete(Fragment fragment) {
+            for (int i = 0; i < inProgress.size(); i++) {
+                Entry entry = inProgress.get(i);
+                if (entry.fragment == fragment) {
+                    inProgress.remove(i);
+                    fragmentCount++;
+                    if (entry.segmentId != segmentId) {
+                        foreignFragmentCount++;
+                    }
+                    return;
+                }
+            }
+            throw new IllegalStateException(String.format("fragment %s is not in progress", fragment.getSourceName()));
+        }
+
+        /**
+         * @return the number of fragments completed by the segment
+         */
+        public int getFragmentCount() {
+            return fragmentCount;
+        }
+
+        /**
+         * @return the number of completed fragments that were assigned to other segments
+         */
+        public int getForeignFragmentCount() {
+            return foreignFragmentCount;
+        }
+
+        /**
+         * @return the number of fragments taken but not completed
+         */
+        public int getInProgressCount() {
+            return inProgress.size();
+        }
+
+        /**
+         * Leaves the queue, returning the fragments in progress to the queue.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            registry.leave(SharedFragmentQueue.this, inProgress);
+            inProgress.clear();
+        }
+    }
+
+    /**
+     * A fragment along with the segment it was assigned to.
+     */
+    static class Entry {
+
+        private final Fragment fragment;
+        private final int segmentId;
+
+        private Entry(Fragment fragment, int segmentId) {
+            this.fragment = fragment;
+            this.segmentId = segmentId;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.Fragment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link SharedFragmentQueue}s of the scans that are in progress. A queue is created when the
+ * first segment of a scan joins it and is discarded when the last segment leaves it.
+ * <p>
+ * A query can scan the same data more than once, for example in a self-join, and the segments then send
+ * several requests with the same key unless the client identifies the scan in the key. The requests of
+ * different scans can not be told apart, so a segment that already joined the queue for a key does not
+ * join it again and processes its own fragments instead, a queue never receives the fragments of a
+ * segment twice.
+ */
+@Component
+class SharedFragmentQueueRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedFragmentQueueRegistry.class);
+
+    private final Map<String, SharedFragmentQueue> queues = new HashMap<>();
+
+    /**
+     * Adds the fragments assigned to the segment to the queue for the given key and returns the participant
+     * the segment takes fragments from the queue with.
+     *
+     * @param key       the key identifying the scan
+     * @param segmentId the identifier of the segment
+     * @param fragments the fragments assigned to the segment
+     * @return the participant of the segment, or null if the segment already joined the queue for the key
+     */
+    synchronized SharedFragmentQueue.Participant join(String key, int segmentId, List<Fragment> fragments) {
+        SharedFragmentQueue queue = queues.get(key);
+        if (queue == null) {
+            queue = new SharedFragmentQueue(this, key);
+            queues.put(key, queue);
+            LOG.debug("Created shared fragment queue for key {}", key);
+        } else if (queue.hasJoined(segmentId)) {
+            LOG.debug("Segment {} already joined shared fragment queue for key {}, processing its own {} fragments",
+                    segmentId, key, fragments.size());
+            return null;
+        }
+        LOG.debug("Segment {} joined shared fragment queue for key {} with {} fragments", segmentId, key, fragments.size());
+        return queue.join(segmentId, fragments);
+    }
+
+    /**
+     * Called by a participant leaving its queue, discards the queue once no segment takes fragments from it.
+     *
+     * @param queue      the queue
+     * @param unfinished the fragments taken by the participant but not completed
+     */
+    synchronized void leave(SharedFragmentQueue queue, List<SharedFragmentQueue.Entry> unfinished) {
+        if (queue.leave(unfinished) > 0) {
+            return;
+        }
+        int pendingCount = queue.getPendingCount();
+        if (pendingCount > 0) {
+            // only happens when the last segments of the scan failed or were aborted by the client
+            LOG.debug("Discarding shared fragment queue for key {} with {} unprocessed fragments", queue.getKey(), pendingCount);
+        }
+        queues.remove(queue.getKey(), queue);
+    }
+
+    /**
+     * @return the number of queues in use
+     */
+    synchronized int size() {
+        return queues.size();
+    }
+}
@@ -0,0 +1,143 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.FragmentMetadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Assigns fragments to segments so that every segment processes about the same amount of data, using
+ * the longest-processing-time-first heuristic: fragments are assigned from the largest to the smallest,
+ * each one to the segment with the least data assigned so far. The size of a fragment is the estimate
+ * returned by {@link FragmentMetadata#getEstimatedSize()}, fragments of unknown size are assumed to be
+ * of the average known size. The assignment only depends on the list of fragments and on values shared
+ * by all segments of a query, so every segment computes the same assignment.
+ */
+class SizeBalancedFragmentAssigner {
+
+    private final int totalSegments;
+    private final int shift;
+
+    private long[] segmentSizes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param totalSegments the number of segments
+     * @param shift         the index of the segment that processes the first fragment with the round-robin policy
+     */
+    SizeBalancedFragmentAssigner(int totalSegments, int shift) {
+        this.totalSegments = totalSegments;
+        this.shift = shift;
+    }
+
+    /**
+     * Returns the fragments assigned to the given segment, in the order of the list of fragments.
+     *
+     * @param fragments the list of fragments
+     * @param segmentId the identifier for the segment processing the request
+     * @return the fragments assigned to the segment
+     */
+    List<Fragment> assign(List<Fragment> fragments, int segmentId) {
+        int fragmentCount = fragments.size();
+        long[] sizes = getSizes(fragments);
+
+        // sort the fragments by decreasing size, the sort is stable so fragments of the same size keep their order
+        Integer[] order = new Integer[fragmentCount];
+        for (int i = 0; i < fragmentCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(sizes[b], sizes[a]));
+
+        long[] assignedSizes = new long[totalSegments];
+        int[] assignedCounts = new int[totalSegments];
+        // ties are broken by the number of fragments and then by the rotation used by the round-robin policy,
+        // so that fragments of the same size are spread like the round-robin policy would spread them
+        PriorityQueue<Integer> segments = new PriorityQueue<>(totalSegments, Comparator
+                .<Integer>comparingLong(segment -> assignedSizes[segment])
+                .thenComparingInt(segment -> assignedCounts[segment])
+                .thenComparingInt(segment -> Math.floorMod(segment - shift, totalSegments)));
+        for (int segment = 0; segment < totalSegments; segment++) {
+            segments.add(segment);
+        }
+
+        int[] owners = new int[fragmentCount];
+        for (int fragmentIndex : order) {
+            int segment = segments.poll();
+            owners[fragmentIndex] = segment;
+            assignedSizes[segment] = saturatedAdd(assignedSizes[segment], sizes[fragmentIndex]);
+            assignedCounts[segment]++;
+            segments.add(segment);
+        }
+        segmentSizes = assignedSizes;
+
+        List<Fragment> result = new ArrayList<>(assignedCounts[segmentId]);
+        int index = 0;
+        // do not use fragments.get(i) to iterate over fragments as the incoming fragment list is a LinkedList
+        for (Fragment fragment : fragments) {
+            if (owners[index++] == segmentId) {
+                result.add(fragment);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the estimated amount of data assigned to each segment by the last assignment, indexed by segment id
+     */
+    long[] getSegmentSizes() {
+        return segmentSizes;
+    }
+
+    /**
+     * Returns the ratio between the largest amount of data assigned to a segment and the average amount
+     * of data per segment by the last assignment. The query takes about this many times longer than
+     * it would with a perfect balance of the data.
+     *
+     * @return the predicted skew, 1 for a perfectly balanced assignment
+     */
+    double getSkew() {
+        long max = 0;
+        double total = 0;
+        for (long size : segmentSizes) {
+            max = Math.max(max, size);
+            total += size;
+        }
+        return total == 0 ? 1 : max / (total / segmentSizes.length);
+    }
+
+    private long[] getSizes(List<Fragment> fragments) {
+        long[] sizes = new long[fragments.size()];
+        long knownTotal = 0;
+        int knownCount = 0;
+        int index = 0;
+        for (Fragment fragment : fragments) {
+            FragmentMetadata metadata = fragment.getMetadata();
+            long size = metadata == null ? -1 : metadata.getEstimatedSize();
+            sizes[index++] = size;
+            if (size >= 0) {
+                // do not let a few huge estimates overflow the sum
+                knownTotal = saturatedAdd(knownTotal, size);
+                knownCount++;
+            }
+        }
+
+        // fragments of unknown size get the average size, when no size is known every fragment weighs the same
+        long defaultSize = knownCount == 0 ? 1 : Math.max(knownTotal / knownCount, 1);
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] < 0) {
+                sizes[i] = defaultSize;
+            }
+        }
+        return sizes;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long result = a + b;
+        return result < 0 ? Long.MAX_VALUE : result;
+    }
+}
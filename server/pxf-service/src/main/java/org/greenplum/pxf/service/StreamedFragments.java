@@ -0,0 +1,60 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.FragmentStream;
+
+import java.io.IOException;
+
+/**
+ * The fragments of a segment taken from a {@link FragmentStream} while the fragmenter is still discovering
+ * fragments. The fragments are assigned to the segment with the round-robin policy, every segment of the
+ * query gets the same fragments it would get once the enumeration is complete.
+ */
+public class StreamedFragments {
+
+    private final FragmentStream stream;
+    private final int segmentId;
+    private final int totalSegments;
+    private final int shiftedIndex;
+    private int position;
+    private int fragmentCount;
+
+    StreamedFragments(FragmentStream stream, int segmentId, int totalSegments, int shiftedIndex) {
+        this.stream = stream;
+        this.segmentId = segmentId;
+        this.totalSegments = totalSegments;
+        this.shiftedIndex = shiftedIndex;
+    }
+
+    /**
+     * Returns the next fragment assigned to the segment, waiting until the fragmenter discovers it.
+     *
+     * @return the next fragment, or null if there are no more fragments for the segment
+     * @throws IOException if the enumeration of the fragments failed
+     */
+    public Fragment next() throws IOException {
+        Fragment fragment;
+        while ((fragment = stream.get(position)) != null) {
+            int index = position++;
+            if (segmentId == (shiftedIndex + index) % totalSegments) {
+                fragmentCount++;
+                return fragment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of fragments returned to the segment so far
+     */
+    public int getFragmentCount() {
+        return fragmentCount;
+    }
+
+    /**
+     * @return the number of fragments discovered for all the segments so far
+     */
+    public int getTotalFragmentCount() {
+        return stream.size();
+    }
+}
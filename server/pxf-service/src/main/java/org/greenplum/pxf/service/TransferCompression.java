@@ -0,0 +1,106 @@
+package org.greenplum.pxf.service;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Codecs that can be used to compress the data sent to Greenplum by the read endpoint.
+ * The client lists the codecs it is able to decompress in the X-GP-ACCEPT-ENCODING
+ * header, the codec and its level are chosen with the TRANSFER_COMPRESSION and
+ * TRANSFER_COMPRESSION_LEVEL options. When the data is compressed, the name of the
+ * codec is returned to the client in the X-GP-CONTENT-ENCODING response header.
+ * Both codecs produce standard frames that can be decoded by libzstd and liblz4.
+ */
+public enum TransferCompression {
+
+    ZSTD("zstd", 1, 19, 3) {
+        @Override
+        public OutputStream wrap(OutputStream out, int level) throws IOException {
+            return new ZstdOutputStream(out, level);
+        }
+    },
+    LZ4("lz4", 0, 17, 0) {
+        @Override
+        public OutputStream wrap(OutputStream out, int level) throws IOException {
+            // level 0 is the fast compressor, higher levels use the high compression one
+            if (level == 0) {
+                return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+            }
+            return new LZ4FrameOutputStream(out,
+                    LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB,
+                    -1L,
+                    LZ4Factory.fastestInstance().highCompressor(level),
+                    XXHashFactory.fastestInstance().hash32(),
+                    LZ4FrameOutputStream.FLG.Bits.BLOCK_INDEPENDENCE);
+        }
+    };
+
+    public static final String ACCEPT_ENCODING_HEADER = "X-GP-ACCEPT-ENCODING";
+    public static final String CONTENT_ENCODING_HEADER = "X-GP-CONTENT-ENCODING";
+
+    private final String codecName;
+    private final int minLevel;
+    private final int maxLevel;
+    private final int defaultLevel;
+
+    TransferCompression(String codecName, int minLevel, int maxLevel, int defaultLevel) {
+        this.codecName = codecName;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.defaultLevel = defaultLevel;
+    }
+
+    public String getCodecName() {
+        return codecName;
+    }
+
+    public int getDefaultLevel() {
+        return defaultLevel;
+    }
+
+    /**
+     * Returns whether the level is valid for the codec.
+     *
+     * @param level the compression level
+     * @return true if the codec supports the level, false otherwise
+     */
+    public boolean isValidLevel(int level) {
+        return level >= minLevel && level <= maxLevel;
+    }
+
+    /**
+     * Returns a stream that compresses the data written to it into the given stream.
+     * Closing the returned stream finishes the frame and closes the given stream.
+     *
+     * @param out   the stream to write the compressed data to
+     * @param level the compression level
+     * @return the compressing stream
+     * @throws IOException if the compression stream could not be created
+     */
+    public abstract OutputStream wrap(OutputStream out, int level) throws IOException;
+
+    /**
+     * Returns the codec with the given name, ignoring case.
+     *
+     * @param codecName the name of the codec
+     * @return the codec
+     * @throws IllegalArgumentException if there is no codec with the given name
+     */
+    public static TransferCompression forName(String codecName) {
+        for (TransferCompression compression : values()) {
+            if (compression.codecName.equalsIgnoreCase(codecName)) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "invalid TRANSFER_COMPRESSION value '%s'. Supported values are none, %s",
+                codecName, Arrays.stream(values()).map(TransferCompression::getCodecName).collect(Collectors.joining(", "))));
+    }
+}
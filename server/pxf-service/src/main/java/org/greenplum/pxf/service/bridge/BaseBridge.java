@@ -42,6 +42,11 @@ public abstract class BaseBridge implements Bridge {
         this.resolver = pluginFactory.getPlugin(context, resolverClassName);
     }
 
+    @Override
+    public Accessor getAccessor() {
+        return accessor;
+    }
+
     /**
      * A function that is called by the failure handler before a new retry attempt after a failure.
      * It re-creates the accessor from the factory in case the accessor implementation is not idempotent.
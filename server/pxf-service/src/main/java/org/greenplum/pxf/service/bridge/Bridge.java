@@ -47,4 +47,13 @@ public interface Bridge {
     boolean setNext(DataInputStream inputStream) throws Exception;
 
     void endIteration() throws Exception;
+
+    /**
+     * Returns the accessor the bridge reads or writes the data with.
+     *
+     * @return the accessor, or null if the bridge has none
+     */
+    default Accessor getAccessor() {
+        return null;
+    }
 }
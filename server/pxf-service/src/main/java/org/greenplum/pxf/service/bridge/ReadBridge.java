@@ -49,6 +49,9 @@ public class ReadBridge extends BaseBridge {
 
     protected BridgeOutputBuilder outputBuilder;
     protected Deque<Writable> outputQueue = new LinkedList<>();
+    // set once all the data of the fragment has been read, the accessor and
+    // the resolver are only reused when the fragment was read without errors
+    private boolean completed;
 
     public ReadBridge(BasePluginFactory pluginFactory, RequestContext context, GSSFailureHandler failureHandler) {
         super(pluginFactory, context, failureHandler);
@@ -61,7 +64,10 @@ public class ReadBridge extends BaseBridge {
     @Override
     public boolean beginIteration() throws Exception {
         // using lambda and not a method reference accessor::openForRead as the accessor will be changed by the retry function
-        return failureHandler.execute(context.getConfiguration(), "begin iteration", () -> accessor.openForRead(), this::beforeRetryCallback);
+        boolean opened = failureHandler.execute(context.getConfiguration(), "begin iteration", () -> accessor.openForRead(), this::beforeRetryCallback);
+        // there is nothing to read from a fragment that is skipped
+        completed = !opened;
+        return opened;
     }
 
     protected Deque<Writable> makeOutput(OneRow oneRow) throws Exception {
@@ -85,6 +91,7 @@ public class ReadBridge extends BaseBridge {
             while (outputQueue.isEmpty()) {
                 onerow = accessor.readNextObject();
                 if (onerow == null) {
+                    completed = true;
                     output = outputBuilder.getPartialLine();
                     if (output != null) {
                         LOG.warn("A partial record in the end of the fragment");
@@ -116,7 +123,10 @@ public class ReadBridge extends BaseBridge {
     }
 
     /**
-     * Close the underlying resource
+     * Close the underlying resource. When all the data of the fragment was
+     * read, release the accessor and resolver so that they can be reused for
+     * the next fragment of the query, otherwise discard them as they may have
+     * been left in an inconsistent state by an error or a cancellation
      */
     public void endIteration() throws Exception {
         try {
@@ -125,6 +135,10 @@ public class ReadBridge extends BaseBridge {
             LOG.error("Failed to close bridge resources: {}", e.getMessage());
             throw e;
         }
+        if (completed) {
+            pluginFactory.releasePlugin(context, accessor);
+            pluginFactory.releasePlugin(context, resolver);
+        }
     }
 
     /*
@@ -21,6 +21,7 @@ package org.greenplum.pxf.service.bridge;
 
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.SamplingAccessor;
 import org.greenplum.pxf.service.utilities.AnalyzeUtils;
 import org.greenplum.pxf.service.utilities.BasePluginFactory;
 import org.greenplum.pxf.service.utilities.GSSFailureHandler;
@@ -38,19 +39,55 @@ import java.util.BitSet;
  * ratio of 0.034, a bit-map of 1000 bits will be created, and 34 bits will be
  * set. This map is matched against each read record, discarding ones with a 0
  * bit and continuing until a 1 bit record is read.
+ * <p>
+ * When the accessor is a {@link SamplingAccessor}, it skips part of the data
+ * at the source and only the remaining fraction of the records it reads is
+ * sampled by the bridge, so that every record still has a probability of
+ * sampleRatio to be returned.
  */
 public class ReadSamplingBridge extends ReadBridge {
 
+    private final float sampleRatio;
     private BitSet sampleBitSet;
     private int bitSetSize;
     private int curIndex;
 
     public ReadSamplingBridge(BasePluginFactory pluginFactory, RequestContext context, GSSFailureHandler failureHandler) {
         super(pluginFactory, context, failureHandler);
-        calculateBitSet(context.getStatsSampleRatio());
+        this.sampleRatio = context.getStatsSampleRatio();
+        calculateBitSet(sampleRatio);
         this.curIndex = 0;
     }
 
+    /**
+     * Accesses the underlying data source, letting a {@link SamplingAccessor}
+     * skip data, and adjusts the sampling of the bridge to the fraction of the
+     * records read by the accessor.
+     */
+    @Override
+    public boolean beginIteration() throws Exception {
+        setAccessorSampleRatio();
+        boolean result = super.beginIteration();
+        if (accessor instanceof SamplingAccessor) {
+            float readRatio = ((SamplingAccessor) accessor).getReadRatio();
+            if (readRatio > 0 && readRatio < 1) {
+                float bridgeRatio = Math.min(1, sampleRatio / readRatio);
+                LOG.debug("Accessor reads {} of the records, sampling {} of them", readRatio, bridgeRatio);
+                calculateBitSet(bridgeRatio);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void beforeRetryCallback() {
+        super.beforeRetryCallback();
+        setAccessorSampleRatio();
+    }
+
     /**
      * Fetches next sample, according to the sampling ratio.
      */
@@ -72,6 +109,12 @@ public class ReadSamplingBridge extends ReadBridge {
         return output;
     }
 
+    private void setAccessorSampleRatio() {
+        if (accessor instanceof SamplingAccessor) {
+            ((SamplingAccessor) accessor).setSampleRatio(sampleRatio);
+        }
+    }
+
     private void calculateBitSet(float sampleRatio) {
         int sampleSize = (int) (sampleRatio * 10000);
         bitSetSize = 10000;
@@ -80,7 +123,7 @@ public class ReadSamplingBridge extends ReadBridge {
             bitSetSize /= 10;
             sampleSize /= 10;
         }
-        LOG.debug("bit set size = %d sample size = %d", bitSetSize, sampleSize);
+        LOG.debug("bit set size = {} sample size = {}", bitSetSize, sampleSize);
 
         sampleBitSet = AnalyzeUtils.generateSamplingBitSet(bitSetSize, sampleSize);
     }
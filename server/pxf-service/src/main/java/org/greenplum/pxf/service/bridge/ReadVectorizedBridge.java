@@ -21,19 +21,41 @@ package org.greenplum.pxf.service.bridge;
 
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.model.ReadColumnarResolver;
 import org.greenplum.pxf.api.model.ReadVectorizedResolver;
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.ColumnBatchSerializer;
 import org.greenplum.pxf.service.utilities.BasePluginFactory;
 import org.greenplum.pxf.service.utilities.GSSFailureHandler;
 
+import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.List;
 
 public class ReadVectorizedBridge extends ReadBridge {
 
+    private final ColumnBatchSerializer columnBatchSerializer;
+    private final Deque<Writable> columnBatchOutput = new ArrayDeque<>(1);
+
     public ReadVectorizedBridge(BasePluginFactory pluginFactory, RequestContext context, GSSFailureHandler failureHandler) {
         super(pluginFactory, context, failureHandler);
+        this.columnBatchSerializer = (resolver instanceof ReadColumnarResolver) ? new ColumnBatchSerializer(context) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When the resolver provides the batch in columnar form, the rows of the batch are
+     * served one by one by the same serializer before the next batch is read.
+     */
+    @Override
+    public Writable getNext() throws Exception {
+        if (columnBatchSerializer != null && columnBatchSerializer.nextRow()) {
+            return columnBatchSerializer;
+        }
+        return super.getNext();
     }
 
     /**
@@ -41,6 +63,17 @@ public class ReadVectorizedBridge extends ReadBridge {
      */
     @Override
     protected Deque<Writable> makeOutput(OneRow oneRow) throws Exception {
+        if (columnBatchSerializer != null) {
+            ColumnBatch columnBatch = ((ReadColumnarResolver) resolver).getColumnBatch(oneRow);
+            if (columnBatch != null && columnBatchSerializer.supports(columnBatch)) {
+                columnBatchOutput.clear();
+                columnBatchSerializer.reset(columnBatch);
+                if (columnBatchSerializer.nextRow()) {
+                    columnBatchOutput.add(columnBatchSerializer);
+                }
+                return columnBatchOutput;
+            }
+        }
         List<List<OneField>> resolvedBatch = ((ReadVectorizedResolver) resolver).
                 getFieldsForBatch(oneRow);
         return outputBuilder.makeVectorizedOutput(resolvedBatch);
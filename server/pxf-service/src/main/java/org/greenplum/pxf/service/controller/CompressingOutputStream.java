@@ -0,0 +1,148 @@
+package org.greenplum.pxf.service.controller;
+
+import com.google.common.io.CountingOutputStream;
+import org.greenplum.pxf.service.TransferCompression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Output stream that compresses the data sent to the client with a {@link TransferCompression} codec.
+ * Small writes are collected into a buffer so that the codec is called with large chunks of data.
+ * Keeps track of the number of bytes before and after the compression and of the CPU time spent
+ * in the codec, which includes handing the compressed data over to the underlying stream.
+ * <p>
+ * {@link #finish()} must be called once all the data is written, it completes the compressed
+ * frame without closing the underlying stream.
+ */
+class CompressingOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private final CountingOutputStream compressedStream;
+    private final OutputStream compressor;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private long uncompressedByteCount;
+    private long cpuTimeNanos;
+    private boolean finished;
+
+    /**
+     * Creates a stream that compresses the data into the given stream.
+     *
+     * @param out         the stream to write the compressed data to
+     * @param compression the compression codec
+     * @param level       the compression level
+     * @throws IOException if the codec could not be initialized
+     */
+    CompressingOutputStream(OutputStream out, TransferCompression compression, int level) throws IOException {
+        // the codecs close the stream they write to once the frame is complete, but the response stream
+        // is closed by the container
+        compressedStream = new CountingOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+        compressor = compression.wrap(compressedStream, level);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            drainBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.length - count) {
+            drainBuffer();
+            if (len >= buffer.length) {
+                compress(b, off, len);
+                return;
+            }
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drainBuffer();
+        long start = getCpuTime();
+        compressor.flush();
+        cpuTimeNanos += getCpuTime() - start;
+    }
+
+    /**
+     * Compresses the rest of the data and completes the compressed frame.
+     *
+     * @throws IOException if the data could not be written
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        drainBuffer();
+        long start = getCpuTime();
+        compressor.close();
+        cpuTimeNanos += getCpuTime() - start;
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * @return the number of bytes written to this stream
+     */
+    long getUncompressedByteCount() {
+        return uncompressedByteCount + count;
+    }
+
+    /**
+     * @return the number of compressed bytes written to the underlying stream
+     */
+    long getCompressedByteCount() {
+        return compressedStream.getCount();
+    }
+
+    /**
+     * @return the CPU time in nanoseconds spent compressing the data
+     */
+    long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    private void drainBuffer() throws IOException {
+        if (count > 0) {
+            compress(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void compress(byte[] b, int off, int len) throws IOException {
+        long start = getCpuTime();
+        compressor.write(b, off, len);
+        cpuTimeNanos += getCpuTime() - start;
+        uncompressedByteCount += len;
+    }
+
+    private static long getCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
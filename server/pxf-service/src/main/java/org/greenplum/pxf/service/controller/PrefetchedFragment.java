@@ -0,0 +1,215 @@
+package org.greenplum.pxf.service.controller;
+
+import com.google.common.io.CountingOutputStream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.Accessor;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.bridge.Bridge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Reads a single fragment on a worker thread ahead of the time its data is needed by the response stream.
+ * The records of the fragment are serialized into chunks of bytes that are handed over to the response thread
+ * through a bounded queue, so that only a few chunks per fragment are held in memory at any time.
+ * <p>
+ * The records are serialized by the worker thread since bridges are allowed to reuse the same
+ * {@link Writable} instance for consecutive records.
+ */
+@Slf4j
+class PrefetchedFragment implements Runnable {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final int MAX_QUEUED_CHUNKS = 16;
+    private static final long OFFER_TIMEOUT_MS = 100;
+    private static final Chunk END_OF_FRAGMENT = new Chunk(new byte[0], 0, 0);
+
+    @Getter
+    private final RequestContext context;
+    private final Function<RequestContext, Bridge> bridgeFactory;
+    private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(MAX_QUEUED_CHUNKS);
+    private volatile boolean cancelled = false;
+    private volatile Throwable failure;
+    private volatile Instant startTime;
+    private volatile Accessor accessor;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param context       request context describing the fragment, must not be shared with other fragments
+     * @param bridgeFactory function that returns a new bridge for the given context
+     */
+    PrefetchedFragment(RequestContext context, Function<RequestContext, Bridge> bridgeFactory) {
+        this.context = context;
+        this.bridgeFactory = bridgeFactory;
+    }
+
+    /**
+     * Reads all records of the fragment and queues them for the response thread.
+     */
+    @Override
+    public void run() {
+        startTime = Instant.now();
+        ChunkBuffer buffer = new ChunkBuffer();
+        DataOutputStream dos = new DataOutputStream(buffer);
+        Bridge bridge = null;
+        try {
+            bridge = bridgeFactory.apply(context);
+            if (!bridge.beginIteration()) {
+                log.debug("Skipping prefetching fragment {} of resource {}",
+                        context.getFragmentIndex(), context.getDataSource());
+            } else {
+                log.debug("Starting prefetching fragment {} of resource {}",
+                        context.getFragmentIndex(), context.getDataSource());
+                Writable record;
+                while (!cancelled && (record = bridge.getNext()) != null) {
+                    record.write(dos);
+                    buffer.completeRecord();
+                }
+            }
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            if (bridge != null) {
+                try {
+                    bridge.endIteration();
+                } catch (Exception e) {
+                    log.warn("Ignoring error encountered during bridge.endIteration()", e);
+                }
+                accessor = bridge.getAccessor();
+            }
+            // records serialized before a failure are still delivered, same as when streaming directly
+            buffer.flushChunk();
+            enqueue(END_OF_FRAGMENT);
+        }
+    }
+
+    /**
+     * Writes the data of the fragment to the output stream as it becomes available, blocking until
+     * the worker thread has finished reading the fragment.
+     *
+     * @param countingOutputStream output stream to write data to
+     * @param fragmentStats        statistics of the fragment
+     * @throws Exception if reading the fragment or writing to the output stream failed
+     */
+    void writeTo(CountingOutputStream countingOutputStream, OperationStats fragmentStats) throws Exception {
+        long previousStreamByteCount = countingOutputStream.getCount();
+        Chunk chunk;
+        while ((chunk = chunks.take()) != END_OF_FRAGMENT) {
+            countingOutputStream.write(chunk.data, 0, chunk.length);
+            // fragment's current byte count is relative to the previous stream's byte count
+            fragmentStats.reportCompletedRecords(chunk.records, countingOutputStream.getCount() - previousStreamByteCount);
+        }
+
+        Throwable t = failure;
+        if (t instanceof Exception) {
+            throw (Exception) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IOException(t);
+        }
+    }
+
+    /**
+     * Signals the worker thread to stop reading the fragment. Records that have not been
+     * delivered yet are discarded.
+     */
+    void cancel() {
+        cancelled = true;
+        chunks.clear();
+    }
+
+    /**
+     * Returns the time when the worker thread started reading the fragment, or the current time
+     * if the worker thread has not started yet.
+     *
+     * @return the start time of reading the fragment
+     */
+    Instant getStartTime() {
+        Instant time = startTime;
+        return (time == null) ? Instant.now() : time;
+    }
+
+    /**
+     * Returns the accessor that read the fragment, once the worker thread has finished reading it.
+     *
+     * @return the accessor, or null if the fragment has not been read
+     */
+    Accessor getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * Places the chunk into the queue, waiting for space to become available unless the
+     * fragment has been cancelled.
+     *
+     * @param chunk the chunk to enqueue
+     */
+    private void enqueue(Chunk chunk) {
+        try {
+            while (!cancelled) {
+                if (chunks.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A serialized sequence of complete records.
+     */
+    private static class Chunk {
+        private final byte[] data;
+        private final int length;
+        private final int records;
+
+        Chunk(byte[] data, int length, int records) {
+            this.data = data;
+            this.length = length;
+            this.records = records;
+        }
+    }
+
+    /**
+     * A buffer that hands its content over to the queue once it holds at least
+     * {@link #CHUNK_SIZE} bytes of complete records.
+     */
+    private class ChunkBuffer extends ByteArrayOutputStream {
+        private int records = 0;
+
+        ChunkBuffer() {
+            super(CHUNK_SIZE);
+        }
+
+        void completeRecord() {
+            records++;
+            if (count >= CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+
+        void flushChunk() {
+            if (count == 0) {
+                return;
+            }
+            // give the underlying array away instead of copying it
+            enqueue(new Chunk(buf, count, records));
+            buf = new byte[CHUNK_SIZE];
+            count = 0;
+            records = 0;
+        }
+    }
+}
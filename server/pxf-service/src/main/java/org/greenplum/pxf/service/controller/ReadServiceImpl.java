@@ -1,36 +1,62 @@
 package org.greenplum.pxf.service.controller;
 
 import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.error.PxfRuntimeException;
 import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.ConfigurationFactory;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.PluginConf;
+import org.greenplum.pxf.api.model.ReadTimings;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.Utilities;
 import org.greenplum.pxf.service.FragmenterService;
 import org.greenplum.pxf.service.MetricsReporter;
+import org.greenplum.pxf.service.SharedFragmentQueue;
+import org.greenplum.pxf.service.StreamedFragments;
+import org.greenplum.pxf.service.TransferCompression;
 import org.greenplum.pxf.service.bridge.Bridge;
 import org.greenplum.pxf.service.bridge.BridgeFactory;
 import org.greenplum.pxf.service.security.SecurityService;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.DataOutputStream;
 import java.io.OutputStream;
+import java.security.PrivilegedAction;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of the ReadService.
  */
 @Service
 @Slf4j
-public class ReadServiceImpl extends BaseServiceImpl<OperationStats> implements ReadService {
+public class ReadServiceImpl extends BaseServiceImpl<OperationStats> implements ReadService, DisposableBean {
+
+    /**
+     * Number of fragments to read on worker threads ahead of the fragment that is being streamed.
+     */
+    static final String PREFETCH_FRAGMENTS_PROPERTY = "pxf.read.prefetch.fragments";
 
     private final FragmenterService fragmenterService;
+    private final ExecutorService prefetchExecutor;
 
     /**
      * Creates a new instance.
@@ -40,14 +66,31 @@ public class ReadServiceImpl extends BaseServiceImpl<OperationStats> implements
      * @param securityService      security service
      * @param fragmenterService    fragmenter service
      * @param metricsReporter      metrics reporter service
+     * @param prefetchMaxThreads   maximum number of threads reading fragments ahead for all the queries
      */
     public ReadServiceImpl(ConfigurationFactory configurationFactory,
                            BridgeFactory bridgeFactory,
                            SecurityService securityService,
                            FragmenterService fragmenterService,
-                           MetricsReporter metricsReporter) {
+                           MetricsReporter metricsReporter,
+                           @Value("${pxf.read.prefetch.max-threads:200}") int prefetchMaxThreads) {
         super("Read", configurationFactory, bridgeFactory, securityService, metricsReporter);
         this.fragmenterService = fragmenterService;
+        // fragments waiting for a thread are queued and started in the order they were submitted,
+        // so a query never waits for a fragment that is queued behind fragments it submitted later
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(prefetchMaxThreads, prefetchMaxThreads,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("pxf-prefetch-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        this.prefetchExecutor = executor;
+    }
+
+    /**
+     * Stops the threads reading fragments ahead when the service shuts down.
+     */
+    @Override
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
     }
 
     @Override
@@ -68,53 +111,92 @@ public class ReadServiceImpl extends BaseServiceImpl<OperationStats> implements
      * @return operation statistics
      */
     private OperationResult writeStream(RequestContext context, OutputStream outputStream) {
-        boolean restoreOriginalValues;
-
-        String originalProfile = context.getProfile();
-        String originalAccessor = context.getAccessor();
-        String originalResolver = context.getResolver();
-        String originalProfileScheme = context.getProfileScheme();
-
         OperationStats queryStats = new OperationStats(OperationStats.Operation.READ, metricsReporter, context);
         OperationResult queryResult = new OperationResult();
 
-        // dataStream (and outputStream as the result) will close automatically at the end of the try block
-        CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+        CompressingOutputStream compressingOutputStream = null;
         String sourceName = null;
         try {
-            List<Fragment> fragments = fragmenterService.getFragmentsForSegment(context);
-            for (int i = 0; i < fragments.size(); i++) {
-                Fragment fragment = fragments.get(i);
-                sourceName = fragment.getSourceName();
-                String profile = fragment.getProfile();
-                restoreOriginalValues = false;
-                if (StringUtils.isNotBlank(profile) &&
-                        !StringUtils.equalsIgnoreCase(profile, context.getProfile())) {
-                    restoreOriginalValues = true;
-                    log.debug("Fragment {} of resource {} will be using profile: {}",
-                            fragment.getIndex(), fragment.getSourceName(), profile);
-                    updateProfile(context, profile);
+            if (context.getTransferCompression() != null) {
+                compressingOutputStream = new CompressingOutputStream(outputStream,
+                        TransferCompression.forName(context.getTransferCompression()),
+                        context.getTransferCompressionLevel());
+            }
+            // byte counts reported for the query are the number of bytes before the compression
+            CountingOutputStream countingOutputStream = new CountingOutputStream(
+                    compressingOutputStream != null ? compressingOutputStream : outputStream);
+
+            StreamedFragments streamedFragments = fragmenterService.getStreamedFragmentsForSegment(context);
+            List<Fragment> fragments = streamedFragments != null
+                    ? Collections.emptyList()
+                    : fragmenterService.getFragmentsForSegment(context);
+            SharedFragmentQueue.Participant sharedQueue = streamedFragments != null
+                    ? null
+                    : fragmenterService.joinSharedFragmentQueue(context, fragments);
+            int prefetchFragments = getPrefetchFragments(context);
+            if (streamedFragments != null) {
+                // fragments are read as soon as the fragmenter discovers them
+                Fragment fragment;
+                while ((fragment = streamedFragments.next()) != null) {
+                    sourceName = fragment.getSourceName();
+                    processFragment(countingOutputStream, context, fragment, queryStats);
+                }
+                log.debug("Streamed {} of {} fragments discovered by the fragmenter",
+                        streamedFragments.getFragmentCount(), streamedFragments.getTotalFragmentCount());
+            } else if (sharedQueue != null) {
+                // fragments are taken from the queue one at a time, reading ahead would keep fragments
+                // away from the segments that could process them right away
+                try {
+                    Fragment fragment;
+                    while ((fragment = sharedQueue.next()) != null) {
+                        sourceName = fragment.getSourceName();
+                        processFragment(countingOutputStream, context, fragment, queryStats);
+                        sharedQueue.complete(fragment);
+                    }
+                } finally {
+                    // fragments that were not fully streamed because of an error or a client abort go back to the queue
+                    sharedQueue.close();
+                    log.debug("Streamed {} fragments from the shared queue, {} of them assigned to other segments",
+                            sharedQueue.getFragmentCount(), sharedQueue.getForeignFragmentCount());
+                }
+            } else if (prefetchFragments > 0 && fragments.size() > 1) {
+                // read the next fragments on worker threads while the current one is being streamed
+                UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+                Deque<PrefetchedFragment> inFlight = new ArrayDeque<>(prefetchFragments + 1);
+                int nextToSubmit = 0;
+                try {
+                    for (int i = 0; i < fragments.size(); i++) {
+                        while (nextToSubmit < fragments.size() && nextToSubmit <= i + prefetchFragments) {
+                            inFlight.add(submitFragment(context, fragments.get(nextToSubmit), ugi));
+                            // the fragment context holds everything needed to read the fragment, release the reference
+                            fragments.set(nextToSubmit++, null);
+                        }
+                        PrefetchedFragment prefetchedFragment = inFlight.peek();
+                        sourceName = prefetchedFragment.getContext().getDataSource();
+                        processPrefetchedFragment(countingOutputStream, prefetchedFragment, queryStats);
+                        inFlight.remove();
+                    }
+                } finally {
+                    // stop reading fragments that will not be streamed because of an error or a client abort
+                    inFlight.forEach(PrefetchedFragment::cancel);
                 }
-                context.setDataSource(fragment.getSourceName());
-                context.setFragmentIndex(fragment.getIndex());
-                context.setFragmentMetadata(fragment.getMetadata());
-                processFragment(countingOutputStream, context, queryStats);
-
-                // In cases where we have hundreds of thousands of fragments,
-                // we want to release the fragment reference as soon as we are
-                // done processing the fragment. This allows the GC to reclaim
-                // any memory, under memory stress situations, if needed.
-                fragments.set(i, null);
-
-                if (restoreOriginalValues) {
-                    // Restore the original values so that the next
-                    // fragment will use the default profile settings
-                    context.setProfile(originalProfile);
-                    context.setAccessor(originalAccessor);
-                    context.setResolver(originalResolver);
-                    context.setProfileScheme(originalProfileScheme);
+            } else {
+                for (int i = 0; i < fragments.size(); i++) {
+                    Fragment fragment = fragments.get(i);
+                    sourceName = fragment.getSourceName();
+                    processFragment(countingOutputStream, context, fragment, queryStats);
+
+                    // In cases where we have hundreds of thousands of fragments,
+                    // we want to release the fragment reference as soon as we are
+                    // done processing the fragment. This allows the GC to reclaim
+                    // any memory, under memory stress situations, if needed.
+                    fragments.set(i, null);
                 }
             }
+
+            if (compressingOutputStream != null) {
+                compressingOutputStream.finish();
+            }
         } catch (Exception e) {
             // the exception is not re-thrown but passed to the caller in the queryResult so that
             // the caller has a chance to inspect / report query stats before re-throwing the exception
@@ -122,11 +204,83 @@ public class ReadServiceImpl extends BaseServiceImpl<OperationStats> implements
             queryResult.setSourceName(sourceName);
         } finally {
             queryResult.setStats(queryStats);
+            if (compressingOutputStream != null) {
+                reportCompression(context, compressingOutputStream);
+            }
         }
 
         return queryResult;
     }
 
+    /**
+     * Logs and reports to the metrics registry how well the data sent to the client was compressed
+     * and how much CPU time the compression took.
+     *
+     * @param context                 request context
+     * @param compressingOutputStream stream that compressed the data
+     */
+    private void reportCompression(RequestContext context, CompressingOutputStream compressingOutputStream) {
+        long uncompressedByteCount = compressingOutputStream.getUncompressedByteCount();
+        long compressedByteCount = compressingOutputStream.getCompressedByteCount();
+        Duration cpuTime = Duration.ofNanos(compressingOutputStream.getCpuTimeNanos());
+        double ratio = compressedByteCount == 0 ? 0 : (double) uncompressedByteCount / compressedByteCount;
+
+        log.info("Compressed {} bytes to {} bytes with {} level {} [ratio {}, {} ms CPU]",
+                uncompressedByteCount,
+                compressedByteCount,
+                context.getTransferCompression(),
+                context.getTransferCompressionLevel(),
+                String.format("%.2f", ratio),
+                cpuTime.toMillis());
+
+        metricsReporter.reportCounter(MetricsReporter.PxfMetric.COMPRESSION_BYTES_IN, uncompressedByteCount, context);
+        metricsReporter.reportCounter(MetricsReporter.PxfMetric.COMPRESSION_BYTES_OUT, compressedByteCount, context);
+        metricsReporter.reportTimer(MetricsReporter.PxfMetric.COMPRESSION_CPU_TIME, cpuTime, context);
+    }
+
+    /**
+     * Processes a single fragment with the request context and updates query statistics. The context
+     * is updated to describe the fragment, and restored to the profile of the request afterwards.
+     *
+     * @param countingOutputStream output stream to write data to
+     * @param context              request context
+     * @param fragment             fragment to process
+     * @param queryStats           query statistics
+     * @throws Exception if operation fails
+     */
+    private void processFragment(CountingOutputStream countingOutputStream,
+                                 RequestContext context,
+                                 Fragment fragment,
+                                 OperationStats queryStats) throws Exception {
+        String originalProfile = context.getProfile();
+        String originalAccessor = context.getAccessor();
+        String originalResolver = context.getResolver();
+        String originalProfileScheme = context.getProfileScheme();
+
+        String profile = fragment.getProfile();
+        boolean restoreOriginalValues = false;
+        if (StringUtils.isNotBlank(profile) &&
+                !StringUtils.equalsIgnoreCase(profile, context.getProfile())) {
+            restoreOriginalValues = true;
+            log.debug("Fragment {} of resource {} will be using profile: {}",
+                    fragment.getIndex(), fragment.getSourceName(), profile);
+            updateProfile(context, profile);
+        }
+        context.setDataSource(fragment.getSourceName());
+        context.setFragmentIndex(fragment.getIndex());
+        context.setFragmentMetadata(fragment.getMetadata());
+        processFragment(countingOutputStream, context, queryStats);
+
+        if (restoreOriginalValues) {
+            // Restore the original values so that the next
+            // fragment will use the default profile settings
+            context.setProfile(originalProfile);
+            context.setAccessor(originalAccessor);
+            context.setResolver(originalResolver);
+            context.setProfileScheme(originalProfileScheme);
+        }
+    }
+
     /**
      * Processes a single fragment identified in the RequestContext and updates query statistics.
      *
@@ -168,6 +322,7 @@ public class ReadServiceImpl extends BaseServiceImpl<OperationStats> implements
                 } catch (Exception e) {
                     log.warn("Ignoring error encountered during bridge.endIteration()", e);
                 }
+                reportReadTimings(bridge.getAccessor(), context);
             }
             Duration duration = Duration.between(startTime, Instant.now());
 
@@ -187,6 +342,125 @@ public class ReadServiceImpl extends BaseServiceImpl<OperationStats> implements
         }
     }
 
+    /**
+     * Submits a fragment to be read by a worker thread on behalf of the current user.
+     * The fragment is described by its own copy of the request context, so that fragments
+     * read concurrently do not interfere with each other.
+     *
+     * @param context  request context
+     * @param fragment fragment to read
+     * @param ugi      identity to read the fragment with
+     * @return the fragment being read
+     */
+    private PrefetchedFragment submitFragment(RequestContext context, Fragment fragment, UserGroupInformation ugi) {
+        RequestContext fragmentContext = context.copy();
+        String profile = fragment.getProfile();
+        if (StringUtils.isNotBlank(profile) &&
+                !StringUtils.equalsIgnoreCase(profile, fragmentContext.getProfile())) {
+            log.debug("Fragment {} of resource {} will be using profile: {}",
+                    fragment.getIndex(), fragment.getSourceName(), profile);
+            updateProfile(fragmentContext, profile);
+        }
+        fragmentContext.setDataSource(fragment.getSourceName());
+        fragmentContext.setFragmentIndex(fragment.getIndex());
+        fragmentContext.setFragmentMetadata(fragment.getMetadata());
+
+        PrefetchedFragment prefetchedFragment = new PrefetchedFragment(fragmentContext, this::getBridge);
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        prefetchExecutor.execute(() -> {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                ugi.doAs((PrivilegedAction<Void>) () -> {
+                    prefetchedFragment.run();
+                    return null;
+                });
+            } finally {
+                MDC.clear();
+            }
+        });
+        return prefetchedFragment;
+    }
+
+    /**
+     * Streams a fragment that is being read by a worker thread and updates query statistics.
+     *
+     * @param countingOutputStream output stream to write data to
+     * @param prefetchedFragment   fragment being read by a worker thread
+     * @param queryStats           query statistics
+     * @throws Exception if operation fails
+     */
+    private void processPrefetchedFragment(CountingOutputStream countingOutputStream,
+                                           PrefetchedFragment prefetchedFragment,
+                                           OperationStats queryStats) throws Exception {
+        RequestContext context = prefetchedFragment.getContext();
+        OperationStats fragmentStats = new OperationStats(OperationStats.Operation.READ, metricsReporter, context);
+        long previousStreamByteCount = countingOutputStream.getCount();
+        boolean success = false;
+        try {
+            prefetchedFragment.writeTo(countingOutputStream, fragmentStats);
+            success = true;
+        } finally {
+            Duration duration = Duration.between(prefetchedFragment.getStartTime(), Instant.now());
+
+            fragmentStats.setByteCount(countingOutputStream.getCount() - previousStreamByteCount);
+            fragmentStats.flushStats();
+            queryStats.update(fragmentStats);
+            reportReadTimings(prefetchedFragment.getAccessor(), context);
+
+            log.debug("Finished processing prefetched fragment {} of resource {} in {} ms, wrote {} records and {} bytes.",
+                    context.getFragmentIndex(), context.getDataSource(), duration.toMillis(), fragmentStats.getRecordCount(), fragmentStats.getByteCount());
+            metricsReporter.reportTimer(MetricsReporter.PxfMetric.FRAGMENTS_SENT, duration, context, success);
+        }
+    }
+
+    /**
+     * Reports the time the accessor spent waiting for data from the storage and
+     * decoding it, for accessors that measure them.
+     *
+     * @param accessor the accessor that read the fragment, possibly null
+     * @param context  the request context
+     */
+    private void reportReadTimings(Accessor accessor, RequestContext context) {
+        if (!(accessor instanceof ReadTimings)) {
+            return;
+        }
+        ReadTimings timings = (ReadTimings) accessor;
+        Duration ioWaitTime = timings.getIoWaitTime();
+        Duration decodeTime = timings.getDecodeTime();
+        if (ioWaitTime != null) {
+            metricsReporter.reportTimer(MetricsReporter.PxfMetric.READ_IO_WAIT_TIME, ioWaitTime, context);
+        }
+        if (decodeTime != null) {
+            metricsReporter.reportTimer(MetricsReporter.PxfMetric.READ_DECODE_TIME, decodeTime, context);
+        }
+        log.debug("Accessor spent {} ms waiting for I/O and {} ms decoding fragment {} of resource {}",
+                ioWaitTime == null ? 0 : ioWaitTime.toMillis(),
+                decodeTime == null ? 0 : decodeTime.toMillis(),
+                context.getFragmentIndex(), context.getDataSource());
+    }
+
+    /**
+     * Returns the number of fragments to read ahead of the fragment that is being streamed,
+     * as configured for the server. Zero means that fragments are read one after another.
+     *
+     * @param context request context
+     * @return the number of fragments to read ahead
+     */
+    private int getPrefetchFragments(RequestContext context) {
+        Configuration configuration = context.getConfiguration();
+        if (configuration == null) {
+            return 0;
+        }
+        int prefetchFragments = configuration.getInt(PREFETCH_FRAGMENTS_PROPERTY, 0);
+        if (prefetchFragments < 0) {
+            throw new PxfRuntimeException(String.format("Property %s can not be set to a negative value %d",
+                    PREFETCH_FRAGMENTS_PROPERTY, prefetchFragments));
+        }
+        return prefetchFragments;
+    }
+
     private void updateProfile(RequestContext context, String profile) {
         context.setProfile(profile);
         PluginConf pluginConf = context.getPluginConf();
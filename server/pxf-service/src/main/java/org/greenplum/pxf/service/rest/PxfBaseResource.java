@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.service.RequestParser;
 import org.greenplum.pxf.service.controller.PxfErrorReporter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
@@ -44,16 +45,28 @@ public abstract class PxfBaseResource<T> extends PxfErrorReporter<T> {
      */
     protected ResponseEntity<T> processRequest(final MultiValueMap<String, String> headers,
                                                final HttpServletRequest httpServletRequest) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+
         // use the request processing algorithm as a lambda for the invoking and error handling logic
         T response = this.invokeWithErrorHandling(
                 () -> {
                     RequestContext context = parser.parseRequest(headers, requestType);
+                    addResponseHeaders(context, responseHeaders);
                     return produceResponse(context, httpServletRequest);
                 }
         );
 
         // return the response entity, if it is StreamingResponseBody, then the response will be streamed asynchronously
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return new ResponseEntity<>(response, responseHeaders, HttpStatus.OK);
+    }
+
+    /**
+     * Adds headers to the response for a given request. No headers are added by default.
+     *
+     * @param context         PXF request context
+     * @param responseHeaders headers of the response
+     */
+    protected void addResponseHeaders(RequestContext context, HttpHeaders responseHeaders) {
     }
 
     /**
@@ -2,7 +2,9 @@ package org.greenplum.pxf.service.rest;
 
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.service.RequestParser;
+import org.greenplum.pxf.service.TransferCompression;
 import org.greenplum.pxf.service.controller.ReadService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
@@ -47,6 +49,14 @@ public class PxfReadResource extends PxfBaseResource<StreamingResponseBody> {
         return processRequest(headers, request);
     }
 
+    @Override
+    protected void addResponseHeaders(RequestContext context, HttpHeaders responseHeaders) {
+        // let the client know the data is compressed before any of it is streamed
+        if (context.getTransferCompression() != null) {
+            responseHeaders.set(TransferCompression.CONTENT_ENCODING_HEADER, context.getTransferCompression());
+        }
+    }
+
     @Override
     protected StreamingResponseBody produceResponse(RequestContext context, HttpServletRequest request) {
         // return a lambda that will be executed asynchronously
@@ -29,14 +29,16 @@ public class BaseSecurityService implements SecurityService {
 
     private final SecureLogin secureLogin;
     private final UGIProvider ugiProvider;
+    private final UGICache ugiCache;
 
     /* feature flag to expand Kerberos User Principal name when impersonating */
     private boolean isExpandUserPrincipal;
 
-    public BaseSecurityService(SecureLogin secureLogin, UGIProvider ugiProvider,
+    public BaseSecurityService(SecureLogin secureLogin, UGIProvider ugiProvider, UGICache ugiCache,
                                @Value("${" + EXPAND_PRINCIPAL_PROPERTY + "}") boolean isExpandUserPrincipal) {
         this.secureLogin = secureLogin;
         this.ugiProvider = ugiProvider;
+        this.ugiCache = ugiCache;
         this.isExpandUserPrincipal = isExpandUserPrincipal;
     }
 
@@ -45,7 +47,9 @@ public class BaseSecurityService implements SecurityService {
      * presence of the expected security headers and create a proxy user to
      * execute further request chain. If security is enabled for the
      * configuration server used for the requests, makes sure that a login
-     * UGI for the the Kerberos principal is created.
+     * UGI for the the Kerberos principal is created. The UGI of the remote
+     * user is taken from the {@link UGICache}, so that requests of the same
+     * remote user share their Hadoop file systems.
      *
      * <p>Responds with an HTTP error if the header is missing or the chain
      * processing throws an exception.
@@ -66,7 +70,7 @@ public class BaseSecurityService implements SecurityService {
 
         // Establish the UGI for the login user or the Kerberos principal for the given server, if applicable
         boolean exceptionDetected = false;
-        UserGroupInformation userGroupInformation = null;
+        UGICache.Session session = null;
         try {
             /*
                get a login user that is either of:
@@ -107,13 +111,19 @@ public class BaseSecurityService implements SecurityService {
             processConstrainedDelegation(configuration, isSecurityEnabled, isConstrainedDelegationEnabled, remoteUser, loginUser.getUserName());
 
             // Retrieve proxy user UGI from the UGI of the logged in user
-            if (isUserImpersonationEnabled || isConstrainedDelegationEnabled) {
-                LOG.debug("Creating proxy user = {}", remoteUser);
-                userGroupInformation = ugiProvider.createProxyUser(remoteUser, loginUser);
-            } else {
-                LOG.debug("Creating remote user = {}", remoteUser);
-                userGroupInformation = ugiProvider.createRemoteUser(remoteUser, loginUser, isSecurityEnabled);
-            }
+            final boolean isProxyUser = isUserImpersonationEnabled || isConstrainedDelegationEnabled;
+            final String sessionUser = remoteUser;
+            UGICache.SessionKey sessionKey = new UGICache.SessionKey(serverName, configDirectory, remoteUser,
+                    loginUser, isProxyUser, isSecurityEnabled, context.getAdditionalConfigProps());
+            session = ugiCache.acquire(sessionKey, () -> {
+                if (isProxyUser) {
+                    LOG.debug("Creating proxy user = {}", sessionUser);
+                    return ugiProvider.createProxyUser(sessionUser, loginUser);
+                }
+                LOG.debug("Creating remote user = {}", sessionUser);
+                return ugiProvider.createRemoteUser(sessionUser, loginUser, isSecurityEnabled);
+            }, context);
+            UserGroupInformation userGroupInformation = session.getUgi();
 
             LOG.debug("Retrieved proxy user {} for server {}", userGroupInformation, serverName);
             LOG.debug("Performing request for gpdb_user = {} as [remote_user={}, service_user={}, login_user={}] with{} impersonation",
@@ -124,13 +134,10 @@ public class BaseSecurityService implements SecurityService {
             exceptionDetected = true;
             throw e;
         } finally {
-            LOG.debug("Releasing UGI resources. {}", exceptionDetected ? " Exception while processing." : "");
-            try {
-                if (userGroupInformation != null) {
-                    ugiProvider.destroy(userGroupInformation);
-                }
-            } catch (Throwable t) {
-                LOG.warn("Error releasing UGI resources, ignored.", t);
+            LOG.debug("Releasing UGI session. {}", exceptionDetected ? " Exception while processing." : "");
+            if (session != null) {
+                // do not re-use the file systems of a session that failed, they might be in a broken state
+                ugiCache.release(session, exceptionDetected);
             }
         }
     }
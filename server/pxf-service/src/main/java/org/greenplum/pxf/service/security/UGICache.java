@@ -0,0 +1,292 @@
+package org.greenplum.pxf.service.security;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.MetricsReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache of {@link UserGroupInformation} sessions. Hadoop caches {@link FileSystem} instances per UGI, so
+ * re-using the UGI across requests of the same remote user lets the requests share the connections,
+ * clients and thread pools of the file systems instead of establishing them again for every request.
+ * <p>
+ * A session is removed from the cache when it is older than the configured expiration or when the cache
+ * grows over its maximum size. The file systems of a removed session are closed once the last request
+ * using the session releases it. Setting the expiration to 0 disables caching, every request then gets
+ * a new session that is destroyed when the request completes.
+ */
+@Component
+class UGICache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UGICache.class);
+    private static final String CACHE_EXPIRATION_PROPERTY = "pxf.ugi-cache.expiration";
+    private static final String CACHE_MAX_SIZE_PROPERTY = "pxf.ugi-cache.max-size";
+
+    private final UGIProvider ugiProvider;
+    private final MetricsReporter metricsReporter;
+    private final Cache<SessionKey, Session> cache;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param ugiProvider     the provider used to destroy the sessions
+     * @param metricsReporter the reporter of cache hits and misses
+     * @param expiration      the time after which a session is no longer re-used
+     * @param maxSize         the maximum number of cached sessions
+     */
+    UGICache(UGIProvider ugiProvider,
+             MetricsReporter metricsReporter,
+             @Value("${" + CACHE_EXPIRATION_PROPERTY + ":5m}") Duration expiration,
+             @Value("${" + CACHE_MAX_SIZE_PROPERTY + ":1000}") long maxSize) {
+        this.ugiProvider = ugiProvider;
+        this.metricsReporter = metricsReporter;
+
+        long expirationMillis = Math.max(expiration.toMillis(), 0);
+        LOG.info("Creating UGI Cache with entry expiration of {} ms and maximum size of {}", expirationMillis, maxSize);
+        // expiring the sessions after write rather than after access bounds the time a session keeps
+        // file systems created with a configuration that has been changed since
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(expirationMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(Math.max(maxSize, 0))
+                .removalListener(this::onRemoval)
+                .build();
+
+        if (expirationMillis > 0) {
+            // the cache only evicts expired entries when it is accessed, clean it up periodically so that
+            // the file systems of idle sessions do not linger until the next request comes in
+            ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("pxf-ugi-cache-cleanup-%d").setDaemon(true).build());
+            cleanupExecutor.scheduleWithFixedDelay(cache::cleanUp, expirationMillis, expirationMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the session for the given key, creating it if there is no cached session for the key.
+     * The session is in use until it is released with {@link #release(Session, boolean)}, it is never
+     * destroyed while in use.
+     *
+     * @param key         the key identifying the session
+     * @param ugiSupplier the supplier of the UGI for a new session
+     * @param context     the context of the request using the session
+     * @return the session
+     */
+    Session acquire(SessionKey key, Supplier<UserGroupInformation> ugiSupplier, RequestContext context) {
+        while (true) {
+            // the session is created in use by the request that creates it, so that even a session
+            // that is evicted right away is not destroyed before the request is done with it
+            Session[] created = new Session[1];
+            Session session;
+            try {
+                session = cache.get(key, () -> {
+                    created[0] = new Session(key, ugiSupplier.get());
+                    return created[0];
+                });
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new RuntimeException(e.getCause());
+            }
+
+            if (session == created[0]) {
+                LOG.debug("Created UGI session {}", key);
+                metricsReporter.reportCounter(MetricsReporter.PxfMetric.UGI_CACHE_MISSES, 1, context);
+                return session;
+            }
+            if (session.retain()) {
+                LOG.debug("Re-using UGI session {}", key);
+                metricsReporter.reportCounter(MetricsReporter.PxfMetric.UGI_CACHE_HITS, 1, context);
+                return session;
+            }
+            // the session has been evicted after it was looked up, the next lookup will not find it
+            LOG.debug("UGI session {} has been evicted while being acquired, retrying", key);
+        }
+    }
+
+    /**
+     * Releases a session acquired with {@link #acquire(SessionKey, Supplier, RequestContext)}.
+     *
+     * @param session    the session to release
+     * @param invalidate true if the session should not be re-used by later requests
+     */
+    void release(Session session, boolean invalidate) {
+        if (invalidate) {
+            // removes the session only if it has not been replaced already
+            cache.asMap().remove(session.key, session);
+        }
+        if (session.release()) {
+            destroy(session);
+        }
+    }
+
+    /**
+     * @return the number of cached sessions
+     */
+    long size() {
+        return cache.size();
+    }
+
+    private void onRemoval(RemovalNotification<SessionKey, Session> notification) {
+        Session session = notification.getValue();
+        LOG.debug("Removed UGI session {} with cause {}", notification.getKey(), notification.getCause());
+        if (session != null && session.evict()) {
+            destroy(session);
+        }
+    }
+
+    private void destroy(Session session) {
+        LOG.debug("Releasing UGI resources of session {}", session.key);
+        try {
+            ugiProvider.destroy(session.ugi);
+        } catch (Throwable t) {
+            LOG.warn("Error releasing UGI resources, ignored.", t);
+        }
+    }
+
+    /**
+     * A cached UGI along with the number of requests using it.
+     */
+    static class Session {
+
+        private final SessionKey key;
+        private final UserGroupInformation ugi;
+        private int references = 1;
+        private boolean evicted;
+
+        private Session(SessionKey key, UserGroupInformation ugi) {
+            this.key = key;
+            this.ugi = ugi;
+        }
+
+        /**
+         * @return the UGI of the session
+         */
+        UserGroupInformation getUgi() {
+            return ugi;
+        }
+
+        /**
+         * Marks the session as used by one more request.
+         *
+         * @return false if the session has been evicted and can no longer be used, true otherwise
+         */
+        private synchronized boolean retain() {
+            if (evicted) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        /**
+         * Marks the session as used by one less request.
+         *
+         * @return true if the session should be destroyed, false otherwise
+         */
+        private synchronized boolean release() {
+            references--;
+            return evicted && references == 0;
+        }
+
+        /**
+         * Marks the session as evicted from the cache.
+         *
+         * @return true if the session should be destroyed, false if it is still in use
+         */
+        private synchronized boolean evict() {
+            evicted = true;
+            return references == 0;
+        }
+    }
+
+    /**
+     * Identifies a session. Requests share a session only when they present the same remote user to the
+     * same server in the same way, and would create their file systems with the same configuration.
+     */
+    static class SessionKey {
+
+        private final String serverName;
+        private final String configDirectory;
+        private final String remoteUser;
+        private final UserGroupInformation loginUser;
+        private final boolean proxyUser;
+        private final boolean securityEnabled;
+        private final Map<String, String> additionalConfigProps;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param serverName            the name of the server
+         * @param configDirectory       the configuration directory of the server
+         * @param remoteUser            the name of the remote user presented to the server
+         * @param loginUser             the login user the remote user is derived from, compared by identity
+         *                              so that a new login does not re-use sessions of the previous one
+         * @param proxyUser             whether the remote user is a proxy user of the login user
+         * @param securityEnabled       whether the server is secured with Kerberos
+         * @param additionalConfigProps configuration properties provided with the request
+         */
+        SessionKey(String serverName,
+                   String configDirectory,
+                   String remoteUser,
+                   UserGroupInformation loginUser,
+                   boolean proxyUser,
+                   boolean securityEnabled,
+                   Map<String, String> additionalConfigProps) {
+            this.serverName = serverName;
+            this.configDirectory = configDirectory;
+            this.remoteUser = remoteUser;
+            this.loginUser = loginUser;
+            this.proxyUser = proxyUser;
+            this.securityEnabled = securityEnabled;
+            this.additionalConfigProps = (additionalConfigProps == null || additionalConfigProps.isEmpty())
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new HashMap<>(additionalConfigProps));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SessionKey that = (SessionKey) o;
+            return proxyUser == that.proxyUser &&
+                    securityEnabled == that.securityEnabled &&
+                    Objects.equals(serverName, that.serverName) &&
+                    Objects.equals(configDirectory, that.configDirectory) &&
+                    Objects.equals(remoteUser, that.remoteUser) &&
+                    loginUser == that.loginUser &&
+                    additionalConfigProps.equals(that.additionalConfigProps);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverName, configDirectory, remoteUser, System.identityHashCode(loginUser),
+                    proxyUser, securityEnabled, additionalConfigProps);
+        }
+
+        @Override
+        public String toString() {
+            // the additional properties are not printed as they might contain credentials
+            return String.format("[server=%s, config=%s, remote_user=%s, %s]",
+                    serverName, configDirectory, remoteUser, proxyUser ? "proxy" : "remote");
+        }
+    }
+}
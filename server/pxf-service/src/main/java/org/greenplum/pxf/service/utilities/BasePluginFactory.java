@@ -1,19 +1,49 @@
 package org.greenplum.pxf.service.utilities;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang.StringUtils;
 import org.greenplum.pxf.api.model.Plugin;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.ResettablePlugin;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The base implementation of the {@code PluginFactory}
+ * <p>
+ * The constructors of the plugins are looked up once per class name. Plugins
+ * implementing {@link ResettablePlugin} that are released after reading a
+ * fragment are kept for a short time and reused for the next fragment of the
+ * same query read by the same segment.
  */
 @Component
 public class BasePluginFactory {
 
+    /**
+     * The maximum number of released plugins kept for the same query, the
+     * fragments of a query are usually read one after the other by a segment
+     */
+    private static final int MAX_RELEASED_PLUGINS_PER_QUERY = 4;
+
+    private final Map<String, PluginConstructor> constructors = new ConcurrentHashMap<>();
+    // the released plugins of every query, by class name
+    private final Cache<String, Map<String, Queue<ResettablePlugin>>> releasedPlugins = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .maximumSize(1000)
+            .build();
+
     public <T extends Plugin> T getPlugin(RequestContext context, String pluginClassName) {
 
         // get the class name of the plugin
@@ -21,46 +51,129 @@ public class BasePluginFactory {
             throw new RuntimeException("Could not determine plugin class name");
         }
 
-        // load the class by name
-        Class<?> cls;
-        try {
-            cls = Class.forName(pluginClassName);
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(String.format("Class %s is not found", pluginClassName), e);
-        }
-
-        // check if the class is a plugin
-        if (!Plugin.class.isAssignableFrom(cls)) {
-            throw new RuntimeException(String.format("Class %s does not implement Plugin interface", pluginClassName));
+        PluginConstructor constructor = constructors.get(pluginClassName);
+        if (constructor == null) {
+            constructor = new PluginConstructor(pluginClassName);
+            constructors.putIfAbsent(pluginClassName, constructor);
         }
 
-        // get the empty constructor
-        Constructor<?> con;
-        try {
-            con = cls.getConstructor();
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(String.format("Class %s does not have an empty constructor", pluginClassName));
+        Plugin instance = null;
+        if (constructor.resettable) {
+            Map<String, Queue<ResettablePlugin>> released = releasedPlugins.getIfPresent(getQueryKey(context));
+            Queue<ResettablePlugin> queue = released == null ? null : released.get(pluginClassName);
+            ResettablePlugin plugin = queue == null ? null : queue.poll();
+            if (plugin != null) {
+                plugin.reset(context);
+                instance = plugin;
+            }
         }
 
-        // create plugin instance
-        Plugin instance;
-        try {
-            instance = (Plugin) con.newInstance();
-        } catch (InvocationTargetException e) {
-            throw (e.getCause() != null) ? new RuntimeException(e.getCause()) :
-                    new RuntimeException(e);
-        } catch (Exception e) {
-            throw new RuntimeException(String.format("Class %s could not be instantiated", pluginClassName), e);
+        if (instance == null) {
+            // create and initialize the instance
+            instance = constructor.newInstance();
+            instance.setRequestContext(context);
+            instance.afterPropertiesSet();
         }
 
-        // initialize the instance
-        instance.setRequestContext(context);
-        instance.afterPropertiesSet();
-
         // cast into a target type
         @SuppressWarnings("unchecked")
         T castInstance = (T) instance;
 
         return castInstance;
     }
+
+    /**
+     * Releases a plugin that was used to read a fragment without errors. A
+     * {@link ResettablePlugin} is kept to be reused for the next fragment of
+     * the same query, other plugins are discarded.
+     *
+     * @param context the context of the fragment the plugin was used for
+     * @param plugin  the plugin
+     */
+    public void releasePlugin(RequestContext context, Plugin plugin) {
+        if (!(plugin instanceof ResettablePlugin)) {
+            return;
+        }
+        Queue<ResettablePlugin> released = releasedPlugins.asMap()
+                .computeIfAbsent(getQueryKey(context), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(plugin.getClass().getName(), k -> new ConcurrentLinkedQueue<>());
+        if (released.size() < MAX_RELEASED_PLUGINS_PER_QUERY) {
+            released.offer((ResettablePlugin) plugin);
+        }
+    }
+
+    /**
+     * Identifies the plugins that can be reused for a fragment: the plugins of
+     * the same class used for the same table, profile and columns by the same
+     * segment in the same transaction. The key is built from the current
+     * values of the context every time a plugin is acquired or released, as
+     * the profile of the context changes for the fragments that have a
+     * profile of their own.
+     */
+    private static String getQueryKey(RequestContext context) {
+        StringBuilder key = new StringBuilder()
+                .append(context.getTransactionId())
+                .append(':').append(context.getSegmentId())
+                .append(':').append(context.getServerName())
+                .append(':').append(context.getConfig())
+                .append(':').append(context.getUser())
+                .append(':').append(context.getProfile())
+                .append(':').append(context.getSchemaName())
+                .append('.').append(context.getTableName());
+        for (ColumnDescriptor column : context.getTupleDescription()) {
+            key.append(':').append(column.columnName())
+                    .append('/').append(column.columnTypeCode())
+                    .append(Arrays.toString(column.columnTypeModifiers()))
+                    .append(column.isProjected() ? '+' : '-');
+        }
+        return key.toString();
+    }
+
+    /**
+     * The empty constructor of a plugin class, looked up once.
+     */
+    private static class PluginConstructor {
+
+        private final MethodHandle handle;
+        private final boolean resettable;
+
+        PluginConstructor(String pluginClassName) {
+            // load the class by name
+            Class<?> cls;
+            try {
+                cls = Class.forName(pluginClassName);
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(String.format("Class %s is not found", pluginClassName), e);
+            }
+
+            // check if the class is a plugin
+            if (!Plugin.class.isAssignableFrom(cls)) {
+                throw new RuntimeException(String.format("Class %s does not implement Plugin interface", pluginClassName));
+            }
+
+            // get the empty constructor
+            try {
+                if (Modifier.isAbstract(cls.getModifiers())) {
+                    throw new InstantiationException(pluginClassName + " is abstract");
+                }
+                handle = MethodHandles.publicLookup()
+                        .findConstructor(cls, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Plugin.class));
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(String.format("Class %s does not have an empty constructor", pluginClassName));
+            } catch (Exception e) {
+                throw new RuntimeException(String.format("Class %s could not be instantiated", pluginClassName), e);
+            }
+            resettable = ResettablePlugin.class.isAssignableFrom(cls);
+        }
+
+        Plugin newInstance() {
+            try {
+                return (Plugin) handle.invokeExact();
+            } catch (Throwable e) {
+                // exceptions thrown by the constructor are not wrapped by the method handle
+                throw new RuntimeException(e);
+            }
+        }
+    }
 }
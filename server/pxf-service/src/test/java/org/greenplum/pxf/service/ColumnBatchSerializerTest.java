@@ -0,0 +1,296 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.error.BadRecordException;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnBatchSerializerTest {
+
+    private static final DataType[] TYPES = {DataType.INTEGER, DataType.FLOAT8, DataType.REAL, DataType.BIGINT,
+            DataType.SMALLINT, DataType.BOOLEAN, DataType.BYTEA, DataType.VARCHAR, DataType.TEXT, DataType.NUMERIC};
+
+    private RequestContext context;
+
+    @BeforeEach
+    public void setup() {
+        System.setProperty("greenplum.alignment", "8");
+        context = new RequestContext();
+        context.setUser("alex");
+        context.setDataSource("i'm/ready/to/go");
+        context.setDatabaseEncoding(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testGPDBWritableMatchesRowPath() throws Exception {
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        addColumns(TYPES);
+
+        assertSameOutput(makeBatch(), makeRows());
+    }
+
+    @Test
+    public void testGPDBWritableMatchesRowPathInOtherEncoding() throws Exception {
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        context.setDatabaseEncoding(StandardCharsets.ISO_8859_1);
+        addColumns(TYPES);
+
+        assertSameOutput(makeBatch(), makeRows());
+    }
+
+    @Test
+    public void testTextMatchesRowPath() throws Exception {
+        context.setOutputFormat(OutputFormat.TEXT);
+        addColumns(TYPES);
+
+        assertSameOutput(makeBatch(), makeRows());
+    }
+
+    @Test
+    public void testCSVMatchesRowPath() throws Exception {
+        context.setOutputFormat(OutputFormat.TEXT);
+        context.setFormat("CSV");
+        addColumns(TYPES);
+
+        assertSameOutput(makeBatch(), makeRows());
+    }
+
+    @Test
+    public void testSingleTextColumnMatchesRowPath() throws Exception {
+        context.setOutputFormat(OutputFormat.TEXT);
+        addColumns(DataType.TEXT);
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.TEXT}, 2);
+        setText(batch.getColumn(0), 0, "first,line");
+        setText(batch.getColumn(0), 1, "second \"line\"");
+        batch.setSize(2);
+
+        assertSameOutput(batch, Arrays.asList(
+                new Object[]{"first,line"},
+                new Object[]{"second \"line\""}));
+    }
+
+    @Test
+    public void testRepeatingColumn() throws Exception {
+        context.setOutputFormat(OutputFormat.TEXT);
+        addColumns(DataType.INTEGER, DataType.TEXT);
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.INTEGER, DataType.TEXT}, 3);
+        batch.getColumn(0).setLongValues(new long[]{7, 0, 0});
+        batch.getColumn(0).setRepeating(true);
+        batch.getColumn(1).setRepeating(true);
+        batch.getColumn(1).setNull(0);
+        batch.setSize(3);
+
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        serializer.reset(batch);
+        assertEquals("7,\\N\n7,\\N\n7,\\N\n", new String(serializeAll(serializer), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSelectedRows() throws Exception {
+        context.setOutputFormat(OutputFormat.TEXT);
+        addColumns(DataType.INTEGER, DataType.TEXT);
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.INTEGER, DataType.TEXT}, 4);
+        batch.getColumn(0).setLongValues(new long[]{1, 2, 3, 4});
+        batch.getColumn(0).setNull(1);
+        batch.getColumn(1).setRepeating(true);
+        setText(batch.getColumn(1), 0, "x");
+        batch.setSelected(new int[]{1, 3, 0, 0}, true);
+        batch.setSize(2);
+
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        serializer.reset(batch);
+        assertEquals("\\N,x\n4,x\n", new String(serializeAll(serializer), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRowsAreWrittenAfterLastRowOfBatch() throws Exception {
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        addColumns(TYPES);
+
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        serializer.reset(makeBatch());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(out);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(serializer.nextRow());
+            serializer.write(dataOut);
+            assertEquals(0, out.size());
+        }
+        assertTrue(serializer.nextRow());
+        serializer.write(dataOut);
+        assertFalse(serializer.nextRow());
+
+        serializer.reset(makeBatch());
+        assertArrayEquals(out.toByteArray(), serializeAll(serializer));
+    }
+
+    @Test
+    public void testSingleTextColumnWithNullsKeepsRowOrder() throws Exception {
+        context.setOutputFormat(OutputFormat.TEXT);
+        addColumns(DataType.TEXT);
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.TEXT}, 3);
+        batch.getColumn(0).setNull(0);
+        setText(batch.getColumn(0), 1, "second");
+        batch.getColumn(0).setNull(2);
+        batch.setSize(3);
+
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        serializer.reset(batch);
+        assertEquals("\\N\nsecond\n\\N\n", new String(serializeAll(serializer), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testNextRow() throws Exception {
+        context.setOutputFormat(OutputFormat.TEXT);
+        addColumns(DataType.INTEGER);
+
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        assertFalse(serializer.nextRow());
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.INTEGER}, 4);
+        batch.setSize(2);
+        serializer.reset(batch);
+        assertTrue(serializer.nextRow());
+        assertTrue(serializer.nextRow());
+        assertFalse(serializer.nextRow());
+        assertFalse(serializer.nextRow());
+    }
+
+    @Test
+    public void testTypeMismatch() {
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        addColumns(DataType.INTEGER, DataType.TEXT);
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.INTEGER, DataType.BIGINT}, 1);
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        assertFalse(serializer.supports(batch));
+
+        Exception e = assertThrows(BadRecordException.class, () -> serializer.reset(batch));
+        assertEquals("For field col1 schema requires type TEXT but input record has type BIGINT", e.getMessage());
+    }
+
+    @Test
+    public void testColumnCountMismatch() {
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        addColumns(DataType.INTEGER, DataType.TEXT);
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.INTEGER}, 1);
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        assertFalse(serializer.supports(batch));
+
+        Exception e = assertThrows(BadRecordException.class, () -> serializer.reset(batch));
+        assertEquals("Record has 1 fields but the schema size is 2", e.getMessage());
+    }
+
+    @Test
+    public void testStringTypesAreInterchangeable() {
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        addColumns(DataType.TEXT, DataType.VARCHAR);
+
+        ColumnBatch batch = new ColumnBatch(new DataType[]{DataType.BPCHAR, DataType.TEXT}, 1);
+        assertTrue(new ColumnBatchSerializer(context).supports(batch));
+    }
+
+    private void assertSameOutput(ColumnBatch batch, List<Object[]> rows) throws Exception {
+        BridgeOutputBuilder builder = new BridgeOutputBuilder(context);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream expectedOut = new DataOutputStream(expected);
+        for (Object[] row : rows) {
+            OneField[] fields = new OneField[row.length];
+            for (int i = 0; i < row.length; i++) {
+                fields[i] = new OneField(batch.getColumn(i).getDataType().getOID(), row[i]);
+            }
+            for (Writable writable : builder.makeOutput(Arrays.asList(fields))) {
+                writable.write(expectedOut);
+            }
+        }
+
+        ColumnBatchSerializer serializer = new ColumnBatchSerializer(context);
+        assertTrue(serializer.supports(batch));
+        serializer.reset(batch);
+        assertArrayEquals(expected.toByteArray(), serializeAll(serializer));
+    }
+
+    private byte[] serializeAll(ColumnBatchSerializer serializer) throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        DataOutputStream actualOut = new DataOutputStream(actual);
+        while (serializer.nextRow()) {
+            serializer.write(actualOut);
+        }
+        return actual.toByteArray();
+    }
+
+    private ColumnBatch makeBatch() {
+        ColumnBatch batch = new ColumnBatch(TYPES, 4);
+        List<Object[]> rows = makeRows();
+        for (int row = 0; row < rows.size(); row++) {
+            Object[] values = rows.get(row);
+            for (int col = 0; col < values.length; col++) {
+                ColumnVector column = batch.getColumn(col);
+                Object value = values[col];
+                if (value == null) {
+                    column.setNull(row);
+                } else if (value instanceof Boolean) {
+                    column.setLong(row, (Boolean) value ? 1 : 0);
+                } else if (value instanceof Float || value instanceof Double) {
+                    column.setDouble(row, ((Number) value).doubleValue());
+                } else if (value instanceof Number) {
+                    column.setLong(row, ((Number) value).longValue());
+                } else if (value instanceof byte[]) {
+                    byte[] bytes = (byte[]) value;
+                    // place the value in the middle of a larger buffer
+                    byte[] buffer = new byte[bytes.length + 4];
+                    System.arraycopy(bytes, 0, buffer, 2, bytes.length);
+                    column.setBytes(row, buffer, 2, bytes.length);
+                } else {
+                    setText(column, row, (String) value);
+                }
+            }
+        }
+        batch.setSize(rows.size());
+        return batch;
+    }
+
+    private List<Object[]> makeRows() {
+        return Arrays.asList(
+                new Object[]{1, 1.5d, 2.5f, 3L, (short) 4, true, new byte[]{0, 1, (byte) 0xff}, "value", "va\"lue", "9876.54321"},
+                new Object[]{null, null, null, null, null, null, null, null, null, null},
+                new Object[]{-1, -0.25d, 7.7f, Long.MAX_VALUE, Short.MIN_VALUE, false, new byte[0], "", "a,b\nc", "0"},
+                new Object[]{5, null, 1.0f, null, (short) 0, null, new byte[]{92}, "café", null, "-1.5"});
+    }
+
+    private void setText(ColumnVector column, int row, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        column.setBytes(row, bytes, 0, bytes.length);
+    }
+
+    private void addColumns(DataType... types) {
+        for (int i = 0; i < types.length; i++) {
+            context.getTupleDescription().add(new ColumnDescriptor("col" + i, types[i].getOID(), i, types[i].toString(), null));
+        }
+    }
+}
@@ -5,9 +5,12 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import org.apache.hadoop.conf.Configuration;
 import org.greenplum.pxf.api.examples.DemoFragmentMetadata;
+import org.greenplum.pxf.api.model.BaseFragmenter;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.Fragmenter;
+import org.greenplum.pxf.api.model.FragmenterTimings;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.FragmentStream;
 import org.greenplum.pxf.api.utilities.FragmenterCacheFactory;
 import org.greenplum.pxf.service.utilities.BasePluginFactory;
 import org.greenplum.pxf.service.utilities.GSSFailureHandler;
@@ -19,25 +22,32 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 @ExtendWith(MockitoExtension.class)
 class FragmenterServiceTest {
@@ -46,7 +56,9 @@ class FragmenterServiceTest {
     @Mock private Fragmenter fragmenter1;
     @Mock private Fragmenter fragmenter2;
     @Mock private Fragmenter fragmenter3;
+    @Mock private MetricsReporter mockMetricsReporter;
     private Cache<String, List<Fragment>> fragmentCache;
+    private FragmenterCacheFactory fragmenterCacheFactory;
     private FakeTicker fakeTicker;
     private FragmenterService fragmenterService;
     private Configuration configuration;
@@ -77,7 +89,7 @@ class FragmenterServiceTest {
         context2.setDataSource("path.A");
         context2.setConfiguration(configuration);
 
-        FragmenterCacheFactory fragmenterCacheFactory = mock(FragmenterCacheFactory.class);
+        fragmenterCacheFactory = mock(FragmenterCacheFactory.class);
 
         fakeTicker = new FakeTicker();
         fragmentCache = CacheBuilder.newBuilder()
@@ -85,11 +97,26 @@ class FragmenterServiceTest {
                 .ticker(fakeTicker)
                 .build();
 
-        when(fragmenterCacheFactory.getCache()).thenReturn(fragmentCache);
+        lenient().when(fragmenterCacheFactory.getCache()).thenReturn(fragmentCache);
+        lenient().when(fragmenterCacheFactory.compact(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // use a real handler to ensure pass-through calls on default configuration
         fragmenterService = new FragmenterService(fragmenterCacheFactory,
-                mockPluginFactory, new GSSFailureHandler());
+                mockPluginFactory, new GSSFailureHandler(), new SharedFragmentQueueRegistry(), mockMetricsReporter, 4);
+    }
+
+    @Test
+    public void testFragmenterTimingsAreReported() throws Throwable {
+        Fragmenter timedFragmenter = mock(Fragmenter.class, withSettings().extraInterfaces(FragmenterTimings.class));
+        when(timedFragmenter.getFragments()).thenReturn(new ArrayList<>());
+        when(((FragmenterTimings) timedFragmenter).getListingTime()).thenReturn(Duration.ofMillis(30));
+        when(((FragmenterTimings) timedFragmenter).getSplitTime()).thenReturn(Duration.ofMillis(12));
+        when(mockPluginFactory.getPlugin(context1, context1.getFragmenter())).thenReturn(timedFragmenter);
+
+        fragmenterService.getFragmentsForSegment(context1);
+
+        verify(mockMetricsReporter).reportTimer(MetricsReporter.PxfMetric.FRAGMENTER_LISTING_TIME, Duration.ofMillis(30), context1);
+        verify(mockMetricsReporter).reportTimer(MetricsReporter.PxfMetric.FRAGMENTER_SPLIT_TIME, Duration.ofMillis(12), context1);
     }
 
     @Test
@@ -202,6 +229,288 @@ class FragmenterServiceTest {
         assertEquals("barfoo", response2.get(1).getSourceName());
     }
 
+    @Test
+    public void testFragmenterCallForTwoSegmentsWithLocalityDistribution() throws Throwable {
+
+        List<Fragment> fragmentList = Arrays.asList(
+                new Fragment("foo.bar", new LocalFragmentMetadata("sdw2")),
+                new Fragment("bar.foo", new LocalFragmentMetadata("sdw2")),
+                new Fragment("foobar", new LocalFragmentMetadata("sdw1")),
+                new Fragment("barfoo", new LocalFragmentMetadata("sdw1"))
+        );
+
+        configuration.set("pxf.fragment.distribution", "locality");
+        List<String> segmentHosts = Arrays.asList("sdw1", "sdw2");
+
+        context1.setTransactionId("XID-XYZ-123456");
+        context1.setSegmentId(0);
+        context1.setTotalSegments(2);
+        context1.setSegmentHosts(segmentHosts);
+
+        context2.setTransactionId("XID-XYZ-123456");
+        context2.setSegmentId(1);
+        context2.setTotalSegments(2);
+        context2.setSegmentHosts(segmentHosts);
+
+        when(mockPluginFactory.getPlugin(context1, context1.getFragmenter())).thenReturn(fragmenter1);
+        when(fragmenter1.getFragments()).thenReturn(fragmentList);
+
+        List<Fragment> response1 = fragmenterService.getFragmentsForSegment(context1);
+        List<Fragment> response2 = fragmenterService.getFragmentsForSegment(context2);
+
+        verify(fragmenter1, times(1)).getFragments();
+
+        assertEquals(2, response1.size());
+        assertEquals("foobar", response1.get(0).getSourceName());
+        assertEquals("barfoo", response1.get(1).getSourceName());
+
+        assertEquals(2, response2.size());
+        assertEquals("foo.bar", response2.get(0).getSourceName());
+        assertEquals("bar.foo", response2.get(1).getSourceName());
+    }
+
+    @Test
+    public void testLocalityDistributionWithoutSegmentHostsFallsBackToRoundRobin() throws Throwable {
+
+        List<Fragment> fragmentList = Arrays.asList(
+                new Fragment("foo.bar", new LocalFragmentMetadata("sdw2")),
+                new Fragment("bar.foo", new LocalFragmentMetadata("sdw1"))
+        );
+
+        context1.addOption("FRAGMENT_DISTRIBUTION", "locality");
+        context1.setTotalSegments(2);
+
+        when(mockPluginFactory.getPlugin(context1, context1.getFragmenter())).thenReturn(fragmenter1);
+        when(fragmenter1.getFragments()).thenReturn(fragmentList);
+
+        List<Fragment> response = fragmenterService.getFragmentsForSegment(context1);
+
+        assertEquals(1, response.size());
+        assertEquals("foo.bar", response.get(0).getSourceName());
+    }
+
+    @Test
+    public void testInvalidFragmentDistribution() throws Throwable {
+        context1.addOption("FRAGMENT_DISTRIBUTION", "random");
+        when(mockPluginFactory.getPlugin(context1, context1.getFragmenter())).thenReturn(fragmenter1);
+
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> fragmenterService.getFragmentsForSegment(context1));
+        assertEquals("invalid FRAGMENT_DISTRIBUTION value 'random'. Supported values are round-robin, locality, size", e.getMessage());
+    }
+
+    @Test
+    public void testWorkStealingDisabledByDefault() {
+        assertNull(fragmenterService.joinSharedFragmentQueue(context1, new ArrayList<>()));
+
+        context1.addOption("FRAGMENT_WORK_STEALING", "false");
+        configuration.setBoolean("pxf.fragment.work-stealing", true);
+        assertNull(fragmenterService.joinSharedFragmentQueue(context1, new ArrayList<>()));
+    }
+
+    @Test
+    public void testWorkStealingInterleavedScansOfSameTable() {
+        configuration.setBoolean("pxf.fragment.work-stealing", true);
+        // segment 0 is assigned fragments a and c, segment 1 fragments b and d, in both scans
+        List<Fragment> fragments0 = Arrays.asList(new Fragment("a"), new Fragment("c"));
+        List<Fragment> fragments1 = Arrays.asList(new Fragment("b"), new Fragment("d"));
+
+        // the first request of segment 1 belongs to the second scan
+        SharedFragmentQueue.Participant scan1Segment0 = fragmenterService.joinSharedFragmentQueue(scanContext(0, "1"), fragments0);
+        SharedFragmentQueue.Participant scan2Segment1 = fragmenterService.joinSharedFragmentQueue(scanContext(1, "2"), fragments1);
+        SharedFragmentQueue.Participant scan2Segment0 = fragmenterService.joinSharedFragmentQueue(scanContext(0, "2"), fragments0);
+        SharedFragmentQueue.Participant scan1Segment1 = fragmenterService.joinSharedFragmentQueue(scanContext(1, "1"), fragments1);
+
+        List<String> scan1 = new ArrayList<>();
+        List<String> scan2 = new ArrayList<>();
+        boolean more = true;
+        while (more) {
+            more = takeNext(scan1Segment0, scan1);
+            more |= takeNext(scan2Segment1, scan2);
+            more |= takeNext(scan2Segment0, scan2);
+            more |= takeNext(scan1Segment1, scan1);
+        }
+        scan1Segment0.close();
+        scan2Segment1.close();
+        scan2Segment0.close();
+        scan1Segment1.close();
+
+        Collections.sort(scan1);
+        Collections.sort(scan2);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), scan1);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), scan2);
+    }
+
+    @Test
+    public void testWorkStealingSegmentJoiningTwiceWithoutScanId() {
+        configuration.setBoolean("pxf.fragment.work-stealing", true);
+        List<Fragment> fragments0 = Collections.singletonList(new Fragment("a"));
+        List<Fragment> fragments1 = Collections.singletonList(new Fragment("b"));
+
+        SharedFragmentQueue.Participant first0 = fragmenterService.joinSharedFragmentQueue(scanContext(0, null), fragments0);
+        SharedFragmentQueue.Participant first1 = fragmenterService.joinSharedFragmentQueue(scanContext(1, null), fragments1);
+        assertNotNull(first0);
+        assertNotNull(first1);
+
+        // the scans can not be told apart, the segments process their own fragments in the second scan
+        assertNull(fragmenterService.joinSharedFragmentQueue(scanContext(0, null), fragments0));
+        assertNull(fragmenterService.joinSharedFragmentQueue(scanContext(1, null), fragments1));
+
+        first0.close();
+        first1.close();
+    }
+
+    @Test
+    public void testWorkStealingSegmentsShareFragments() throws Throwable {
+        List<Fragment> fragmentList = Arrays.asList(
+                new Fragment("foo.bar", new DemoFragmentMetadata()),
+                new Fragment("bar.foo", new DemoFragmentMetadata()),
+                new Fragment("foobar", new DemoFragmentMetadata()),
+                new Fragment("barfoo", new DemoFragmentMetadata())
+        );
+
+        configuration.setBoolean("pxf.fragment.work-stealing", true);
+        context1.setTotalSegments(2);
+        context2.setTransactionId(context1.getTransactionId());
+        context2.setFragmenter(context1.getFragmenter());
+        context2.setSegmentId(1);
+        context2.setTotalSegments(2);
+
+        when(mockPluginFactory.getPlugin(context1, context1.getFragmenter())).thenReturn(fragmenter1);
+        when(fragmenter1.getFragments()).thenReturn(fragmentList);
+
+        SharedFragmentQueue.Participant participant1 = fragmenterService.joinSharedFragmentQueue(context1,
+                fragmenterService.getFragmentsForSegment(context1));
+        SharedFragmentQueue.Participant participant2 = fragmenterService.joinSharedFragmentQueue(context2,
+                fragmenterService.getFragmentsForSegment(context2));
+
+        // the first segment processes all the fragments while the second one is busy
+        Fragment fragment;
+        List<String> names = new ArrayList<>();
+        while ((fragment = participant1.next()) != null) {
+            names.add(fragment.getSourceName());
+            participant1.complete(fragment);
+        }
+        participant1.close();
+        assertNull(participant2.next());
+        participant2.close();
+
+        assertEquals(Arrays.asList("foo.bar", "foobar", "bar.foo", "barfoo"), names);
+        assertEquals(4, participant1.getFragmentCount());
+        assertEquals(2, participant1.getForeignFragmentCount());
+        assertEquals(0, participant2.getFragmentCount());
+    }
+
+    @Test
+    public void testStreamingDisabledByDefault() throws Throwable {
+        assertNull(fragmenterService.getStreamedFragmentsForSegment(context1));
+
+        configuration.setBoolean("pxf.fragment.streaming", true);
+        context1.addOption("FRAGMENT_DISTRIBUTION", "size");
+        assertNull(fragmenterService.getStreamedFragmentsForSegment(context1));
+    }
+
+    @Test
+    public void testStreamingSegmentsGetRoundRobinFragments() throws Throwable {
+        BaseFragmenter fragmenter = new BaseFragmenter() {
+            @Override
+            public List<Fragment> getFragments() {
+                for (String sourceName : Arrays.asList("a", "a", "b", "c", "c")) {
+                    fragments.add(new Fragment(sourceName, new DemoFragmentMetadata()));
+                }
+                return fragments;
+            }
+        };
+
+        context1.addOption("FRAGMENT_STREAMING", "true");
+        context1.setTotalSegments(2);
+        context2.addOption("FRAGMENT_STREAMING", "true");
+        context2.setTransactionId(context1.getTransactionId());
+        context2.setFragmenter(context1.getFragmenter());
+        context2.setSegmentId(1);
+        context2.setTotalSegments(2);
+
+        when(fragmenterCacheFactory.getStreamCache()).thenReturn(CacheBuilder.newBuilder().build());
+        when(mockPluginFactory.getPlugin(any(), any())).thenReturn(fragmenter);
+
+        StreamedFragments streamedFragments1 = fragmenterService.getStreamedFragmentsForSegment(context1);
+        StreamedFragments streamedFragments2 = fragmenterService.getStreamedFragmentsForSegment(context2);
+
+        // same assignment as the round-robin distribution, the fragment #0 goes to segment 0
+        assertEquals(Arrays.asList("a:0", "b:0", "c:1"), readAll(streamedFragments1));
+        assertEquals(Arrays.asList("a:1", "c:0"), readAll(streamedFragments2));
+        assertEquals(5, streamedFragments1.getTotalFragmentCount());
+        // the fragmenter was only called once for both segments
+        verify(mockPluginFactory, times(1)).getPlugin(any(), any());
+    }
+
+    @Test
+    public void testStreamingReturnsFragmentsBeforeEnumerationCompletes() throws Throwable {
+        CountDownLatch firstFragmentRead = new CountDownLatch(1);
+        BaseFragmenter fragmenter = new BaseFragmenter() {
+            @Override
+            public List<Fragment> getFragments() throws Exception {
+                fragments.add(new Fragment("first", new DemoFragmentMetadata()));
+                assertTrue(firstFragmentRead.await(10, TimeUnit.SECONDS));
+                fragments.add(new Fragment("second", new DemoFragmentMetadata()));
+                return fragments;
+            }
+        };
+
+        configuration.setBoolean("pxf.fragment.streaming", true);
+        when(fragmenterCacheFactory.getStreamCache()).thenReturn(CacheBuilder.newBuilder().build());
+        when(mockPluginFactory.getPlugin(any(), any())).thenReturn(fragmenter);
+
+        StreamedFragments streamedFragments = fragmenterService.getStreamedFragmentsForSegment(context1);
+        assertEquals("first", streamedFragments.next().getSourceName());
+        firstFragmentRead.countDown();
+        assertEquals("second", streamedFragments.next().getSourceName());
+        assertNull(streamedFragments.next());
+        assertEquals(2, streamedFragments.getFragmentCount());
+    }
+
+    @Test
+    public void testStreamingFailureIsReportedToSegments() throws Throwable {
+        BaseFragmenter fragmenter = new BaseFragmenter() {
+            @Override
+            public List<Fragment> getFragments() throws Exception {
+                fragments.add(new Fragment("first", new DemoFragmentMetadata()));
+                throw new IOException("listing failed");
+            }
+        };
+
+        Cache<String, FragmentStream> streamCache = CacheBuilder.newBuilder().build();
+        context1.addOption("FRAGMENT_STREAMING", "true");
+        when(fragmenterCacheFactory.getStreamCache()).thenReturn(streamCache);
+        when(mockPluginFactory.getPlugin(any(), any())).thenReturn(fragmenter);
+
+        StreamedFragments streamedFragments = fragmenterService.getStreamedFragmentsForSegment(context1);
+        assertEquals("first", streamedFragments.next().getSourceName());
+        Exception e = assertThrows(IOException.class, streamedFragments::next);
+        assertEquals("listing failed", e.getMessage());
+        // the failed stream is not reused by later requests
+        assertEquals(0, streamCache.size());
+    }
+
+    @Test
+    public void testStreamingIsRejectedAfterShutdown() {
+        configuration.setBoolean("pxf.fragment.streaming", true);
+        when(fragmenterCacheFactory.getStreamCache()).thenReturn(CacheBuilder.newBuilder().build());
+
+        fragmenterService.destroy();
+        Exception e = assertThrows(IOException.class, () -> fragmenterService.getStreamedFragmentsForSegment(context1));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    private List<String> readAll(StreamedFragments streamedFragments) throws IOException {
+        List<String> result = new ArrayList<>();
+        Fragment fragment;
+        while ((fragment = streamedFragments.next()) != null) {
+            result.add(fragment.getSourceName() + ":" + fragment.getIndex());
+        }
+        return result;
+    }
+
     @Test
     public void getSameFragmenterCallTwiceUsesCache() throws Throwable {
         List<Fragment> fragmentList = new ArrayList<>();
@@ -292,6 +601,25 @@ class FragmenterServiceTest {
         assertEquals(0, fragmentCache.size());
     }
 
+    private RequestContext scanContext(int segmentId, String scanId) {
+        RequestContext context = context1.copy();
+        context.setConfiguration(configuration);
+        context.setSegmentId(segmentId);
+        context.setTotalSegments(2);
+        context.setScanId(scanId);
+        return context;
+    }
+
+    private boolean takeNext(SharedFragmentQueue.Participant participant, List<String> names) {
+        Fragment fragment = participant.next();
+        if (fragment == null) {
+            return false;
+        }
+        names.add(fragment.getSourceName());
+        participant.complete(fragment);
+        return true;
+    }
+
     private void testContextsAreNotCached(RequestContext context1, RequestContext context2)
             throws Throwable {
 
@@ -326,6 +654,20 @@ class FragmenterServiceTest {
         assertEquals(0, fragmentCache.size());
     }
 
+    private static class LocalFragmentMetadata extends DemoFragmentMetadata {
+
+        private final String host;
+
+        LocalFragmentMetadata(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public String[] getHosts() {
+            return new String[]{host};
+        }
+    }
+
     private static class FakeTicker extends Ticker {
 
         static final int NANOS_PER_MILLIS = 1000000;
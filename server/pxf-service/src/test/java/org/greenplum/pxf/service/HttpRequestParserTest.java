@@ -329,6 +329,118 @@ public class HttpRequestParserTest {
         assertEquals("For input string: \"10.101\"", e.getMessage());
     }
 
+    @Test
+    public void testTransferCompressionNotRequested() {
+        parameters.add("X-GP-ACCEPT-ENCODING", "zstd, lz4");
+
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+
+        assertNull(context.getTransferCompression());
+        assertFalse(context.getOptions().containsKey("accept-encoding"));
+    }
+
+    @Test
+    public void testTransferCompressionNegotiated() {
+        parameters.add("X-GP-ACCEPT-ENCODING", "zstd, lz4");
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION", "LZ4");
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION_LEVEL", "9");
+
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+
+        assertEquals("lz4", context.getTransferCompression());
+        assertEquals(9, context.getTransferCompressionLevel());
+        assertNull(context.getOption("transfer_compression"));
+        assertNull(context.getOption("transfer_compression_level"));
+    }
+
+    @Test
+    public void testTransferCompressionDefaultLevel() {
+        parameters.add("X-GP-ACCEPT-ENCODING", "zstd");
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION", "zstd");
+
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+
+        assertEquals("zstd", context.getTransferCompression());
+        assertEquals(3, context.getTransferCompressionLevel());
+    }
+
+    @Test
+    public void testTransferCompressionNotSupportedByClient() {
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION", "zstd");
+
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertNull(context.getTransferCompression());
+
+        parameters.add("X-GP-ACCEPT-ENCODING", "lz4");
+        context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertNull(context.getTransferCompression());
+    }
+
+    @Test
+    public void testTransferCompressionNone() {
+        parameters.add("X-GP-ACCEPT-ENCODING", "zstd");
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION", "none");
+
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+
+        assertNull(context.getTransferCompression());
+    }
+
+    @Test
+    public void testInvalidTransferCompression() {
+        parameters.add("X-GP-ACCEPT-ENCODING", "zstd");
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION", "brotli");
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> parser.parseRequest(parameters, RequestType.READ_BRIDGE));
+        assertEquals("invalid TRANSFER_COMPRESSION value 'brotli'. Supported values are none, zstd, lz4", e.getMessage());
+    }
+
+    @Test
+    public void testInvalidTransferCompressionLevel() {
+        parameters.add("X-GP-ACCEPT-ENCODING", "zstd");
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION", "zstd");
+        parameters.add("X-GP-OPTIONS-TRANSFER_COMPRESSION_LEVEL", "99");
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> parser.parseRequest(parameters, RequestType.READ_BRIDGE));
+        assertEquals("invalid TRANSFER_COMPRESSION_LEVEL value '99' for zstd compression", e.getMessage());
+
+        parameters.set("X-GP-OPTIONS-TRANSFER_COMPRESSION_LEVEL", "fast");
+        e = assertThrows(IllegalArgumentException.class,
+                () -> parser.parseRequest(parameters, RequestType.READ_BRIDGE));
+        assertEquals("invalid TRANSFER_COMPRESSION_LEVEL value 'fast' for zstd compression", e.getMessage());
+    }
+
+    @Test
+    public void testSegmentHosts() {
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertNull(context.getSegmentHosts());
+
+        parameters.add("X-GP-SEGMENT-HOSTS", "sdw1.example.com, sdw2");
+        context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertEquals(Arrays.asList("sdw1.example.com", "sdw2"), context.getSegmentHosts());
+    }
+
+    @Test
+    public void testScanId() {
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertNull(context.getScanId());
+
+        parameters.add("X-GP-SCAN-ID", "3");
+        context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertEquals("3", context.getScanId());
+    }
+
+    @Test
+    public void testSegmentHostsIgnoredWhenNotMatchingSegmentCount() {
+        parameters.add("X-GP-SEGMENT-HOSTS", "sdw1,sdw2,sdw3");
+        RequestContext context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertNull(context.getSegmentHosts());
+
+        parameters.set("X-GP-SEGMENT-HOSTS", "sdw1, ");
+        context = parser.parseRequest(parameters, RequestType.READ_BRIDGE);
+        assertNull(context.getSegmentHosts());
+    }
+
     @Test
     public void typeMods() {
 
@@ -0,0 +1,118 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.FragmentMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalityFragmentAssignerTest {
+
+    private static final List<String> SEGMENT_HOSTS = Arrays.asList("sdw1", "sdw1", "sdw2", "sdw2", "sdw3", "sdw3");
+
+    @Test
+    public void testFragmentsAreAssignedToLocalSegments() {
+        List<Fragment> fragments = new LinkedList<>();
+        for (int i = 0; i < 6; i++) {
+            fragments.add(fragment("f" + i, "sdw" + (3 - i % 3)));
+        }
+
+        LocalityFragmentAssigner assigner = new LocalityFragmentAssigner(SEGMENT_HOSTS, 0);
+        List<List<Fragment>> assignments = assignAll(assigner, fragments);
+
+        for (int segmentId = 0; segmentId < SEGMENT_HOSTS.size(); segmentId++) {
+            assertEquals(1, assignments.get(segmentId).size());
+            Fragment fragment = assignments.get(segmentId).get(0);
+            assertEquals(SEGMENT_HOSTS.get(segmentId), fragment.getMetadata().getHosts()[0]);
+        }
+        assertEquals(6, assigner.getLocalFragmentCount());
+    }
+
+    @Test
+    public void testHostNamesAreMatchedByShortName() {
+        List<String> segmentHosts = Arrays.asList("sdw1.example.com", "SDW2");
+        List<Fragment> fragments = Arrays.asList(
+                fragment("a", "sdw2.example.com"),
+                fragment("b", "sdw1"));
+
+        LocalityFragmentAssigner assigner = new LocalityFragmentAssigner(segmentHosts, 0);
+
+        assertEquals("b", assigner.assign(fragments, 0).get(0).getSourceName());
+        assertEquals("a", assigner.assign(fragments, 1).get(0).getSourceName());
+        assertEquals(2, assigner.getLocalFragmentCount());
+    }
+
+    @Test
+    public void testSegmentsAreNotAssignedMoreThanTheirShare() {
+        // all the data is on a single host
+        List<Fragment> fragments = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            fragments.add(fragment("f" + i, "sdw1", "sdw4"));
+        }
+
+        LocalityFragmentAssigner assigner = new LocalityFragmentAssigner(SEGMENT_HOSTS, 3);
+        List<List<Fragment>> assignments = assignAll(assigner, fragments);
+
+        for (List<Fragment> assignment : assignments) {
+            assertEquals(2, assignment.size());
+        }
+        assertEquals(4, assigner.getLocalFragmentCount());
+        assertAssignedOnce(fragments, assignments);
+    }
+
+    @Test
+    public void testFragmentsWithoutLocationAreBalanced() {
+        List<Fragment> fragments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            fragments.add(i % 2 == 0 ? new Fragment("f" + i) : fragment("f" + i, "unknown"));
+        }
+        fragments.add(fragment("local", "sdw3"));
+
+        LocalityFragmentAssigner assigner = new LocalityFragmentAssigner(SEGMENT_HOSTS, 1);
+        List<List<Fragment>> assignments = assignAll(assigner, fragments);
+
+        for (List<Fragment> assignment : assignments) {
+            assertTrue(assignment.size() == 1 || assignment.size() == 2);
+        }
+        assertEquals(1, assigner.getLocalFragmentCount());
+        assertAssignedOnce(fragments, assignments);
+    }
+
+    private List<List<Fragment>> assignAll(LocalityFragmentAssigner assigner, List<Fragment> fragments) {
+        List<List<Fragment>> assignments = new ArrayList<>();
+        for (int segmentId = 0; segmentId < SEGMENT_HOSTS.size(); segmentId++) {
+            assignments.add(assigner.assign(fragments, segmentId));
+        }
+        return assignments;
+    }
+
+    private void assertAssignedOnce(List<Fragment> fragments, List<List<Fragment>> assignments) {
+        Set<String> assigned = new HashSet<>();
+        int count = 0;
+        for (List<Fragment> assignment : assignments) {
+            for (Fragment fragment : assignment) {
+                assigned.add(fragment.getSourceName());
+                count++;
+            }
+        }
+        assertEquals(fragments.size(), count);
+        assertEquals(fragments.size(), assigned.size());
+    }
+
+    private Fragment fragment(String sourceName, String... hosts) {
+        return new Fragment(sourceName, new FragmentMetadata() {
+            @Override
+            public String[] getHosts() {
+                return hosts;
+            }
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.Fragment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SharedFragmentQueueTest {
+
+    private SharedFragmentQueueRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SharedFragmentQueueRegistry();
+    }
+
+    @Test
+    public void testUnfinishedFragmentsAreReturnedToTheQueue() {
+        Fragment a = new Fragment("a");
+        Fragment b = new Fragment("b");
+        Fragment c = new Fragment("c");
+
+        SharedFragmentQueue.Participant participant1 = registry.join("key", 0, Arrays.asList(a, b));
+        SharedFragmentQueue.Participant participant2 = registry.join("key", 1, Collections.singletonList(c));
+
+        assertSame(a, participant1.next());
+        assertSame(b, participant1.next());
+        participant1.complete(a);
+        // the client of the first segment aborts while b is being streamed
+        participant1.close();
+        assertNull(participant1.next());
+
+        assertSame(b, participant2.next());
+        participant2.complete(b);
+        assertSame(c, participant2.next());
+        participant2.complete(c);
+        assertNull(participant2.next());
+        participant2.close();
+
+        assertEquals(1, participant1.getFragmentCount());
+        assertEquals(2, participant2.getFragmentCount());
+        assertEquals(1, participant2.getForeignFragmentCount());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testFragmentMustBeInProgressToComplete() {
+        SharedFragmentQueue.Participant participant = registry.join("key", 0, Collections.singletonList(new Fragment("a")));
+
+        assertThrows(IllegalStateException.class, () -> participant.complete(new Fragment("a")));
+        participant.close();
+    }
+
+    @Test
+    public void testSegmentJoiningTwiceProcessesItsOwnFragments() {
+        Fragment a = new Fragment("a");
+        Fragment b = new Fragment("b");
+
+        SharedFragmentQueue.Participant first = registry.join("key", 0, Collections.singletonList(a));
+        assertNull(registry.join("key", 0, Collections.singletonList(b)));
+        SharedFragmentQueue.Participant other = registry.join("other", 0, Collections.emptyList());
+        assertEquals(2, registry.size());
+
+        assertNull(other.next());
+        assertSame(a, first.next());
+        first.complete(a);
+        assertNull(first.next());
+
+        first.close();
+        other.close();
+        assertEquals(0, registry.size());
+
+        // the queue of a finished scan is discarded, the next scan shares a new queue
+        SharedFragmentQueue.Participant next = registry.join("key", 0, Collections.singletonList(b));
+        assertSame(b, next.next());
+        next.complete(b);
+        next.close();
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testFragmentsAreProcessedExactlyOnce() throws Exception {
+        int segmentCount = 8;
+        int fragmentsPerSegment = 500;
+        Map<String, AtomicInteger> processed = new ConcurrentHashMap<>();
+        CountDownLatch joined = new CountDownLatch(segmentCount);
+        CountDownLatch aborted = new CountDownLatch(segmentCount / 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(segmentCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int s = 0; s < segmentCount; s++) {
+            int segmentId = s;
+            futures.add(executor.submit(() -> {
+                List<Fragment> fragments = new ArrayList<>();
+                for (int i = 0; i < fragmentsPerSegment; i++) {
+                    fragments.add(new Fragment(segmentId + "-" + i));
+                }
+                SharedFragmentQueue.Participant participant = registry.join("key", segmentId, fragments);
+                joined.countDown();
+                joined.await();
+                if (segmentId % 2 == 0) {
+                    // let the aborted segments return their fragments while other segments are still running
+                    aborted.await();
+                }
+                try {
+                    Fragment fragment;
+                    int count = 0;
+                    while ((fragment = participant.next()) != null) {
+                        // the odd segments are aborted half way through, leaving a fragment unfinished
+                        if (segmentId % 2 == 1 && ++count == fragmentsPerSegment / 2) {
+                            break;
+                        }
+                        processed.computeIfAbsent(fragment.getSourceName(), k -> new AtomicInteger()).incrementAndGet();
+                        participant.complete(fragment);
+                    }
+                } finally {
+                    participant.close();
+                    if (segmentId % 2 == 1) {
+                        aborted.countDown();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(segmentCount * fragmentsPerSegment, processed.size());
+        for (AtomicInteger count : processed.values()) {
+            assertEquals(1, count.get());
+        }
+        assertEquals(0, registry.size());
+    }
+}
@@ -0,0 +1,120 @@
+package org.greenplum.pxf.service;
+
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.FragmentMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SizeBalancedFragmentAssignerTest {
+
+    @Test
+    public void testLargeFragmentIsNotSharedWithOtherFragments() {
+        List<Fragment> fragments = new LinkedList<>();
+        fragments.add(fragment("small1", 1));
+        fragments.add(fragment("large", 1000));
+        fragments.add(fragment("small2", 1));
+        fragments.add(fragment("small3", 1));
+
+        SizeBalancedFragmentAssigner assigner = new SizeBalancedFragmentAssigner(2, 0);
+        List<List<Fragment>> assignments = assignAll(assigner, fragments, 2);
+
+        assertEquals(Arrays.asList("large"), names(assignments.get(0)));
+        assertEquals(Arrays.asList("small1", "small2", "small3"), names(assignments.get(1)));
+        assertArrayEquals(new long[]{1000, 3}, assigner.getSegmentSizes());
+        assertEquals(1000 / 501.5, assigner.getSkew(), 0.0001);
+    }
+
+    @Test
+    public void testFragmentsAreBalancedBySize() {
+        List<Fragment> fragments = new ArrayList<>();
+        long[] sizes = {7, 5, 4, 4, 3, 3, 2, 2, 1, 1};
+        for (int i = 0; i < sizes.length; i++) {
+            fragments.add(fragment("f" + i, sizes[i]));
+        }
+
+        SizeBalancedFragmentAssigner assigner = new SizeBalancedFragmentAssigner(4, 1);
+        List<List<Fragment>> assignments = assignAll(assigner, fragments, 4);
+
+        // 32 bytes across 4 segments, a perfect balance would assign 8 bytes to every segment
+        assertArrayEquals(new long[]{8, 9, 7, 8}, assigner.getSegmentSizes());
+        assertEquals(9 / 8.0, assigner.getSkew(), 0.0001);
+        assertAssignedOnce(fragments, assignments);
+    }
+
+    @Test
+    public void testFragmentsOfUnknownSizeGetTheAverageSize() {
+        List<Fragment> fragments = new ArrayList<>();
+        fragments.add(fragment("known1", 10));
+        fragments.add(fragment("known2", 30));
+        fragments.add(new Fragment("unknown1"));
+        fragments.add(fragment("unknown2", -1));
+
+        SizeBalancedFragmentAssigner assigner = new SizeBalancedFragmentAssigner(2, 0);
+        List<List<Fragment>> assignments = assignAll(assigner, fragments, 2);
+
+        assertArrayEquals(new long[]{40, 40}, assigner.getSegmentSizes());
+        assertEquals(Arrays.asList("known1", "known2"), names(assignments.get(0)));
+        assertEquals(Arrays.asList("unknown1", "unknown2"), names(assignments.get(1)));
+    }
+
+    @Test
+    public void testFragmentsWithoutSizeAreBalancedByCount() {
+        List<Fragment> fragments = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            fragments.add(new Fragment("f" + i));
+        }
+
+        SizeBalancedFragmentAssigner assigner = new SizeBalancedFragmentAssigner(3, 2);
+        List<List<Fragment>> assignments = assignAll(assigner, fragments, 3);
+
+        // fragments of the same size are spread starting at the shifted segment like the round-robin policy
+        assertEquals(Arrays.asList("f1", "f4"), names(assignments.get(0)));
+        assertEquals(Arrays.asList("f2", "f5"), names(assignments.get(1)));
+        assertEquals(Arrays.asList("f0", "f3", "f6"), names(assignments.get(2)));
+        assertAssignedOnce(fragments, assignments);
+    }
+
+    private List<List<Fragment>> assignAll(SizeBalancedFragmentAssigner assigner, List<Fragment> fragments, int totalSegments) {
+        List<List<Fragment>> assignments = new ArrayList<>();
+        for (int segmentId = 0; segmentId < totalSegments; segmentId++) {
+            assignments.add(assigner.assign(fragments, segmentId));
+        }
+        return assignments;
+    }
+
+    private void assertAssignedOnce(List<Fragment> fragments, List<List<Fragment>> assignments) {
+        Set<String> assigned = new HashSet<>();
+        int count = 0;
+        for (List<Fragment> assignment : assignments) {
+            for (Fragment fragment : assignment) {
+                assigned.add(fragment.getSourceName());
+                count++;
+            }
+        }
+        assertEquals(fragments.size(), count);
+        assertEquals(fragments.size(), assigned.size());
+    }
+
+    private List<String> names(List<Fragment> fragments) {
+        return fragments.stream().map(Fragment::getSourceName).collect(Collectors.toList());
+    }
+
+    private Fragment fragment(String sourceName, long size) {
+        return new Fragment(sourceName, new FragmentMetadata() {
+            @Override
+            public long getEstimatedSize() {
+                return size;
+            }
+        });
+    }
+}
@@ -3,6 +3,7 @@ package org.greenplum.pxf.service.bridge;
 import org.apache.hadoop.conf.Configuration;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.service.utilities.BasePluginFactory;
 import org.greenplum.pxf.service.utilities.GSSFailureHandler;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,9 +16,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -39,6 +43,8 @@ public class ReadBridgeTest {
     private Accessor mockAccessor2;
     @Mock
     private Accessor mockAccessor3;
+    @Mock
+    private Resolver mockResolver;
 
     @BeforeEach
     public void setup() {
@@ -140,6 +146,44 @@ public class ReadBridgeTest {
         verifyNoMoreInteractions(mockPluginFactory);
     }
 
+    @Test
+    public void testPluginsAreReleasedAfterTheFragmentIsRead() throws Exception {
+        context.setAccessor("accessor");
+        context.setResolver("resolver");
+        when(mockPluginFactory.getPlugin(context, "accessor")).thenReturn(mockAccessor1);
+        when(mockPluginFactory.getPlugin(context, "resolver")).thenReturn(mockResolver);
+        when(mockAccessor1.openForRead()).thenReturn(true);
+        when(mockAccessor1.readNextObject()).thenReturn(null);
+
+        bridge = new ReadBridge(mockPluginFactory, context, handler);
+        assertTrue(bridge.beginIteration());
+        assertNull(bridge.getNext());
+        bridge.endIteration();
+
+        verify(mockAccessor1).closeForRead();
+        verify(mockPluginFactory).releasePlugin(context, mockAccessor1);
+        verify(mockPluginFactory).releasePlugin(context, mockResolver);
+    }
+
+    @Test
+    public void testPluginsAreDiscardedAfterAFailure() throws Exception {
+        context.setAccessor("accessor");
+        context.setResolver("resolver");
+        when(mockPluginFactory.getPlugin(context, "accessor")).thenReturn(mockAccessor1);
+        when(mockPluginFactory.getPlugin(context, "resolver")).thenReturn(mockResolver);
+        when(mockAccessor1.openForRead()).thenReturn(true);
+        when(mockAccessor1.readNextObject()).thenThrow(new IOException("Read failed"));
+
+        bridge = new ReadBridge(mockPluginFactory, context, handler);
+        assertTrue(bridge.beginIteration());
+        Exception e = assertThrows(IOException.class, () -> bridge.getNext());
+        assertEquals("Read failed", e.getMessage());
+        bridge.endIteration();
+
+        verify(mockAccessor1).closeForRead();
+        verify(mockPluginFactory, never()).releasePlugin(any(), any());
+    }
+
     @Test
     public void testSetNextIsNotSupported() {
         bridge = new ReadBridge(mockPluginFactory, context, handler);
@@ -21,12 +21,17 @@ package org.greenplum.pxf.service.bridge;
 
 
 import org.apache.hadoop.conf.Configuration;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.Text;
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.SamplingAccessor;
 import org.greenplum.pxf.service.utilities.AnalyzeUtils;
+import org.greenplum.pxf.service.utilities.BasePluginFactory;
+import org.greenplum.pxf.service.utilities.GSSFailureHandler;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -34,18 +39,105 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.BitSet;
+import java.util.Deque;
+import java.util.LinkedList;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-// TODO remove Disabled
-@Disabled
 public class ReadSamplingBridgeTest {
 
+    private RequestContext context;
+    private BasePluginFactory mockPluginFactory;
+    private SamplingAccessor mockAccessor1;
+    private SamplingAccessor mockAccessor2;
+
+    @BeforeEach
+    public void setup() {
+        context = new RequestContext();
+        Configuration configuration = new Configuration();
+        configuration.set("hadoop.security.authentication", "kerberos");
+        context.setConfiguration(configuration);
+        context.setAccessor("org.greenplum.pxf.api.model.SamplingAccessor");
+        context.setResolver("org.greenplum.pxf.api.model.Resolver");
+        mockPluginFactory = mock(BasePluginFactory.class);
+        mockAccessor1 = mock(SamplingAccessor.class);
+        mockAccessor2 = mock(SamplingAccessor.class);
+    }
+
+    @Test
+    public void testSamplingAccessorReadsPartOfTheRecords() throws Exception {
+        context.setStatsSampleRatio(0.125F);
+        when(mockPluginFactory.getPlugin(context, context.getAccessor())).thenReturn(mockAccessor1);
+        when(mockAccessor1.openForRead()).thenReturn(true);
+        when(mockAccessor1.getReadRatio()).thenReturn(0.5F);
+        when(mockAccessor1.readNextObject()).thenAnswer(new Answer<OneRow>() {
+            private int count = 0;
+
+            @Override
+            public OneRow answer(InvocationOnMock invocation) {
+                return count < 100 ? new OneRow(count++) : null;
+            }
+        });
+
+        ReadSamplingBridge bridge = new TestReadSamplingBridge();
+        bridge.beginIteration();
+
+        // the accessor reads half of the records, the bridge returns a quarter of them
+        int records = 0;
+        while (bridge.getNext() != null) {
+            records++;
+        }
+        assertEquals(25, records);
+
+        InOrder inOrder = inOrder(mockAccessor1);
+        inOrder.verify(mockAccessor1).setSampleRatio(0.125F);
+        inOrder.verify(mockAccessor1).openForRead();
+        inOrder.verify(mockAccessor1).getReadRatio();
+    }
+
+    @Test
+    public void testSampleRatioIsSetOnRetriedAccessor() throws Exception {
+        context.setStatsSampleRatio(0.125F);
+        when(mockPluginFactory.getPlugin(context, context.getAccessor()))
+                .thenReturn(mockAccessor1)
+                .thenReturn(mockAccessor2);
+        when(mockAccessor1.openForRead()).thenThrow(new IOException("GSS initiate failed"));
+        when(mockAccessor2.openForRead()).thenReturn(true);
+        when(mockAccessor2.getReadRatio()).thenReturn(1F);
+
+        ReadSamplingBridge bridge = new TestReadSamplingBridge();
+        bridge.beginIteration();
+
+        InOrder inOrder = inOrder(mockAccessor1, mockAccessor2);
+        inOrder.verify(mockAccessor1).setSampleRatio(0.125F);
+        inOrder.verify(mockAccessor1).openForRead();
+        inOrder.verify(mockAccessor2).setSampleRatio(0.125F);
+        inOrder.verify(mockAccessor2).openForRead();
+    }
+
+    /**
+     * ReadSamplingBridge that outputs the data of the rows read by the accessor
+     */
+    private class TestReadSamplingBridge extends ReadSamplingBridge {
+
+        TestReadSamplingBridge() {
+            super(mockPluginFactory, context, new GSSFailureHandler());
+        }
+
+        @Override
+        protected Deque<Writable> makeOutput(OneRow oneRow) {
+            Deque<Writable> output = new LinkedList<>();
+            output.add(new Text(String.valueOf(oneRow.getData())));
+            return output;
+        }
+    }
+
     /**
      * Writable test object to test ReadSamplingBridge. The object receives a
      * string and returns it in its toString function.
@@ -0,0 +1,96 @@
+package org.greenplum.pxf.service.controller;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.google.common.io.ByteStreams;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.greenplum.pxf.service.TransferCompression;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressingOutputStreamTest {
+
+    @Test
+    public void testZstdRoundTrip() throws Exception {
+        byte[] data = generateData();
+        byte[] compressed = compress(TransferCompression.ZSTD, 3, data);
+
+        assertArrayEquals(data, ByteStreams.toByteArray(new ZstdInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testLz4RoundTrip() throws Exception {
+        byte[] data = generateData();
+        byte[] compressed = compress(TransferCompression.LZ4, 0, data);
+
+        assertArrayEquals(data, ByteStreams.toByteArray(new LZ4FrameInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testLz4HighCompressionRoundTrip() throws Exception {
+        byte[] data = generateData();
+        byte[] compressed = compress(TransferCompression.LZ4, 9, data);
+
+        assertArrayEquals(data, ByteStreams.toByteArray(new LZ4FrameInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testStatisticsAndUnderlyingStreamIsNotClosed() throws Exception {
+        byte[] data = generateData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                throw new IllegalStateException("the response stream must not be closed");
+            }
+        };
+
+        CompressingOutputStream stream = new CompressingOutputStream(out, TransferCompression.ZSTD, 3);
+        stream.write(data, 0, 10);
+        stream.write(data[10]);
+        stream.write(data, 11, data.length - 11);
+        stream.finish();
+        // finishing is idempotent
+        stream.close();
+
+        assertEquals(data.length, stream.getUncompressedByteCount());
+        assertEquals(out.size(), stream.getCompressedByteCount());
+        assertTrue(stream.getCompressedByteCount() < data.length / 4);
+        assertTrue(stream.getCpuTimeNanos() >= 0);
+
+        InputStream in = new ZstdInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertArrayEquals(data, ByteStreams.toByteArray(in));
+    }
+
+    private byte[] compress(TransferCompression compression, int level, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressingOutputStream stream = new CompressingOutputStream(out, compression, level);
+        // write the data in chunks of varying sizes, smaller and larger than the buffer
+        int offset = 0;
+        int chunk = 1;
+        while (offset < data.length) {
+            int length = Math.min(chunk, data.length - offset);
+            stream.write(data, offset, length);
+            offset += length;
+            chunk = chunk * 7 % 150_001 + 1;
+        }
+        stream.finish();
+        assertEquals(data.length, stream.getUncompressedByteCount());
+        return out.toByteArray();
+    }
+
+    private byte[] generateData() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            sb.append(i).append(",row number ").append(i).append(",").append(i % 17 == 0).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
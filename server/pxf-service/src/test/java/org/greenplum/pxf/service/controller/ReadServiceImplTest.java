@@ -32,6 +32,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 
@@ -62,6 +63,8 @@ public class ReadServiceImplTest {
     private Writable mockRecord1, mockRecord2, mockRecord3;
     @Mock
     private RequestContext mockContext;
+    @Mock
+    private RequestContext mockFragmentContext1, mockFragmentContext2;
 
     private ReadServiceImpl readService;
 
@@ -75,7 +78,7 @@ public class ReadServiceImplTest {
             return result;
         });
 
-        readService = new ReadServiceImpl(mockConfigurationFactory, mockBridgeFactory, mockSecurityService, mockFragmenterService, mockMetricReporter);
+        readService = new ReadServiceImpl(mockConfigurationFactory, mockBridgeFactory, mockSecurityService, mockFragmenterService, mockMetricReporter, 4);
     }
 
     @Test
@@ -255,6 +258,69 @@ public class ReadServiceImplTest {
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void testReadDataMultiFragmentPrefetch() throws Exception {
+        when(mockContext.getConfiguration()).thenReturn(mockConfiguration);
+        when(mockConfiguration.getInt("pxf.read.prefetch.fragments", 0)).thenReturn(1);
+        when(mockMetricReporter.getReportFrequency()).thenReturn(2L);
+        when(mockFragmentList.size()).thenReturn(2);
+        when(mockContext.copy()).thenReturn(mockFragmentContext1, mockFragmentContext2);
+
+        // 1st frag
+        when(mockFragmentList.get(0)).thenReturn(mockFragment1);
+        when(mockBridgeFactory.getBridge(mockFragmentContext1)).thenReturn(mockBridge1);
+        when(mockBridge1.beginIteration()).thenReturn(true);
+        when(mockBridge1.getNext()).thenReturn(mockRecord1).thenReturn(null);
+        doAnswer(writeTestData("hello")).when(mockRecord1).write(any(DataOutputStream.class));
+
+        // 2nd frag
+        when(mockFragmentList.get(1)).thenReturn(mockFragment2);
+        when(mockBridgeFactory.getBridge(mockFragmentContext2)).thenReturn(mockBridge2);
+        when(mockBridge2.beginIteration()).thenReturn(true);
+        when(mockBridge2.getNext()).thenReturn(mockRecord2, mockRecord3, null);
+        doAnswer(writeTestData("world!")).when(mockRecord2).write(any(DataOutputStream.class));
+        doAnswer(writeTestData("Boo!")).when(mockRecord3).write(any(DataOutputStream.class));
+
+        readService.readData(mockContext, mockOutputStream);
+
+        // records of a prefetched fragment are written in chunks, in the order of the fragments
+        InOrder inOrder = inOrder(mockOutputStream, mockMetricReporter);
+        inOrder.verify(mockOutputStream).write("hello".getBytes(StandardCharsets.UTF_8), 0, 5);
+        inOrder.verify(mockMetricReporter).reportCounter(MetricsReporter.PxfMetric.RECORDS_SENT, 1, mockFragmentContext1);
+        inOrder.verify(mockMetricReporter).reportCounter(MetricsReporter.PxfMetric.BYTES_SENT, 5, mockFragmentContext1);
+        inOrder.verify(mockMetricReporter).reportTimer(same(MetricsReporter.PxfMetric.FRAGMENTS_SENT), any(Duration.class), same(mockFragmentContext1), eq(true));
+        inOrder.verify(mockOutputStream).write("world!Boo!".getBytes(StandardCharsets.UTF_8), 0, 10);
+        inOrder.verify(mockMetricReporter).reportCounter(MetricsReporter.PxfMetric.RECORDS_SENT, 2, mockFragmentContext2);
+        inOrder.verify(mockMetricReporter).reportCounter(MetricsReporter.PxfMetric.BYTES_SENT, 10, mockFragmentContext2);
+        inOrder.verify(mockMetricReporter).reportTimer(same(MetricsReporter.PxfMetric.FRAGMENTS_SENT), any(Duration.class), same(mockFragmentContext2), eq(true));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testReadDataPrefetchFragmentException() throws Exception {
+        when(mockContext.getConfiguration()).thenReturn(mockConfiguration);
+        when(mockConfiguration.getInt("pxf.read.prefetch.fragments", 0)).thenReturn(1);
+        when(mockMetricReporter.getReportFrequency()).thenReturn(5L);
+        when(mockFragmentList.size()).thenReturn(2);
+        when(mockContext.copy()).thenReturn(mockFragmentContext1, mockFragmentContext2);
+        when(mockFragmentList.get(0)).thenReturn(mockFragment1);
+        when(mockFragmentList.get(1)).thenReturn(mockFragment2);
+        when(mockBridgeFactory.getBridge(mockFragmentContext1)).thenReturn(mockBridge1);
+        // the 2nd fragment might get cancelled before its worker thread asks for a bridge
+        lenient().when(mockBridgeFactory.getBridge(mockFragmentContext2)).thenReturn(mockBridge2);
+        when(mockBridge1.beginIteration()).thenReturn(true);
+        when(mockBridge1.getNext()).thenReturn(mockRecord1).thenThrow(new Exception());
+        doAnswer(writeTestData("hello")).when(mockRecord1).write(any(DataOutputStream.class));
+
+        assertThrows(PxfRuntimeException.class, () -> readService.readData(mockContext, mockOutputStream));
+        InOrder inOrder = inOrder(mockOutputStream, mockMetricReporter);
+        inOrder.verify(mockOutputStream).write("hello".getBytes(StandardCharsets.UTF_8), 0, 5);
+        inOrder.verify(mockMetricReporter).reportCounter(MetricsReporter.PxfMetric.RECORDS_SENT, 1, mockFragmentContext1);
+        inOrder.verify(mockMetricReporter).reportCounter(MetricsReporter.PxfMetric.BYTES_SENT, 5, mockFragmentContext1);
+        inOrder.verify(mockMetricReporter).reportTimer(same(MetricsReporter.PxfMetric.FRAGMENTS_SENT), any(Duration.class), same(mockFragmentContext1), eq(false));
+        inOrder.verifyNoMoreInteractions();
+    }
+
     // helper for writing mock record to a mock output stream
     // mockOutputStream -> CountingOutputStream -> DataOutputStream
     // in order for the us to see the side-effect of CountingOutputStream,
@@ -24,6 +24,7 @@ import org.apache.hadoop.security.UserGroupInformation;
 import org.greenplum.pxf.api.error.PxfRuntimeException;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.security.SecureLogin;
+import org.greenplum.pxf.service.MetricsReporter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,12 +34,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
 import java.security.PrivilegedAction;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -51,6 +55,7 @@ public class BaseSecurityServiceTest {
     private Configuration configuration;
     private RequestContext context;
     private SecurityService service;
+    private UGICache ugiCache;
 
     @Mock
     private SecureLogin mockSecureLogin;
@@ -60,13 +65,17 @@ public class BaseSecurityServiceTest {
     private UserGroupInformation mockLoginUGI;
     @Mock
     private UserGroupInformation mockProxyUGI;
+    @Mock
+    private MetricsReporter mockMetricsReporter;
 
     @BeforeEach
     public void setup() {
         context = new RequestContext();
         configuration = new Configuration();
 
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, true);
+        // no caching, every request gets a new UGI
+        ugiCache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ZERO, 1000);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, true);
 
         context.setUser("gpdb-user");
         context.setTransactionId("xid");
@@ -124,7 +133,7 @@ public class BaseSecurityServiceTest {
     @Test
     public void determineRemoteUser_IsGpdbUser_NoKerberos_Impersonation_ServiceUser_NoExpansion() throws Exception {
         // no kerberos should cause no expansion anyways
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         expectScenario("gpdb-user", false, true, true, false);
         service.doAs(context, EMPTY_ACTION);
         verifyScenario("gpdb-user", false, true, false);
@@ -159,7 +168,7 @@ public class BaseSecurityServiceTest {
     public void determineRemoteUser_IsLoginUser_Kerberos_NoImpersonation_NoServiceUser_NoExpansion() throws Exception {
         // no impersonation should not attempt expansion and just take the login name which is already expanded
         // since this is kerberos use case and the login user (unlike gpdb user) should always have realm part
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         expectScenario("login-user@REALM", true, false, false, false);
         service.doAs(context, EMPTY_ACTION);
         verifyScenario("login-user@REALM", true, false, false);
@@ -168,7 +177,7 @@ public class BaseSecurityServiceTest {
     @Test
     public void determineRemoteUser_IsLoginUser_Kerberos_NoImpersonation_NoServiceUser_NoExpansion_ConstrainedDelegation() throws Exception {
         // this is a useless case as constrained delegation is enabled for no reason, but it is a possible config combo
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         expectScenario("login-user@REALM", true, false, false, true);
         service.doAs(context, EMPTY_ACTION);
         verifyScenario("login-user@REALM", true, false, true, false);
@@ -191,7 +200,7 @@ public class BaseSecurityServiceTest {
     @Test
     public void determineRemoteUser_IsServiceUser_Kerberos_NoImpersonation_ServiceUser_NoExpansion() throws Exception {
         // no impersonation should not attempt expansion and just take the service name which will is not expanded
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         expectScenario("service-user", true, false, true, false);
         service.doAs(context, EMPTY_ACTION);
         verifyScenario("service-user", true, false, false);
@@ -200,7 +209,7 @@ public class BaseSecurityServiceTest {
     @Test
     public void determineRemoteUser_IsServiceUser_Kerberos_NoImpersonation_ServiceUser_NoExpansion_ConstrainedDelegation() throws Exception {
         // constrained delegation will overrule and perform expansion
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         expectScenario("service-user@REALM", true, false, true, true);
         service.doAs(context, EMPTY_ACTION);
         verifyScenario("service-user@REALM", true, false, true);
@@ -228,7 +237,7 @@ public class BaseSecurityServiceTest {
     @Test
     public void determineRemoteUser_IsGpdbUser_Kerberos_Impersonation_NoServiceUser_NoExpansion() throws Exception {
         // no expansion will still use short name
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         expectScenario("gpdb-user", true, true, false, false);
         service.doAs(context, EMPTY_ACTION);
         verifyScenario("gpdb-user", true, true, false);
@@ -244,7 +253,7 @@ public class BaseSecurityServiceTest {
     @Test
     public void determineRemoteUser_IsGpdbUser_Kerberos_Impersonation_ServiceUser_NoExpansion() throws Exception {
         // no expansion will still use short name
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         expectScenario("gpdb-user", true, true, true, false);
         service.doAs(context, EMPTY_ACTION);
         verifyScenario("gpdb-user", true, true, false);
@@ -267,7 +276,7 @@ public class BaseSecurityServiceTest {
 
     @Test
     public void determineRemoteUser_IsGpdbUser_Kerberos_Impersonation_ServiceUser_NoExpansion_ConstrainedDelegation() throws Exception {
-        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, false);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, false);
         // service user is irrelevant for kerberos with impersonation
         expectScenario("gpdb-user@REALM", true, true, true, true);
         service.doAs(context, EMPTY_ACTION);
@@ -294,6 +303,56 @@ public class BaseSecurityServiceTest {
         verify(mockUGIProvider).destroy(any(UserGroupInformation.class));
     }
 
+    /* ----------- methods that test caching UGI ----------- */
+
+    @Test
+    public void testCachedUGIIsReused() throws Exception {
+        ugiCache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 1000);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, true);
+        expectScenario("gpdb-user", false, true, false, false);
+
+        service.doAs(context, EMPTY_ACTION);
+        service.doAs(context, EMPTY_ACTION);
+
+        verify(mockUGIProvider).createProxyUser("gpdb-user", mockLoginUGI);
+        verify(mockProxyUGI, times(2)).doAs(ArgumentMatchers.<PrivilegedAction<Object>>any());
+        verify(mockUGIProvider, never()).destroy(any(UserGroupInformation.class));
+        verify(mockMetricsReporter).reportCounter(MetricsReporter.PxfMetric.UGI_CACHE_MISSES, 1, context);
+        verify(mockMetricsReporter).reportCounter(MetricsReporter.PxfMetric.UGI_CACHE_HITS, 1, context);
+        assertEquals(1, ugiCache.size());
+    }
+
+    @Test
+    public void testCachedUGIIsNotReusedForDifferentUser() throws Exception {
+        ugiCache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 1000);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, true);
+        expectScenario("gpdb-user", false, true, false, false);
+        when(mockUGIProvider.createProxyUser("other-user", mockLoginUGI)).thenReturn(mockProxyUGI);
+
+        service.doAs(context, EMPTY_ACTION);
+        context.setUser("other-user");
+        service.doAs(context, EMPTY_ACTION);
+
+        verify(mockUGIProvider).createProxyUser("gpdb-user", mockLoginUGI);
+        verify(mockUGIProvider).createProxyUser("other-user", mockLoginUGI);
+        verify(mockMetricsReporter, times(2)).reportCounter(MetricsReporter.PxfMetric.UGI_CACHE_MISSES, 1, context);
+        assertEquals(2, ugiCache.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCachedUGIIsDestroyedWhenTheActionExecutionThrowsRuntimeException() throws Exception {
+        ugiCache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 1000);
+        service = new BaseSecurityService(mockSecureLogin, mockUGIProvider, ugiCache, true);
+        expectScenario("gpdb-user", false, true, false, false);
+        doThrow(RuntimeException.class).when(mockProxyUGI).doAs(any(PrivilegedAction.class));
+
+        assertThrows(RuntimeException.class, () -> service.doAs(context, EMPTY_ACTION));
+
+        verify(mockUGIProvider).destroy(mockProxyUGI);
+        assertEquals(0, ugiCache.size());
+    }
+
     /* ----------- helper methods ----------- */
 
     private void expectScenario(String remoteUser, boolean kerberos, boolean impersonation, boolean serviceUser, boolean constrainedDelegation) throws Exception {
@@ -0,0 +1,185 @@
+package org.greenplum.pxf.service.security;
+
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.MetricsReporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class UGICacheTest {
+
+    private RequestContext context;
+    private UserGroupInformation loginUser;
+
+    @Mock
+    private UGIProvider mockUGIProvider;
+    @Mock
+    private MetricsReporter mockMetricsReporter;
+
+    @BeforeEach
+    public void setup() {
+        context = new RequestContext();
+        loginUser = mock(UserGroupInformation.class);
+    }
+
+    @Test
+    public void testSessionIsReused() throws Exception {
+        UGICache cache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 10);
+
+        UGICache.Session first = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        cache.release(first, false);
+        UGICache.Session second = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        cache.release(second, false);
+
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+        verify(mockUGIProvider, never()).destroy(any());
+        verify(mockMetricsReporter).reportCounter(MetricsReporter.PxfMetric.UGI_CACHE_MISSES, 1, context);
+        verify(mockMetricsReporter).reportCounter(MetricsReporter.PxfMetric.UGI_CACHE_HITS, 1, context);
+    }
+
+    @Test
+    public void testSessionIsNotReusedForDifferentKeys() {
+        UGICache cache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 10);
+        UserGroupInformation otherLoginUser = mock(UserGroupInformation.class);
+
+        UGICache.Session session = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        assertNotSame(session, cache.acquire(key("bob"), () -> mock(UserGroupInformation.class), context));
+        assertNotSame(session, cache.acquire(new UGICache.SessionKey("default", "dir", "alice", otherLoginUser, true, false, null),
+                () -> mock(UserGroupInformation.class), context));
+        assertNotSame(session, cache.acquire(new UGICache.SessionKey("default", "dir", "alice", loginUser, false, false, null),
+                () -> mock(UserGroupInformation.class), context));
+        assertNotSame(session, cache.acquire(new UGICache.SessionKey("default", "dir", "alice", loginUser, true, false,
+                        Collections.singletonMap("fs.s3a.access.key", "secret")),
+                () -> mock(UserGroupInformation.class), context));
+        assertSame(session, cache.acquire(new UGICache.SessionKey("default", "dir", "alice", loginUser, true, false,
+                        Collections.emptyMap()),
+                () -> mock(UserGroupInformation.class), context));
+
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    public void testCachingDisabled() throws Exception {
+        UGICache cache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ZERO, 10);
+
+        UGICache.Session first = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        UGICache.Session second = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        assertNotSame(first, second);
+        verify(mockUGIProvider, never()).destroy(any());
+
+        cache.release(first, false);
+        verify(mockUGIProvider).destroy(first.getUgi());
+        cache.release(second, false);
+        verify(mockUGIProvider).destroy(second.getUgi());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictedSessionIsDestroyedWhenNoLongerInUse() throws Exception {
+        UGICache cache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 1);
+
+        UGICache.Session alice = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        UGICache.Session aliceAgain = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        // evicts the session of alice from the cache while it is still in use
+        UGICache.Session bob = cache.acquire(key("bob"), () -> mock(UserGroupInformation.class), context);
+        assertEquals(1, cache.size());
+
+        cache.release(alice, false);
+        verify(mockUGIProvider, never()).destroy(any());
+        cache.release(aliceAgain, false);
+        verify(mockUGIProvider).destroy(alice.getUgi());
+
+        // a new session is created for alice, evicting the session of bob
+        assertNotSame(alice, cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context));
+        cache.release(bob, false);
+        verify(mockUGIProvider).destroy(bob.getUgi());
+    }
+
+    @Test
+    public void testInvalidatedSessionIsNotReused() throws Exception {
+        UGICache cache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 10);
+
+        UGICache.Session first = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        UGICache.Session second = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        cache.release(first, true);
+        assertEquals(0, cache.size());
+        verify(mockUGIProvider, never()).destroy(any());
+
+        UGICache.Session third = cache.acquire(key("alice"), () -> mock(UserGroupInformation.class), context);
+        assertNotSame(first, third);
+
+        cache.release(second, false);
+        verify(mockUGIProvider).destroy(first.getUgi());
+        cache.release(third, false);
+        verify(mockUGIProvider, times(1)).destroy(any());
+    }
+
+    @Test
+    public void testSessionIsNeverDestroyedWhileInUse() throws Exception {
+        UGICache cache = new UGICache(mockUGIProvider, mockMetricsReporter, Duration.ofMinutes(5), 2);
+        Map<UserGroupInformation, Boolean> destroyed = Collections.synchronizedMap(new IdentityHashMap<>());
+        AtomicInteger failures = new AtomicInteger();
+        doAnswer(invocation -> {
+            UserGroupInformation ugi = invocation.getArgument(0);
+            if (destroyed.put(ugi, true) != null) {
+                failures.incrementAndGet();
+            }
+            return null;
+        }).when(mockUGIProvider).destroy(any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    UGICache.Session session = cache.acquire(key("user" + ((thread + i) % 4)),
+                            () -> mock(UserGroupInformation.class), context);
+                    // the session must not have been destroyed while this thread was using it
+                    if (destroyed.containsKey(session.getUgi())) {
+                        failures.incrementAndGet();
+                    }
+                    cache.release(session, i % 100 == 0);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(0, failures.get());
+        assertTrue(cache.size() <= 2);
+    }
+
+    private UGICache.SessionKey key(String remoteUser) {
+        return new UGICache.SessionKey("default", "dir", remoteUser, loginUser, true, false, null);
+    }
+}
@@ -0,0 +1,170 @@
+package org.greenplum.pxf.service.utilities;
+
+import org.apache.hadoop.conf.Configuration;
+import org.greenplum.pxf.api.model.BasePlugin;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.ResettablePlugin;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BasePluginFactoryTest {
+
+    private static final String PLUGIN_CLASS = TestPlugin.class.getName();
+    private static final String RESETTABLE_PLUGIN_CLASS = TestResettablePlugin.class.getName();
+
+    private BasePluginFactory factory;
+    private RequestContext context;
+
+    @BeforeEach
+    public void setup() {
+        factory = new BasePluginFactory();
+        context = newContext(1);
+    }
+
+    @Test
+    public void testPluginIsCreatedAndInitialized() {
+        TestPlugin plugin = factory.getPlugin(context, PLUGIN_CLASS);
+        assertSame(context, plugin.getContext());
+        assertEquals(1, plugin.initializations);
+        assertNotSame(plugin, factory.getPlugin(context, PLUGIN_CLASS));
+    }
+
+    @Test
+    public void testPluginIsNotReused() {
+        TestPlugin plugin = factory.getPlugin(context, PLUGIN_CLASS);
+        factory.releasePlugin(context, plugin);
+        assertNotSame(plugin, factory.getPlugin(context, PLUGIN_CLASS));
+    }
+
+    @Test
+    public void testResettablePluginIsReusedForTheSameQuery() {
+        TestResettablePlugin plugin = factory.getPlugin(context, RESETTABLE_PLUGIN_CLASS);
+        factory.releasePlugin(context, plugin);
+
+        RequestContext nextFragmentContext = newContext(1);
+        nextFragmentContext.setDataSource("/data/file-2");
+        TestResettablePlugin reused = factory.getPlugin(nextFragmentContext, RESETTABLE_PLUGIN_CLASS);
+        assertSame(plugin, reused);
+        assertSame(nextFragmentContext, reused.getContext());
+        assertEquals(1, reused.initializations);
+        assertEquals(1, reused.resets);
+
+        // the plugin is in use until it is released again
+        assertNotSame(plugin, factory.getPlugin(nextFragmentContext, RESETTABLE_PLUGIN_CLASS));
+    }
+
+    @Test
+    public void testResettablePluginIsNotReusedForOtherSegments() {
+        TestResettablePlugin plugin = factory.getPlugin(context, RESETTABLE_PLUGIN_CLASS);
+        factory.releasePlugin(context, plugin);
+        assertNotSame(plugin, factory.getPlugin(newContext(2), RESETTABLE_PLUGIN_CLASS));
+    }
+
+    @Test
+    public void testResettablePluginIsNotReusedForOtherProjections() {
+        TestResettablePlugin plugin = factory.getPlugin(context, RESETTABLE_PLUGIN_CLASS);
+        factory.releasePlugin(context, plugin);
+
+        RequestContext otherContext = newContext(1);
+        otherContext.getTupleDescription().get(0).setProjected(false);
+        assertNotSame(plugin, factory.getPlugin(otherContext, RESETTABLE_PLUGIN_CLASS));
+    }
+
+    @Test
+    public void testResettablePluginIsReusedForTheProfileOfTheFragment() {
+        // the same context is used for all the fragments, with the profile of the fragment when it has one
+        context.setProfile("hdfs:parquet");
+        TestResettablePlugin plugin = factory.getPlugin(context, RESETTABLE_PLUGIN_CLASS);
+        factory.releasePlugin(context, plugin);
+
+        context.setProfile("s3:parquet");
+        TestResettablePlugin otherProfilePlugin = factory.getPlugin(context, RESETTABLE_PLUGIN_CLASS);
+        assertNotSame(plugin, otherProfilePlugin);
+        factory.releasePlugin(context, otherProfilePlugin);
+
+        context.setProfile("hdfs:parquet");
+        assertSame(plugin, factory.getPlugin(context, RESETTABLE_PLUGIN_CLASS));
+        context.setProfile("s3:parquet");
+        assertSame(otherProfilePlugin, factory.getPlugin(context, RESETTABLE_PLUGIN_CLASS));
+    }
+
+    @Test
+    public void testClassWithoutEmptyConstructor() {
+        Exception e = assertThrows(RuntimeException.class,
+                () -> factory.getPlugin(context, NoEmptyConstructorPlugin.class.getName()));
+        assertEquals(String.format("Class %s does not have an empty constructor", NoEmptyConstructorPlugin.class.getName()), e.getMessage());
+    }
+
+    @Test
+    public void testClassThatIsNotAPlugin() {
+        Exception e = assertThrows(RuntimeException.class, () -> factory.getPlugin(context, String.class.getName()));
+        assertEquals("Class java.lang.String does not implement Plugin interface", e.getMessage());
+    }
+
+    @Test
+    public void testConstructorException() {
+        Exception e = assertThrows(RuntimeException.class,
+                () -> factory.getPlugin(context, FailingPlugin.class.getName()));
+        assertEquals("constructor failed", e.getCause().getMessage());
+    }
+
+    private RequestContext newContext(int segmentId) {
+        RequestContext context = new RequestContext();
+        context.setConfiguration(new Configuration());
+        context.setTransactionId("XID-1");
+        context.setSegmentId(segmentId);
+        context.setSchemaName("public");
+        context.setTableName("table");
+        context.setDataSource("/data/file-1");
+        context.setTupleDescription(new ArrayList<>(Collections.singletonList(
+                new ColumnDescriptor("id", 23, 0, "int4", null))));
+        return context;
+    }
+
+    public static class TestPlugin extends BasePlugin {
+
+        int initializations;
+
+        @Override
+        public void afterPropertiesSet() {
+            initializations++;
+        }
+
+        RequestContext getContext() {
+            return context;
+        }
+    }
+
+    public static class TestResettablePlugin extends TestPlugin implements ResettablePlugin {
+
+        int resets;
+
+        @Override
+        public void reset(RequestContext context) {
+            setRequestContext(context);
+            resets++;
+        }
+    }
+
+    public static class NoEmptyConstructorPlugin extends BasePlugin {
+
+        public NoEmptyConstructorPlugin(String argument) {
+        }
+    }
+
+    public static class FailingPlugin extends BasePlugin {
+
+        public FailingPlugin() {
+            throw new IllegalStateException("constructor failed");
+        }
+    }
+}